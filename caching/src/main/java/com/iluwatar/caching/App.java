@@ -37,8 +37,9 @@ import lombok.extern.slf4j.Slf4j;
  * cons. They are <code>write-through</code> which writes data to the cache and
  * DB in a single transaction, <code>write-around</code> which writes data
  * immediately into the DB instead of the cache, <code>write-behind</code>
- * which writes data into the cache initially whilst the data is only
- * written into the DB when the cache is full, and <code>cache-aside</code>
+ * which writes data into the cache initially whilst the data is written
+ * into the DB later, in batches, by a background flusher, and
+ * <code>cache-aside</code>
  * which pushes the responsibility of keeping the data synchronized in both
  * data sources to the application itself. The <code>read-through</code>
  * strategy is also included in the mentioned four strategies --
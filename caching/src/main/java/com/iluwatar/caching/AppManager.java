@@ -25,6 +25,7 @@
 package com.iluwatar.caching;
 
 import com.iluwatar.caching.database.DbManager;
+import com.iluwatar.caching.stats.CacheStatistics;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 
@@ -50,6 +51,10 @@ public class AppManager {
    * Cache Store.
    */
   private final CacheStore cacheStore;
+  /**
+   * Whether finds and saves are logged.
+   */
+  private volatile boolean hotPathLogging = true;
 
   /**
    * Constructor.
@@ -77,6 +82,7 @@ public class AppManager {
    */
   public void initCachingPolicy(final CachingPolicy policy) {
     cachingPolicy = policy;
+    cacheStore.useStatisticsOf(policy);
     if (cachingPolicy == CachingPolicy.BEHIND) {
       Runtime.getRuntime().addShutdownHook(new Thread(cacheStore::flushCache));
     }
@@ -90,7 +96,9 @@ public class AppManager {
    * @return {@link UserAccount}
    */
   public UserAccount find(final String userId) {
-    LOGGER.info("Trying to find {} in cache", userId);
+    if (hotPathLogging) {
+      LOGGER.info("Trying to find {} in cache", userId);
+    }
     if (cachingPolicy == CachingPolicy.THROUGH
             || cachingPolicy == CachingPolicy.AROUND) {
       return cacheStore.readThrough(userId);
@@ -108,7 +116,9 @@ public class AppManager {
    * @param userAccount {@link UserAccount}
    */
   public void save(final UserAccount userAccount) {
-    LOGGER.info("Save record!");
+    if (hotPathLogging) {
+      LOGGER.info("Save record!");
+    }
     if (cachingPolicy == CachingPolicy.THROUGH) {
       cacheStore.writeThrough(userAccount);
     } else if (cachingPolicy == CachingPolicy.AROUND) {
@@ -120,6 +130,26 @@ public class AppManager {
     }
   }
 
+  /**
+   * Switch the INFO logging of finds, saves, cache hits and misses on or off.
+   *
+   * @param enabled boolean
+   */
+  public void setHotPathLogging(final boolean enabled) {
+    hotPathLogging = enabled;
+    cacheStore.setHotPathLogging(enabled);
+  }
+
+  /**
+   * Statistics of a caching policy.
+   *
+   * @param policy {@link CachingPolicy}
+   * @return {@link CacheStatistics}
+   */
+  public CacheStatistics getStatistics(final CachingPolicy policy) {
+    return cacheStore.getStatistics(policy);
+  }
+
   /**
    * Returns String.
    *
@@ -146,13 +176,18 @@ public class AppManager {
    * @return {@link UserAccount}
    */
   private UserAccount findAside(final String userId) {
-    return Optional.ofNullable(cacheStore.get(userId))
-            .or(() -> {
-              Optional<UserAccount> userAccount =
-                      Optional.ofNullable(dbManager.readFromDb(userId));
-              userAccount.ifPresent(account -> cacheStore.set(userId, account));
-              return userAccount;
-            })
-            .orElse(null);
+    var stats = cacheStore.getStatistics(CachingPolicy.ASIDE);
+    var cached = cacheStore.get(userId);
+    if (cached != null) {
+      stats.recordHit();
+      return cached;
+    }
+    stats.recordMiss();
+    var start = System.nanoTime();
+    Optional<UserAccount> userAccount =
+            Optional.ofNullable(dbManager.readFromDb(userId));
+    stats.recordLoad(System.nanoTime() - start, true);
+    userAccount.ifPresent(account -> cacheStore.set(userId, account));
+    return userAccount.orElse(null);
   }
 }
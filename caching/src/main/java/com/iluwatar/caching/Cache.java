@@ -0,0 +1,136 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.concurrent.RemovalListener;
+import java.util.List;
+
+/**
+ * Contract between {@link CacheStore} and the data structure that actually
+ * holds the cached {@link UserAccount}s. {@link LruCache} is the simple,
+ * single-threaded implementation; {@link
+ * com.iluwatar.caching.concurrent.ConcurrentCache} is a thread-safe engine
+ * with pluggable admission and eviction.
+ */
+public interface Cache {
+  /**
+   * Get user account.
+   *
+   * @param userId {@link String}
+   * @return {@link UserAccount} or null when not cached
+   */
+  UserAccount get(String userId);
+
+  /**
+   * Set user account.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  void set(String userId, UserAccount userAccount);
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  boolean contains(String userId);
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  void invalidate(String userId);
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  boolean isFull();
+
+  /**
+   * Get the data that would be evicted next.
+   *
+   * @return {@link UserAccount}
+   */
+  UserAccount getLruData();
+
+  /**
+   * Clear cache.
+   */
+  void clear();
+
+  /**
+   * Returns cache data in list form.
+   *
+   * @return {@link List}
+   */
+  List<UserAccount> getCacheDataInListForm();
+
+  /**
+   * Set cache capacity.
+   *
+   * @param newCapacity int
+   */
+  void setCapacity(int newCapacity);
+
+  /**
+   * Set the listener notified when entries leave the cache.
+   *
+   * @param listener {@link RemovalListener}
+   */
+  void setRemovalListener(RemovalListener listener);
+
+  /**
+   * Get the listener notified when entries leave the cache.
+   *
+   * @return {@link RemovalListener}, {@link RemovalListener#NONE} if none was set
+   */
+  RemovalListener getRemovalListener();
+
+  /**
+   * Notify another listener when entries leave the cache, after the ones
+   * already set.
+   *
+   * @param listener {@link RemovalListener}
+   */
+  default void addRemovalListener(RemovalListener listener) {
+    setRemovalListener(getRemovalListener().andThen(listener));
+  }
+
+  /**
+   * Whether the entry is about to expire and should be reloaded in the
+   * background. Caches without expiry never ask for a refresh.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  default boolean needsRefresh(String userId) {
+    return false;
+  }
+}
@@ -25,9 +25,27 @@
 package com.iluwatar.caching;
 
 import com.iluwatar.caching.database.DbManager;
+import com.iluwatar.caching.stats.CacheStatistics;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -39,23 +57,141 @@ public class CacheStore {
    * Cache capacity.
    */
   private static final int CAPACITY = 3;
+  /**
+   * Number of stripes of {@link #writeVersions}, a power of two.
+   */
+  private static final int WRITE_STRIPES = 64;
 
   /**
-   * Lru cache see {@link LruCache}.
+   * Backing cache, {@link LruCache} unless another {@link Cache} is plugged in.
    */
-  private LruCache cache;
+  private Cache cache;
   /**
    * DbManager.
    */
   private final DbManager dbManager;
+  /**
+   * Asynchronous writer of dirty entries, see {@link WriteBehindFlusher}.
+   */
+  private final WriteBehindFlusher writeBehindFlusher;
+  /**
+   * Runs refresh-ahead reloads.
+   */
+  private volatile Executor refreshExecutor = ForkJoinPool.commonPool();
+  /**
+   * DB loads in progress, shared by all threads missing on the same user.
+   */
+  private final Map<String, CompletableFuture<UserAccount>> inFlightLoads =
+      new ConcurrentHashMap<>();
+  /**
+   * Writes and invalidations per stripe of user ids. A load installs its
+   * result only if the stripe of its user id saw no write while it was
+   * loading, so a slow load or refresh never overwrites a newer value.
+   */
+  private final AtomicLongArray writeVersions = new AtomicLongArray(WRITE_STRIPES);
+  /**
+   * Makes changing the cache and bumping the stripe version one step.
+   */
+  private final Object[] writeLocks = new Object[WRITE_STRIPES];
+  /**
+   * Misses served by joining a load already in progress.
+   */
+  private final LongAdder deduplicatedLoads = new LongAdder();
+  /**
+   * Statistics of every caching policy.
+   */
+  private final Map<CachingPolicy, CacheStatistics> statistics =
+      new EnumMap<>(CachingPolicy.class);
+  /**
+   * Statistics of the caching policy in use.
+   */
+  private volatile CacheStatistics activeStatistics;
+  /**
+   * Whether hits and misses are logged.
+   */
+  private volatile boolean hotPathLogging = true;
 
   /**
    * Cache Store.
    * @param dataBaseManager {@link DbManager}
    */
   public CacheStore(final DbManager dataBaseManager) {
+    this(dataBaseManager, new LruCache(CAPACITY));
+  }
+
+  /**
+   * Cache Store backed by the given cache, e.g. a thread-safe
+   * {@link com.iluwatar.caching.concurrent.ConcurrentCache}.
+   * @param dataBaseManager {@link DbManager}
+   * @param backingCache {@link Cache}
+   */
+  public CacheStore(final DbManager dataBaseManager, final Cache backingCache) {
+    this(dataBaseManager, backingCache, new WriteBehindFlusher(dataBaseManager));
+  }
+
+  /**
+   * Cache Store with a custom write-behind pipeline. Evictions are counted
+   * by a removal listener added after any the backing cache already has.
+   * @param dataBaseManager {@link DbManager}
+   * @param backingCache {@link Cache}
+   * @param flusher {@link WriteBehindFlusher}
+   */
+  public CacheStore(final DbManager dataBaseManager, final Cache backingCache,
+                    final WriteBehindFlusher flusher) {
     this.dbManager = dataBaseManager;
-    initCapacity(CAPACITY);
+    this.cache = backingCache;
+    this.writeBehindFlusher = flusher;
+    Arrays.setAll(writeLocks, i -> new Object());
+    for (var policy : CachingPolicy.values()) {
+      statistics.put(policy, new CacheStatistics(flusher::getQueueDepth));
+    }
+    this.activeStatistics = statistics.get(CachingPolicy.THROUGH);
+    backingCache.addRemovalListener((userId, userAccount, cause) ->
+        activeStatistics.recordEviction(cause));
+  }
+
+  /**
+   * Record statistics under the given caching policy from now on.
+   * @param policy {@link CachingPolicy}
+   */
+  public void useStatisticsOf(final CachingPolicy policy) {
+    this.activeStatistics = statistics.get(policy);
+  }
+
+  /**
+   * Statistics of a caching policy.
+   * @param policy {@link CachingPolicy}
+   * @return {@link CacheStatistics}
+   */
+  public CacheStatistics getStatistics(final CachingPolicy policy) {
+    return statistics.get(policy);
+  }
+
+  /**
+   * Export the statistics of every caching policy through the platform MBean
+   * server, as {@code com.iluwatar.caching:type=CacheStatistics,store=<name>,policy=<policy>}.
+   * @param storeName distinguishes the MBeans of several cache stores
+   */
+  public void registerMbeans(final String storeName) {
+    var server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      for (var entry : statistics.entrySet()) {
+        server.registerMBean(entry.getValue(), new ObjectName(
+            "com.iluwatar.caching:type=CacheStatistics,store=" + ObjectName.quote(storeName)
+                + ",policy=" + entry.getKey().getPolicy()));
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register cache statistics MBeans", e);
+    }
+  }
+
+  /**
+   * Switch the INFO logging of cache hits and misses on or off. The log lines
+   * are useful when following the example, but cost throughput under load.
+   * @param enabled boolean
+   */
+  public void setHotPathLogging(final boolean enabled) {
+    this.hotPathLogging = enabled;
   }
 
   /**
@@ -71,19 +207,254 @@ public class CacheStore {
   }
 
   /**
-   * Get user account using read-through cache.
+   * Set the executor running refresh-ahead reloads.
+   * @param executor {@link Executor}
+   */
+  public void setRefreshExecutor(final Executor executor) {
+    this.refreshExecutor = executor;
+  }
+
+  /**
+   * Get user account using read-through cache. Hits on entries that are
+   * about to expire trigger an asynchronous reload, see
+   * {@link Cache#needsRefresh(String)}.
    * @param userId {@link String}
    * @return {@link UserAccount}
    */
   public UserAccount readThrough(final String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Found in Cache!");
-      return cache.get(userId);
+    var stats = activeStatistics;
+    var cached = cache.get(userId);
+    if (cached != null || cache.contains(userId)) {
+      stats.recordHit();
+      if (hotPathLogging) {
+        LOGGER.info("# Found in Cache!");
+      }
+      if (cache.needsRefresh(userId)) {
+        refreshAhead(userId);
+      }
+      return cached;
+    }
+    stats.recordMiss();
+    if (hotPathLogging) {
+      LOGGER.info("# Not found in cache! Go to DB!!");
+    }
+    return loadCoalesced(userId);
+  }
+
+  /**
+   * Get several user accounts using read-through cache. Misses with a write
+   * still pending in the {@link WriteBehindFlusher} are served from it; all
+   * other misses that no other thread is loading already are read with a
+   * single {@link DbManager#readAllFromDb} query.
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}, in request order;
+   *     users missing from the DB map to null
+   */
+  public Map<String, UserAccount> readThroughAll(final Collection<String> userIds) {
+    var stats = activeStatistics;
+    var found = new HashMap<String, UserAccount>();
+    var owned = new LinkedHashMap<String, CompletableFuture<UserAccount>>();
+    var joined = new HashMap<String, CompletableFuture<UserAccount>>();
+    for (var userId : userIds) {
+      if (found.containsKey(userId) || owned.containsKey(userId) || joined.containsKey(userId)) {
+        continue;
+      }
+      var cached = cache.get(userId);
+      if (cached != null || cache.contains(userId)) {
+        stats.recordHit();
+        found.put(userId, cached);
+        continue;
+      }
+      stats.recordMiss();
+      var pending = writeBehindFlusher.getPending(userId);
+      if (pending != null) {
+        cache.set(userId, pending);
+        found.put(userId, pending);
+        continue;
+      }
+      var future = new CompletableFuture<UserAccount>();
+      var existing = inFlightLoads.putIfAbsent(userId, future);
+      if (existing != null) {
+        deduplicatedLoads.increment();
+        joined.put(userId, existing);
+      } else {
+        owned.put(userId, future);
+      }
+    }
+    if (!owned.isEmpty()) {
+      if (hotPathLogging) {
+        LOGGER.info("# {} not found in cache! Go to DB!!", owned.size());
+      }
+      var versions = new HashMap<String, Long>();
+      owned.keySet().forEach(userId -> versions.put(userId, writeVersion(userId)));
+      var start = System.nanoTime();
+      try {
+        var loaded = dbManager.readAllFromDb(owned.keySet());
+        stats.recordLoad(System.nanoTime() - start, true);
+        owned.forEach((userId, future) -> {
+          var userAccount = loaded.get(userId);
+          installLoaded(userId, userAccount, versions.get(userId));
+          future.complete(userAccount);
+          found.put(userId, userAccount);
+        });
+      } catch (RuntimeException e) {
+        stats.recordLoad(System.nanoTime() - start, false);
+        owned.values().forEach(future -> future.completeExceptionally(e));
+        throw e;
+      } finally {
+        owned.forEach(inFlightLoads::remove);
+      }
+    }
+    joined.forEach((userId, future) -> found.put(userId, await(future)));
+    var result = new LinkedHashMap<String, UserAccount>();
+    userIds.forEach(userId -> result.put(userId, found.get(userId)));
+    return result;
+  }
+
+  /**
+   * Number of cache misses that joined a DB load already in progress instead
+   * of issuing their own.
+   * @return long
+   */
+  public long getDeduplicatedLoadCount() {
+    return deduplicatedLoads.sum();
+  }
+
+  /**
+   * Load the user account into the cache, or wait for the load another
+   * thread has already started. A write still pending in the
+   * {@link WriteBehindFlusher} is newer than anything a load can return, so
+   * it is served before joining or issuing a load.
+   * @param userId {@link String}
+   * @return {@link UserAccount}
+   */
+  private UserAccount loadCoalesced(final String userId) {
+    var pending = writeBehindFlusher.getPending(userId);
+    if (pending != null) {
+      cache.set(userId, pending);
+      return pending;
+    }
+    var future = new CompletableFuture<UserAccount>();
+    var existing = inFlightLoads.putIfAbsent(userId, future);
+    if (existing != null) {
+      deduplicatedLoads.increment();
+      return await(existing);
+    }
+    return load(userId, future, writeVersion(userId));
+  }
+
+  /**
+   * Run a registered load, publish its result and unregister it.
+   * @param userId {@link String}
+   * @param future future other threads wait on
+   * @param version {@link #writeVersion} when the load was registered
+   * @return {@link UserAccount}
+   */
+  private UserAccount load(final String userId, final CompletableFuture<UserAccount> future,
+                           final long version) {
+    var stats = activeStatistics;
+    var start = System.nanoTime();
+    try {
+      var userAccount = readFromSource(userId);
+      stats.recordLoad(System.nanoTime() - start, true);
+      installLoaded(userId, userAccount, version);
+      future.complete(userAccount);
+      return userAccount;
+    } catch (RuntimeException e) {
+      stats.recordLoad(System.nanoTime() - start, false);
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlightLoads.remove(userId, future);
+    }
+  }
+
+  /**
+   * Read the latest version of a user account: the write still pending in
+   * the {@link WriteBehindFlusher}, if any, or else the DB.
+   * @param userId {@link String}
+   * @return {@link UserAccount}
+   */
+  private UserAccount readFromSource(final String userId) {
+    var pending = writeBehindFlusher.getPending(userId);
+    return pending != null ? pending : dbManager.readFromDb(userId);
+  }
+
+  private long writeVersion(final String userId) {
+    return writeVersions.get(stripeOf(userId));
+  }
+
+  /**
+   * Change the cache for a write or invalidation, outdating the loads of the
+   * user id that are in progress.
+   * @param userId {@link String}
+   * @param change changes the cache
+   */
+  private void write(final String userId, final Runnable change) {
+    var stripe = stripeOf(userId);
+    synchronized (writeLocks[stripe]) {
+      writeVersions.incrementAndGet(stripe);
+      change.run();
+    }
+  }
+
+  /**
+   * Put a loaded user account into the cache, unless the user id was written
+   * or invalidated since the load started.
+   * @param userId {@link String}
+   * @param userAccount {@link UserAccount}
+   * @param version {@link #writeVersion} when the load started
+   */
+  private void installLoaded(final String userId, final UserAccount userAccount,
+                             final long version) {
+    var stripe = stripeOf(userId);
+    synchronized (writeLocks[stripe]) {
+      if (writeVersions.get(stripe) == version) {
+        cache.set(userId, userAccount);
+      }
+    }
+  }
+
+  private static int stripeOf(final String userId) {
+    var hash = userId.hashCode();
+    return (hash ^ (hash >>> 16)) & (WRITE_STRIPES - 1);
+  }
+
+  private static UserAccount await(final CompletableFuture<UserAccount> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Reload the user account in the background, unless it is being loaded
+   * already. The reloaded value is dropped if the user account is written or
+   * invalidated before the reload finishes.
+   * @param userId {@link String}
+   */
+  private void refreshAhead(final String userId) {
+    var future = new CompletableFuture<UserAccount>();
+    if (inFlightLoads.putIfAbsent(userId, future) != null) {
+      return;
+    }
+    var version = writeVersion(userId);
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          load(userId, future, version);
+        } catch (RuntimeException e) {
+          LOGGER.warn("# Refresh-ahead of {} failed", userId, e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      inFlightLoads.remove(userId, future);
+      future.completeExceptionally(e);
     }
-    LOGGER.info("# Not found in cache! Go to DB!!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    cache.set(userId, userAccount);
-    return userAccount;
   }
 
   /**
@@ -96,7 +467,7 @@ public class CacheStore {
     } else {
       dbManager.writeToDb(userAccount);
     }
-    cache.set(userAccount.getUserId(), userAccount);
+    write(userAccount.getUserId(), () -> cache.set(userAccount.getUserId(), userAccount));
   }
 
   /**
@@ -107,7 +478,7 @@ public class CacheStore {
     if (cache.contains(userAccount.getUserId())) {
       dbManager.updateDb(userAccount);
       // Cache data has been updated -- remove older
-      cache.invalidate(userAccount.getUserId());
+      write(userAccount.getUserId(), () -> cache.invalidate(userAccount.getUserId()));
       // version from cache.
     } else {
       dbManager.writeToDb(userAccount);
@@ -120,32 +491,30 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount readThroughWithWriteBackPolicy(final String userId) {
-    if (cache.contains(userId)) {
-      LOGGER.info("# Found in cache!");
-      return cache.get(userId);
+    var stats = activeStatistics;
+    var cached = cache.get(userId);
+    if (cached != null || cache.contains(userId)) {
+      stats.recordHit();
+      if (hotPathLogging) {
+        LOGGER.info("# Found in cache!");
+      }
+      return cached;
     }
-    LOGGER.info("# Not found in Cache!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    if (cache.isFull()) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
+    stats.recordMiss();
+    if (hotPathLogging) {
+      LOGGER.info("# Not found in Cache!");
     }
-    cache.set(userId, userAccount);
-    return userAccount;
+    return loadCoalesced(userId);
   }
 
   /**
-   * Set user account.
+   * Set user account. The DB is updated asynchronously by the
+   * {@link WriteBehindFlusher}, in batches.
    * @param userAccount {@link UserAccount}
    */
   public void writeBehind(final UserAccount userAccount) {
-    if (cache.isFull() && !cache.contains(userAccount.getUserId())) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
-    }
-    cache.set(userAccount.getUserId(), userAccount);
+    write(userAccount.getUserId(), () -> cache.set(userAccount.getUserId(), userAccount));
+    writeBehindFlusher.enqueue(userAccount);
   }
 
   /**
@@ -158,15 +527,17 @@ public class CacheStore {
   }
 
   /**
-   * Writes remaining content in the cache into the DB.
+   * Writes all pending write-behind records into the DB and disconnects.
+   *
+   * @throws IllegalStateException if the DB rejected some of the records
    */
   public void flushCache() {
     LOGGER.info("# flushCache...");
-    Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
-        .orElse(List.of())
-        .forEach(dbManager::updateDb);
-    dbManager.disconnect();
+    try {
+      writeBehindFlusher.close();
+    } finally {
+      dbManager.disconnect();
+    }
   }
 
   /**
@@ -175,7 +546,7 @@ public class CacheStore {
    */
   public String print() {
     return Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
+        .map(Cache::getCacheDataInListForm)
         .orElse(List.of())
         .stream()
         .map(userAccount -> userAccount.toString() + "\n")
@@ -197,7 +568,7 @@ public class CacheStore {
    * @param userAccount {@link UserAccount}
    */
   public void set(final String userId, final UserAccount userAccount) {
-    cache.set(userId, userAccount);
+    write(userId, () -> cache.set(userId, userAccount));
   }
 
   /**
@@ -205,6 +576,6 @@ public class CacheStore {
    * @param userId {@link String}
    */
   public void invalidate(final String userId) {
-    cache.invalidate(userId);
+    write(userId, () -> cache.invalidate(userId));
   }
 }
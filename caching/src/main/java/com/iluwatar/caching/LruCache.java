@@ -24,6 +24,8 @@
  */
 package com.iluwatar.caching;
 
+import com.iluwatar.caching.concurrent.RemovalCause;
+import com.iluwatar.caching.concurrent.RemovalListener;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -40,7 +42,7 @@ import lombok.extern.slf4j.Slf4j;
  * data. The LRU data is always at the end of the list.
  */
 @Slf4j
-public class LruCache {
+public class LruCache implements Cache {
   /**
    * Static class Node.
    */
@@ -90,6 +92,10 @@ public class LruCache {
    * End.
    */
   private Node end;
+  /**
+   * Removal listener.
+   */
+  private RemovalListener removalListener = RemovalListener.NONE;
 
   /**
    * Constructor.
@@ -107,8 +113,8 @@ public class LruCache {
    * @return {@link UserAccount}
    */
   public UserAccount get(final String userId) {
-    if (cache.containsKey(userId)) {
-      var node = cache.get(userId);
+    var node = cache.get(userId);
+    if (node != null) {
       remove(node);
       setHead(node);
       return node.userAccount;
@@ -158,18 +164,20 @@ public class LruCache {
    * @param userId      {@link String}
    */
   public void set(final String userId, final UserAccount userAccount) {
-    if (cache.containsKey(userId)) {
-      var old = cache.get(userId);
+    var old = cache.get(userId);
+    if (old != null) {
       old.userAccount = userAccount;
       remove(old);
       setHead(old);
     } else {
       var newNode = new Node(userId, userAccount);
       if (cache.size() >= capacity) {
-        LOGGER.info("# Cache is FULL! Removing {} from cache...", end.userId);
+        LOGGER.debug("# Cache is FULL! Removing {} from cache...", end.userId);
+        final var evicted = end;
         cache.remove(end.userId); // remove LRU data from cache.
         remove(end);
         setHead(newNode);
+        removalListener.onRemoval(evicted.userId, evicted.userAccount, RemovalCause.SIZE);
       } else {
         setHead(newNode);
       }
@@ -195,9 +203,10 @@ public class LruCache {
   public void invalidate(final String userId) {
     var toBeRemoved = cache.remove(userId);
     if (toBeRemoved != null) {
-      LOGGER.info("# {} has been updated! "
+      LOGGER.debug("# {} has been updated! "
               + "Removing older version from cache...", userId);
       remove(toBeRemoved);
+      removalListener.onRemoval(userId, toBeRemoved.userAccount, RemovalCause.EXPLICIT);
     }
   }
 
@@ -243,18 +252,34 @@ public class LruCache {
   }
 
   /**
-   * Set cache capacity.
+   * Set the listener notified when entries leave the cache.
+   *
+   * @param listener {@link RemovalListener}
+   */
+  @Override
+  public void setRemovalListener(final RemovalListener listener) {
+    this.removalListener = listener;
+  }
+
+  @Override
+  public RemovalListener getRemovalListener() {
+    return removalListener;
+  }
+
+  /**
+   * Set cache capacity. Shrinking evicts only the overflow, least recently
+   * used first, instead of dropping the whole cache.
    *
    * @param newCapacity int
    */
   public void setCapacity(final int newCapacity) {
-    if (capacity > newCapacity) {
-      // Behavior can be modified to accommodate
-      // for decrease in cache size. For now, we'll
-      clear();
-      // just clear the cache.
-    } else {
-      this.capacity = newCapacity;
+    this.capacity = newCapacity;
+    while (cache.size() > newCapacity) {
+      LOGGER.debug("# Cache shrunk! Removing {} from cache...", end.userId);
+      var evicted = end;
+      cache.remove(end.userId);
+      remove(end);
+      removalListener.onRemoval(evicted.userId, evicted.userAccount, RemovalCause.SIZE);
     }
   }
 }
@@ -0,0 +1,453 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind pipeline between {@link CacheStore} and the {@link DbManager}.
+ * Dirty user accounts are put into a bounded queue and a background thread
+ * writes them with {@link DbManager#batchUpsertDb} once {@code batchSize}
+ * records are pending or the oldest one has waited {@code flushInterval}.
+ * Repeated writes of the same {@code userId} are coalesced into the queued
+ * record, so only the latest version reaches the DB.
+ *
+ * <p>When the queue is full, producers wait up to {@code maxBlock} for room;
+ * if there still is none the record is written on the caller's thread, which
+ * slows producers down to the pace of the DB without losing data. {@link
+ * #close()} stops the flusher and writes everything that is still queued.
+ *
+ * <p>A batch the DB rejects goes back to the head of the queue, and the
+ * flusher waits before the next attempt, twice as long after every failure
+ * in a row, so an outage does not turn into a busy retry loop.
+ */
+@Slf4j
+public class WriteBehindFlusher implements AutoCloseable {
+  /**
+   * Default maximum number of distinct queued records.
+   */
+  private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+  /**
+   * Default number of records written per DB round-trip.
+   */
+  private static final int DEFAULT_BATCH_SIZE = 64;
+  /**
+   * Default maximum time a record waits before being flushed.
+   */
+  private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+  /**
+   * Default time a producer waits for room in a full queue.
+   */
+  private static final Duration DEFAULT_MAX_BLOCK = Duration.ofMillis(500);
+  /**
+   * Shortest wait before retrying a failed batch.
+   */
+  private static final long MIN_RETRY_BACKOFF_NANOS = Duration.ofMillis(10).toNanos();
+  /**
+   * Longest wait before retrying a failed batch.
+   */
+  private static final long MAX_RETRY_BACKOFF_NANOS = Duration.ofSeconds(30).toNanos();
+
+  /**
+   * DbManager.
+   */
+  private final DbManager dbManager;
+  /**
+   * Maximum number of distinct queued records.
+   */
+  private final int queueCapacity;
+  /**
+   * Records written per DB round-trip.
+   */
+  private final int batchSize;
+  /**
+   * Maximum time a record waits before being flushed, in nanoseconds.
+   */
+  private final long flushIntervalNanos;
+  /**
+   * Time a producer waits for room in a full queue, in nanoseconds.
+   */
+  private final long maxBlockNanos;
+  /**
+   * Queued records by user id, oldest first.
+   */
+  private Map<String, Queued> pending = new LinkedHashMap<>();
+  /**
+   * Guards the queue.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Signalled when records leave the queue.
+   */
+  private final Condition notFull = lock.newCondition();
+  /**
+   * Signalled when a batch is ready or the flusher is closed.
+   */
+  private final Condition batchReady = lock.newCondition();
+  /**
+   * Held while a batch is drained and written, keeping writes of a key in order.
+   */
+  private final ReentrantLock writeLock = new ReentrantLock();
+  /**
+   * Batch currently being written.
+   */
+  private volatile Map<String, UserAccount> inFlight = Map.of();
+  /**
+   * Batches that failed in a row.
+   */
+  private int failures;
+  /**
+   * When the next attempt after a failed batch is due.
+   */
+  private long retryAt;
+  /**
+   * Writes merged into an already queued record.
+   */
+  private long coalescedCount;
+  /**
+   * Background thread, started with the first write.
+   */
+  private Thread worker;
+  /**
+   * Whether {@link #close()} was called.
+   */
+  private boolean closed;
+
+  /**
+   * Write-behind flusher with default settings.
+   *
+   * @param dataBaseManager {@link DbManager}
+   */
+  public WriteBehindFlusher(final DbManager dataBaseManager) {
+    this(dataBaseManager, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE,
+        DEFAULT_FLUSH_INTERVAL, DEFAULT_MAX_BLOCK);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param dataBaseManager {@link DbManager}
+   * @param capacity        maximum number of distinct queued records
+   * @param batch           records written per DB round-trip
+   * @param flushInterval   maximum time a record waits before being flushed
+   * @param maxBlock        time a producer waits for room in a full queue
+   */
+  public WriteBehindFlusher(final DbManager dataBaseManager, final int capacity,
+                            final int batch, final Duration flushInterval,
+                            final Duration maxBlock) {
+    this.dbManager = dataBaseManager;
+    this.queueCapacity = capacity;
+    this.batchSize = batch;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.maxBlockNanos = maxBlock.toNanos();
+  }
+
+  /**
+   * Queue a dirty user account for writing.
+   *
+   * @param userAccount {@link UserAccount}
+   */
+  public void enqueue(final UserAccount userAccount) {
+    var userId = userAccount.getUserId();
+    lock.lock();
+    try {
+      var queued = pending.get(userId);
+      if (queued != null) {
+        pending.put(userId, new Queued(userAccount, queued.enqueuedAt()));
+        coalescedCount++;
+        return;
+      }
+      var remaining = maxBlockNanos;
+      while (pending.size() >= queueCapacity && remaining > 0 && !closed) {
+        remaining = notFull.awaitNanos(remaining);
+      }
+      if (!closed && pending.size() < queueCapacity) {
+        startWorker();
+        pending.put(userId, new Queued(userAccount, System.nanoTime()));
+        if (pending.size() >= batchSize) {
+          batchReady.signal();
+        }
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      lock.unlock();
+    }
+    LOGGER.info("# Write-behind queue is full! Writing {} to DB...", userId);
+    writeLock.lock();
+    try {
+      lock.lock();
+      try {
+        var queued = pending.get(userId);
+        if (queued != null) {
+          // a failed batch put an older version back meanwhile, which would
+          // overwrite this one on the next flush
+          pending.put(userId, new Queued(userAccount, queued.enqueuedAt()));
+          coalescedCount++;
+          return;
+        }
+      } finally {
+        lock.unlock();
+      }
+      dbManager.upsertDb(userAccount);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Get the not yet written version of a user account.
+   *
+   * @param userId {@link String}
+   * @return {@link UserAccount} or null when nothing is pending for the user
+   */
+  public UserAccount getPending(final String userId) {
+    lock.lock();
+    try {
+      var queued = pending.get(userId);
+      return queued != null ? queued.userAccount() : inFlight.get(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of queued records.
+   *
+   * @return int
+   */
+  public int getQueueDepth() {
+    lock.lock();
+    try {
+      return pending.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of writes merged into an already queued record.
+   *
+   * @return long
+   */
+  public long getCoalescedCount() {
+    lock.lock();
+    try {
+      return coalescedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write everything that is queued on the caller's thread.
+   *
+   * @throws IllegalStateException if the DB rejects a batch; the records that
+   *     were not written stay queued for another flush
+   */
+  public void flush() {
+    writeLock.lock();
+    try {
+      while (writeBatch()) {
+        // keep draining
+      }
+    } catch (RuntimeException e) {
+      throw new IllegalStateException(getQueueDepth()
+          + " write-behind records could not be written", e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Stop the background thread and flush the remaining records.
+   *
+   * @throws IllegalStateException if the DB rejects a batch; the records that
+   *     were not written stay queued for another flush
+   */
+  @Override
+  public void close() {
+    Thread toJoin;
+    lock.lock();
+    try {
+      closed = true;
+      batchReady.signalAll();
+      notFull.signalAll();
+      toJoin = worker;
+    } finally {
+      lock.unlock();
+    }
+    if (toJoin != null) {
+      try {
+        toJoin.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flush();
+  }
+
+  private void startWorker() {
+    if (worker == null) {
+      worker = new Thread(this::run, "write-behind-flusher");
+      worker.setDaemon(true);
+      worker.start();
+    }
+  }
+
+  private void run() {
+    while (awaitBatch()) {
+      writeLock.lock();
+      try {
+        writeBatch();
+      } catch (RuntimeException e) {
+        logFailure(e);
+      } finally {
+        writeLock.unlock();
+      }
+    }
+  }
+
+  private void logFailure(final RuntimeException e) {
+    lock.lock();
+    try {
+      LOGGER.error("Write-behind batch failed {} times in a row, retrying in {} ms",
+          failures, Duration.ofNanos(retryAt - System.nanoTime()).toMillis(), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the backoff after a failed batch is over and a batch is full,
+   * the oldest record is due or the flusher is closed.
+   *
+   * @return false when the worker should stop
+   */
+  private boolean awaitBatch() {
+    lock.lock();
+    try {
+      var backoff = retryAt - System.nanoTime();
+      while (!closed && failures > 0 && backoff > 0) {
+        backoff = batchReady.awaitNanos(backoff);
+      }
+      while (!closed && pending.size() < batchSize) {
+        if (pending.isEmpty()) {
+          batchReady.await();
+        } else {
+          var oldest = pending.values().iterator().next().enqueuedAt();
+          var wait = oldest + flushIntervalNanos - System.nanoTime();
+          if (wait <= 0) {
+            break;
+          }
+          batchReady.awaitNanos(wait);
+        }
+      }
+      return !closed;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Drains up to one batch and writes it. Must be called holding the write lock.
+   *
+   * @return true if a batch was written and more records may be pending
+   * @throws RuntimeException if the DB rejects the batch, after re-queueing it
+   */
+  private boolean writeBatch() {
+    var batch = new LinkedHashMap<String, Queued>();
+    var accounts = new LinkedHashMap<String, UserAccount>();
+    lock.lock();
+    try {
+      var iterator = pending.entrySet().iterator();
+      while (iterator.hasNext() && batch.size() < batchSize) {
+        var entry = iterator.next();
+        batch.put(entry.getKey(), entry.getValue());
+        accounts.put(entry.getKey(), entry.getValue().userAccount());
+        iterator.remove();
+      }
+      inFlight = accounts;
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    if (batch.isEmpty()) {
+      return false;
+    }
+    try {
+      dbManager.batchUpsertDb(new ArrayList<>(accounts.values()));
+    } catch (RuntimeException e) {
+      requeue(batch);
+      throw e;
+    } finally {
+      inFlight = Map.of();
+    }
+    lock.lock();
+    try {
+      failures = 0;
+    } finally {
+      lock.unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Puts a failed batch back at the head of the queue, keeping the newer
+   * versions enqueued meanwhile, and schedules the next attempt.
+   */
+  private void requeue(final Map<String, Queued> batch) {
+    lock.lock();
+    try {
+      var requeued = new LinkedHashMap<>(batch);
+      pending.forEach((userId, queued) -> requeued.merge(userId, queued,
+          (failed, newer) -> new Queued(newer.userAccount(), failed.enqueuedAt())));
+      pending = requeued;
+      failures++;
+      var backoff = Math.min(Math.max(flushIntervalNanos, MIN_RETRY_BACKOFF_NANOS),
+          MAX_RETRY_BACKOFF_NANOS) << Math.min(failures - 1, 20);
+      retryAt = System.nanoTime() + Math.min(backoff, MAX_RETRY_BACKOFF_NANOS);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * A queued user account and when its oldest unwritten version was enqueued.
+   */
+  private record Queued(UserAccount userAccount, long enqueuedAt) {
+  }
+}
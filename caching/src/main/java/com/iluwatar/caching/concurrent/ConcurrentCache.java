@@ -0,0 +1,557 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import com.iluwatar.caching.Cache;
+import com.iluwatar.caching.UserAccount;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe {@link Cache} split into independently locked segments. A key
+ * always lives in the same segment, so writers to different segments never
+ * contend. Lookups read the segment's {@link ConcurrentHashMap} without
+ * locking; the access is then recorded with the eviction and admission
+ * policies only if the segment lock can be taken immediately, so a busy
+ * segment loses a little recency information instead of blocking readers.
+ *
+ * <p>Every segment owns its own {@link EvictionPolicy} and
+ * {@link AdmissionPolicy}, created from the given factories with the segment
+ * capacity. {@link #lru}, {@link #segmentedLru} and {@link #tinyLfu} build the
+ * common combinations.
+ *
+ * <p>Entries can expire a fixed time after they were written (globally or per
+ * entry) and after they have been idle for a while. Expired entries are never
+ * returned; they are reclaimed through a per-segment {@link TimerWheel} that
+ * is advanced whenever the segment is locked anyway, so no thread scans the
+ * cache. With a refresh-ahead window, {@link #needsRefresh} tells callers
+ * which entries to reload before they expire.
+ */
+public class ConcurrentCache implements Cache {
+  /**
+   * Default number of segments.
+   */
+  private static final int DEFAULT_CONCURRENCY =
+      Runtime.getRuntime().availableProcessors() * 4;
+
+  /**
+   * Segment of the cache, guarded by its own lock.
+   */
+  private static final class Segment extends ReentrantLock {
+    /**
+     * Entries of this segment.
+     */
+    private final ConcurrentHashMap<String, Node> map = new ConcurrentHashMap<>();
+    /**
+     * Eviction order.
+     */
+    private final EvictionPolicy eviction;
+    /**
+     * Admission filter.
+     */
+    private final AdmissionPolicy admission;
+    /**
+     * Expiry schedule.
+     */
+    private final TimerWheel wheel = new TimerWheel();
+    /**
+     * Capacity of this segment.
+     */
+    private int capacity;
+
+    Segment(final int cap, final EvictionPolicy evictionPolicy,
+            final AdmissionPolicy admissionPolicy) {
+      this.capacity = cap;
+      this.eviction = evictionPolicy;
+      this.admission = admissionPolicy;
+    }
+
+    void unlink(final Node node) {
+      map.remove(node.getKey());
+      eviction.onRemove(node);
+      wheel.deschedule(node);
+    }
+
+    List<Node> expire(final long now, final ToLongFunction<Node> deadline) {
+      if (!wheel.hasElapsed(now)) {
+        return List.of();
+      }
+      var expired = new ArrayList<Node>();
+      wheel.advance(now, deadline, expired);
+      expired.forEach(node -> {
+        map.remove(node.getKey());
+        eviction.onRemove(node);
+      });
+      return expired;
+    }
+
+    void evictOverflow(final List<Node> evicted) {
+      while (map.size() > capacity) {
+        var victim = eviction.victim();
+        unlink(victim);
+        evicted.add(victim);
+      }
+    }
+  }
+
+  /**
+   * Segments.
+   */
+  private final Segment[] segments;
+  /**
+   * Mask used to select a segment.
+   */
+  private final int segmentMask;
+  /**
+   * Total capacity of the cache.
+   */
+  private volatile int capacity;
+  /**
+   * Removal listener.
+   */
+  private volatile RemovalListener removalListener = RemovalListener.NONE;
+  /**
+   * Clock of expiry deadlines, in nanoseconds.
+   */
+  private volatile LongSupplier ticker = System::nanoTime;
+  /**
+   * Whether any entry may expire; saves reading the clock otherwise.
+   */
+  private volatile boolean expiryEnabled;
+  /**
+   * Default time-to-live after a write, 0 if none.
+   */
+  private volatile long expireAfterWriteNanos;
+  /**
+   * Maximum idle time, 0 if none.
+   */
+  private volatile long expireAfterAccessNanos;
+  /**
+   * How long before its time-to-live ends an entry should be refreshed.
+   */
+  private volatile long refreshAheadNanos;
+
+  /**
+   * Constructor.
+   *
+   * @param cap               total capacity
+   * @param concurrencyLevel  expected number of concurrently writing threads
+   * @param evictionFactory   creates the eviction policy of a segment
+   * @param admissionFactory  creates the admission policy of a segment
+   */
+  public ConcurrentCache(final int cap, final int concurrencyLevel,
+                         final IntFunction<EvictionPolicy> evictionFactory,
+                         final IntFunction<AdmissionPolicy> admissionFactory) {
+    var count = Integer.highestOneBit(Math.max(1, concurrencyLevel));
+    while (count > 1 && count > cap) {
+      count >>= 1;
+    }
+    this.capacity = cap;
+    this.segments = new Segment[count];
+    this.segmentMask = count - 1;
+    for (var i = 0; i < count; i++) {
+      var segmentCapacity = segmentCapacity(cap, i);
+      segments[i] = new Segment(segmentCapacity,
+          evictionFactory.apply(segmentCapacity),
+          admissionFactory.apply(segmentCapacity));
+    }
+  }
+
+  /**
+   * Cache evicting the least-recently-used entry of a segment.
+   *
+   * @param cap total capacity
+   * @return {@link ConcurrentCache}
+   */
+  public static ConcurrentCache lru(final int cap) {
+    return new ConcurrentCache(cap, DEFAULT_CONCURRENCY,
+        segmentCapacity -> new LruPolicy(), segmentCapacity -> AdmissionPolicy.ALWAYS);
+  }
+
+  /**
+   * Cache evicting with a segmented LRU.
+   *
+   * @param cap total capacity
+   * @return {@link ConcurrentCache}
+   */
+  public static ConcurrentCache segmentedLru(final int cap) {
+    return new ConcurrentCache(cap, DEFAULT_CONCURRENCY,
+        SegmentedLruPolicy::new, segmentCapacity -> AdmissionPolicy.ALWAYS);
+  }
+
+  /**
+   * Cache evicting with a segmented LRU behind a TinyLFU admission filter.
+   *
+   * @param cap total capacity
+   * @return {@link ConcurrentCache}
+   */
+  public static ConcurrentCache tinyLfu(final int cap) {
+    return new ConcurrentCache(cap, DEFAULT_CONCURRENCY,
+        SegmentedLruPolicy::new, TinyLfuAdmission::new);
+  }
+
+  /**
+   * Set the listener notified about evictions and invalidations.
+   *
+   * @param listener {@link RemovalListener}
+   */
+  @Override
+  public void setRemovalListener(final RemovalListener listener) {
+    this.removalListener = listener;
+  }
+
+  @Override
+  public RemovalListener getRemovalListener() {
+    return removalListener;
+  }
+
+  /**
+   * Replace the clock of expiry deadlines, {@link System#nanoTime()} by
+   * default, e.g. to advance time by hand in tests. Set it before the first
+   * entry is written.
+   *
+   * @param nanoTicker current time in nanoseconds
+   */
+  public void setTicker(final LongSupplier nanoTicker) {
+    this.ticker = nanoTicker;
+  }
+
+  /**
+   * Expire entries a fixed time after they were written.
+   *
+   * @param ttl time-to-live, zero to disable
+   */
+  public void setExpireAfterWrite(final Duration ttl) {
+    expireAfterWriteNanos = ttl.toNanos();
+    expiryEnabled |= expireAfterWriteNanos > 0;
+  }
+
+  /**
+   * Expire entries that were neither read nor written for a while.
+   *
+   * @param idle maximum idle time, zero to disable
+   */
+  public void setExpireAfterAccess(final Duration idle) {
+    expireAfterAccessNanos = idle.toNanos();
+    expiryEnabled |= expireAfterAccessNanos > 0;
+  }
+
+  /**
+   * Report entries as needing a refresh once they are this close to the end
+   * of their time-to-live.
+   *
+   * @param window refresh-ahead window, zero to disable
+   */
+  public void setRefreshAhead(final Duration window) {
+    refreshAheadNanos = window.toNanos();
+  }
+
+  @Override
+  public UserAccount get(final String userId) {
+    var segment = segmentFor(userId);
+    var node = segment.map.get(userId);
+    var now = expiryEnabled ? ticker.getAsLong() : 0L;
+    if (node != null && expiryEnabled) {
+      if (deadline(node) <= now) {
+        node = null;
+      } else {
+        node.accessTime = now;
+      }
+    }
+    List<Node> expired = List.of();
+    if (segment.tryLock()) {
+      try {
+        segment.admission.record(userId);
+        if (node != null && segment.map.get(userId) == node) {
+          segment.eviction.onAccess(node);
+        }
+        if (expiryEnabled) {
+          expired = segment.expire(now, this::deadline);
+        }
+      } finally {
+        segment.unlock();
+      }
+    }
+    notifyRemoval(expired, RemovalCause.EXPIRED);
+    return node == null ? null : node.getValue();
+  }
+
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    put(userId, userAccount, expireAfterWriteNanos);
+  }
+
+  /**
+   * Set user account with its own time-to-live.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   * @param ttl         time-to-live of this entry
+   */
+  public void set(final String userId, final UserAccount userAccount, final Duration ttl) {
+    expiryEnabled = true;
+    put(userId, userAccount, ttl.toNanos());
+  }
+
+  private void put(final String userId, final UserAccount userAccount, final long ttlNanos) {
+    var segment = segmentFor(userId);
+    var now = expiryEnabled ? ticker.getAsLong() : 0L;
+    List<Node> expired = List.of();
+    Node evicted = null;
+    segment.lock();
+    try {
+      if (expiryEnabled) {
+        expired = segment.expire(now, this::deadline);
+      }
+      segment.admission.record(userId);
+      var existing = segment.map.get(userId);
+      if (existing != null) {
+        existing.setValue(userAccount);
+        stamp(segment, existing, now, ttlNanos);
+        segment.eviction.onAccess(existing);
+      } else {
+        var node = new Node(userId, userAccount);
+        if (segment.map.size() >= segment.capacity) {
+          var victim = segment.eviction.victim();
+          if (victim == null || !segment.admission.admit(userId, victim.getKey())) {
+            evicted = node;
+          } else {
+            segment.unlink(victim);
+            evicted = victim;
+          }
+        }
+        if (evicted != node) {
+          segment.map.put(userId, node);
+          segment.eviction.onInsert(node);
+          stamp(segment, node, now, ttlNanos);
+        }
+      }
+    } finally {
+      segment.unlock();
+    }
+    notifyRemoval(expired, RemovalCause.EXPIRED);
+    if (evicted != null) {
+      removalListener.onRemoval(evicted.getKey(), evicted.getValue(), RemovalCause.SIZE);
+    }
+  }
+
+  @Override
+  public boolean contains(final String userId) {
+    var node = segmentFor(userId).map.get(userId);
+    return node != null && (!expiryEnabled || deadline(node) > ticker.getAsLong());
+  }
+
+  /**
+   * Whether the entry is within the refresh-ahead window of its time-to-live
+   * and should be reloaded before it expires.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  @Override
+  public boolean needsRefresh(final String userId) {
+    var window = refreshAheadNanos;
+    if (window <= 0) {
+      return false;
+    }
+    var node = segmentFor(userId).map.get(userId);
+    if (node == null || node.writeDeadline == Long.MAX_VALUE) {
+      return false;
+    }
+    var now = ticker.getAsLong();
+    return now >= node.writeDeadline - window && deadline(node) > now;
+  }
+
+  /**
+   * Reclaim expired entries of all segments.
+   */
+  public void cleanUp() {
+    if (!expiryEnabled) {
+      return;
+    }
+    for (var segment : segments) {
+      List<Node> expired;
+      segment.lock();
+      try {
+        expired = segment.expire(ticker.getAsLong(), this::deadline);
+      } finally {
+        segment.unlock();
+      }
+      notifyRemoval(expired, RemovalCause.EXPIRED);
+    }
+  }
+
+  @Override
+  public void invalidate(final String userId) {
+    var segment = segmentFor(userId);
+    Node removed;
+    segment.lock();
+    try {
+      removed = segment.map.get(userId);
+      if (removed != null) {
+        segment.unlink(removed);
+      }
+    } finally {
+      segment.unlock();
+    }
+    if (removed != null) {
+      removalListener.onRemoval(userId, removed.getValue(), RemovalCause.EXPLICIT);
+    }
+  }
+
+  @Override
+  public boolean isFull() {
+    return size() >= capacity;
+  }
+
+  /**
+   * Number of cached entries.
+   *
+   * @return int
+   */
+  public int size() {
+    var size = 0;
+    for (var segment : segments) {
+      size += segment.map.size();
+    }
+    return size;
+  }
+
+  /**
+   * Victim of the first non-empty segment. Eviction is decided per segment,
+   * so this is only one of the entries that the next insertions may evict.
+   *
+   * @return {@link UserAccount}
+   */
+  @Override
+  public UserAccount getLruData() {
+    for (var segment : segments) {
+      segment.lock();
+      try {
+        var victim = segment.eviction.victim();
+        if (victim != null) {
+          return victim.getValue();
+        }
+      } finally {
+        segment.unlock();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void clear() {
+    for (var segment : segments) {
+      segment.lock();
+      try {
+        segment.map.clear();
+        segment.eviction.clear();
+        segment.wheel.clear();
+      } finally {
+        segment.unlock();
+      }
+    }
+  }
+
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    var listOfCacheData = new ArrayList<UserAccount>();
+    var now = ticker.getAsLong();
+    for (var segment : segments) {
+      segment.lock();
+      try {
+        segment.eviction.ordered().stream()
+            .filter(node -> !expiryEnabled || deadline(node) > now)
+            .forEach(node -> listOfCacheData.add(node.getValue()));
+      } finally {
+        segment.unlock();
+      }
+    }
+    return listOfCacheData;
+  }
+
+  /**
+   * Changes the capacity without dropping the cache: when shrinking, each
+   * segment evicts only its overflow, in eviction order.
+   *
+   * @param newCapacity int
+   */
+  @Override
+  public void setCapacity(final int newCapacity) {
+    this.capacity = newCapacity;
+    var evicted = new ArrayList<Node>();
+    for (var i = 0; i < segments.length; i++) {
+      var segment = segments[i];
+      segment.lock();
+      try {
+        segment.capacity = segmentCapacity(newCapacity, i);
+        segment.eviction.setCapacity(segment.capacity);
+        segment.evictOverflow(evicted);
+      } finally {
+        segment.unlock();
+      }
+    }
+    notifyRemoval(evicted, RemovalCause.SIZE);
+  }
+
+  private void stamp(final Segment segment, final Node node, final long now,
+                     final long ttlNanos) {
+    node.writeDeadline = ttlNanos > 0 ? now + ttlNanos : Long.MAX_VALUE;
+    node.accessTime = now;
+    if (expiryEnabled) {
+      segment.wheel.schedule(node, deadline(node));
+    }
+  }
+
+  private long deadline(final Node node) {
+    var idle = expireAfterAccessNanos;
+    var deadline = node.writeDeadline;
+    return idle > 0 ? Math.min(deadline, node.accessTime + idle) : deadline;
+  }
+
+  private void notifyRemoval(final List<Node> nodes, final RemovalCause cause) {
+    if (nodes.isEmpty()) {
+      return;
+    }
+    var listener = removalListener;
+    nodes.forEach(node -> listener.onRemoval(node.getKey(), node.getValue(), cause));
+  }
+
+  private int segmentCapacity(final int total, final int index) {
+    var count = segments.length;
+    return total / count + (index < total % count ? 1 : 0);
+  }
+
+  private Segment segmentFor(final String key) {
+    var h = key.hashCode() * 0x9e3779b9;
+    return segments[(h ^ (h >>> 16)) & segmentMask];
+  }
+}
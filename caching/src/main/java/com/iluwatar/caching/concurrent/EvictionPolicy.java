@@ -0,0 +1,82 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import java.util.List;
+
+/**
+ * Decides which entry of a segment is evicted next. An instance is owned by a
+ * single segment and is only invoked while that segment's lock is held, so
+ * implementations need not be thread-safe.
+ */
+public interface EvictionPolicy {
+  /**
+   * A new entry was added to the segment.
+   *
+   * @param node {@link Node}
+   */
+  void onInsert(Node node);
+
+  /**
+   * An existing entry was read or updated.
+   *
+   * @param node {@link Node}
+   */
+  void onAccess(Node node);
+
+  /**
+   * An entry left the segment.
+   *
+   * @param node {@link Node}
+   */
+  void onRemove(Node node);
+
+  /**
+   * The entry that should be evicted next.
+   *
+   * @return {@link Node} or null when the segment is empty
+   */
+  Node victim();
+
+  /**
+   * The segment capacity changed.
+   *
+   * @param capacity int
+   */
+  default void setCapacity(int capacity) {
+  }
+
+  /**
+   * Forget all entries.
+   */
+  void clear();
+
+  /**
+   * Entries from the most to the least valuable.
+   *
+   * @return {@link List}
+   */
+  List<Node> ordered();
+}
@@ -0,0 +1,136 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often a key was seen
+ * recently. Each key maps to four counters that share one {@code long} slot
+ * per hash function; the estimate is the smallest of them. All counters are
+ * halved once {@code 10 * capacity} increments were recorded, so the sketch
+ * ages out keys that used to be popular.
+ */
+public class FrequencySketch {
+  /**
+   * Seeds of the four hash functions.
+   */
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+      0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  /**
+   * Clears the high bit of every counter after shifting right by one.
+   */
+  private static final long RESET_MASK = 0x7777777777777777L;
+  /**
+   * Highest value a counter can hold.
+   */
+  private static final int MAX_COUNT = 15;
+
+  /**
+   * Counters, sixteen per slot.
+   */
+  private final long[] table;
+  /**
+   * Mask used to select a slot.
+   */
+  private final int tableMask;
+  /**
+   * Increments between two resets.
+   */
+  private final int sampleSize;
+  /**
+   * Increments since the last reset.
+   */
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity expected number of cached entries
+   */
+  public FrequencySketch(final int capacity) {
+    var maximum = Math.max(capacity, 16);
+    table = new long[Integer.highestOneBit(maximum - 1) << 1];
+    tableMask = table.length - 1;
+    sampleSize = 10 * maximum;
+  }
+
+  /**
+   * Estimated number of recent occurrences of the key, at most 15.
+   *
+   * @param key {@link String}
+   * @return int
+   */
+  public int frequency(final String key) {
+    var hash = spread(key.hashCode());
+    var start = (hash & 3) << 2;
+    var frequency = MAX_COUNT;
+    for (var i = 0; i < SEEDS.length; i++) {
+      var shift = (start + i) << 2;
+      var count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Record one occurrence of the key.
+   *
+   * @param key {@link String}
+   */
+  public void increment(final String key) {
+    var hash = spread(key.hashCode());
+    var start = (hash & 3) << 2;
+    var added = false;
+    for (var i = 0; i < SEEDS.length; i++) {
+      var index = indexOf(hash, i);
+      var shift = (start + i) << 2;
+      if (((table[index] >>> shift) & 0xfL) != MAX_COUNT) {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (var i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size >>>= 1;
+  }
+
+  private int indexOf(final int hash, final int i) {
+    var h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  private static int spread(final int hash) {
+    var h = hash * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classic least-recently-used eviction over a single access-ordered queue.
+ */
+public class LruPolicy implements EvictionPolicy {
+  /**
+   * Access order queue.
+   */
+  private final NodeDeque deque = new NodeDeque();
+
+  @Override
+  public void onInsert(final Node node) {
+    deque.addFirst(node);
+  }
+
+  @Override
+  public void onAccess(final Node node) {
+    deque.moveToFront(node);
+  }
+
+  @Override
+  public void onRemove(final Node node) {
+    deque.remove(node);
+  }
+
+  @Override
+  public Node victim() {
+    return deque.peekLast();
+  }
+
+  @Override
+  public void clear() {
+    deque.clear();
+  }
+
+  @Override
+  public List<Node> ordered() {
+    var nodes = new ArrayList<Node>(deque.size());
+    deque.copyInto(nodes);
+    return nodes;
+  }
+}
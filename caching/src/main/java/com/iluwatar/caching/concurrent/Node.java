@@ -0,0 +1,123 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import com.iluwatar.caching.UserAccount;
+
+/**
+ * Cache entry. The links are intrusive so that eviction policies can reorder
+ * entries without allocating; they are only touched while the owning
+ * segment's lock is held.
+ */
+public final class Node {
+  /**
+   * Entry lives in the probation (or only) queue.
+   */
+  static final int PROBATION = 0;
+  /**
+   * Entry lives in the protected queue of a segmented LRU.
+   */
+  static final int PROTECTED = 1;
+
+  /**
+   * user id.
+   */
+  private final String key;
+  /**
+   * User Account, read without the lock.
+   */
+  private volatile UserAccount value;
+  /**
+   * previous.
+   */
+  Node previous;
+  /**
+   * next.
+   */
+  Node next;
+  /**
+   * Queue the entry belongs to.
+   */
+  int queue = PROBATION;
+  /**
+   * {@link System#nanoTime()} after which the entry expires since it was
+   * written, {@link Long#MAX_VALUE} if never.
+   */
+  volatile long writeDeadline = Long.MAX_VALUE;
+  /**
+   * {@link System#nanoTime()} of the last read or write, for idle expiry.
+   */
+  volatile long accessTime;
+  /**
+   * Previous entry in the timer wheel bucket.
+   */
+  Node wheelPrevious;
+  /**
+   * Next entry in the timer wheel bucket.
+   */
+  Node wheelNext;
+  /**
+   * Timer wheel bucket holding the entry, -1 if not scheduled.
+   */
+  int bucket = -1;
+
+  /**
+   * Node definition.
+   *
+   * @param id      String
+   * @param account {@link UserAccount}
+   */
+  Node(final String id, final UserAccount account) {
+    this.key = id;
+    this.value = account;
+  }
+
+  /**
+   * Get the key.
+   *
+   * @return {@link String}
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * Get the value.
+   *
+   * @return {@link UserAccount}
+   */
+  public UserAccount getValue() {
+    return value;
+  }
+
+  /**
+   * Replace the value.
+   *
+   * @param account {@link UserAccount}
+   */
+  void setValue(final UserAccount account) {
+    this.value = account;
+  }
+}
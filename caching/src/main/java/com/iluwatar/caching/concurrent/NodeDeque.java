@@ -0,0 +1,102 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import java.util.List;
+
+/**
+ * Doubly linked list threaded through {@link Node}s, most-recently-used at
+ * the head and least-recently-used at the tail.
+ */
+final class NodeDeque {
+  /**
+   * Head.
+   */
+  private Node head;
+  /**
+   * End.
+   */
+  private Node end;
+  /**
+   * Number of linked nodes.
+   */
+  private int size;
+
+  void addFirst(final Node node) {
+    node.next = head;
+    node.previous = null;
+    if (head != null) {
+      head.previous = node;
+    }
+    head = node;
+    if (end == null) {
+      end = node;
+    }
+    size++;
+  }
+
+  void remove(final Node node) {
+    if (node.previous != null) {
+      node.previous.next = node.next;
+    } else {
+      head = node.next;
+    }
+    if (node.next != null) {
+      node.next.previous = node.previous;
+    } else {
+      end = node.previous;
+    }
+    node.previous = null;
+    node.next = null;
+    size--;
+  }
+
+  void moveToFront(final Node node) {
+    if (head != node) {
+      remove(node);
+      addFirst(node);
+    }
+  }
+
+  Node peekLast() {
+    return end;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    head = null;
+    end = null;
+    size = 0;
+  }
+
+  void copyInto(final List<Node> target) {
+    for (var temp = head; temp != null; temp = temp.next) {
+      target.add(temp);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import com.iluwatar.caching.UserAccount;
+
+/**
+ * Callback notified after an entry left the cache. It is invoked on the
+ * thread that caused the removal, outside of any segment lock.
+ */
+@FunctionalInterface
+public interface RemovalListener {
+  /**
+   * No-op listener.
+   */
+  RemovalListener NONE = (userId, userAccount, cause) -> { };
+
+  /**
+   * Entry removed.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   * @param cause       {@link RemovalCause}
+   */
+  void onRemoval(String userId, UserAccount userAccount, RemovalCause cause);
+
+  /**
+   * Listener notifying this listener and then the next one.
+   *
+   * @param next {@link RemovalListener}
+   * @return {@link RemovalListener}
+   */
+  default RemovalListener andThen(final RemovalListener next) {
+    if (this == NONE) {
+      return next;
+    }
+    return (userId, userAccount, cause) -> {
+      onRemoval(userId, userAccount, cause);
+      next.onRemoval(userId, userAccount, cause);
+    };
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Segmented LRU. New entries start in a probation queue and are promoted to a
+ * protected queue when they are accessed again; entries overflowing the
+ * protected queue are demoted back to probation. Victims are taken from the
+ * probation queue first, so a scan of one-hit wonders cannot flush the
+ * frequently used entries.
+ */
+public class SegmentedLruPolicy implements EvictionPolicy {
+  /**
+   * Share of the capacity reserved for the protected queue, in percent.
+   */
+  private static final int PROTECTED_PERCENT = 80;
+
+  /**
+   * Entries seen once.
+   */
+  private final NodeDeque probation = new NodeDeque();
+  /**
+   * Entries seen at least twice.
+   */
+  private final NodeDeque protectedQueue = new NodeDeque();
+  /**
+   * Maximum size of the protected queue.
+   */
+  private int maxProtected;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity capacity of the owning segment
+   */
+  public SegmentedLruPolicy(final int capacity) {
+    setCapacity(capacity);
+  }
+
+  @Override
+  public void setCapacity(final int capacity) {
+    maxProtected = capacity * PROTECTED_PERCENT / 100;
+    while (protectedQueue.size() > maxProtected) {
+      demote();
+    }
+  }
+
+  @Override
+  public void onInsert(final Node node) {
+    node.queue = Node.PROBATION;
+    probation.addFirst(node);
+  }
+
+  @Override
+  public void onAccess(final Node node) {
+    if (node.queue == Node.PROTECTED) {
+      protectedQueue.moveToFront(node);
+      return;
+    }
+    probation.remove(node);
+    if (maxProtected == 0) {
+      probation.addFirst(node);
+      return;
+    }
+    node.queue = Node.PROTECTED;
+    protectedQueue.addFirst(node);
+    if (protectedQueue.size() > maxProtected) {
+      demote();
+    }
+  }
+
+  @Override
+  public void onRemove(final Node node) {
+    if (node.queue == Node.PROTECTED) {
+      protectedQueue.remove(node);
+    } else {
+      probation.remove(node);
+    }
+  }
+
+  @Override
+  public Node victim() {
+    var victim = probation.peekLast();
+    return victim != null ? victim : protectedQueue.peekLast();
+  }
+
+  @Override
+  public void clear() {
+    probation.clear();
+    protectedQueue.clear();
+  }
+
+  @Override
+  public List<Node> ordered() {
+    var nodes = new ArrayList<Node>(probation.size() + protectedQueue.size());
+    protectedQueue.copyInto(nodes);
+    probation.copyInto(nodes);
+    return nodes;
+  }
+
+  private void demote() {
+    var node = protectedQueue.peekLast();
+    protectedQueue.remove(node);
+    node.queue = Node.PROBATION;
+    probation.addFirst(node);
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hashed timer wheel that finds expired entries without scanning the whole
+ * segment. An entry is linked into the bucket of the tick it expires in;
+ * advancing the wheel only visits the buckets of the ticks that elapsed, and
+ * entries due in a later rotation simply stay where they are. Like the
+ * eviction policies it is owned by a segment and used under its lock. The
+ * wheel has no clock of its own; it starts at the time of the first
+ * {@link #advance}.
+ */
+final class TimerWheel {
+  /**
+   * Number of buckets, a power of two.
+   */
+  private static final int BUCKETS = 1024;
+  /**
+   * Duration of one tick, in nanoseconds.
+   */
+  private static final long TICK_NANOS = 10_000_000L;
+
+  /**
+   * Bucket heads.
+   */
+  private final Node[] buckets = new Node[BUCKETS];
+  /**
+   * Last tick processed, {@link Long#MIN_VALUE} before the first advance.
+   */
+  private long currentTick = Long.MIN_VALUE;
+
+  /**
+   * Schedule the entry at the given deadline, replacing an older schedule.
+   *
+   * @param node     {@link Node}
+   * @param deadline time of expiry, in nanoseconds
+   */
+  void schedule(final Node node, final long deadline) {
+    deschedule(node);
+    if (deadline == Long.MAX_VALUE) {
+      return;
+    }
+    var index = indexOf(deadline);
+    node.bucket = index;
+    node.wheelPrevious = null;
+    node.wheelNext = buckets[index];
+    if (buckets[index] != null) {
+      buckets[index].wheelPrevious = node;
+    }
+    buckets[index] = node;
+  }
+
+  /**
+   * Remove the entry from the wheel, if scheduled.
+   *
+   * @param node {@link Node}
+   */
+  void deschedule(final Node node) {
+    if (node.bucket < 0) {
+      return;
+    }
+    if (node.wheelPrevious != null) {
+      node.wheelPrevious.wheelNext = node.wheelNext;
+    } else {
+      buckets[node.bucket] = node.wheelNext;
+    }
+    if (node.wheelNext != null) {
+      node.wheelNext.wheelPrevious = node.wheelPrevious;
+    }
+    node.wheelPrevious = null;
+    node.wheelNext = null;
+    node.bucket = -1;
+  }
+
+  /**
+   * Whether at least one tick elapsed since the last {@link #advance}.
+   *
+   * @param now current time, in nanoseconds
+   * @return boolean
+   */
+  boolean hasElapsed(final long now) {
+    return tickOf(now) > currentTick;
+  }
+
+  /**
+   * Process the ticks elapsed up to {@code now}. Entries whose deadline has
+   * passed are descheduled and collected; entries whose deadline moved
+   * later, e.g. because they were read, are moved to their new bucket.
+   *
+   * @param now      current time, in nanoseconds
+   * @param deadline current deadline of an entry
+   * @param expired  receives the expired entries
+   */
+  void advance(final long now, final ToLongFunction<Node> deadline, final List<Node> expired) {
+    var target = tickOf(now);
+    var from = Math.max(currentTick, target - BUCKETS);
+    currentTick = target;
+    for (var tick = from; tick < target; tick++) {
+      var node = buckets[(int) (tick & (BUCKETS - 1))];
+      while (node != null) {
+        var next = node.wheelNext;
+        var due = deadline.applyAsLong(node);
+        if (due <= now) {
+          deschedule(node);
+          expired.add(node);
+        } else if (indexOf(due) != node.bucket) {
+          schedule(node, due);
+        }
+        node = next;
+      }
+    }
+  }
+
+  /**
+   * Forget all scheduled entries.
+   */
+  void clear() {
+    Arrays.fill(buckets, null);
+  }
+
+  private int indexOf(final long deadline) {
+    return (int) (Math.max(tickOf(deadline), currentTick) & (BUCKETS - 1));
+  }
+
+  private static long tickOf(final long nanos) {
+    return Math.floorDiv(nanos, TICK_NANOS);
+  }
+}
@@ -25,6 +25,10 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>DBManager handles the communication with the underlying data store i.e.
@@ -50,6 +54,25 @@ public interface DbManager {
    */
   UserAccount readFromDb(String userId);
 
+  /**
+   * Read several records in one round-trip. The default implementation
+   * reads them one by one.
+   *
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}, without the
+   *     users that do not exist
+   */
+  default Map<String, UserAccount> readAllFromDb(Collection<String> userIds) {
+    var userAccounts = new HashMap<String, UserAccount>();
+    userIds.forEach(userId -> {
+      var userAccount = readFromDb(userId);
+      if (userAccount != null) {
+        userAccounts.put(userId, userAccount);
+      }
+    });
+    return userAccounts;
+  }
+
   /**
    * Write to DB.
    *
@@ -73,4 +96,14 @@ public interface DbManager {
    * @return {@link UserAccount}
    */
   UserAccount upsertDb(UserAccount userAccount);
+
+  /**
+   * Update or insert several records in one round-trip. The default
+   * implementation upserts them one by one.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   */
+  default void batchUpsertDb(List<UserAccount> userAccounts) {
+    userAccounts.forEach(this::upsertDb);
+  }
 }
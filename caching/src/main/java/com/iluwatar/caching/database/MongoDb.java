@@ -36,7 +36,16 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 
@@ -98,6 +107,26 @@ public class MongoDb implements DbManager {
     }
   }
 
+  /**
+   * Read all requested users with a single {@code $in} query.
+   *
+   * @param userIds {@link Collection} of {@link String}
+   * @return {@link Map} from user id to {@link UserAccount}
+   */
+  @Override
+  public Map<String, UserAccount> readAllFromDb(final Collection<String> userIds) {
+    var userAccounts = new HashMap<String, UserAccount>();
+    db.getCollection(CachingConstants.USER_ACCOUNT)
+        .find(new Document(USER_ID, new Document("$in", new ArrayList<>(userIds))))
+        .into(new ArrayList<>())
+        .forEach(doc -> {
+          var userId = doc.getString(USER_ID);
+          userAccounts.put(userId,
+              new UserAccount(userId, doc.getString(USER_NAME), doc.getString(ADD_INFO)));
+        });
+    return userAccounts;
+  }
+
   /**
    * Write data to DB.
    *
@@ -152,4 +181,28 @@ public class MongoDb implements DbManager {
     );
     return userAccount;
   }
+
+  /**
+   * Upsert all records with a single unordered bulk write.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   */
+  @Override
+  public void batchUpsertDb(final List<UserAccount> userAccounts) {
+    if (userAccounts.isEmpty()) {
+      return;
+    }
+    var upsert = new UpdateOptions().upsert(true);
+    List<WriteModel<Document>> requests = userAccounts.stream()
+        .map(account -> new UpdateOneModel<Document>(
+            new Document(USER_ID, account.getUserId()),
+            new Document("$set",
+                new Document(USER_ID, account.getUserId())
+                    .append(USER_NAME, account.getUserName())
+                    .append(ADD_INFO, account.getAdditionalInfo())),
+            upsert))
+        .collect(Collectors.toList());
+    db.getCollection(CachingConstants.USER_ACCOUNT)
+        .bulkWrite(requests, new BulkWriteOptions().ordered(false));
+  }
 }
@@ -25,8 +25,8 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of DatabaseManager.
@@ -34,16 +34,16 @@ import java.util.Map;
  */
 public class VirtualDb implements DbManager {
   /**
-   * Virtual DataBase.
+   * Virtual DataBase, written by the write-behind flusher thread as well.
    */
-  private Map<String, UserAccount> db;
+  private volatile Map<String, UserAccount> db;
 
   /**
-   * Creates new HashMap.
+   * Creates new ConcurrentHashMap.
    */
   @Override
   public void connect() {
-    db = new HashMap<>();
+    db = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -59,10 +59,7 @@ public class VirtualDb implements DbManager {
    */
   @Override
   public UserAccount readFromDb(final String userId) {
-    if (db.containsKey(userId)) {
-      return db.get(userId);
-    }
-    return null;
+    return db.get(userId);
   }
 
   /**
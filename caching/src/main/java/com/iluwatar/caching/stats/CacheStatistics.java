@@ -0,0 +1,198 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.stats;
+
+import com.iluwatar.caching.concurrent.RemovalCause;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Statistics of one {@link com.iluwatar.caching.CachingPolicy}. All counters
+ * are {@link LongAdder}s, so concurrent recording threads do not contend on a
+ * shared cache line; reading sums the stripes and is only done by monitoring.
+ */
+public class CacheStatistics implements CacheStatisticsMxBean {
+  /**
+   * Nanoseconds per millisecond.
+   */
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  /**
+   * Hits.
+   */
+  private final LongAdder hits = new LongAdder();
+  /**
+   * Misses.
+   */
+  private final LongAdder misses = new LongAdder();
+  /**
+   * Failed loads.
+   */
+  private final LongAdder loadFailures = new LongAdder();
+  /**
+   * Load latencies.
+   */
+  private final LatencyHistogram loadLatency = new LatencyHistogram();
+  /**
+   * Removals by cause.
+   */
+  private final Map<RemovalCause, LongAdder> evictions = new EnumMap<>(RemovalCause.class);
+  /**
+   * Depth of the write-behind queue.
+   */
+  private final IntSupplier writeBehindQueueDepth;
+
+  /**
+   * Constructor.
+   *
+   * @param queueDepth reports the depth of the write-behind queue
+   */
+  public CacheStatistics(final IntSupplier queueDepth) {
+    this.writeBehindQueueDepth = queueDepth;
+    for (var cause : RemovalCause.values()) {
+      evictions.put(cause, new LongAdder());
+    }
+  }
+
+  /**
+   * Record a cache hit.
+   */
+  public void recordHit() {
+    hits.increment();
+  }
+
+  /**
+   * Record a cache miss.
+   */
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  /**
+   * Record a DB load.
+   *
+   * @param nanos   time the load took
+   * @param success whether it returned normally
+   */
+  public void recordLoad(final long nanos, final boolean success) {
+    loadLatency.record(nanos);
+    if (!success) {
+      loadFailures.increment();
+    }
+  }
+
+  /**
+   * Record an entry leaving the cache.
+   *
+   * @param cause {@link RemovalCause}
+   */
+  public void recordEviction(final RemovalCause cause) {
+    evictions.get(cause).increment();
+  }
+
+  /**
+   * Load latency histogram.
+   *
+   * @return {@link LatencyHistogram}
+   */
+  public LatencyHistogram getLoadLatency() {
+    return loadLatency;
+  }
+
+  @Override
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public double getHitRate() {
+    var hitCount = getHitCount();
+    var total = hitCount + getMissCount();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  @Override
+  public long getLoadCount() {
+    return loadLatency.getCount();
+  }
+
+  @Override
+  public long getLoadFailureCount() {
+    return loadFailures.sum();
+  }
+
+  @Override
+  public double getAverageLoadMillis() {
+    return loadLatency.getMeanNanos() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLoadLatencyP50Millis() {
+    return loadLatency.getPercentileNanos(50) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getLoadLatencyP99Millis() {
+    return loadLatency.getPercentileNanos(99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public Map<String, Long> getEvictionCounts() {
+    var counts = new LinkedHashMap<String, Long>();
+    evictions.forEach((cause, count) -> counts.put(cause.name(), count.sum()));
+    return counts;
+  }
+
+  @Override
+  public int getWriteBehindQueueDepth() {
+    return writeBehindQueueDepth.getAsInt();
+  }
+
+  @Override
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    loadFailures.reset();
+    loadLatency.reset();
+    evictions.values().forEach(LongAdder::reset);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("hits=%d, misses=%d, hitRate=%.2f, loads=%d, loadFailures=%d,"
+            + " avgLoadMs=%.3f, p99LoadMs=%.3f, evictions=%s, writeBehindQueueDepth=%d",
+        getHitCount(), getMissCount(), getHitRate(), getLoadCount(), getLoadFailureCount(),
+        getAverageLoadMillis(), getLoadLatencyP99Millis(), getEvictionCounts(),
+        getWriteBehindQueueDepth());
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.stats;
+
+import java.util.Map;
+import javax.management.MXBean;
+
+/**
+ * JMX view of {@link CacheStatistics}.
+ */
+@MXBean
+public interface CacheStatisticsMxBean {
+  /**
+   * Lookups served from the cache.
+   *
+   * @return long
+   */
+  long getHitCount();
+
+  /**
+   * Lookups that had to go to the DB.
+   *
+   * @return long
+   */
+  long getMissCount();
+
+  /**
+   * Hits divided by lookups.
+   *
+   * @return between 0 and 1, 0 if there was no lookup
+   */
+  double getHitRate();
+
+  /**
+   * DB loads, successful or not.
+   *
+   * @return long
+   */
+  long getLoadCount();
+
+  /**
+   * DB loads that threw.
+   *
+   * @return long
+   */
+  long getLoadFailureCount();
+
+  /**
+   * Mean DB load latency.
+   *
+   * @return milliseconds
+   */
+  double getAverageLoadMillis();
+
+  /**
+   * Median DB load latency.
+   *
+   * @return milliseconds
+   */
+  double getLoadLatencyP50Millis();
+
+  /**
+   * 99th percentile DB load latency.
+   *
+   * @return milliseconds
+   */
+  double getLoadLatencyP99Millis();
+
+  /**
+   * Entries removed from the cache, by cause.
+   *
+   * @return {@link Map} from cause name to count
+   */
+  Map<String, Long> getEvictionCounts();
+
+  /**
+   * Records waiting in the write-behind queue.
+   *
+   * @return int
+   */
+  int getWriteBehindQueueDepth();
+
+  /**
+   * Reset all counters.
+   */
+  void reset();
+}
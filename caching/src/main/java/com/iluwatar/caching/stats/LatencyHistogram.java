@@ -0,0 +1,129 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with one striped counter per power-of-two bucket of
+ * nanoseconds. Recording is a single {@link LongAdder#increment()}, and
+ * percentiles are accurate to within a factor of two, which is enough to
+ * tell a cache hit from a DB round-trip.
+ */
+public class LatencyHistogram {
+  /**
+   * One bucket per bit of a long.
+   */
+  private static final int BUCKETS = Long.SIZE;
+
+  /**
+   * Bucket {@code i} counts latencies in {@code [2^i, 2^(i+1))} nanoseconds.
+   */
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  /**
+   * Sum of all recorded latencies.
+   */
+  private final LongAdder totalNanos = new LongAdder();
+
+  /**
+   * Constructor.
+   */
+  public LatencyHistogram() {
+    for (var i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record one latency.
+   *
+   * @param nanos elapsed nanoseconds
+   */
+  public void record(final long nanos) {
+    var value = Math.max(nanos, 1L);
+    buckets[BUCKETS - 1 - Long.numberOfLeadingZeros(value)].increment();
+    totalNanos.add(value);
+  }
+
+  /**
+   * Number of recorded latencies.
+   *
+   * @return long
+   */
+  public long getCount() {
+    var count = 0L;
+    for (var bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Mean latency.
+   *
+   * @return nanoseconds, 0 if nothing was recorded
+   */
+  public double getMeanNanos() {
+    var count = getCount();
+    return count == 0 ? 0 : (double) totalNanos.sum() / count;
+  }
+
+  /**
+   * Upper bound of the bucket holding the given percentile.
+   *
+   * @param percentile between 0 and 100
+   * @return nanoseconds, 0 if nothing was recorded
+   */
+  public long getPercentileNanos(final double percentile) {
+    var counts = new long[BUCKETS];
+    var total = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    var rank = Math.max(1L, (long) Math.ceil(total * percentile / 100));
+    var seen = 0L;
+    for (var i = 0; i < BUCKETS - 1; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return (1L << (i + 1)) - 1;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Forget all recorded latencies.
+   */
+  public void reset() {
+    for (var bucket : buckets) {
+      bucket.reset();
+    }
+    totalNanos.reset();
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.concurrent.ConcurrentCache;
+import com.iluwatar.caching.database.DbManager;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheStoreTest {
+
+  @Test
+  void refreshAheadReloadsEntriesCloseToExpiry() {
+    var dbManager = mock(DbManager.class);
+    when(dbManager.readFromDb("1"))
+        .thenReturn(new UserAccount("1", "old", "info"))
+        .thenReturn(new UserAccount("1", "new", "info"));
+    var now = new long[1];
+    var cache = ConcurrentCache.lru(10);
+    cache.setTicker(() -> now[0]);
+    cache.setExpireAfterWrite(Duration.ofMillis(300));
+    cache.setRefreshAhead(Duration.ofMillis(250));
+    var cacheStore = new CacheStore(dbManager, cache);
+    cacheStore.setRefreshExecutor(Runnable::run);
+
+    assertEquals("old", cacheStore.readThrough("1").getUserName());
+    now[0] += Duration.ofMillis(10).toNanos();
+    assertEquals("old", cacheStore.readThrough("1").getUserName());
+    verify(dbManager, times(1)).readFromDb("1");
+    now[0] += Duration.ofMillis(90).toNanos();
+    assertEquals("old", cacheStore.readThrough("1").getUserName());
+    assertEquals("new", cacheStore.readThrough("1").getUserName());
+
+    verify(dbManager, times(2)).readFromDb("1");
+  }
+
+  @Test
+  void refreshAheadDoesNotOverwriteNewerWrite() {
+    var dbManager = mock(DbManager.class);
+    when(dbManager.readFromDb("1")).thenReturn(new UserAccount("1", "old", "info"));
+    var now = new long[1];
+    var cache = ConcurrentCache.lru(10);
+    cache.setTicker(() -> now[0]);
+    cache.setExpireAfterWrite(Duration.ofMillis(300));
+    cache.setRefreshAhead(Duration.ofMillis(250));
+    var cacheStore = new CacheStore(dbManager, cache);
+    var refreshes = new ArrayList<Runnable>();
+    cacheStore.setRefreshExecutor(refreshes::add);
+
+    cacheStore.readThrough("1");
+    now[0] += Duration.ofMillis(100).toNanos();
+    cacheStore.readThrough("1");
+    assertEquals(1, refreshes.size());
+    cacheStore.writeThrough(new UserAccount("1", "written", "info"));
+    refreshes.get(0).run();
+
+    verify(dbManager, times(2)).readFromDb("1");
+    assertEquals("written", cacheStore.get("1").getUserName());
+  }
+
+  @Test
+  void concurrentMissesShareOneDbRead() throws Exception {
+    var dbManager = mock(DbManager.class);
+    var release = new CountDownLatch(1);
+    var account = new UserAccount("1", "name", "info");
+    when(dbManager.readFromDb("1")).thenAnswer(invocation -> {
+      assertTrue(release.await(5, TimeUnit.SECONDS));
+      return account;
+    });
+    var cacheStore = new CacheStore(dbManager, ConcurrentCache.lru(10));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    var results = new ArrayList<Future<UserAccount>>();
+    for (var i = 0; i < 4; i++) {
+      results.add(executor.submit(() -> cacheStore.readThrough("1")));
+    }
+    while (cacheStore.getDeduplicatedLoadCount() < 3) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    for (var result : results) {
+      assertSame(account, result.get(5, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+
+    verify(dbManager, times(1)).readFromDb("1");
+    assertEquals(3, cacheStore.getDeduplicatedLoadCount());
+  }
+
+  @Test
+  void readThroughAllBatchesMisses() {
+    var dbManager = mock(DbManager.class);
+    var cacheStore = new CacheStore(dbManager, ConcurrentCache.lru(10));
+    var cached = new UserAccount("1", "one", "info");
+    var loaded = new UserAccount("2", "two", "info");
+    cacheStore.set("1", cached);
+    when(dbManager.readAllFromDb(Set.of("2", "3"))).thenReturn(Map.of("2", loaded));
+
+    var result = cacheStore.readThroughAll(List.of("3", "1", "2"));
+
+    assertEquals(List.of("3", "1", "2"), new ArrayList<>(result.keySet()));
+    assertSame(cached, result.get("1"));
+    assertSame(loaded, result.get("2"));
+    assertNull(result.get("3"));
+    assertSame(loaded, cacheStore.get("2"));
+    verify(dbManager, times(1)).readAllFromDb(Set.of("2", "3"));
+  }
+
+  @Test
+  void statisticsAreRecordedPerPolicy() throws Exception {
+    var dbManager = mock(DbManager.class);
+    when(dbManager.readFromDb("1")).thenReturn(new UserAccount("1", "one", "info"));
+    when(dbManager.readFromDb("2")).thenReturn(new UserAccount("2", "two", "info"));
+    var cacheStore = new CacheStore(dbManager, new LruCache(1));
+    cacheStore.setHotPathLogging(false);
+    cacheStore.useStatisticsOf(CachingPolicy.AROUND);
+
+    cacheStore.readThrough("1");
+    cacheStore.readThrough("1");
+    cacheStore.readThrough("2");
+
+    var stats = cacheStore.getStatistics(CachingPolicy.AROUND);
+    assertEquals(1, stats.getHitCount());
+    assertEquals(2, stats.getMissCount());
+    assertEquals(2, stats.getLoadCount());
+    assertEquals(1L, stats.getEvictionCounts().get("SIZE"));
+    assertEquals(0, cacheStore.getStatistics(CachingPolicy.THROUGH).getMissCount());
+
+    cacheStore.registerMbeans("statistics-test");
+    var hits = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(
+        "com.iluwatar.caching:type=CacheStatistics,store=\"statistics-test\",policy=around"),
+        "HitCount");
+    assertEquals(1L, hits);
+  }
+
+  @Test
+  void pendingWriteIsServedInsteadOfJoiningDbLoad() throws Exception {
+    var dbManager = mock(DbManager.class);
+    var reading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(dbManager.readFromDb("1")).thenAnswer(invocation -> {
+      reading.countDown();
+      assertTrue(release.await(5, TimeUnit.SECONDS));
+      return new UserAccount("1", "stale", "info");
+    });
+    var flusher = new WriteBehindFlusher(dbManager, 10, 10, Duration.ofMinutes(1),
+        Duration.ZERO);
+    var cacheStore = new CacheStore(dbManager, ConcurrentCache.lru(10), flusher);
+    var executor = Executors.newSingleThreadExecutor();
+    var throughRead = executor.submit(() -> cacheStore.readThrough("1"));
+    assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+    cacheStore.writeBehind(new UserAccount("1", "fresh", "info"));
+    cacheStore.invalidate("1");
+
+    assertEquals("fresh", cacheStore.readThroughWithWriteBackPolicy("1").getUserName());
+    assertEquals("fresh", cacheStore.readThroughAll(List.of("1")).get("1").getUserName());
+    assertEquals(0, cacheStore.getDeduplicatedLoadCount());
+    verify(dbManager, never()).readAllFromDb(anyCollection());
+    release.countDown();
+    throughRead.get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+  }
+
+  @Test
+  void evictionsReachListenerSetBeforeTheStore() {
+    var dbManager = mock(DbManager.class);
+    var cache = new LruCache(1);
+    var evicted = new ArrayList<String>();
+    cache.setRemovalListener((userId, userAccount, cause) -> evicted.add(userId));
+    var cacheStore = new CacheStore(dbManager, cache);
+
+    cacheStore.set("1", new UserAccount("1", "one", "info"));
+    cacheStore.set("2", new UserAccount("2", "two", "info"));
+
+    assertEquals(List.of("1"), evicted);
+    assertEquals(1L, cacheStore.getStatistics(CachingPolicy.THROUGH).getEvictionCounts()
+        .get("SIZE"));
+  }
+}
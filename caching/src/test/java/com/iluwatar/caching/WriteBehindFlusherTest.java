@@ -0,0 +1,189 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class WriteBehindFlusherTest {
+
+  private final DbManager dbManager = mock(DbManager.class);
+
+  private static UserAccount account(String id, String name) {
+    return new UserAccount(id, name, "info");
+  }
+
+  @Test
+  void coalescesRepeatedWritesOfSameUser() {
+    var flusher = new WriteBehindFlusher(dbManager, 10, 10,
+        Duration.ofMinutes(1), Duration.ZERO);
+    flusher.enqueue(account("1", "old"));
+    flusher.enqueue(account("1", "new"));
+
+    assertEquals(1, flusher.getQueueDepth());
+    assertEquals(1, flusher.getCoalescedCount());
+    assertEquals("new", flusher.getPending("1").getUserName());
+
+    flusher.close();
+    verify(dbManager).batchUpsertDb(List.of(account("1", "new")));
+  }
+
+  @Test
+  void flushesWhenBatchIsFull() {
+    var flusher = new WriteBehindFlusher(dbManager, 10, 2,
+        Duration.ofMinutes(1), Duration.ZERO);
+    flusher.enqueue(account("1", "a"));
+    flusher.enqueue(account("2", "b"));
+
+    verify(dbManager, timeout(5000))
+        .batchUpsertDb(List.of(account("1", "a"), account("2", "b")));
+    flusher.close();
+  }
+
+  @Test
+  void flushesAfterInterval() {
+    var flusher = new WriteBehindFlusher(dbManager, 10, 100,
+        Duration.ofMillis(20), Duration.ZERO);
+    flusher.enqueue(account("1", "a"));
+
+    verify(dbManager, timeout(5000)).batchUpsertDb(List.of(account("1", "a")));
+    flusher.close();
+  }
+
+  @Test
+  void writesOnCallerThreadWhenQueueIsFull() {
+    var flusher = new WriteBehindFlusher(dbManager, 1, 100,
+        Duration.ofMinutes(1), Duration.ofMillis(10));
+    flusher.enqueue(account("1", "a"));
+    flusher.enqueue(account("2", "b"));
+
+    verify(dbManager).upsertDb(account("2", "b"));
+    flusher.close();
+  }
+
+  @Test
+  void closeWritesEverythingQueued() {
+    var flusher = new WriteBehindFlusher(dbManager, 10, 100,
+        Duration.ofMinutes(1), Duration.ZERO);
+    flusher.enqueue(account("1", "a"));
+    verify(dbManager, never()).batchUpsertDb(anyList());
+
+    flusher.close();
+
+    verify(dbManager).batchUpsertDb(List.of(account("1", "a")));
+    assertEquals(0, flusher.getQueueDepth());
+    assertNull(flusher.getPending("1"));
+  }
+
+  @Test
+  void backsOffWhileDbFails() throws InterruptedException {
+    doThrow(new IllegalStateException("DB down")).when(dbManager).batchUpsertDb(anyList());
+    var flusher = new WriteBehindFlusher(dbManager, 10, 1,
+        Duration.ofMillis(10), Duration.ZERO);
+    flusher.enqueue(account("1", "a"));
+
+    Thread.sleep(300);
+    verify(dbManager, atLeast(2)).batchUpsertDb(anyList());
+    verify(dbManager, atMost(8)).batchUpsertDb(anyList());
+    assertEquals("a", flusher.getPending("1").getUserName());
+
+    doNothing().when(dbManager).batchUpsertDb(anyList());
+    flusher.close();
+    assertEquals(0, flusher.getQueueDepth());
+  }
+
+  @Test
+  void overflowWriteIsNotOverwrittenByRequeuedBatch() throws Exception {
+    var db = new ConcurrentHashMap<String, String>();
+    var entered = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      if (entered.getCount() > 0) {
+        entered.countDown();
+        release.await();
+        throw new IllegalStateException("DB down");
+      }
+      List<UserAccount> accounts = invocation.getArgument(0);
+      accounts.forEach(a -> db.put(a.getUserId(), a.getUserName()));
+      return null;
+    }).when(dbManager).batchUpsertDb(anyList());
+    doAnswer(invocation -> {
+      UserAccount a = invocation.getArgument(0);
+      db.put(a.getUserId(), a.getUserName());
+      return a;
+    }).when(dbManager).upsertDb(any());
+    var flusher = new WriteBehindFlusher(dbManager, 1, 1,
+        Duration.ofMinutes(1), Duration.ZERO);
+    flusher.enqueue(account("1", "v1"));
+    entered.await();
+    flusher.enqueue(account("2", "b"));
+
+    // the queue is full, so v2 falls back to a direct write behind the failing batch
+    var overflow = new Thread(() -> flusher.enqueue(account("1", "v2")));
+    overflow.start();
+    while (overflow.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    overflow.join();
+
+    flusher.close();
+    assertEquals("v2", db.get("1"));
+    assertEquals("b", db.get("2"));
+  }
+
+  @Test
+  void closeReportsRecordsTheDbRejected() {
+    doThrow(new IllegalStateException("DB down")).when(dbManager).batchUpsertDb(anyList());
+    var flusher = new WriteBehindFlusher(dbManager, 10, 100,
+        Duration.ofMinutes(1), Duration.ZERO);
+    flusher.enqueue(account("1", "a"));
+    flusher.enqueue(account("2", "b"));
+
+    var e = assertThrows(IllegalStateException.class, flusher::close);
+    assertEquals("2 write-behind records could not be written", e.getMessage());
+    assertEquals(2, flusher.getQueueDepth());
+    assertEquals("b", flusher.getPending("2").getUserName());
+  }
+}
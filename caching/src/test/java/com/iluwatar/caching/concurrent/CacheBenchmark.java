@@ -0,0 +1,237 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import com.iluwatar.caching.Cache;
+import com.iluwatar.caching.LruCache;
+import com.iluwatar.caching.UserAccount;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Read-through workload over a Zipf-distributed key space comparing the
+ * externally synchronized {@link LruCache} with the {@link ConcurrentCache}
+ * policies. Besides ops/sec, the {@code hits} and {@code misses} counters give
+ * the hit ratio of every configuration. Run {@link #main} from the test
+ * classpath to sweep 1 to 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+  private static final int CAPACITY = 1 << 12;
+  private static final int KEY_SPACE = CAPACITY * 8;
+  private static final int SEQUENCE_LENGTH = 1 << 16;
+  private static final double[] ZIPF_CDF = zipfCdf(KEY_SPACE, 0.99);
+  private static final AtomicInteger SEEDS = new AtomicInteger();
+
+  @Param({"LruCache", "lru", "segmentedLru", "tinyLfu"})
+  public String engine;
+
+  private Cache cache;
+  private String[] keys;
+  private UserAccount[] accounts;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = switch (engine) {
+      case "LruCache" -> new SynchronizedCache(new LruCache(CAPACITY));
+      case "lru" -> ConcurrentCache.lru(CAPACITY);
+      case "segmentedLru" -> ConcurrentCache.segmentedLru(CAPACITY);
+      default -> ConcurrentCache.tinyLfu(CAPACITY);
+    };
+    keys = new String[KEY_SPACE];
+    accounts = new UserAccount[KEY_SPACE];
+    for (var i = 0; i < KEY_SPACE; i++) {
+      keys[i] = "user-" + i;
+      accounts[i] = new UserAccount(keys[i], "User " + i, "Benchmark");
+    }
+  }
+
+  @Benchmark
+  public UserAccount readThrough(Workload workload, HitCounters counters) {
+    var i = workload.next();
+    var account = cache.get(keys[i]);
+    if (account == null) {
+      counters.misses++;
+      cache.set(keys[i], accounts[i]);
+      return accounts[i];
+    }
+    counters.hits++;
+    return account;
+  }
+
+  /**
+   * Per-thread pre-computed key indexes, so sampling stays off the measured path.
+   */
+  @State(Scope.Thread)
+  public static class Workload {
+    private int[] sequence;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      var random = new SplittableRandom(SEEDS.incrementAndGet());
+      sequence = new int[SEQUENCE_LENGTH];
+      for (var i = 0; i < SEQUENCE_LENGTH; i++) {
+        var index = Arrays.binarySearch(ZIPF_CDF, random.nextDouble());
+        sequence[i] = Math.min(index < 0 ? -index - 1 : index, KEY_SPACE - 1);
+      }
+    }
+
+    int next() {
+      var index = sequence[position];
+      position = (position + 1) & (SEQUENCE_LENGTH - 1);
+      return index;
+    }
+  }
+
+  /**
+   * Hits and misses reported next to the throughput score.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class HitCounters {
+    public long hits;
+    public long misses;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      hits = 0;
+      misses = 0;
+    }
+  }
+
+  /**
+   * {@link LruCache} guarded by a single monitor, as multi-threaded callers
+   * have to use it.
+   */
+  private static final class SynchronizedCache implements Cache {
+    private final Cache delegate;
+
+    SynchronizedCache(Cache delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized UserAccount get(String userId) {
+      return delegate.get(userId);
+    }
+
+    @Override
+    public synchronized void set(String userId, UserAccount userAccount) {
+      delegate.set(userId, userAccount);
+    }
+
+    @Override
+    public synchronized boolean contains(String userId) {
+      return delegate.contains(userId);
+    }
+
+    @Override
+    public synchronized void invalidate(String userId) {
+      delegate.invalidate(userId);
+    }
+
+    @Override
+    public synchronized boolean isFull() {
+      return delegate.isFull();
+    }
+
+    @Override
+    public synchronized UserAccount getLruData() {
+      return delegate.getLruData();
+    }
+
+    @Override
+    public synchronized void clear() {
+      delegate.clear();
+    }
+
+    @Override
+    public synchronized List<UserAccount> getCacheDataInListForm() {
+      return delegate.getCacheDataInListForm();
+    }
+
+    @Override
+    public synchronized void setCapacity(int newCapacity) {
+      delegate.setCapacity(newCapacity);
+    }
+
+    @Override
+    public synchronized void setRemovalListener(RemovalListener listener) {
+      delegate.setRemovalListener(listener);
+    }
+
+    @Override
+    public synchronized RemovalListener getRemovalListener() {
+      return delegate.getRemovalListener();
+    }
+  }
+
+  private static double[] zipfCdf(int size, double exponent) {
+    var cdf = new double[size];
+    var sum = 0.0;
+    for (var i = 0; i < size; i++) {
+      sum += 1.0 / Math.pow(i + 1, exponent);
+      cdf[i] = sum;
+    }
+    for (var i = 0; i < size; i++) {
+      cdf[i] /= sum;
+    }
+    return cdf;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var threads : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+      new Runner(new OptionsBuilder()
+          .include(CacheBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
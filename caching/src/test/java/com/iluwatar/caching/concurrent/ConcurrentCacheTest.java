@@ -0,0 +1,203 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching.concurrent;
+
+import com.iluwatar.caching.UserAccount;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentCacheTest {
+
+  private static UserAccount account(String id) {
+    return new UserAccount(id, "name-" + id, "info");
+  }
+
+  @Test
+  void lruEvictsLeastRecentlyUsed() {
+    var cache = new ConcurrentCache(3, 1, capacity -> new LruPolicy(),
+        capacity -> AdmissionPolicy.ALWAYS);
+    var removed = new ArrayList<String>();
+    cache.setRemovalListener((userId, userAccount, cause) -> removed.add(userId));
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    cache.set("3", account("3"));
+    cache.get("1");
+    cache.set("4", account("4"));
+
+    assertEquals(List.of("2"), removed);
+    assertTrue(cache.contains("1"));
+    assertFalse(cache.contains("2"));
+    assertTrue(cache.isFull());
+  }
+
+  @Test
+  void segmentedLruKeepsFrequentEntriesDuringScan() {
+    var cache = new ConcurrentCache(10, 1, SegmentedLruPolicy::new,
+        capacity -> AdmissionPolicy.ALWAYS);
+    for (var i = 0; i < 5; i++) {
+      cache.set("hot" + i, account("hot" + i));
+      cache.get("hot" + i);
+    }
+    for (var i = 0; i < 100; i++) {
+      cache.set("scan" + i, account("scan" + i));
+    }
+    for (var i = 0; i < 5; i++) {
+      assertTrue(cache.contains("hot" + i));
+    }
+  }
+
+  @Test
+  void tinyLfuRejectsOneHitWonders() {
+    var cache = new ConcurrentCache(2, 1, SegmentedLruPolicy::new, TinyLfuAdmission::new);
+    cache.set("a", account("a"));
+    cache.set("b", account("b"));
+    for (var i = 0; i < 5; i++) {
+      cache.get("a");
+      cache.get("b");
+    }
+    cache.set("c", account("c"));
+
+    assertFalse(cache.contains("c"));
+    assertTrue(cache.contains("a"));
+    assertTrue(cache.contains("b"));
+  }
+
+  @Test
+  void shrinkingEvictsOnlyOverflow() {
+    var cache = new ConcurrentCache(4, 1, capacity -> new LruPolicy(),
+        capacity -> AdmissionPolicy.ALWAYS);
+    for (var i = 1; i <= 4; i++) {
+      cache.set(String.valueOf(i), account(String.valueOf(i)));
+    }
+    cache.setCapacity(2);
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains("3"));
+    assertTrue(cache.contains("4"));
+  }
+
+  @Test
+  void invalidateRemovesEntry() {
+    var cache = ConcurrentCache.lru(10);
+    cache.set("1", account("1"));
+    cache.invalidate("1");
+    assertNull(cache.get("1"));
+  }
+
+  @Test
+  void concurrentAccessStaysWithinCapacity() throws InterruptedException {
+    var cache = ConcurrentCache.tinyLfu(64);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    var done = new CountDownLatch(8);
+    for (var t = 0; t < 8; t++) {
+      var seed = t;
+      executor.execute(() -> {
+        for (var i = 0; i < 10_000; i++) {
+          var key = String.valueOf((i * 31 + seed) % 500);
+          if (cache.get(key) == null) {
+            cache.set(key, account(key));
+          }
+        }
+        done.countDown();
+      });
+    }
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    assertTrue(cache.size() <= 64);
+    assertEquals(cache.size(), cache.getCacheDataInListForm().size());
+  }
+
+  @Test
+  void entriesExpireAfterWrite() {
+    var now = new long[1];
+    var cache = ConcurrentCache.lru(10);
+    cache.setTicker(() -> now[0]);
+    var expired = new ArrayList<String>();
+    cache.setRemovalListener((userId, userAccount, cause) -> {
+      if (cause == RemovalCause.EXPIRED) {
+        expired.add(userId);
+      }
+    });
+    cache.setExpireAfterWrite(Duration.ofMillis(50));
+    cache.set("1", account("1"));
+    cache.set("2", account("2"), Duration.ofMinutes(1));
+    assertTrue(cache.contains("1"));
+
+    now[0] += Duration.ofMillis(100).toNanos();
+    cache.cleanUp();
+
+    assertNull(cache.get("1"));
+    assertFalse(cache.contains("1"));
+    assertTrue(cache.contains("2"));
+    assertEquals(List.of("1"), expired);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void readsKeepEntriesFromIdleExpiry() {
+    var now = new long[1];
+    var cache = ConcurrentCache.lru(10);
+    cache.setTicker(() -> now[0]);
+    cache.setExpireAfterAccess(Duration.ofMillis(150));
+    cache.set("hot", account("hot"));
+    cache.set("cold", account("cold"));
+    for (var i = 0; i < 4; i++) {
+      now[0] += Duration.ofMillis(50).toNanos();
+      cache.get("hot");
+    }
+
+    assertTrue(cache.contains("hot"));
+    assertFalse(cache.contains("cold"));
+  }
+
+  @Test
+  void needsRefreshCloseToExpiry() {
+    var now = new long[1];
+    var cache = ConcurrentCache.lru(10);
+    cache.setTicker(() -> now[0]);
+    cache.setExpireAfterWrite(Duration.ofMillis(300));
+    cache.setRefreshAhead(Duration.ofMillis(250));
+    cache.set("1", account("1"));
+    assertFalse(cache.needsRefresh("1"));
+
+    now[0] += Duration.ofMillis(100).toNanos();
+
+    assertTrue(cache.needsRefresh("1"));
+    cache.set("1", account("1"));
+    assertFalse(cache.needsRefresh("1"));
+  }
+}
@@ -29,6 +29,9 @@ import com.iluwatar.caching.constants.CachingConstants;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import java.util.ArrayList;
+import java.util.List;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -100,4 +103,29 @@ class MongoDbTest {
     when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
     assertDoesNotThrow(()-> {mongoDb.upsertDb(userAccount);});
   }
-}
\ No newline at end of file
+
+  @Test
+  void batchUpsertDb() {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
+    mongoDb.batchUpsertDb(List.of(userAccount, new UserAccount("456", NAME, ADDITIONAL_INFO)));
+    verify(mongoCollection).bulkWrite(anyList(), any(BulkWriteOptions.class));
+  }
+
+  @Test
+  void readAllFromDb() {
+    Document document = new Document(USER_ID, ID)
+            .append(USER_NAME, NAME)
+            .append(ADD_INFO, ADDITIONAL_INFO);
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
+    FindIterable<Document> findIterable = mock(FindIterable.class);
+    when(mongoCollection.find(any(Document.class))).thenReturn(findIterable);
+    doReturn(new ArrayList<>(List.of(document))).when(findIterable).into(any());
+
+    var result = mongoDb.readAllFromDb(List.of(ID, "456"));
+
+    assertEquals(1, result.size());
+    assertEquals(userAccount, result.get(ID));
+  }
+}
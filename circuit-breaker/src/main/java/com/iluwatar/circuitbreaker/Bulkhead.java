@@ -0,0 +1,117 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Isolates the calls to one remote service on a dedicated pool of threads with a bounded queue.
+ * A hanging service can tie up the threads and the queue of its own bulkhead only; once both are
+ * full further calls fail right away instead of waiting, and the callers and the other services
+ * carry on. The latency of every accepted call, including its time in the queue, is recorded.
+ *
+ * <p>A call that takes longer than the timeout of its circuit breaker, time in the queue included,
+ * fails with a {@link RemoteServiceException}, so callers get their fallback even while a hung
+ * service holds on to the threads.
+ */
+public class Bulkhead implements AutoCloseable {
+
+  private final String name;
+  private final ThreadPoolExecutor executor;
+  private final LatencyRecorder latencies = new LatencyRecorder();
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  /**
+   * Creates a bulkhead.
+   *
+   * @param name               name of the bulkhead, used for its threads.
+   * @param maxConcurrentCalls number of threads.
+   * @param maxQueuedCalls     number of calls waiting for a thread.
+   */
+  public Bulkhead(String name, int maxConcurrentCalls, int maxQueuedCalls) {
+    this.name = name;
+    var threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60,
+        TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxQueuedCalls), runnable -> {
+          var thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Attempts a request through the circuit breaker inside the bulkhead.
+   *
+   * @param circuitBreaker the circuit breaker of the service.
+   * @return future of the response, failed with a {@link RemoteServiceException} if the request
+   *     failed, timed out or the bulkhead is full
+   */
+  public CompletableFuture<String> execute(CircuitBreaker circuitBreaker) {
+    var start = System.nanoTime();
+    try {
+      var response = circuitBreaker.attemptRequestAsync(executor);
+      var timeout = circuitBreaker.getTimeout();
+      if (timeout != null) {
+        response = response.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+            .exceptionally(error -> {
+              if (error instanceof TimeoutException) {
+                throw new CompletionException(new RemoteServiceException(
+                    "Remote service did not respond within " + timeout.toMillis() + " ms"));
+              }
+              throw error instanceof CompletionException
+                  ? (CompletionException) error : new CompletionException(error);
+            });
+      }
+      return response
+          .whenComplete((result, error) -> latencies.record(System.nanoTime() - start));
+    } catch (RejectedExecutionException e) {
+      rejectedCount.incrementAndGet();
+      return CompletableFuture.failedFuture(
+          new RemoteServiceException("Bulkhead " + name + " is full"));
+    }
+  }
+
+  public LatencyRecorder getLatencies() {
+    return latencies;
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -24,6 +24,11 @@
  */
 package com.iluwatar.circuitbreaker;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 /**
  * The Circuit breaker interface.
  */
@@ -43,4 +48,33 @@ public interface CircuitBreaker {
 
   // Attempt to fetch response from the remote service.
   String attemptRequest() throws RemoteServiceException;
+
+  /**
+   * Get the time after which a request to the remote service is given up.
+   *
+   * @return the timeout, or null if requests are never given up
+   */
+  default Duration getTimeout() {
+    return null;
+  }
+
+  /**
+   * Attempt to fetch response from the remote service on the given executor, without blocking the
+   * caller.
+   *
+   * @param executor the executor to run the request on
+   * @return future of the response, failed with the RemoteServiceException the request would have
+   *     thrown
+   * @throws java.util.concurrent.RejectedExecutionException if the executor does not accept the
+   *     request
+   */
+  default CompletableFuture<String> attemptRequestAsync(Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return attemptRequest();
+      } catch (RemoteServiceException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sliding window over the last N calls. The outcomes live in a ring buffer of N slots; every
+ * call claims the next slot with a single atomic increment and swaps its outcome in, so callers
+ * never wait for each other. The totals are updated with the difference between the new outcome
+ * and the one it overwrote, which keeps reading the window independent of its size.
+ *
+ * <p>The totals are updated one after another rather than as a unit, so a reader racing with a
+ * writer may see them off by one call. That is well within what a failure rate needs.
+ */
+final class CountBasedSlidingWindow implements SlidingWindow {
+
+  private static final int RECORDED = 1;
+  private static final int FAILURE = 2;
+  private static final int SLOW = 4;
+
+  private final AtomicIntegerArray slots;
+  private final AtomicLong cursor = new AtomicLong();
+  private final AtomicInteger calls = new AtomicInteger();
+  private final AtomicInteger failures = new AtomicInteger();
+  private final AtomicInteger slowCalls = new AtomicInteger();
+
+  /**
+   * Creates a window.
+   *
+   * @param size number of calls in the window.
+   */
+  CountBasedSlidingWindow(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Window size must be positive: " + size);
+    }
+    this.slots = new AtomicIntegerArray(size);
+  }
+
+  @Override
+  public void record(boolean failure, boolean slow) {
+    var outcome = RECORDED | (failure ? FAILURE : 0) | (slow ? SLOW : 0);
+    var slot = (int) (cursor.getAndIncrement() % slots.length());
+    var overwritten = slots.getAndSet(slot, outcome);
+    add(outcome, 1);
+    add(overwritten, -1);
+  }
+
+  @Override
+  public Outcomes outcomes() {
+    return new Outcomes(Math.max(0, calls.get()), Math.max(0, failures.get()),
+        Math.max(0, slowCalls.get()));
+  }
+
+  @Override
+  public void reset() {
+    for (var slot = 0; slot < slots.length(); slot++) {
+      add(slots.getAndSet(slot, 0), -1);
+    }
+  }
+
+  private void add(int outcome, int delta) {
+    if ((outcome & RECORDED) != 0) {
+      calls.addAndGet(delta);
+    }
+    if ((outcome & FAILURE) != 0) {
+      failures.addAndGet(delta);
+    }
+    if ((outcome & SLOW) != 0) {
+      slowCalls.addAndGet(delta);
+    }
+  }
+}
@@ -24,6 +24,8 @@
  */
 package com.iluwatar.circuitbreaker;
 
+import java.time.Duration;
+
 /**
  * The delay based Circuit breaker implementation that works in a
  * CLOSED->OPEN-(retry_time_period)->HALF_OPEN->CLOSED flow with some retry time period for failed
@@ -97,6 +99,16 @@ public class DefaultCircuitBreaker implements CircuitBreaker {
     }
   }
 
+  /**
+   * Get the timeout for the API request, which callers running requests asynchronously enforce.
+   *
+   * @return the timeout, in milliseconds
+   */
+  @Override
+  public Duration getTimeout() {
+    return Duration.ofMillis(timeout);
+  }
+
   @Override
   public String getState() {
     evaluateState();
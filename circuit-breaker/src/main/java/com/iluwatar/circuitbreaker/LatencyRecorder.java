@@ -0,0 +1,119 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram. Latencies are counted in microseconds in buckets whose width
+ * grows with the latency, 16 buckets per power of two, so every percentile is accurate to about
+ * 6 percent at any scale while recording stays a single atomic increment.
+ */
+public class LatencyRecorder {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    counts.incrementAndGet(bucketOf(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   *
+   * @return the number of recorded latencies.
+   */
+  public long getCount() {
+    var count = 0L;
+    for (var bucket = 0; bucket < BUCKETS; bucket++) {
+      count += counts.get(bucket);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the latency below which the given percentage of the recorded latencies fall.
+   *
+   * @param percentile the percentage, for example 99 for the 99th percentile.
+   * @return the upper bound of the bucket holding the percentile in microseconds, 0 if nothing
+   *     was recorded.
+   */
+  public long getPercentileMicros(double percentile) {
+    if (percentile <= 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile out of range: " + percentile);
+    }
+    var snapshot = new long[BUCKETS];
+    var total = 0L;
+    for (var bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      total += snapshot[bucket];
+    }
+    var rank = (long) Math.ceil(total * percentile / 100);
+    var seen = 0L;
+    for (var bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += snapshot[bucket];
+      if (seen >= rank && seen > 0) {
+        return upperBoundOf(bucket);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Forgets all recorded latencies.
+   */
+  public void reset() {
+    for (var bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0);
+    }
+  }
+
+  static int bucketOf(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    var shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    var shift = bucket / SUB_BUCKETS - 1;
+    var subBucket = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS);
+    var upperBound = ((subBucket + 1) << shift) - 1;
+    return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+  }
+}
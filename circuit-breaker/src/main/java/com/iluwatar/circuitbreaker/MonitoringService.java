@@ -24,19 +24,48 @@
  */
 package com.iluwatar.circuitbreaker;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * The service class which makes local and remote calls Uses {@link DefaultCircuitBreaker} object to
  * ensure remote calls don't use up resources.
+ *
+ * <p>The asynchronous calls run every remote service in its own {@link Bulkhead}, so a hanging
+ * service cannot tie up the threads of the caller or of the other service.
  */
 public class MonitoringService {
 
+  private static final int MAX_CONCURRENT_CALLS = 4;
+  private static final int MAX_QUEUED_CALLS = 16;
+
   private final CircuitBreaker delayedService;
 
   private final CircuitBreaker quickService;
 
+  private final Bulkhead delayedServiceBulkhead;
+
+  private final Bulkhead quickServiceBulkhead;
+
+  /**
+   * Creates a monitoring service with a bulkhead of {@value #MAX_CONCURRENT_CALLS} threads and
+   * {@value #MAX_QUEUED_CALLS} queued calls per remote service.
+   */
   public MonitoringService(CircuitBreaker delayedService, CircuitBreaker quickService) {
+    this(delayedService, quickService,
+        new Bulkhead("delayed-service", MAX_CONCURRENT_CALLS, MAX_QUEUED_CALLS),
+        new Bulkhead("quick-service", MAX_CONCURRENT_CALLS, MAX_QUEUED_CALLS));
+  }
+
+  /**
+   * Creates a monitoring service with the given bulkheads for the asynchronous calls.
+   */
+  public MonitoringService(CircuitBreaker delayedService, CircuitBreaker quickService,
+      Bulkhead delayedServiceBulkhead, Bulkhead quickServiceBulkhead) {
     this.delayedService = delayedService;
     this.quickService = quickService;
+    this.delayedServiceBulkhead = delayedServiceBulkhead;
+    this.quickServiceBulkhead = quickServiceBulkhead;
   }
 
   //Assumption: Local service won't fail, no need to wrap it in a circuit breaker logic
@@ -69,4 +98,37 @@ public class MonitoringService {
       return e.getMessage();
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Fetch response from the delayed service without blocking the caller.
+   *
+   * @return future of the response string, the failure message if the call failed
+   */
+  public CompletableFuture<String> delayedServiceResponseAsync() {
+    return responseAsync(delayedServiceBulkhead, delayedService);
+  }
+
+  /**
+   * Fetches response from the quick service without blocking the caller.
+   *
+   * @return future of the response string, the failure message if the call failed
+   */
+  public CompletableFuture<String> quickServiceResponseAsync() {
+    return responseAsync(quickServiceBulkhead, quickService);
+  }
+
+  public LatencyRecorder getDelayedServiceLatencies() {
+    return delayedServiceBulkhead.getLatencies();
+  }
+
+  public LatencyRecorder getQuickServiceLatencies() {
+    return quickServiceBulkhead.getLatencies();
+  }
+
+  private static CompletableFuture<String> responseAsync(Bulkhead bulkhead,
+      CircuitBreaker circuitBreaker) {
+    // the fallback runs on whichever thread completes the call, it never waits itself
+    return bulkhead.execute(circuitBreaker).exceptionally(error ->
+        (error instanceof CompletionException ? error.getCause() : error).getMessage());
+  }
+}
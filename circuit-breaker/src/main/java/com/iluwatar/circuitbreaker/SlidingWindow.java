@@ -0,0 +1,76 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+/**
+ * The outcomes of the latest calls, as seen by a circuit breaker. Implementations are lock-free,
+ * so recording an outcome never blocks a caller.
+ */
+interface SlidingWindow {
+
+  /**
+   * Records the outcome of a call.
+   *
+   * @param failure whether the call failed.
+   * @param slow    whether the call took longer than the slow call duration.
+   */
+  void record(boolean failure, boolean slow);
+
+  /**
+   * Aggregates the outcomes currently in the window.
+   *
+   * @return the aggregated outcomes.
+   */
+  Outcomes outcomes();
+
+  /**
+   * Forgets all outcomes.
+   */
+  void reset();
+
+  /**
+   * Aggregated outcomes of the calls in a window.
+   *
+   * @param calls     number of calls.
+   * @param failures  number of failed calls.
+   * @param slowCalls number of slow calls.
+   */
+  record Outcomes(int calls, int failures, int slowCalls) {
+
+    /**
+     * Failed calls in percent of all calls.
+     */
+    float failureRate() {
+      return calls == 0 ? 0 : failures * 100f / calls;
+    }
+
+    /**
+     * Slow calls in percent of all calls.
+     */
+    float slowCallRate() {
+      return calls == 0 ? 0 : slowCalls * 100f / calls;
+    }
+  }
+}
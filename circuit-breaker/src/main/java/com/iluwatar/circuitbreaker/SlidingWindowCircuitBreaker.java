@@ -0,0 +1,560 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread-safe circuit breaker that trips on the failure rate and the slow call rate of the
+ * latest calls rather than on a raw failure count. The outcomes are kept in a lock-free sliding
+ * window, either over the last N calls or over the last N seconds.
+ *
+ * <p>The circuit works in a CLOSED->OPEN-(wait duration)->HALF_OPEN->CLOSED flow. While CLOSED
+ * every call goes through, and once the window holds at least the minimum number of calls and
+ * either rate reaches its threshold the circuit opens. While OPEN calls are rejected with the last
+ * failure response. After the wait duration the circuit lets a limited number of probe calls
+ * through; if their rates stay below the thresholds it closes again, otherwise it opens again.
+ *
+ * <p>Remote calls run on a bounded executor and are abandoned once they exceed the timeout, which
+ * counts as a failure. When the executor is saturated further calls fail right away instead of
+ * queueing up behind a hanging service.
+ *
+ * <p>The state is a single immutable phase object replaced by compare-and-set, so no call ever
+ * holds a lock. An outcome only counts towards the phase that permitted its call; a call that
+ * completes after the circuit has moved on is ignored.
+ */
+public class SlidingWindowCircuitBreaker implements CircuitBreaker, AutoCloseable {
+
+  /**
+   * Whether the sliding window covers a number of calls or a number of seconds.
+   */
+  public enum SlidingWindowType {
+    COUNT_BASED,
+    TIME_BASED
+  }
+
+  private final RemoteService service;
+  private final SlidingWindow window;
+  private final int minimumNumberOfCalls;
+  private final float failureRateThreshold;
+  private final float slowCallRateThreshold;
+  private final long slowCallDuration;
+  private final long waitDurationInOpenState;
+  private final int permittedCallsInHalfOpenState;
+  private final Duration timeout;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final LongSupplier nanoClock;
+  private final AtomicReference<Phase> phase;
+  private volatile String lastFailureResponse;
+
+  private SlidingWindowCircuitBreaker(Builder builder) {
+    this.service = builder.service;
+    this.nanoClock = builder.nanoClock;
+    this.window = builder.slidingWindowType == SlidingWindowType.COUNT_BASED
+        ? new CountBasedSlidingWindow(builder.slidingWindowSize)
+        : new TimeBasedSlidingWindow(builder.slidingWindowSize, nanoClock);
+    this.minimumNumberOfCalls = builder.slidingWindowType == SlidingWindowType.COUNT_BASED
+        ? Math.min(builder.minimumNumberOfCalls, builder.slidingWindowSize)
+        : builder.minimumNumberOfCalls;
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallRateThreshold = builder.slowCallRateThreshold;
+    this.slowCallDuration = builder.slowCallDuration.toNanos();
+    this.waitDurationInOpenState = builder.waitDurationInOpenState.toNanos();
+    this.permittedCallsInHalfOpenState = builder.permittedCallsInHalfOpenState;
+    this.timeout = builder.timeout;
+    this.ownsExecutor = builder.executor == null;
+    this.executor = ownsExecutor
+        ? boundedExecutor(builder.maxConcurrentCalls, builder.maxQueuedCalls)
+        : builder.executor;
+    this.phase = new AtomicReference<>(Phase.closed());
+  }
+
+  /**
+   * Starts building a circuit breaker.
+   *
+   * @param service the remote service to protect.
+   * @return a builder with default settings.
+   */
+  public static Builder builder(RemoteService service) {
+    return new Builder(service);
+  }
+
+  @Override
+  public void recordSuccess() {
+    onOutcome(phase.get(), false, false);
+  }
+
+  @Override
+  public void recordFailure(String response) {
+    lastFailureResponse = response;
+    onOutcome(phase.get(), true, false);
+  }
+
+  @Override
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  @Override
+  public String getState() {
+    var current = phase.get();
+    if (current.state == State.OPEN && waitedLongEnough(current)) {
+      phase.compareAndSet(current, Phase.halfOpen(nanoClock.getAsLong(),
+          permittedCallsInHalfOpenState));
+    }
+    return phase.get().state.name();
+  }
+
+  /**
+   * Break the circuit beforehand if it is known service is down Or connect the circuit manually if
+   * service comes online before expected.
+   *
+   * @param state State at which circuit is in
+   */
+  @Override
+  public void setState(State state) {
+    switch (state) {
+      case OPEN -> phase.set(Phase.open(nanoClock.getAsLong()));
+      case HALF_OPEN -> phase.set(Phase.halfOpen(nanoClock.getAsLong(),
+          permittedCallsInHalfOpenState));
+      default -> {
+        window.reset();
+        phase.set(Phase.closed());
+      }
+    }
+  }
+
+  /**
+   * Executes service call on the executor, enforcing the timeout.
+   *
+   * @return Value from the remote resource, or the last failure response while the circuit is open
+   * @throws RemoteServiceException if the service failed, timed out or too many calls are running
+   */
+  @Override
+  public String attemptRequest() throws RemoteServiceException {
+    var permitted = acquirePermission();
+    if (permitted == null) {
+      // return cached response while calls are not permitted
+      return lastFailureResponse;
+    }
+    var start = nanoClock.getAsLong();
+    Future<String> future;
+    try {
+      future = executor.submit(service::call);
+    } catch (RejectedExecutionException e) {
+      throw fail(permitted, "Too many concurrent calls to the remote service", false);
+    }
+    try {
+      var response = future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+      onOutcome(permitted, false, isSlow(start));
+      return response;
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw fail(permitted, "Remote service did not respond within " + timeout.toMillis() + " ms",
+          true);
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      var failure = fail(permitted, cause.getMessage(), isSlow(start));
+      throw cause instanceof RemoteServiceException remote ? remote : failure;
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      // the outcome is unknown, hand the probe permit on to the next call
+      permitted.releasePermit();
+      throw new RemoteServiceException("Interrupted while waiting for the remote service");
+    }
+  }
+
+  /**
+   * Executes service call on the given executor without blocking the caller. While calls are not
+   * permitted the returned future is already completed with the last failure response. A call
+   * exceeding the timeout completes the future exceptionally but keeps its thread until the
+   * service returns, so the executor should be bounded.
+   *
+   * @param executor the executor to run the call on.
+   * @return future of the value from the remote resource, or of the last failure response
+   * @throws RejectedExecutionException if the executor does not accept the call
+   */
+  @Override
+  public CompletableFuture<String> attemptRequestAsync(Executor executor) {
+    var permitted = acquirePermission();
+    if (permitted == null) {
+      return CompletableFuture.completedFuture(lastFailureResponse);
+    }
+    var start = nanoClock.getAsLong();
+    var call = new CompletableFuture<String>();
+    try {
+      executor.execute(() -> {
+        if (call.isDone()) {
+          return;
+        }
+        try {
+          call.complete(service.call());
+        } catch (Exception e) {
+          call.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the executor belongs to the caller, its saturation says nothing about the service
+      permitted.releasePermit();
+      throw e;
+    }
+    return call.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+        .handle((response, error) -> {
+          if (error == null) {
+            onOutcome(permitted, false, isSlow(start));
+            return response;
+          }
+          var cause = error instanceof CompletionException ? error.getCause() : error;
+          if (cause instanceof TimeoutException) {
+            throw new CompletionException(fail(permitted,
+                "Remote service did not respond within " + timeout.toMillis() + " ms", true));
+          }
+          var failure = fail(permitted, cause.getMessage(), isSlow(start));
+          throw new CompletionException(cause instanceof RemoteServiceException ? cause : failure);
+        });
+  }
+
+  /**
+   * Executes service call on the executor of the circuit breaker without blocking the caller.
+   *
+   * @return future of the value from the remote resource, or of the last failure response
+   * @throws RejectedExecutionException if too many calls are running already
+   */
+  public CompletableFuture<String> attemptRequestAsync() {
+    return attemptRequestAsync(executor);
+  }
+
+  /**
+   * Stops the executor if the circuit breaker created it.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the phase that permits a call, or null if the call is not permitted.
+   */
+  private Phase acquirePermission() {
+    while (true) {
+      var current = phase.get();
+      switch (current.state) {
+        case CLOSED:
+          return current;
+        case OPEN:
+          if (!waitedLongEnough(current)) {
+            return null;
+          }
+          phase.compareAndSet(current, Phase.halfOpen(nanoClock.getAsLong(),
+              permittedCallsInHalfOpenState));
+          break;
+        default:
+          return current.tryAcquirePermit() ? current : null;
+      }
+    }
+  }
+
+  private RemoteServiceException fail(Phase permitted, String response, boolean slow) {
+    lastFailureResponse = response;
+    onOutcome(permitted, true, slow);
+    return new RemoteServiceException(response);
+  }
+
+  private void onOutcome(Phase permitted, boolean failure, boolean slow) {
+    if (phase.get() != permitted) {
+      // the circuit has moved on since the call was permitted
+      return;
+    }
+    switch (permitted.state) {
+      case CLOSED -> {
+        window.record(failure, slow);
+        if (exceedsThresholds(window.outcomes(), minimumNumberOfCalls)) {
+          phase.compareAndSet(permitted, Phase.open(nanoClock.getAsLong()));
+        }
+      }
+      case HALF_OPEN -> {
+        var outcomes = permitted.recordProbe(failure, slow);
+        if (outcomes.calls() < permittedCallsInHalfOpenState) {
+          return;
+        }
+        if (exceedsThresholds(outcomes, permittedCallsInHalfOpenState)) {
+          phase.compareAndSet(permitted, Phase.open(nanoClock.getAsLong()));
+        } else if (phase.compareAndSet(permitted, Phase.closed())) {
+          window.reset();
+        }
+      }
+      default -> {
+        // outcomes recorded by hand while the circuit is open are of no interest
+      }
+    }
+  }
+
+  private boolean exceedsThresholds(SlidingWindow.Outcomes outcomes, int minimumCalls) {
+    return outcomes.calls() >= minimumCalls
+        && (outcomes.failureRate() >= failureRateThreshold
+        || outcomes.slowCallRate() >= slowCallRateThreshold);
+  }
+
+  private boolean waitedLongEnough(Phase open) {
+    return nanoClock.getAsLong() - open.since >= waitDurationInOpenState;
+  }
+
+  private boolean isSlow(long start) {
+    return nanoClock.getAsLong() - start >= slowCallDuration;
+  }
+
+  private static ExecutorService boundedExecutor(int maxConcurrentCalls, int maxQueuedCalls) {
+    var threadNumber = new AtomicInteger();
+    var executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60,
+        TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxQueuedCalls), runnable -> {
+          var thread = new Thread(runnable, "circuit-breaker-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * One stay of the circuit in a state. HALF_OPEN phases count their probe calls and outcomes.
+   */
+  private static final class Phase {
+    private final State state;
+    private final long since;
+    private final AtomicInteger permits;
+    private final AtomicInteger probeCalls = new AtomicInteger();
+    private final AtomicInteger probeFailures = new AtomicInteger();
+    private final AtomicInteger probeSlowCalls = new AtomicInteger();
+
+    private Phase(State state, long since, int permits) {
+      this.state = state;
+      this.since = since;
+      this.permits = new AtomicInteger(permits);
+    }
+
+    static Phase closed() {
+      return new Phase(State.CLOSED, 0, 0);
+    }
+
+    static Phase open(long since) {
+      return new Phase(State.OPEN, since, 0);
+    }
+
+    static Phase halfOpen(long since, int permits) {
+      return new Phase(State.HALF_OPEN, since, permits);
+    }
+
+    boolean tryAcquirePermit() {
+      var available = permits.get();
+      while (available > 0) {
+        if (permits.compareAndSet(available, available - 1)) {
+          return true;
+        }
+        available = permits.get();
+      }
+      return false;
+    }
+
+    void releasePermit() {
+      if (state == State.HALF_OPEN) {
+        permits.incrementAndGet();
+      }
+    }
+
+    SlidingWindow.Outcomes recordProbe(boolean failure, boolean slow) {
+      // the outcome is counted before the call, so whoever counts the last probe sees them all
+      if (failure) {
+        probeFailures.incrementAndGet();
+      }
+      if (slow) {
+        probeSlowCalls.incrementAndGet();
+      }
+      var calls = probeCalls.incrementAndGet();
+      return new SlidingWindow.Outcomes(calls, probeFailures.get(), probeSlowCalls.get());
+    }
+  }
+
+  /**
+   * Builder of {@link SlidingWindowCircuitBreaker}.
+   */
+  public static final class Builder {
+    private final RemoteService service;
+    private SlidingWindowType slidingWindowType = SlidingWindowType.COUNT_BASED;
+    private int slidingWindowSize = 100;
+    private int minimumNumberOfCalls = 10;
+    private float failureRateThreshold = 50;
+    private float slowCallRateThreshold = 100;
+    private Duration slowCallDuration = Duration.ofSeconds(60);
+    private Duration waitDurationInOpenState = Duration.ofSeconds(60);
+    private int permittedCallsInHalfOpenState = 10;
+    private Duration timeout = Duration.ofSeconds(1);
+    private int maxConcurrentCalls = 10;
+    private int maxQueuedCalls = 100;
+    private ExecutorService executor;
+    private LongSupplier nanoClock = System::nanoTime;
+
+    private Builder(RemoteService service) {
+      this.service = service;
+    }
+
+    /**
+     * Sets the type of the sliding window, count based by default.
+     */
+    public Builder slidingWindowType(SlidingWindowType slidingWindowType) {
+      this.slidingWindowType = slidingWindowType;
+      return this;
+    }
+
+    /**
+     * Sets the size of the sliding window in calls or seconds, 100 by default.
+     */
+    public Builder slidingWindowSize(int slidingWindowSize) {
+      this.slidingWindowSize = slidingWindowSize;
+      return this;
+    }
+
+    /**
+     * Sets the number of calls the window must hold before the rates are evaluated, 10 by default.
+     */
+    public Builder minimumNumberOfCalls(int minimumNumberOfCalls) {
+      this.minimumNumberOfCalls = minimumNumberOfCalls;
+      return this;
+    }
+
+    /**
+     * Sets the failure rate in percent at which the circuit opens, 50 by default.
+     */
+    public Builder failureRateThreshold(float failureRateThreshold) {
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the slow call rate in percent at which the circuit opens, 100 by default.
+     */
+    public Builder slowCallRateThreshold(float slowCallRateThreshold) {
+      this.slowCallRateThreshold = slowCallRateThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the duration from which on a call counts as slow, 60 seconds by default.
+     */
+    public Builder slowCallDuration(Duration slowCallDuration) {
+      this.slowCallDuration = slowCallDuration;
+      return this;
+    }
+
+    /**
+     * Sets how long the circuit stays open before it lets probe calls through, 60 seconds by
+     * default.
+     */
+    public Builder waitDurationInOpenState(Duration waitDurationInOpenState) {
+      this.waitDurationInOpenState = waitDurationInOpenState;
+      return this;
+    }
+
+    /**
+     * Sets the number of probe calls permitted while the circuit is half open, 10 by default.
+     */
+    public Builder permittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+      this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+      return this;
+    }
+
+    /**
+     * Sets the timeout after which a call is abandoned and counts as failed, 1 second by default.
+     */
+    public Builder timeout(Duration timeout) {
+      this.timeout = timeout;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads of the executor created for the calls, 10 by default.
+     */
+    public Builder maxConcurrentCalls(int maxConcurrentCalls) {
+      this.maxConcurrentCalls = maxConcurrentCalls;
+      return this;
+    }
+
+    /**
+     * Sets the number of calls waiting for a thread of the executor created for the calls, 100 by
+     * default.
+     */
+    public Builder maxQueuedCalls(int maxQueuedCalls) {
+      this.maxQueuedCalls = maxQueuedCalls;
+      return this;
+    }
+
+    /**
+     * Runs the calls on the given executor instead of a dedicated one. The executor is not shut
+     * down by {@link SlidingWindowCircuitBreaker#close()}.
+     */
+    public Builder executor(ExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    Builder nanoClock(LongSupplier nanoClock) {
+      this.nanoClock = nanoClock;
+      return this;
+    }
+
+    /**
+     * Builds the circuit breaker.
+     *
+     * @return the circuit breaker.
+     */
+    public SlidingWindowCircuitBreaker build() {
+      if (minimumNumberOfCalls < 1 || permittedCallsInHalfOpenState < 1) {
+        throw new IllegalArgumentException("Call counts must be positive");
+      }
+      if (failureRateThreshold <= 0 || failureRateThreshold > 100
+          || slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+        throw new IllegalArgumentException("Thresholds must be percentages above 0");
+      }
+      return new SlidingWindowCircuitBreaker(this);
+    }
+  }
+}
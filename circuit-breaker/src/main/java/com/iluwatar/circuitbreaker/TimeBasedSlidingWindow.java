@@ -0,0 +1,135 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A sliding window over the calls of the last N seconds. The window is a ring buffer of one bucket
+ * per second. A call adds its outcome to the bucket of the current second; the first call of a new
+ * second claims the bucket with a compare-and-set on its epoch and clears the counts left over
+ * from N seconds ago. Reading the window sums the buckets that are still within the window, so
+ * its cost depends on the number of seconds only.
+ *
+ * <p>A call racing with the call that rolls its bucket over may be lost. That is well within what
+ * a failure rate needs.
+ */
+final class TimeBasedSlidingWindow implements SlidingWindow {
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final Bucket[] buckets;
+  private final LongSupplier nanoClock;
+
+  /**
+   * Creates a window.
+   *
+   * @param seconds number of seconds in the window.
+   */
+  TimeBasedSlidingWindow(int seconds) {
+    this(seconds, System::nanoTime);
+  }
+
+  /**
+   * Creates a window.
+   *
+   * @param seconds   number of seconds in the window.
+   * @param nanoClock source of the current time in nanoseconds.
+   */
+  TimeBasedSlidingWindow(int seconds, LongSupplier nanoClock) {
+    if (seconds < 1) {
+      throw new IllegalArgumentException("Window size must be positive: " + seconds);
+    }
+    this.buckets = new Bucket[seconds];
+    for (var i = 0; i < seconds; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public void record(boolean failure, boolean slow) {
+    var second = currentSecond();
+    var bucket = buckets[(int) Math.floorMod(second, (long) buckets.length)];
+    bucket.rollTo(second);
+    bucket.calls.incrementAndGet();
+    if (failure) {
+      bucket.failures.incrementAndGet();
+    }
+    if (slow) {
+      bucket.slowCalls.incrementAndGet();
+    }
+  }
+
+  @Override
+  public Outcomes outcomes() {
+    var second = currentSecond();
+    var calls = 0;
+    var failures = 0;
+    var slowCalls = 0;
+    for (var bucket : buckets) {
+      var epoch = bucket.epoch.get();
+      if (epoch > second - buckets.length && epoch <= second) {
+        calls += bucket.calls.get();
+        failures += bucket.failures.get();
+        slowCalls += bucket.slowCalls.get();
+      }
+    }
+    return new Outcomes(calls, failures, slowCalls);
+  }
+
+  @Override
+  public void reset() {
+    for (var bucket : buckets) {
+      bucket.epoch.set(Long.MIN_VALUE);
+    }
+  }
+
+  private long currentSecond() {
+    return Math.floorDiv(nanoClock.getAsLong(), NANOS_PER_SECOND);
+  }
+
+  /**
+   * The outcomes of the calls in one second.
+   */
+  private static final class Bucket {
+    private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    void rollTo(long second) {
+      var current = epoch.get();
+      if (current < second && epoch.compareAndSet(current, second)) {
+        calls.set(0);
+        failures.set(0);
+        slowCalls.set(0);
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LatencyRecorder}.
+ */
+class LatencyRecorderTest {
+
+  @Test
+  void percentilesAreAccurateToTheBucketWidth() {
+    var recorder = new LatencyRecorder();
+    for (var micros = 1; micros <= 1000; micros++) {
+      recorder.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+    assertEquals(1000, recorder.getCount());
+    assertWithin(500, recorder.getPercentileMicros(50));
+    assertWithin(990, recorder.getPercentileMicros(99));
+    assertWithin(1000, recorder.getPercentileMicros(100));
+
+    recorder.reset();
+    assertEquals(0, recorder.getPercentileMicros(99));
+  }
+
+  @Test
+  void everyLatencyFallsIntoTheBucketItBounds() {
+    for (var micros : new long[] {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, Long.MAX_VALUE}) {
+      var bucket = LatencyRecorder.bucketOf(micros);
+      assertTrue(LatencyRecorder.upperBoundOf(bucket) >= micros);
+      assertTrue(bucket == 0 || LatencyRecorder.upperBoundOf(bucket - 1) < micros);
+    }
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual >= expected && actual <= expected * 1.07,
+        "expected about " + expected + " but was " + actual);
+  }
+}
@@ -25,7 +25,11 @@
 package com.iluwatar.circuitbreaker;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -77,4 +81,93 @@ class MonitoringServiceTest {
     var response = monitoringService.delayedServiceResponse();
     assertEquals(response, "Quick Service is working");
   }
+
+  @Test
+  void testAsyncResponseFallsBackToFailureMessage() {
+    var delayedService = new DelayedRemoteService(System.nanoTime(), 2);
+    var delayedServiceCircuitBreaker = new DefaultCircuitBreaker(delayedService, 3000,
+        1,
+        2 * 1000 * 1000 * 1000);
+    var monitoringService = new MonitoringService(delayedServiceCircuitBreaker, null);
+    assertEquals("Delayed service is down",
+        monitoringService.delayedServiceResponseAsync().join());
+    assertEquals(1, monitoringService.getDelayedServiceLatencies().getCount());
+  }
+
+  @Test
+  void testHangingServiceIsIsolatedByItsBulkhead() {
+    var release = new CountDownLatch(1);
+    RemoteService hangingService = () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "Hanging service is working";
+    };
+    var delayedBulkhead = new Bulkhead("delayed-service", 2, 4);
+    var quickBulkhead = new Bulkhead("quick-service", 2, 100);
+    var monitoringService = new MonitoringService(
+        new DefaultCircuitBreaker(hangingService, 3000, 1, 2 * 1000 * 1000 * 1000),
+        new DefaultCircuitBreaker(new QuickRemoteService(), 3000, 1, 2 * 1000 * 1000 * 1000),
+        delayedBulkhead, quickBulkhead);
+    try {
+      var delayed = new ArrayList<CompletableFuture<String>>();
+      for (var i = 0; i < 10; i++) {
+        delayed.add(monitoringService.delayedServiceResponseAsync());
+      }
+      // the calls beyond the threads and the queue of the bulkhead fail right away
+      assertEquals(4, delayedBulkhead.getRejectedCount());
+      assertEquals("Bulkhead delayed-service is full", delayed.get(9).join());
+
+      for (var i = 0; i < 100; i++) {
+        assertEquals("Quick Service is working",
+            monitoringService.quickServiceResponseAsync().join());
+      }
+      var latencies = monitoringService.getQuickServiceLatencies();
+      assertEquals(100, latencies.getCount());
+      assertTrue(latencies.getPercentileMicros(99) < 1_000_000);
+
+      release.countDown();
+      assertEquals("Hanging service is working", delayed.get(0).join());
+    } finally {
+      release.countDown();
+      delayedBulkhead.close();
+      quickBulkhead.close();
+    }
+  }
+
+  @Test
+  void testHungCallsTimeOutToTheFallback() {
+    var release = new CountDownLatch(1);
+    RemoteService hangingService = () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "Hanging service is working";
+    };
+    var delayedBulkhead = new Bulkhead("delayed-service", 1, 2);
+    var quickBulkhead = new Bulkhead("quick-service", 1, 1);
+    var monitoringService = new MonitoringService(
+        new DefaultCircuitBreaker(hangingService, 50, 1, 2 * 1000 * 1000 * 1000),
+        new DefaultCircuitBreaker(new QuickRemoteService(), 50, 1, 2 * 1000 * 1000 * 1000),
+        delayedBulkhead, quickBulkhead);
+    try {
+      var delayed = new ArrayList<CompletableFuture<String>>();
+      for (var i = 0; i < 3; i++) {
+        delayed.add(monitoringService.delayedServiceResponseAsync());
+      }
+      // the running call and the queued ones all get the fallback while the service hangs
+      for (var response : delayed) {
+        assertEquals("Remote service did not respond within 50 ms", response.join());
+      }
+      assertEquals(3, monitoringService.getDelayedServiceLatencies().getCount());
+    } finally {
+      release.countDown();
+      delayedBulkhead.close();
+      quickBulkhead.close();
+    }
+  }
 }
@@ -0,0 +1,270 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SlidingWindowCircuitBreaker}.
+ */
+class SlidingWindowCircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicBoolean failing = new AtomicBoolean();
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private final RemoteService service = () -> {
+    calls.incrementAndGet();
+    if (failing.get()) {
+      throw new RemoteServiceException("Remote Failure");
+    }
+    return "Remote Success";
+  };
+
+  @Test
+  void opensOnTheFailureRateAndServesTheLastFailureResponse() throws RemoteServiceException {
+    try (var circuitBreaker = builder().build()) {
+      for (var i = 0; i < 5; i++) {
+        circuitBreaker.attemptRequest();
+      }
+      failing.set(true);
+      for (var i = 0; i < 4; i++) {
+        assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+        assertEquals("CLOSED", circuitBreaker.getState());
+      }
+      // 5 failures out of 10 calls reach the threshold of 50 percent
+      assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      assertEquals("OPEN", circuitBreaker.getState());
+
+      assertEquals("Remote Failure", circuitBreaker.attemptRequest());
+      assertEquals(10, calls.get());
+    }
+  }
+
+  @Test
+  void doesNotOpenBeforeTheMinimumNumberOfCalls() {
+    failing.set(true);
+    try (var circuitBreaker = builder().build()) {
+      for (var i = 0; i < 3; i++) {
+        assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      }
+      assertEquals("CLOSED", circuitBreaker.getState());
+    }
+  }
+
+  @Test
+  void halfOpenPermitsLimitedProbesAndClosesWhenTheyPass() throws RemoteServiceException {
+    try (var circuitBreaker = builder().build()) {
+      circuitBreaker.setState(State.OPEN);
+      clock.addAndGet(Duration.ofSeconds(10).toNanos());
+      assertEquals("HALF_OPEN", circuitBreaker.getState());
+
+      assertEquals("Remote Success", circuitBreaker.attemptRequest());
+      assertEquals("Remote Success", circuitBreaker.attemptRequest());
+      assertEquals("CLOSED", circuitBreaker.getState());
+      assertEquals(2, calls.get());
+    }
+  }
+
+  @Test
+  void failedProbesOpenTheCircuitAgain() {
+    failing.set(true);
+    try (var circuitBreaker = builder().build()) {
+      circuitBreaker.setState(State.HALF_OPEN);
+      assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      assertEquals("HALF_OPEN", circuitBreaker.getState());
+      assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      assertEquals("OPEN", circuitBreaker.getState());
+    }
+  }
+
+  @Test
+  void concurrentCallersShareTheProbePermits() throws Exception {
+    var release = new CountDownLatch(1);
+    RemoteService slowService = () -> {
+      calls.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "Remote Success";
+    };
+    var callers = Executors.newFixedThreadPool(8);
+    try (var circuitBreaker = builder(slowService).build()) {
+      circuitBreaker.setState(State.HALF_OPEN);
+      var futures = new ArrayList<Future<String>>();
+      for (var i = 0; i < 8; i++) {
+        futures.add(callers.submit(circuitBreaker::attemptRequest));
+      }
+      // every caller must have been admitted or turned down before the probes close the circuit
+      while (calls.get() + futures.stream().filter(Future::isDone).count() < futures.size()) {
+        Thread.yield();
+      }
+      release.countDown();
+      var successes = 0;
+      for (var future : futures) {
+        if ("Remote Success".equals(future.get())) {
+          successes++;
+        }
+      }
+      assertEquals(2, successes);
+      assertEquals(2, calls.get());
+      assertEquals("CLOSED", circuitBreaker.getState());
+    } finally {
+      callers.shutdown();
+    }
+  }
+
+  @Test
+  void callsExceedingTheTimeoutFailAndCountAsSlow() {
+    var release = new CountDownLatch(1);
+    RemoteService hangingService = () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "Too late";
+    };
+    try (var circuitBreaker = SlidingWindowCircuitBreaker.builder(hangingService)
+        .timeout(Duration.ofMillis(20))
+        .failureRateThreshold(100)
+        .slowCallDuration(Duration.ofMillis(10))
+        .slowCallRateThreshold(50)
+        .minimumNumberOfCalls(2)
+        .build()) {
+      var exception = assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      assertTrue(exception.getMessage().contains("did not respond within 20 ms"));
+      assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      assertEquals("OPEN", circuitBreaker.getState());
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void saturatedExecutorRejectsCalls() throws Exception {
+    var release = new CountDownLatch(1);
+    RemoteService hangingService = () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "Remote Success";
+    };
+    var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+    var callers = Executors.newFixedThreadPool(2);
+    try (var circuitBreaker = SlidingWindowCircuitBreaker.builder(hangingService)
+        .executor(executor)
+        .timeout(Duration.ofSeconds(10))
+        .build()) {
+      var first = callers.submit(circuitBreaker::attemptRequest);
+      var second = callers.submit(circuitBreaker::attemptRequest);
+      while (executor.getActiveCount() + executor.getQueue().size() < 2) {
+        Thread.yield();
+      }
+      var exception = assertThrows(RemoteServiceException.class, circuitBreaker::attemptRequest);
+      assertEquals("Too many concurrent calls to the remote service", exception.getMessage());
+      release.countDown();
+      assertEquals("Remote Success", first.get());
+      assertEquals("Remote Success", second.get());
+    } finally {
+      callers.shutdown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void asyncCallsServeTheFallbackWithoutRunningTheCall() {
+    failing.set(true);
+    try (var circuitBreaker = builder().build()) {
+      var failure = circuitBreaker.attemptRequestAsync();
+      var exception = assertThrows(CompletionException.class, failure::join);
+      assertInstanceOf(RemoteServiceException.class, exception.getCause());
+
+      circuitBreaker.setState(State.OPEN);
+      var fallback = circuitBreaker.attemptRequestAsync();
+      assertTrue(fallback.isDone());
+      assertEquals("Remote Failure", fallback.join());
+      assertEquals(1, calls.get());
+    }
+  }
+
+  @Test
+  void asyncCallsExceedingTheTimeoutFail() {
+    var release = new CountDownLatch(1);
+    RemoteService hangingService = () -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "Too late";
+    };
+    try (var circuitBreaker = SlidingWindowCircuitBreaker.builder(hangingService)
+        .timeout(Duration.ofMillis(20))
+        .build()) {
+      var exception = assertThrows(CompletionException.class,
+          () -> circuitBreaker.attemptRequestAsync().join());
+      assertEquals("Remote service did not respond within 20 ms",
+          exception.getCause().getMessage());
+    } finally {
+      release.countDown();
+    }
+  }
+
+  private SlidingWindowCircuitBreaker.Builder builder() {
+    return builder(service);
+  }
+
+  private SlidingWindowCircuitBreaker.Builder builder(RemoteService remoteService) {
+    return SlidingWindowCircuitBreaker.builder(remoteService)
+        .slidingWindowSize(10)
+        .minimumNumberOfCalls(10)
+        .failureRateThreshold(50)
+        .waitDurationInOpenState(Duration.ofSeconds(10))
+        .permittedCallsInHalfOpenState(2)
+        .nanoClock(clock::get);
+  }
+}
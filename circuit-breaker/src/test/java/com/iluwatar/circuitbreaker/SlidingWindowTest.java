@@ -0,0 +1,105 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.circuitbreaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CountBasedSlidingWindow} and {@link TimeBasedSlidingWindow}.
+ */
+class SlidingWindowTest {
+
+  @Test
+  void countBasedWindowKeepsTheLatestCalls() {
+    var window = new CountBasedSlidingWindow(4);
+    window.record(true, true);
+    window.record(true, false);
+    window.record(false, false);
+    assertEquals(new SlidingWindow.Outcomes(3, 2, 1), window.outcomes());
+
+    window.record(false, false);
+    window.record(false, true);
+    // the first call has been overwritten
+    assertEquals(new SlidingWindow.Outcomes(4, 1, 1), window.outcomes());
+    assertEquals(25f, window.outcomes().failureRate());
+
+    window.reset();
+    assertEquals(new SlidingWindow.Outcomes(0, 0, 0), window.outcomes());
+  }
+
+  @Test
+  void countBasedWindowCountsConcurrentCallsExactly() throws Exception {
+    var window = new CountBasedSlidingWindow(1000);
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (var i = 0; i < 4; i++) {
+        var failing = i % 2 == 0;
+        futures.add(executor.submit(() -> {
+          for (var j = 0; j < 10_000; j++) {
+            window.record(failing, false);
+          }
+        }));
+      }
+      for (var future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1000, window.outcomes().calls());
+    // once every slot has been overwritten by a success no failure may be left over
+    for (var i = 0; i < 1000; i++) {
+      window.record(false, false);
+    }
+    assertEquals(new SlidingWindow.Outcomes(1000, 0, 0), window.outcomes());
+  }
+
+  @Test
+  void timeBasedWindowForgetsExpiredSeconds() {
+    var clock = new AtomicLong();
+    var window = new TimeBasedSlidingWindow(3, clock::get);
+    window.record(true, false);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    window.record(false, true);
+    window.record(false, false);
+    assertEquals(new SlidingWindow.Outcomes(3, 1, 1), window.outcomes());
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    // the first second has left the window, its bucket is reused for the current second
+    window.record(false, false);
+    assertEquals(new SlidingWindow.Outcomes(3, 0, 1), window.outcomes());
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    assertEquals(new SlidingWindow.Outcomes(0, 0, 0), window.outcomes());
+  }
+}
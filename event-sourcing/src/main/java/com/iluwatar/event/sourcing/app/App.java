@@ -28,7 +28,7 @@ import com.iluwatar.event.sourcing.event.AccountCreateEvent;
 import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
 import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
 import com.iluwatar.event.sourcing.processor.DomainEventProcessor;
-import com.iluwatar.event.sourcing.processor.JsonFileJournal;
+import com.iluwatar.event.sourcing.processor.MappedSegmentJournal;
 import com.iluwatar.event.sourcing.state.AccountAggregate;
 import java.math.BigDecimal;
 import java.util.Date;
@@ -71,7 +71,8 @@ public class App {
    */
   public static void main(String[] args) {
 
-    var eventProcessor = new DomainEventProcessor(new JsonFileJournal());
+    var journal = new MappedSegmentJournal();
+    var eventProcessor = new DomainEventProcessor(journal);
 
     LOGGER.info("Running the system first time............");
     eventProcessor.reset();
@@ -97,20 +98,23 @@ public class App {
         ACCOUNT_OF_JON));
 
     LOGGER.info("...............State:............");
-    LOGGER.info(AccountAggregate.getAccount(ACCOUNT_OF_DAENERYS).toString());
-    LOGGER.info(AccountAggregate.getAccount(ACCOUNT_OF_JON).toString());
+    LOGGER.info(AccountAggregate.getAccountView(ACCOUNT_OF_DAENERYS).toString());
+    LOGGER.info(AccountAggregate.getAccountView(ACCOUNT_OF_JON).toString());
 
     LOGGER.info("At that point system had a shut down, state in memory is cleared............");
     AccountAggregate.resetState();
+    journal.close();
 
     LOGGER.info("Recover the system by the events in journal file............");
 
-    eventProcessor = new DomainEventProcessor(new JsonFileJournal());
-    eventProcessor.recover();
+    try (var recoveredJournal = new MappedSegmentJournal()) {
+      eventProcessor = new DomainEventProcessor(recoveredJournal);
+      eventProcessor.recover();
+    }
 
     LOGGER.info("...............Recovered State:............");
-    LOGGER.info(AccountAggregate.getAccount(ACCOUNT_OF_DAENERYS).toString());
-    LOGGER.info(AccountAggregate.getAccount(ACCOUNT_OF_JON).toString());
+    LOGGER.info(AccountAggregate.getAccountView(ACCOUNT_OF_DAENERYS).toString());
+    LOGGER.info(AccountAggregate.getAccountView(ACCOUNT_OF_JON).toString());
   }
 
 
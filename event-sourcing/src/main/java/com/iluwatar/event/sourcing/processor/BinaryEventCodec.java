@@ -0,0 +1,171 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary form of the domain events. Every encoded event starts with a one byte type tag,
+ * the sequence id and the created time, followed by the fields of the event. Strings are written
+ * as UTF-8 and amounts as scale plus unscaled two's complement bytes, so a deposit takes about 30
+ * bytes instead of the hundred or so of its JSON form.
+ */
+final class BinaryEventCodec {
+
+  static final byte ACCOUNT_CREATE = 1;
+  static final byte MONEY_DEPOSIT = 2;
+  static final byte MONEY_TRANSFER = 3;
+
+  /**
+   * Offset of the sequence id within an encoded event.
+   */
+  static final int SEQUENCE_ID_OFFSET = 1;
+
+  private static final int PREFIX_SIZE = 1 + 8 + 8;
+
+  private BinaryEventCodec() {
+  }
+
+  /**
+   * Encodes an event.
+   *
+   * @param domainEvent the event.
+   * @param scratch     a buffer to encode into, may be too small.
+   * @return {@code scratch} or, if it was too small, a bigger buffer, flipped for reading.
+   */
+  static ByteBuffer encode(DomainEvent domainEvent, ByteBuffer scratch) {
+    if (domainEvent instanceof AccountCreateEvent event) {
+      var owner = event.getOwner() == null ? null : event.getOwner().getBytes(UTF_8);
+      var ownerSize = owner == null ? 0 : owner.length;
+      var out = prepare(scratch, ACCOUNT_CREATE, event, 4 + 4 + ownerSize);
+      out.putInt(event.getAccountNo());
+      putBytes(out, owner);
+      return out.flip();
+    }
+    if (domainEvent instanceof MoneyDepositEvent event) {
+      var unscaled = event.getMoney().unscaledValue().toByteArray();
+      var out = prepare(scratch, MONEY_DEPOSIT, event, 4 + 4 + 4 + unscaled.length);
+      out.putInt(event.getAccountNo());
+      putMoney(out, event.getMoney().scale(), unscaled);
+      return out.flip();
+    }
+    if (domainEvent instanceof MoneyTransferEvent event) {
+      var unscaled = event.getMoney().unscaledValue().toByteArray();
+      var out = prepare(scratch, MONEY_TRANSFER, event, 4 + 4 + 4 + 4 + unscaled.length);
+      out.putInt(event.getAccountNoFrom()).putInt(event.getAccountNoTo());
+      putMoney(out, event.getMoney().scale(), unscaled);
+      return out.flip();
+    }
+    throw new IllegalArgumentException("Journal Event not recognized: "
+        + domainEvent.getEventClassName());
+  }
+
+  /**
+   * Decodes an event. The event is marked as not being real time, as it is replayed.
+   *
+   * @param in the encoded event, it is consumed.
+   * @return the event.
+   */
+  static DomainEvent decode(ByteBuffer in) {
+    var type = in.get();
+    var sequenceId = in.getLong();
+    var createdTime = in.getLong();
+    DomainEvent domainEvent = switch (type) {
+      case ACCOUNT_CREATE -> {
+        var accountNo = in.getInt();
+        var owner = getBytes(in);
+        yield new AccountCreateEvent(sequenceId, createdTime, accountNo,
+            owner == null ? null : new String(owner, UTF_8));
+      }
+      case MONEY_DEPOSIT -> {
+        var accountNo = in.getInt();
+        yield new MoneyDepositEvent(sequenceId, createdTime, accountNo, getMoney(in));
+      }
+      case MONEY_TRANSFER -> {
+        var accountNoFrom = in.getInt();
+        var accountNoTo = in.getInt();
+        yield new MoneyTransferEvent(sequenceId, createdTime, getMoney(in), accountNoFrom,
+            accountNoTo);
+      }
+      default -> throw new RuntimeException("Journal Event not recognized");
+    };
+    domainEvent.setRealTime(false);
+    return domainEvent;
+  }
+
+  /**
+   * Reads the sequence id of an encoded event without decoding it.
+   *
+   * @param in     buffer holding the encoded event.
+   * @param offset absolute offset of the encoded event.
+   * @return the sequence id.
+   */
+  static long sequenceIdAt(ByteBuffer in, int offset) {
+    return in.getLong(offset + SEQUENCE_ID_OFFSET);
+  }
+
+  private static ByteBuffer prepare(ByteBuffer scratch, byte type, DomainEvent event,
+      int bodySize) {
+    var size = PREFIX_SIZE + bodySize;
+    var out = scratch.capacity() >= size ? scratch.clear() : ByteBuffer.allocate(size);
+    return out.put(type).putLong(event.getSequenceId()).putLong(event.getCreatedTime());
+  }
+
+  private static void putMoney(ByteBuffer out, int scale, byte[] unscaled) {
+    out.putInt(scale);
+    putBytes(out, unscaled);
+  }
+
+  private static BigDecimal getMoney(ByteBuffer in) {
+    var scale = in.getInt();
+    return new BigDecimal(new BigInteger(getBytes(in)), scale);
+  }
+
+  private static void putBytes(ByteBuffer out, byte[] bytes) {
+    if (bytes == null) {
+      out.putInt(-1);
+    } else {
+      out.putInt(bytes.length).put(bytes);
+    }
+  }
+
+  private static byte[] getBytes(ByteBuffer in) {
+    var length = in.getInt();
+    if (length < 0) {
+      return null;
+    }
+    var bytes = new byte[length];
+    in.get(bytes);
+    return bytes;
+  }
+}
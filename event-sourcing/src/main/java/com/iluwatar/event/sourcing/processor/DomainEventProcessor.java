@@ -25,19 +25,50 @@
 package com.iluwatar.event.sourcing.processor;
 
 import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import com.iluwatar.event.sourcing.state.AggregateSnapshot;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This is the implementation of event processor. All events are processed by this class. This
  * processor uses eventJournal to persist and recover events.
  *
+ * <p>Given a {@link SnapshotStore}, the processor takes a snapshot of the account aggregate every
+ * {@code snapshotInterval} events and recovers from the latest snapshot, replaying only the events
+ * journaled after it. Restart time then depends on the snapshot interval instead of the length of
+ * the journal.
+ *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
+@Slf4j
 public class DomainEventProcessor {
 
   private final EventJournal eventJournal;
+  private final SnapshotStore snapshotStore;
+  private final int snapshotInterval;
+  private long lastSequenceId = Long.MIN_VALUE;
+  private int eventsSinceSnapshot;
 
   public DomainEventProcessor(EventJournal eventJournal) {
+    this(eventJournal, null, 0);
+  }
+
+  /**
+   * Instantiates a processor that takes snapshots.
+   *
+   * @param eventJournal     the journal.
+   * @param snapshotStore    the store for snapshots.
+   * @param snapshotInterval number of events between snapshots.
+   */
+  public DomainEventProcessor(EventJournal eventJournal, SnapshotStore snapshotStore,
+      int snapshotInterval) {
+    if (snapshotStore != null && snapshotInterval <= 0) {
+      throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+    }
     this.eventJournal = eventJournal;
+    this.snapshotStore = snapshotStore;
+    this.snapshotInterval = snapshotInterval;
   }
 
   /**
@@ -48,6 +79,13 @@ public class DomainEventProcessor {
   public void process(DomainEvent domainEvent) {
     domainEvent.process();
     eventJournal.write(domainEvent);
+    lastSequenceId = Math.max(lastSequenceId, domainEvent.getSequenceId());
+    if (snapshotStore != null && ++eventsSinceSnapshot >= snapshotInterval) {
+      eventsSinceSnapshot = 0;
+      // the copy is taken here, between two events; serializing and writing it is left to the
+      // background writer of the store
+      snapshotStore.saveAsync(AccountAggregate.snapshot(lastSequenceId));
+    }
   }
 
   /**
@@ -55,15 +93,64 @@ public class DomainEventProcessor {
    */
   public void reset() {
     eventJournal.reset();
+    if (snapshotStore != null) {
+      snapshotStore.reset();
+    }
   }
 
   /**
-   * Recover.
+   * Recover. The latest snapshot, if any, is restored first and only the events after it are
+   * replayed. Events are pulled from the journal and applied one by one, so the journal is
+   * streamed rather than loaded as a whole.
    */
   public void recover() {
-    DomainEvent domainEvent;
-    while ((domainEvent = eventJournal.readNext()) != null) {
-      domainEvent.process();
+    var replayFrom = restoreSnapshot();
+    try {
+      DomainEvent domainEvent;
+      while ((domainEvent = eventJournal.readNext()) != null) {
+        if (domainEvent.getSequenceId() < replayFrom) {
+          continue;
+        }
+        domainEvent.process();
+        lastSequenceId = Math.max(lastSequenceId, domainEvent.getSequenceId());
+      }
+    } finally {
+      eventJournal.endReplay();
+    }
+  }
+
+  /**
+   * Recover on several threads. Like {@link #recover()}, but the events are applied by
+   * {@code parallelism} workers, each owning a partition of the accounts.
+   *
+   * @param parallelism number of worker threads.
+   * @see PartitionedReplay
+   */
+  public void recover(int parallelism) {
+    var replayFrom = restoreSnapshot();
+    try {
+      var replayed = new PartitionedReplay(parallelism).replay(eventJournal, replayFrom);
+      lastSequenceId = Math.max(lastSequenceId, replayed);
+    } finally {
+      eventJournal.endReplay();
+    }
+  }
+
+  /**
+   * Restores the latest snapshot, if there is one, and moves the journal past it.
+   *
+   * @return sequence id of the first event to replay.
+   */
+  private long restoreSnapshot() {
+    var snapshot = snapshotStore == null ? Optional.<AggregateSnapshot>empty()
+        : snapshotStore.loadLatest();
+    if (snapshot.isEmpty()) {
+      return Long.MIN_VALUE;
     }
+    AccountAggregate.restore(snapshot.get());
+    lastSequenceId = snapshot.get().getLastSequenceId();
+    eventJournal.seek(lastSequenceId + 1);
+    LOGGER.info("Restored snapshot at sequence id {}", lastSequenceId);
+    return lastSequenceId + 1;
   }
 }
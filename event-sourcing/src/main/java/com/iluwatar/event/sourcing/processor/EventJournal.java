@@ -1,3 +1,27 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
 package com.iluwatar.event.sourcing.processor;
 
 import com.iluwatar.event.sourcing.event.DomainEvent;
@@ -29,9 +53,27 @@ public abstract class EventJournal {
   }
 
   /**
-   * Read domain event.
+   * Moves the reader to the first event with a sequence id of at least {@code sequenceId}, if the
+   * journal supports it. Journals that cannot seek keep reading from where they are, so callers
+   * must still skip the events they are not interested in.
+   *
+   * @param sequenceId the sequence id to continue reading from.
+   */
+  void seek(long sequenceId) {
+  }
+
+  /**
+   * Called once a replay stops, whether or not every event has been read, so the journal can let
+   * go of what it holds for reading.
+   */
+  void endReplay() {
+  }
+
+  /**
+   * Read domain event. Implementations should read the events lazily, so a journal of any length
+   * can be replayed.
    *
-   * @return the domain event.
+   * @return the domain event, or null if there is none left.
    */
   abstract DomainEvent readNext();
 }
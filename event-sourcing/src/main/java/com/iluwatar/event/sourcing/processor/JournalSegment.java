@@ -0,0 +1,439 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * One file of a {@link MappedSegmentJournal}. A segment is created with its full size, so the
+ * file is never grown while it is mapped, and holds a header followed by records:
+ *
+ * <pre>
+ *   segment = magic:int record* 0:int
+ *   record  = length:int crc32:int event:byte[length]
+ * </pre>
+ *
+ * <p>The zero filled space after the last record ends the segment. A record that was torn by a
+ * crash fails its checksum and ends the segment as well.
+ *
+ * <p>Next to the log file lives a sparse index, a list of (sequence id, position) pairs with one
+ * entry about every {@value #INDEX_INTERVAL} bytes of log. It lets a reader seek to a sequence id
+ * by scanning a few kilobytes instead of the whole segment. The index is only a hint: entries
+ * that do not point at a valid record are dropped, and a missing index is rebuilt from the log.
+ */
+final class JournalSegment {
+
+  static final int MAGIC = 0x45564a31;
+  static final int HEADER_SIZE = 4;
+  static final int RECORD_HEADER_SIZE = 8;
+  static final int INDEX_INTERVAL = 4096;
+
+  private static final int INDEX_ENTRY_SIZE = 12;
+
+  private final long baseSequenceId;
+  private final Path logFile;
+  private final Path indexFile;
+  private final int capacity;
+  private final CRC32 crc = new CRC32();
+  private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+  /**
+   * Guards {@link #syncedPosition}. Forcing does not hold the segment lock, so the next writers
+   * can append while a flush is in progress.
+   */
+  private final Object forceLock = new Object();
+
+  /**
+   * The writable mapping of an active segment, null once the segment is sealed.
+   */
+  private volatile MappedByteBuffer buffer;
+  private FileChannel indexChannel;
+  /**
+   * End of the records written so far, or -1 for a segment that has not been opened for append.
+   */
+  private volatile int writePosition = -1;
+  private int syncedPosition;
+  private long lastSequenceId = Long.MIN_VALUE;
+
+  private long[] indexSequenceIds = new long[16];
+  private int[] indexPositions = new int[16];
+  private int indexSize = -1;
+
+  private JournalSegment(Path directory, long baseSequenceId, int capacity) {
+    this.baseSequenceId = baseSequenceId;
+    this.logFile = directory.resolve(fileName(baseSequenceId, ".log"));
+    this.indexFile = directory.resolve(fileName(baseSequenceId, ".idx"));
+    this.capacity = capacity;
+  }
+
+  /**
+   * Tells whether an event fits into an empty segment.
+   *
+   * @param length   size of the encoded event.
+   * @param capacity size of the log file.
+   * @return false if the event is too large for any segment of that size.
+   */
+  static boolean fits(int length, int capacity) {
+    // the record and the zero length marking the end of the records
+    return HEADER_SIZE + RECORD_HEADER_SIZE + length + 4 <= capacity;
+  }
+
+  /**
+   * Creates a new, empty segment ready for appending.
+   *
+   * @param directory      the journal directory.
+   * @param baseSequenceId sequence id of the first record.
+   * @param capacity       size of the log file.
+   * @return the segment.
+   */
+  static JournalSegment create(Path directory, long baseSequenceId, int capacity) {
+    var segment = new JournalSegment(directory, baseSequenceId, capacity);
+    try (var channel = FileChannel.open(segment.logFile, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      segment.buffer.putInt(0, MAGIC);
+      Files.deleteIfExists(segment.indexFile);
+      segment.indexChannel = openIndex(segment.indexFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    segment.indexSize = 0;
+    segment.writePosition = HEADER_SIZE;
+    segment.syncedPosition = 0;
+    return segment;
+  }
+
+  /**
+   * Opens an existing segment. Nothing is read or mapped until the segment is used.
+   *
+   * @param logFile the log file of the segment.
+   * @return the segment.
+   */
+  static JournalSegment open(Path logFile) {
+    var name = logFile.getFileName().toString();
+    var baseSequenceId = Long.parseLong(name.substring(0, name.length() - ".log".length()));
+    try {
+      return new JournalSegment(logFile.getParent(), baseSequenceId, (int) Files.size(logFile));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Tells whether {@code fileName} names the log file of a segment.
+   *
+   * @param fileName a file name.
+   * @return true for segment log files.
+   */
+  static boolean isLogFile(String fileName) {
+    return fileName.matches("\\d{20}\\.log");
+  }
+
+  long getBaseSequenceId() {
+    return baseSequenceId;
+  }
+
+  long getLastSequenceId() {
+    return lastSequenceId;
+  }
+
+  /**
+   * Maps an existing segment for appending and finds the end of its records. The scan starts at
+   * the last index entry that still points at a valid record, so only the tail of the log is read.
+   * Whatever follows the last valid record, e.g. a torn write, is cleared.
+   */
+  void openForAppend() {
+    try (var channel = FileChannel.open(logFile, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      if (buffer.getInt(0) != MAGIC) {
+        throw new IllegalStateException("Not a journal segment: " + logFile);
+      }
+      loadIndex();
+      while (indexSize > 0 && recordLength(buffer, indexPositions[indexSize - 1], capacity) < 0) {
+        indexSize--;
+      }
+      var position = indexSize > 0 ? indexPositions[indexSize - 1] : HEADER_SIZE;
+      var lastIndexed = indexSize > 0 ? position : Integer.MIN_VALUE;
+      int length;
+      while ((length = recordLength(buffer, position, capacity)) >= 0) {
+        var sequenceId = BinaryEventCodec.sequenceIdAt(buffer, position + RECORD_HEADER_SIZE);
+        if (position - lastIndexed >= INDEX_INTERVAL) {
+          addIndexEntry(sequenceId, position);
+          lastIndexed = position;
+        }
+        lastSequenceId = sequenceId;
+        position += RECORD_HEADER_SIZE + length;
+      }
+      if (position + 4 <= capacity && buffer.getInt(position) != 0) {
+        for (var i = position; i < capacity; i++) {
+          buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+      }
+      indexChannel = openIndex(indexFile);
+      indexChannel.truncate(0);
+      var entries = ByteBuffer.allocate(indexSize * INDEX_ENTRY_SIZE);
+      for (var i = 0; i < indexSize; i++) {
+        entries.putLong(indexSequenceIds[i]).putInt(indexPositions[i]);
+      }
+      indexChannel.write(entries.flip(), 0);
+      writePosition = position;
+      syncedPosition = position;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Appends a record. Only the journal writer calls this.
+   *
+   * @param sequenceId sequence id of the event.
+   * @param event      the encoded event.
+   * @return false if the record does not fit into the rest of the segment.
+   */
+  synchronized boolean append(long sequenceId, ByteBuffer event) {
+    var position = writePosition;
+    var length = event.remaining();
+    if (position + RECORD_HEADER_SIZE + length + 4 > capacity) {
+      return false;
+    }
+    crc.reset();
+    crc.update(event.duplicate());
+    buffer.put(position + RECORD_HEADER_SIZE, event, event.position(), length);
+    buffer.putInt(position + 4, (int) crc.getValue());
+    buffer.putInt(position, length);
+    var lastIndexed = indexSize > 0 ? indexPositions[indexSize - 1] : Integer.MIN_VALUE;
+    if (position - lastIndexed >= INDEX_INTERVAL) {
+      addIndexEntry(sequenceId, position);
+      writeIndexEntry(sequenceId, position);
+    }
+    lastSequenceId = sequenceId;
+    // publishes the record to readers
+    writePosition = position + RECORD_HEADER_SIZE + length;
+    return true;
+  }
+
+  /**
+   * Get the number of bytes written so far.
+   *
+   * @return write position.
+   */
+  int getWritePosition() {
+    return writePosition;
+  }
+
+  /**
+   * Makes the records up to {@code position} durable. Forcing a range that has been forced before
+   * is a no-op, so the writers of a group commit pay for one flush between them.
+   *
+   * @param position end of the range to force.
+   */
+  void force(int position) {
+    synchronized (forceLock) {
+      var mapped = buffer;
+      if (mapped == null || position <= syncedPosition) {
+        return;
+      }
+      mapped.force(syncedPosition, position - syncedPosition);
+      syncedPosition = position;
+    }
+  }
+
+  /**
+   * Forces the records written so far and closes the segment for appending.
+   */
+  synchronized void seal() {
+    if (buffer == null) {
+      return;
+    }
+    force(writePosition);
+    buffer = null;
+    try {
+      indexChannel.force(false);
+      indexChannel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get a read only view of the segment. Its limit is the capacity of the segment; use
+   * {@link #readLimit()} to find out how much of it has been written.
+   *
+   * @return view of the log, positioned at the first record.
+   */
+  ByteBuffer view() {
+    var mapped = buffer;
+    if (mapped != null) {
+      return mapped.asReadOnlyBuffer().position(HEADER_SIZE);
+    }
+    try (var channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity).position(HEADER_SIZE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get the position up to which records may be read.
+   *
+   * @return the write position if known, the capacity otherwise.
+   */
+  int readLimit() {
+    var position = writePosition;
+    return position < 0 ? capacity : position;
+  }
+
+  /**
+   * Finds the position of the first record with a sequence id of at least {@code sequenceId}.
+   *
+   * @param view       a view of this segment.
+   * @param sequenceId the sequence id to seek to.
+   * @return the position, which is the end of the records if every record is older.
+   */
+  synchronized int seek(ByteBuffer view, long sequenceId) {
+    if (indexSize < 0) {
+      loadIndex();
+      if (indexSize == 0) {
+        rebuildIndex(view);
+      }
+    }
+    var slot = Arrays.binarySearch(indexSequenceIds, 0, indexSize, sequenceId);
+    var entry = slot >= 0 ? slot : -slot - 2;
+    var position = entry >= 0 ? indexPositions[entry] : HEADER_SIZE;
+    var limit = readLimit();
+    int length;
+    while ((length = recordLength(view, position, limit)) >= 0
+        && BinaryEventCodec.sequenceIdAt(view, position + RECORD_HEADER_SIZE) < sequenceId) {
+      position += RECORD_HEADER_SIZE + length;
+    }
+    return position;
+  }
+
+  /**
+   * Get the length of the record at {@code position}.
+   *
+   * @param view     a view of a segment.
+   * @param position position of the record.
+   * @param limit    end of the readable part of the segment.
+   * @return the length of the event held by the record, or -1 if there is no valid record.
+   */
+  static int recordLength(ByteBuffer view, int position, int limit) {
+    if (position < HEADER_SIZE || position + RECORD_HEADER_SIZE > limit) {
+      return -1;
+    }
+    var length = view.getInt(position);
+    if (length <= 0 || length > limit - position - RECORD_HEADER_SIZE) {
+      return -1;
+    }
+    var crc = new CRC32();
+    crc.update(view.slice(position + RECORD_HEADER_SIZE, length));
+    return (int) crc.getValue() == view.getInt(position + 4) ? length : -1;
+  }
+
+  /**
+   * Deletes the files of this segment.
+   */
+  void delete() {
+    seal();
+    try {
+      Files.deleteIfExists(logFile);
+      Files.deleteIfExists(indexFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void loadIndex() {
+    indexSize = 0;
+    if (!Files.exists(indexFile)) {
+      return;
+    }
+    try {
+      var entries = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+      while (entries.remaining() >= INDEX_ENTRY_SIZE) {
+        var sequenceId = entries.getLong();
+        var position = entries.getInt();
+        if (position < HEADER_SIZE || position >= capacity) {
+          break;
+        }
+        addIndexEntry(sequenceId, position);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void rebuildIndex(ByteBuffer view) {
+    var limit = readLimit();
+    var position = HEADER_SIZE;
+    var lastIndexed = Integer.MIN_VALUE;
+    int length;
+    while ((length = recordLength(view, position, limit)) >= 0) {
+      if (position - lastIndexed >= INDEX_INTERVAL) {
+        addIndexEntry(BinaryEventCodec.sequenceIdAt(view, position + RECORD_HEADER_SIZE),
+            position);
+        lastIndexed = position;
+      }
+      position += RECORD_HEADER_SIZE + length;
+    }
+  }
+
+  private void addIndexEntry(long sequenceId, int position) {
+    if (indexSize == indexPositions.length) {
+      indexSequenceIds = Arrays.copyOf(indexSequenceIds, indexSize * 2);
+      indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+    }
+    indexSequenceIds[indexSize] = sequenceId;
+    indexPositions[indexSize] = position;
+    indexSize++;
+  }
+
+  private void writeIndexEntry(long sequenceId, int position) {
+    indexEntry.clear().putLong(sequenceId).putInt(position).flip();
+    try {
+      indexChannel.write(indexEntry, (long) (indexSize - 1) * INDEX_ENTRY_SIZE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static FileChannel openIndex(Path indexFile) throws IOException {
+    return FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+  }
+
+  private static String fileName(long baseSequenceId, String suffix) {
+    return String.format("%020d%s", baseSequenceId, suffix);
+  }
+}
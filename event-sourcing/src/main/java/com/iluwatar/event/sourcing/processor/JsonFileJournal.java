@@ -32,15 +32,13 @@ import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
 import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
 
 /**
  * This is the implementation of event journal. This implementation serialize/deserialize the events
@@ -50,30 +48,53 @@ import java.util.List;
  */
 public class JsonFileJournal extends EventJournal {
 
-  private final List<String> events = new ArrayList<>();
-  private int index = 0;
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private BufferedReader input;
+  private boolean endOfJournal;
 
   /**
    * Instantiates a new Json file journal.
    */
   public JsonFileJournal() {
-    file = new File("Journal.json");
-    if (file.exists()) {
-      try (var input = new BufferedReader(
-          new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-        String line;
-        while ((line = input.readLine()) != null) {
-          events.add(line);
-        }
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
-    } else {
+    this(Path.of("Journal.json"));
+  }
+
+  /**
+   * Instantiates a Json file journal writing to the given file.
+   *
+   * @param journalFile the journal file, created on the first write.
+   */
+  public JsonFileJournal(Path journalFile) {
+    file = journalFile.toFile();
+    if (!file.exists()) {
       reset();
     }
   }
 
 
+  /**
+   * Clears the journal, so the next replay starts over on an empty file.
+   */
+  @Override
+  void reset() {
+    closeReader();
+    endOfJournal = false;
+    super.reset();
+  }
+
+  /**
+   * Closes the reader of a replay that stopped before the end of the journal; the rest of the
+   * journal is not read anymore.
+   */
+  @Override
+  void endReplay() {
+    if (input != null) {
+      endOfJournal = true;
+      closeReader();
+    }
+  }
+
   /**
    * Write.
    *
@@ -81,10 +102,9 @@ public class JsonFileJournal extends EventJournal {
    */
   @Override
   public void write(DomainEvent domainEvent) {
-    var mapper = new ObjectMapper();
     try (var output = new BufferedWriter(
         new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
-      var eventString = mapper.writeValueAsString(domainEvent);
+      var eventString = MAPPER.writeValueAsString(domainEvent);
       output.write(eventString + "\r\n");
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -93,26 +113,25 @@ public class JsonFileJournal extends EventJournal {
 
 
   /**
-   * Read the next domain event.
+   * Read the next domain event. The journal file is read line by line as events are requested,
+   * so only one event is held in memory at a time.
    *
    * @return the domain event
    */
   public DomainEvent readNext() {
-    if (index >= events.size()) {
+    var event = nextLine();
+    if (event == null) {
       return null;
     }
-    var event = events.get(index);
-    index++;
 
-    var mapper = new ObjectMapper();
     DomainEvent domainEvent;
     try {
-      var jsonElement = mapper.readTree(event);
+      var jsonElement = MAPPER.readTree(event);
       var eventClassName = jsonElement.get("eventClassName").asText();
       domainEvent = switch (eventClassName) {
-        case "AccountCreateEvent" -> mapper.treeToValue(jsonElement, AccountCreateEvent.class);
-        case "MoneyDepositEvent" -> mapper.treeToValue(jsonElement, MoneyDepositEvent.class);
-        case "MoneyTransferEvent" -> mapper.treeToValue(jsonElement, MoneyTransferEvent.class);
+        case "AccountCreateEvent" -> MAPPER.treeToValue(jsonElement, AccountCreateEvent.class);
+        case "MoneyDepositEvent" -> MAPPER.treeToValue(jsonElement, MoneyDepositEvent.class);
+        case "MoneyTransferEvent" -> MAPPER.treeToValue(jsonElement, MoneyTransferEvent.class);
         default -> throw new RuntimeException("Journal Event not recognized");
       };
     } catch (JsonProcessingException jsonProcessingException) {
@@ -122,4 +141,40 @@ public class JsonFileJournal extends EventJournal {
     domainEvent.setRealTime(false);
     return domainEvent;
   }
+
+  private String nextLine() {
+    if (endOfJournal) {
+      return null;
+    }
+    try {
+      if (input == null) {
+        if (!file.exists()) {
+          return null;
+        }
+        input = new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+      }
+      var line = input.readLine();
+      if (line == null) {
+        endOfJournal = true;
+        closeReader();
+      }
+      return line;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void closeReader() {
+    if (input == null) {
+      return;
+    }
+    try {
+      input.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      input = null;
+    }
+  }
 }
@@ -0,0 +1,304 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This is an event journal that appends the events in a compact binary form to memory mapped
+ * segment files in a directory. Once a segment is full the journal rolls over to a new one, named
+ * after the sequence id of its first event, so the journal never rewrites or grows a file.
+ *
+ * <p>Writes are durable when {@link #write(DomainEvent)} returns. Forcing a mapped file to disk is
+ * by far the most expensive part of a write, so writers use group commit: the first writer that
+ * finds its event not yet durable forces everything appended so far, while the writers arriving
+ * meanwhile keep appending and are made durable together by the next flush. Under concurrent load
+ * many events share one flush.
+ *
+ * <p>Events are read one at a time straight from the mapped segments, so recovering a journal of
+ * any length only holds one event in memory. Each segment keeps a sparse index that lets
+ * {@link #seek(long)} skip to a sequence id without reading the events before it.
+ *
+ * <p>Events are always read back in the order they were written. Seeking relies on the sequence
+ * ids ascending in that order, which they do as long as ids are handed out in the order the events
+ * are written.
+ *
+ * @see JournalSegment
+ */
+@Slf4j
+public class MappedSegmentJournal extends EventJournal implements AutoCloseable {
+
+  /**
+   * Size of a segment file unless configured otherwise.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final ConcurrentNavigableMap<Long, JournalSegment> segments =
+      new ConcurrentSkipListMap<>();
+
+  private final Object writeLock = new Object();
+  private final Object syncLock = new Object();
+  private ByteBuffer scratch = ByteBuffer.allocate(256);
+  private JournalSegment active;
+  private long lastSequenceId = Long.MIN_VALUE;
+  private long appended;
+  private volatile long durable;
+  private final AtomicLong syncCount = new AtomicLong();
+
+  private JournalSegment readSegment;
+  private ByteBuffer readView;
+
+  /**
+   * Instantiates a journal in the journal directory of the working directory.
+   */
+  public MappedSegmentJournal() {
+    this(Path.of("journal"));
+  }
+
+  /**
+   * Instantiates a journal.
+   *
+   * @param directory the directory holding the segment files, created if missing.
+   */
+  public MappedSegmentJournal(Path directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Instantiates a journal.
+   *
+   * @param directory   the directory holding the segment files, created if missing.
+   * @param segmentSize size of a segment file, which limits the size of an event.
+   */
+  public MappedSegmentJournal(Path directory, int segmentSize) {
+    if (segmentSize < 1024) {
+      throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    file = directory.toFile();
+    try {
+      Files.createDirectories(directory);
+      try (var files = Files.list(directory)) {
+        files.filter(path -> JournalSegment.isLogFile(path.getFileName().toString()))
+            .map(JournalSegment::open)
+            .forEach(segment -> segments.put(segment.getBaseSequenceId(), segment));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (!segments.isEmpty()) {
+      active = segments.lastEntry().getValue();
+      active.openForAppend();
+      lastSequenceId = active.getLastSequenceId();
+    }
+  }
+
+  /**
+   * Appends the event and returns once it is durable.
+   *
+   * @param domainEvent the domain event.
+   */
+  @Override
+  public void write(DomainEvent domainEvent) {
+    long ticket;
+    synchronized (writeLock) {
+      var sequenceId = domainEvent.getSequenceId();
+      if (sequenceId < 0) {
+        throw new IllegalArgumentException("Negative sequence id: " + sequenceId);
+      }
+      var event = BinaryEventCodec.encode(domainEvent, scratch);
+      if (event.capacity() > scratch.capacity()) {
+        scratch = event;
+      }
+      if (!JournalSegment.fits(event.remaining(), segmentSize)) {
+        // checked before rolling, so an oversized event does not leave an empty segment behind
+        throw new IllegalArgumentException("Event of " + event.remaining()
+            + " bytes does not fit into a segment");
+      }
+      if (active == null || !active.append(sequenceId, event)) {
+        roll(sequenceId);
+        active.append(sequenceId, event);
+      }
+      lastSequenceId = sequenceId;
+      ticket = ++appended;
+    }
+    awaitDurable(ticket);
+  }
+
+  /**
+   * Makes the write holding {@code ticket} durable. One writer at a time forces the active
+   * segment; by the time the others get their turn their events are usually covered already.
+   */
+  private void awaitDurable(long ticket) {
+    if (durable >= ticket) {
+      return;
+    }
+    synchronized (syncLock) {
+      if (durable >= ticket) {
+        return;
+      }
+      JournalSegment segment;
+      int position;
+      long covered;
+      synchronized (writeLock) {
+        segment = active;
+        position = segment == null ? 0 : segment.getWritePosition();
+        covered = appended;
+      }
+      if (segment != null) {
+        segment.force(position);
+      }
+      syncCount.incrementAndGet();
+      durable = covered;
+    }
+  }
+
+  /**
+   * Seals the active segment and starts a new one, named after the sequence id of its first event.
+   * Sealing forces the old segment, so every event before the new segment is durable.
+   */
+  private void roll(long sequenceId) {
+    var baseSequenceId = sequenceId;
+    if (active != null) {
+      active.seal();
+      baseSequenceId = Math.max(sequenceId, active.getBaseSequenceId() + 1);
+      LOGGER.info("Rolling journal segment after sequence id {}", lastSequenceId);
+    }
+    active = JournalSegment.create(directory, baseSequenceId, segmentSize);
+    segments.put(baseSequenceId, active);
+  }
+
+  /**
+   * Read the next domain event, straight from the mapped segment.
+   *
+   * @return the domain event, or null once every event written so far has been read.
+   */
+  @Override
+  public DomainEvent readNext() {
+    if (readSegment == null) {
+      var first = segments.firstEntry();
+      if (first == null) {
+        return null;
+      }
+      openReader(first.getValue());
+    }
+    while (true) {
+      var position = readView.position();
+      var length = JournalSegment.recordLength(readView, position, readSegment.readLimit());
+      if (length >= 0) {
+        var event = readView.slice(position + JournalSegment.RECORD_HEADER_SIZE, length);
+        readView.position(position + JournalSegment.RECORD_HEADER_SIZE + length);
+        return BinaryEventCodec.decode(event);
+      }
+      var next = segments.higherEntry(readSegment.getBaseSequenceId());
+      if (next == null) {
+        return null;
+      }
+      openReader(next.getValue());
+    }
+  }
+
+  /**
+   * Moves the reader to the first event with a sequence id of at least {@code sequenceId}.
+   *
+   * @param sequenceId the sequence id to continue reading from.
+   */
+  @Override
+  public void seek(long sequenceId) {
+    var floor = segments.floorEntry(sequenceId);
+    var entry = floor != null ? floor : segments.firstEntry();
+    if (entry == null) {
+      readSegment = null;
+      return;
+    }
+    openReader(entry.getValue());
+    readView.position(readSegment.seek(readView, sequenceId));
+  }
+
+  private void openReader(JournalSegment segment) {
+    readSegment = segment;
+    readView = segment.view();
+  }
+
+  /**
+   * Get the number of times the journal has been forced to disk by writers. With concurrent
+   * writers this is smaller than the number of events written.
+   *
+   * @return flush count.
+   */
+  public long getSyncCount() {
+    return syncCount.get();
+  }
+
+  /**
+   * Get the number of segment files.
+   *
+   * @return segment count.
+   */
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Deletes all segments.
+   */
+  @Override
+  public void reset() {
+    synchronized (writeLock) {
+      segments.values().forEach(JournalSegment::delete);
+      segments.clear();
+      active = null;
+      lastSequenceId = Long.MIN_VALUE;
+      readSegment = null;
+      readView = null;
+      LOGGER.info("Journal cleared successfully............");
+    }
+  }
+
+  /**
+   * Forces and closes the active segment.
+   */
+  @Override
+  public void close() {
+    synchronized (writeLock) {
+      if (active != null) {
+        active.seal();
+        active = null;
+      }
+    }
+  }
+}
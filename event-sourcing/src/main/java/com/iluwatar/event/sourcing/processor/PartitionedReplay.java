@@ -0,0 +1,231 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replays a journal on several threads. Accounts are partitioned by account number, and every
+ * partition is owned by one worker, which applies the events of its accounts in journal order.
+ * As no two workers ever touch the same account, the workers share nothing but the concurrent
+ * account store.
+ *
+ * <p>A money transfer touches two accounts, which may belong to different partitions. It is split
+ * into its withdrawal, applied by the partition of the paying account, and its deposit, applied by
+ * the partition of the receiving account. Each half reads and writes its own account only, so
+ * every account still sees exactly the sequence of changes a sequential replay would apply.
+ * Withdrawals cannot fail during a replay, since the journal only holds events that were applied
+ * successfully before they were written.
+ *
+ * <p>The caller's thread reads the journal and hands the events to the workers in batches, which
+ * keeps the cost of the hand-off well below the cost of applying the events.
+ */
+final class PartitionedReplay {
+
+  private static final int BATCH_SIZE = 256;
+  private static final int QUEUED_BATCHES = 16;
+  private static final List<Step> END = List.of();
+
+  private final int parallelism;
+  private final List<BlockingQueue<List<Step>>> queues = new ArrayList<>();
+  private final List<List<Step>> batches = new ArrayList<>();
+  private final AtomicReference<Failure> failure = new AtomicReference<>();
+
+  /**
+   * Creates a replay.
+   *
+   * @param parallelism number of worker threads.
+   */
+  PartitionedReplay(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+    }
+    this.parallelism = parallelism;
+    for (var i = 0; i < parallelism; i++) {
+      queues.add(new ArrayBlockingQueue<>(QUEUED_BATCHES));
+      batches.add(new ArrayList<>(BATCH_SIZE));
+    }
+  }
+
+  /**
+   * Replays the rest of the journal.
+   *
+   * @param eventJournal the journal.
+   * @param replayFrom   sequence id of the first event to apply, earlier events are skipped.
+   * @return the highest sequence id applied, or {@code Long.MIN_VALUE} if there was none.
+   */
+  long replay(EventJournal eventJournal, long replayFrom) {
+    ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+      var thread = new Thread(runnable, "replay-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    var lastSequenceId = Long.MIN_VALUE;
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for (var queue : queues) {
+        futures.add(workers.submit(() -> work(queue)));
+      }
+      DomainEvent domainEvent;
+      while (failure.get() == null && (domainEvent = eventJournal.readNext()) != null) {
+        if (domainEvent.getSequenceId() < replayFrom) {
+          continue;
+        }
+        dispatch(domainEvent);
+        lastSequenceId = Math.max(lastSequenceId, domainEvent.getSequenceId());
+      }
+      for (var partition = 0; partition < parallelism; partition++) {
+        flush(partition);
+        put(partition, END);
+      }
+      for (var future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while replaying the journal", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Replay worker failed", e.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+    var failed = failure.get();
+    if (failed != null) {
+      throw failed.exception();
+    }
+    return lastSequenceId;
+  }
+
+  private void dispatch(DomainEvent domainEvent) throws InterruptedException {
+    if (domainEvent instanceof MoneyTransferEvent transfer) {
+      var from = partitionOf(transfer.getAccountNoFrom());
+      var to = partitionOf(transfer.getAccountNoTo());
+      if (from == to) {
+        add(from, new Step(domainEvent, Half.BOTH));
+      } else {
+        add(from, new Step(domainEvent, Half.WITHDRAWAL));
+        add(to, new Step(domainEvent, Half.DEPOSIT));
+      }
+    } else if (domainEvent instanceof AccountCreateEvent create) {
+      add(partitionOf(create.getAccountNo()), new Step(domainEvent, Half.BOTH));
+    } else if (domainEvent instanceof MoneyDepositEvent deposit) {
+      add(partitionOf(deposit.getAccountNo()), new Step(domainEvent, Half.BOTH));
+    } else {
+      throw new IllegalArgumentException("Journal Event not recognized: "
+          + domainEvent.getEventClassName());
+    }
+  }
+
+  private int partitionOf(int accountNo) {
+    return Math.floorMod(accountNo, parallelism);
+  }
+
+  private void add(int partition, Step step) throws InterruptedException {
+    var batch = batches.get(partition);
+    batch.add(step);
+    if (batch.size() == BATCH_SIZE) {
+      flush(partition);
+    }
+  }
+
+  private void flush(int partition) throws InterruptedException {
+    var batch = batches.get(partition);
+    if (!batch.isEmpty()) {
+      put(partition, batch);
+      batches.set(partition, new ArrayList<>(BATCH_SIZE));
+    }
+  }
+
+  private void put(int partition, List<Step> batch) throws InterruptedException {
+    queues.get(partition).put(batch);
+  }
+
+  private void work(BlockingQueue<List<Step>> queue) {
+    try {
+      List<Step> batch;
+      while ((batch = queue.take()) != END) {
+        for (var step : batch) {
+          if (failure.get() != null) {
+            break;
+          }
+          apply(step);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void apply(Step step) {
+    try {
+      switch (step.half()) {
+        case WITHDRAWAL -> {
+          var transfer = (MoneyTransferEvent) step.event();
+          accountOf(transfer.getAccountNoFrom()).handleTransferFromEvent(transfer);
+        }
+        case DEPOSIT -> {
+          var transfer = (MoneyTransferEvent) step.event();
+          accountOf(transfer.getAccountNoTo()).handleTransferToEvent(transfer);
+        }
+        default -> step.event().process();
+      }
+    } catch (RuntimeException e) {
+      var failed = new Failure(step.event().getSequenceId(), e);
+      failure.accumulateAndGet(failed,
+          (current, next) -> current == null || next.sequenceId() < current.sequenceId()
+              ? next : current);
+    }
+  }
+
+  private static Account accountOf(int accountNo) {
+    return Optional.ofNullable(AccountAggregate.getAccount(accountNo))
+        .orElseThrow(() -> new RuntimeException("Account not found " + accountNo));
+  }
+
+  private enum Half {
+    BOTH, WITHDRAWAL, DEPOSIT
+  }
+
+  private record Step(DomainEvent event, Half half) {
+  }
+
+  private record Failure(long sequenceId, RuntimeException exception) {
+  }
+}
@@ -0,0 +1,284 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.state.AccountView;
+import com.iluwatar.event.sourcing.state.AggregateSnapshot;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * This is the store for snapshots of the account aggregate. Every snapshot is written to its own
+ * file in a directory, named after the last sequence id it covers. A snapshot is written to a
+ * temporary file, forced and then moved into place, so a crash never leaves a partial snapshot
+ * behind; the checksum at the end of the file catches any other damage. Only the latest
+ * {@value #RETAINED_SNAPSHOTS} snapshots are kept.
+ *
+ * <p>{@link #saveAsync(AggregateSnapshot)} writes in the background, so event processing goes on
+ * while a snapshot is written.
+ */
+@Slf4j
+public class SnapshotStore implements AutoCloseable {
+
+  /**
+   * "EVS2": the second format, which added the version of every account. Files of the first
+   * format are rejected as unreadable and the journal is replayed instead.
+   */
+  private static final int MAGIC = 0x45565332;
+  private static final int RETAINED_SNAPSHOTS = 2;
+  private static final String PREFIX = "snapshot-";
+  private static final String SUFFIX = ".bin";
+
+  private final Path directory;
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    var thread = new Thread(runnable, "snapshot-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean writing = new AtomicBoolean();
+
+  /**
+   * Instantiates a snapshot store in the snapshots directory of the working directory.
+   */
+  public SnapshotStore() {
+    this(Path.of("snapshots"));
+  }
+
+  /**
+   * Instantiates a snapshot store.
+   *
+   * @param directory the directory holding the snapshots, created if missing.
+   */
+  public SnapshotStore(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes a snapshot in the background. If the previous snapshot is still being written the new
+   * one is dropped, as the next one will cover its events anyway.
+   *
+   * @param snapshot the snapshot.
+   * @return a future completed with true once the snapshot is written, or with false if it was
+   *     dropped.
+   */
+  public CompletableFuture<Boolean> saveAsync(AggregateSnapshot snapshot) {
+    if (!writing.compareAndSet(false, true)) {
+      return CompletableFuture.completedFuture(false);
+    }
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        save(snapshot);
+        return true;
+      } finally {
+        writing.set(false);
+      }
+    }, writer);
+  }
+
+  /**
+   * Writes a snapshot.
+   *
+   * @param snapshot the snapshot.
+   */
+  public void save(AggregateSnapshot snapshot) {
+    var target = directory.resolve(fileName(snapshot.getLastSequenceId()));
+    var temporary = directory.resolve(target.getFileName() + ".tmp");
+    try {
+      try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        var checked = new CheckedOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32());
+        var output = new DataOutputStream(checked);
+        output.writeInt(MAGIC);
+        output.writeLong(snapshot.getLastSequenceId());
+        output.writeInt(snapshot.getAccounts().size());
+        for (var account : snapshot.getAccounts()) {
+          writeAccount(output, account);
+        }
+        output.writeLong(checked.getChecksum().getValue());
+        output.flush();
+        channel.force(true);
+      }
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      LOGGER.info("Snapshot written at sequence id {}", snapshot.getLastSequenceId());
+      deleteOldSnapshots();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Loads the latest snapshot. A damaged snapshot is skipped in favour of an older one.
+   *
+   * @return the latest readable snapshot, if any.
+   */
+  public Optional<AggregateSnapshot> loadLatest() {
+    for (var file : listSnapshots()) {
+      try {
+        return Optional.of(load(file));
+      } catch (IOException | RuntimeException e) {
+        LOGGER.warn("Skipping unreadable snapshot {}", file, e);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Deletes all snapshots. A snapshot still being written in the background is finished first, so
+   * it cannot land after the reset.
+   */
+  public void reset() {
+    try {
+      CompletableFuture.runAsync(() -> { }, writer).join();
+    } catch (RejectedExecutionException e) {
+      // closed, and close() waits for the writer
+    } catch (CompletionException e) {
+      LOGGER.warn("Snapshot writer failed before reset", e.getCause());
+    }
+    for (var file : listSnapshots()) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Waits for a snapshot being written and stops the background writer.
+   */
+  @Override
+  public void close() {
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+        LOGGER.warn("Snapshot writer did not finish in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private AggregateSnapshot load(Path file) throws IOException {
+    try (var checked = new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(file)), new CRC32());
+        var input = new DataInputStream(checked)) {
+      if (input.readInt() != MAGIC) {
+        throw new IllegalStateException("Not a snapshot");
+      }
+      var lastSequenceId = input.readLong();
+      var count = input.readInt();
+      List<AccountView> accounts = new ArrayList<>(count);
+      for (var i = 0; i < count; i++) {
+        accounts.add(readAccount(input));
+      }
+      var checksum = checked.getChecksum().getValue();
+      if (input.readLong() != checksum) {
+        throw new IllegalStateException("Snapshot checksum mismatch");
+      }
+      return new AggregateSnapshot(lastSequenceId, accounts);
+    }
+  }
+
+  private static void writeAccount(DataOutputStream output, AccountView account)
+      throws IOException {
+    output.writeInt(account.getAccountNo());
+    output.writeBoolean(account.getOwner() != null);
+    if (account.getOwner() != null) {
+      output.writeUTF(account.getOwner());
+    }
+    var unscaled = account.getMoney().unscaledValue().toByteArray();
+    output.writeInt(account.getMoney().scale());
+    output.writeInt(unscaled.length);
+    output.write(unscaled);
+    output.writeLong(account.getVersion());
+  }
+
+  private static AccountView readAccount(DataInputStream input) throws IOException {
+    var accountNo = input.readInt();
+    var owner = input.readBoolean() ? input.readUTF() : null;
+    var scale = input.readInt();
+    var unscaled = new byte[input.readInt()];
+    input.readFully(unscaled);
+    var money = new BigDecimal(new BigInteger(unscaled), scale);
+    return new AccountView(accountNo, owner, money, input.readLong());
+  }
+
+  /**
+   * Lists the snapshot files, latest first.
+   */
+  private List<Path> listSnapshots() {
+    try (var files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().matches("snapshot-\\d{20}\\.bin"))
+          .sorted((a, b) -> b.getFileName().compareTo(a.getFileName()))
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void deleteOldSnapshots() throws IOException {
+    var snapshots = listSnapshots();
+    for (var i = RETAINED_SNAPSHOTS; i < snapshots.size(); i++) {
+      Files.deleteIfExists(snapshots.get(i));
+    }
+  }
+
+  private static String fileName(long lastSequenceId) {
+    return String.format("%s%020d%s", PREFIX, lastSequenceId, SUFFIX);
+  }
+}
@@ -25,48 +25,107 @@
 package com.iluwatar.event.sourcing.state;
 
 import com.iluwatar.event.sourcing.domain.Account;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is the static accounts map holder class. This class holds the state of the accounts.
  *
+ * <p>The accounts are kept as immutable {@link AccountView}s in a concurrent map. A change of an
+ * account replaces its view with a new one in a single atomic step, so queries read the current
+ * view with {@link #getAccountView(int)} without copying and without taking a lock, even while
+ * events are being processed. Each view carries a version, which lets a client check that it
+ * reads its own writes.
+ *
+ * <p>A parallel replay partitions the accounts between its workers, so each account is only ever
+ * written by the worker owning its partition and the workers never contend on an entry.
+ *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class AccountAggregate {
 
-  private static Map<Integer, Account> accounts = new HashMap<>();
+  private static volatile Map<Integer, AccountView> accounts = new ConcurrentHashMap<>();
 
   private AccountAggregate() {
   }
 
   /**
-   * Put account.
+   * Put account. Publishes the state of the account as a new view with the next version.
    *
    * @param account the account
    */
   public static void putAccount(Account account) {
-    accounts.put(account.getAccountNo(), account);
+    accounts.compute(account.getAccountNo(), (accountNo, previous) -> new AccountView(accountNo,
+        account.getOwner(), account.getMoney(), previous == null ? 1 : previous.getVersion() + 1));
   }
 
   /**
-   * Gets account.
+   * Gets account, for event handlers that are about to change it.
    *
    * @param accountNo the account no
-   * @return the copy of the account or null if not found
+   * @return a new, mutable account or null if not found
    */
   public static Account getAccount(int accountNo) {
-    return Optional.of(accountNo)
-        .map(accounts::get)
-        .map(Account::copy)
-        .orElse(null);
+    var view = accounts.get(accountNo);
+    if (view == null) {
+      return null;
+    }
+    var account = new Account(accountNo, view.getOwner());
+    account.setMoney(view.getMoney());
+    return account;
+  }
+
+  /**
+   * Gets the current view of an account. The view is shared, not copied.
+   *
+   * @param accountNo the account no
+   * @return the view or null if not found
+   */
+  public static AccountView getAccountView(int accountNo) {
+    return accounts.get(accountNo);
+  }
+
+  /**
+   * Gets the current view of an account, provided it includes a given change.
+   *
+   * @param accountNo  the account no
+   * @param minVersion the version of the change the caller expects to see
+   * @return the view, or null if not found or older than {@code minVersion}
+   */
+  public static AccountView getAccountView(int accountNo, long minVersion) {
+    var view = accounts.get(accountNo);
+    return view == null || view.getVersion() < minVersion ? null : view;
+  }
+
+  /**
+   * Takes a snapshot of the accounts. The views are immutable, so they are collected as they are
+   * and the caller can hand the snapshot to another thread to be written out.
+   *
+   * @param lastSequenceId sequence id of the last event applied to the accounts.
+   * @return the snapshot
+   */
+  public static AggregateSnapshot snapshot(long lastSequenceId) {
+    return new AggregateSnapshot(lastSequenceId, List.copyOf(accounts.values()));
+  }
+
+  /**
+   * Replaces the accounts with the ones of a snapshot.
+   *
+   * @param snapshot the snapshot
+   */
+  public static void restore(AggregateSnapshot snapshot) {
+    var restored = new ConcurrentHashMap<Integer, AccountView>();
+    for (var account : snapshot.getAccounts()) {
+      restored.put(account.getAccountNo(), account);
+    }
+    accounts = restored;
   }
 
   /**
    * Reset state.
    */
   public static void resetState() {
-    accounts = new HashMap<>();
+    accounts = new ConcurrentHashMap<>();
   }
 }
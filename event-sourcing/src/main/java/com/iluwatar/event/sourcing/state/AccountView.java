@@ -0,0 +1,58 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import java.math.BigDecimal;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * This is the immutable, published state of an account, as returned to queries by
+ * {@link AccountAggregate#getAccountView(int)}. Every change of the account publishes a new view
+ * with the next version, so a view can be shared between threads without copying or locking, and
+ * the balance and the version a reader sees always belong together.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class AccountView {
+
+  private final int accountNo;
+  private final String owner;
+  private final BigDecimal money;
+  /**
+   * Number of changes applied to the account, starting with 1 for its creation.
+   */
+  private final long version;
+
+  @Override
+  public String toString() {
+    return "Account{"
+        + "accountNo=" + accountNo
+        + ", owner='" + owner + '\''
+        + ", money=" + money
+        + ", version=" + version
+        + '}';
+  }
+}
@@ -26,6 +26,8 @@
 import static com.iluwatar.event.sourcing.app.App.ACCOUNT_OF_DAENERYS;
 import static com.iluwatar.event.sourcing.app.App.ACCOUNT_OF_JON;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.iluwatar.event.sourcing.event.AccountCreateEvent;
 import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
@@ -34,9 +36,11 @@ import com.iluwatar.event.sourcing.processor.DomainEventProcessor;
 import com.iluwatar.event.sourcing.processor.JsonFileJournal;
 import com.iluwatar.event.sourcing.state.AccountAggregate;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.Date;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Integration Test for Event-Sourcing state recovery
@@ -50,12 +54,18 @@ class IntegrationTest {
    */
   private DomainEventProcessor eventProcessor;
 
+  /**
+   * The journal file, kept out of the working directory.
+   */
+  private Path journalFile;
+
   /**
    * Initialize.
    */
   @BeforeEach
-  void initialize() {
-    eventProcessor = new DomainEventProcessor(new JsonFileJournal());
+  void initialize(@TempDir Path directory) {
+    journalFile = directory.resolve("Journal.json");
+    eventProcessor = new DomainEventProcessor(new JsonFileJournal(journalFile));
   }
 
   /**
@@ -86,7 +96,7 @@ class IntegrationTest {
 
     AccountAggregate.resetState();
 
-    eventProcessor = new DomainEventProcessor(new JsonFileJournal());
+    eventProcessor = new DomainEventProcessor(new JsonFileJournal(journalFile));
     eventProcessor.recover();
 
     var accountOfDaenerysAfterShotDown = AccountAggregate.getAccount(ACCOUNT_OF_DAENERYS);
@@ -97,4 +107,27 @@ class IntegrationTest {
     assertEquals(accountOfJonBeforeShotDown.getMoney(), accountOfJonAfterShotDown.getMoney());
   }
 
+  /**
+   * Test that a journal replayed once is replayed again after a reset.
+   */
+  @Test
+  void testRecoveryAfterReset() {
+    eventProcessor.reset();
+    AccountAggregate.resetState();
+    eventProcessor.process(new AccountCreateEvent(
+        0, new Date().getTime(), ACCOUNT_OF_JON, "Jon Snow"));
+    AccountAggregate.resetState();
+    eventProcessor.recover();
+
+    eventProcessor.reset();
+    eventProcessor.process(new AccountCreateEvent(
+        0, new Date().getTime(), ACCOUNT_OF_DAENERYS, "Daenerys Targaryen"));
+    AccountAggregate.resetState();
+    eventProcessor.recover();
+
+    assertNotNull(AccountAggregate.getAccount(ACCOUNT_OF_DAENERYS));
+    assertNull(AccountAggregate.getAccount(ACCOUNT_OF_JON));
+    AccountAggregate.resetState();
+  }
+
 }
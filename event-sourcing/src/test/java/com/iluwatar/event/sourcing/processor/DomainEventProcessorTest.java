@@ -0,0 +1,219 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for snapshot based recovery of {@link DomainEventProcessor}.
+ */
+class DomainEventProcessorTest {
+
+  private static final int ACCOUNTS = 10;
+  private static final int EVENTS = 1000;
+
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  void recoveryReplaysOnlyTheEventsAfterTheLatestSnapshot() {
+    var expected = processEvents();
+
+    try (var journal = new CountingJournal(directory.resolve("journal"));
+        var snapshots = new SnapshotStore(directory.resolve("snapshots"))) {
+      var lastSnapshot = snapshots.loadLatest().orElseThrow().getLastSequenceId();
+      new DomainEventProcessor(journal, snapshots, 100).recover();
+
+      assertEquals(EVENTS - 1 - lastSnapshot, journal.replayed);
+      assertBalances(expected);
+    }
+  }
+
+  @Test
+  void damagedSnapshotFallsBackToAnOlderOne() throws IOException {
+    var expected = processEvents();
+    try (var files = Files.list(directory.resolve("snapshots"))) {
+      var latest = files.max(Path::compareTo).orElseThrow();
+      Files.write(latest, new byte[] {1, 2, 3});
+    }
+
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"));
+        var snapshots = new SnapshotStore(directory.resolve("snapshots"))) {
+      new DomainEventProcessor(journal, snapshots, 100).recover();
+      assertBalances(expected);
+    }
+  }
+
+  @Test
+  void recoveryWithoutSnapshotReplaysEverything() {
+    var expected = processEvents();
+
+    try (var journal = new CountingJournal(directory.resolve("journal"))) {
+      new DomainEventProcessor(journal).recover();
+      assertEquals(EVENTS, journal.replayed);
+      assertBalances(expected);
+    }
+  }
+
+  @Test
+  void parallelRecoveryMatchesSequentialRecovery() {
+    var expected = processEvents();
+
+    try (var journal = new CountingJournal(directory.resolve("journal"))) {
+      new DomainEventProcessor(journal).recover(4);
+      assertEquals(EVENTS, journal.replayed);
+      assertBalances(expected);
+    }
+    AccountAggregate.resetState();
+
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"));
+        var snapshots = new SnapshotStore(directory.resolve("snapshots"))) {
+      new DomainEventProcessor(journal, snapshots, 100).recover(3);
+      assertBalances(expected);
+    }
+  }
+
+  @Test
+  void parallelRecoveryReportsTheFirstFailingEvent() {
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"))) {
+      journal.write(new AccountCreateEvent(0, 0L, 0, "Owner"));
+      journal.write(new MoneyDepositEvent(1, 0L, 0, BigDecimal.TEN));
+      journal.write(new MoneyDepositEvent(2, 0L, 1, BigDecimal.TEN));
+    }
+
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"))) {
+      var processor = new DomainEventProcessor(journal);
+      var exception = assertThrows(RuntimeException.class, () -> processor.recover(2));
+      assertEquals("Account not found", exception.getMessage());
+    }
+  }
+
+  @Test
+  void resetDiscardsSnapshotBeingWritten() {
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"));
+        var snapshots = new SnapshotStore(directory.resolve("snapshots"))) {
+      var processor = new DomainEventProcessor(journal, snapshots, ACCOUNTS);
+      for (var i = 0; i < ACCOUNTS; i++) {
+        processor.process(new AccountCreateEvent(i, 0L, i, "Owner " + i));
+      }
+      processor.reset();
+      assertTrue(snapshots.loadLatest().isEmpty());
+    }
+  }
+
+  @Test
+  void snapshotOfTheFirstFormatIsRejected() throws IOException {
+    var snapshotDirectory = Files.createDirectories(directory.resolve("snapshots"));
+    var file = snapshotDirectory.resolve(String.format("snapshot-%020d.bin", 1));
+    try (var output = new DataOutputStream(Files.newOutputStream(file))) {
+      output.writeInt(0x45565331);
+      output.writeLong(1);
+      output.writeInt(0);
+      output.writeLong(0);
+    }
+
+    try (var snapshots = new SnapshotStore(snapshotDirectory)) {
+      assertTrue(snapshots.loadLatest().isEmpty());
+    }
+  }
+
+  /**
+   * Processes the events, taking a snapshot every 100 events, and returns the balances.
+   */
+  private BigDecimal[] processEvents() {
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"));
+        var snapshots = new SnapshotStore(directory.resolve("snapshots"))) {
+      var processor = new DomainEventProcessor(journal, snapshots, 100);
+      processor.reset();
+      for (var i = 0; i < ACCOUNTS; i++) {
+        processor.process(new AccountCreateEvent(i, 0L, i, "Owner " + i));
+      }
+      for (var i = ACCOUNTS; i < EVENTS; i++) {
+        if (i % 3 == 0 && i >= 100) {
+          processor.process(new MoneyTransferEvent(i, 0L, BigDecimal.ONE, (i + 1) % ACCOUNTS,
+              i % ACCOUNTS));
+        } else {
+          processor.process(new MoneyDepositEvent(i, 0L, i % ACCOUNTS, BigDecimal.valueOf(i)));
+        }
+      }
+    }
+    try (var snapshots = new SnapshotStore(directory.resolve("snapshots"))) {
+      assertTrue(snapshots.loadLatest().isPresent());
+    }
+    var balances = new BigDecimal[ACCOUNTS];
+    for (var i = 0; i < ACCOUNTS; i++) {
+      balances[i] = AccountAggregate.getAccount(i).getMoney();
+    }
+    AccountAggregate.resetState();
+    return balances;
+  }
+
+  private static void assertBalances(BigDecimal[] expected) {
+    for (var i = 0; i < ACCOUNTS; i++) {
+      assertEquals(expected[i], AccountAggregate.getAccount(i).getMoney());
+    }
+  }
+
+  /**
+   * Counts the events read from the journal.
+   */
+  private static class CountingJournal extends MappedSegmentJournal {
+    private int replayed;
+
+    CountingJournal(Path directory) {
+      super(directory);
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      var event = super.readNext();
+      if (event != null) {
+        replayed++;
+      }
+      return event;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link MappedSegmentJournal}.
+ */
+class MappedSegmentJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void eventsAreReadBackInOrderAcrossSegments() {
+    try (var journal = new MappedSegmentJournal(directory, 1024)) {
+      journal.write(new AccountCreateEvent(0, 1L, 1, "Daenerys Targaryen"));
+      journal.write(new AccountCreateEvent(1, 2L, 2, null));
+      for (var i = 2; i < 200; i++) {
+        journal.write(new MoneyDepositEvent(i, i, 1, new BigDecimal(i).movePointLeft(2)));
+      }
+      journal.write(new MoneyTransferEvent(200, 200L, new BigDecimal("-12345678901234567890.5"),
+          1, 2));
+      assertTrue(journal.getSegmentCount() > 1);
+    }
+
+    try (var journal = new MappedSegmentJournal(directory, 1024)) {
+      var created = (AccountCreateEvent) journal.readNext();
+      assertEquals(0, created.getSequenceId());
+      assertEquals(1L, created.getCreatedTime());
+      assertEquals("Daenerys Targaryen", created.getOwner());
+      assertNull(((AccountCreateEvent) journal.readNext()).getOwner());
+      for (var i = 2; i < 200; i++) {
+        var deposit = (MoneyDepositEvent) journal.readNext();
+        assertEquals(i, deposit.getSequenceId());
+        assertEquals(new BigDecimal(i).movePointLeft(2), deposit.getMoney());
+        assertEquals(false, deposit.isRealTime());
+      }
+      var transfer = (MoneyTransferEvent) journal.readNext();
+      assertEquals(new BigDecimal("-12345678901234567890.5"), transfer.getMoney());
+      assertEquals(1, transfer.getAccountNoFrom());
+      assertEquals(2, transfer.getAccountNoTo());
+      assertNull(journal.readNext());
+    }
+  }
+
+  @Test
+  void seekUsesTheSparseIndex() {
+    try (var journal = new MappedSegmentJournal(directory, 64 * 1024)) {
+      writeDeposits(journal, 0, 10_000);
+      journal.seek(1234);
+      assertEquals(1234, journal.readNext().getSequenceId());
+      journal.seek(9_999);
+      assertEquals(9_999, journal.readNext().getSequenceId());
+      assertNull(journal.readNext());
+    }
+
+    // sealed segments are read with the index written alongside them
+    try (var journal = new MappedSegmentJournal(directory, 64 * 1024)) {
+      journal.seek(7_777);
+      assertEquals(7_777, journal.readNext().getSequenceId());
+      assertEquals(7_778, journal.readNext().getSequenceId());
+      journal.seek(20_000);
+      assertNull(journal.readNext());
+    }
+  }
+
+  @Test
+  void reopenedJournalAppendsAfterTheLastEvent() {
+    try (var journal = new MappedSegmentJournal(directory, 4096)) {
+      writeDeposits(journal, 0, 50);
+    }
+    try (var journal = new MappedSegmentJournal(directory, 4096)) {
+      writeDeposits(journal, 50, 100);
+    }
+    try (var journal = new MappedSegmentJournal(directory, 4096)) {
+      assertEquals(100, readAll(journal));
+    }
+  }
+
+  @Test
+  void tornRecordEndsTheJournal() throws IOException {
+    try (var journal = new MappedSegmentJournal(directory, 4096)) {
+      writeDeposits(journal, 0, 10);
+    }
+    try (var files = Files.list(directory)) {
+      var log = files.filter(path -> path.toString().endsWith(".log")).findFirst().orElseThrow();
+      try (var channel = FileChannel.open(log, StandardOpenOption.WRITE,
+          StandardOpenOption.READ)) {
+        // damages the last event of the segment, as a crash in the middle of a write would
+        var position = JournalSegment.HEADER_SIZE;
+        var length = ByteBuffer.allocate(4);
+        for (var i = 0; i < 9; i++) {
+          channel.read(length.clear(), position);
+          position += JournalSegment.RECORD_HEADER_SIZE + length.flip().getInt();
+        }
+        channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xff}), position + 12);
+      }
+    }
+
+    try (var journal = new MappedSegmentJournal(directory, 4096)) {
+      writeDeposits(journal, 10, 12);
+      DomainEvent event;
+      var sequenceIds = new ArrayList<Long>();
+      while ((event = journal.readNext()) != null) {
+        sequenceIds.add(event.getSequenceId());
+      }
+      assertEquals(11, sequenceIds.size());
+      assertEquals(8L, sequenceIds.get(8));
+      assertEquals(10L, sequenceIds.get(9));
+    }
+  }
+
+  @Test
+  void concurrentWritersShareFlushes() throws Exception {
+    var writers = 8;
+    var eventsPerWriter = 200;
+    var sequence = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    try (var journal = new MappedSegmentJournal(directory)) {
+      var futures = new ArrayList<Future<?>>();
+      for (var i = 0; i < writers; i++) {
+        futures.add(executor.submit(() -> {
+          for (var j = 0; j < eventsPerWriter; j++) {
+            journal.write(new MoneyDepositEvent(sequence.getAndIncrement(), 0L, 1,
+                BigDecimal.ONE));
+          }
+        }));
+      }
+      for (var future : futures) {
+        future.get();
+      }
+      assertEquals(writers * eventsPerWriter, readAll(journal));
+      assertTrue(journal.getSyncCount() < writers * eventsPerWriter);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void resetDeletesAllSegments() {
+    try (var journal = new MappedSegmentJournal(directory)) {
+      journal.write(new AccountCreateEvent(0, 0L, 1, "Jon Snow"));
+      journal.write(new MoneyDepositEvent(1, 0L, 1, BigDecimal.TEN));
+    }
+    try (var journal = new MappedSegmentJournal(directory)) {
+      var first = journal.readNext();
+      assertInstanceOf(AccountCreateEvent.class, first);
+      journal.reset();
+      assertNull(journal.readNext());
+      assertEquals(0, journal.getSegmentCount());
+    }
+  }
+
+  @Test
+  void oversizedEventLeavesNoSegmentBehind() {
+    try (var journal = new MappedSegmentJournal(directory, 1024)) {
+      journal.write(new AccountCreateEvent(0, 0L, 1, "Jon Snow"));
+      var oversized = new AccountCreateEvent(1, 0L, 2, "x".repeat(2048));
+      assertThrows(IllegalArgumentException.class, () -> journal.write(oversized));
+      assertThrows(IllegalArgumentException.class, () -> journal.write(oversized));
+      assertEquals(1, journal.getSegmentCount());
+      journal.write(new MoneyDepositEvent(1, 0L, 1, BigDecimal.TEN));
+      assertEquals(2, readAll(journal));
+    }
+  }
+
+  private static void writeDeposits(MappedSegmentJournal journal, long from, long to) {
+    for (var i = from; i < to; i++) {
+      journal.write(new MoneyDepositEvent(i, i, 1, BigDecimal.valueOf(i)));
+    }
+  }
+
+  private static int readAll(MappedSegmentJournal journal) {
+    var count = 0;
+    while (journal.readNext() != null) {
+      count++;
+    }
+    return count;
+  }
+}
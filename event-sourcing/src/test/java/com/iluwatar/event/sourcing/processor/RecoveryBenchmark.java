@@ -0,0 +1,135 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Restart time of the account aggregate against the length of the journal, recovering either by
+ * replaying the whole journal or from the latest snapshot, taken every
+ * {@value #SNAPSHOT_INTERVAL} events. Without snapshots the time grows with the journal; with
+ * snapshots it stays bounded by the interval. The replay runs either on the calling thread or
+ * partitioned over several threads. Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+  private static final int ACCOUNTS = 1000;
+  private static final int SNAPSHOT_INTERVAL = 10_000;
+
+  @Param({"10000", "100000", "1000000"})
+  public int journalLength;
+
+  @Param({"false", "true"})
+  public boolean snapshots;
+
+  /**
+   * Number of replay threads, 0 for the sequential replay.
+   */
+  @Param({"0", "4"})
+  public int parallelism;
+
+  private Path directory;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("recovery-benchmark");
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"));
+        var store = new SnapshotStore(directory.resolve("snapshots"))) {
+      var processor = snapshots
+          ? new DomainEventProcessor(journal, store, SNAPSHOT_INTERVAL)
+          : new DomainEventProcessor(journal);
+      for (var i = 0; i < ACCOUNTS; i++) {
+        processor.process(new AccountCreateEvent(i, i, i, "Owner " + i));
+      }
+      for (var i = ACCOUNTS; i < journalLength; i++) {
+        processor.process(new MoneyDepositEvent(i, i, i % ACCOUNTS, BigDecimal.valueOf(i, 2)));
+      }
+    }
+    AccountAggregate.resetState();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    AccountAggregate.resetState();
+    try (var files = Files.walk(directory)) {
+      for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public BigDecimal recover() {
+    AccountAggregate.resetState();
+    try (var journal = new MappedSegmentJournal(directory.resolve("journal"));
+        var store = new SnapshotStore(directory.resolve("snapshots"))) {
+      var processor = snapshots
+          ? new DomainEventProcessor(journal, store, SNAPSHOT_INTERVAL)
+          : new DomainEventProcessor(journal);
+      if (parallelism == 0) {
+        processor.recover();
+      } else {
+        processor.recover(parallelism);
+      }
+    }
+    return AccountAggregate.getAccount(0).getMoney();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RecoveryBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
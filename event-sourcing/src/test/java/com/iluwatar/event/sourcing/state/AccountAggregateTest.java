@@ -0,0 +1,133 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the read model of {@link AccountAggregate}.
+ */
+class AccountAggregateTest {
+
+  @AfterEach
+  void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Test
+  void everyChangePublishesTheNextVersion() {
+    new AccountCreateEvent(0, 0L, 1, "Jon Snow").process();
+    var created = AccountAggregate.getAccountView(1);
+    assertEquals(1, created.getVersion());
+    assertEquals(BigDecimal.ZERO, created.getMoney());
+
+    new MoneyDepositEvent(1, 0L, 1, BigDecimal.TEN).process();
+    var deposited = AccountAggregate.getAccountView(1);
+    assertEquals(2, deposited.getVersion());
+    assertEquals(BigDecimal.TEN, deposited.getMoney());
+    // the earlier view is left as it was
+    assertEquals(BigDecimal.ZERO, created.getMoney());
+  }
+
+  @Test
+  void readsShareTheView() {
+    new AccountCreateEvent(0, 0L, 1, "Jon Snow").process();
+    assertSame(AccountAggregate.getAccountView(1), AccountAggregate.getAccountView(1));
+    assertNull(AccountAggregate.getAccountView(2));
+  }
+
+  @Test
+  void readYourWritesCheck() {
+    new AccountCreateEvent(0, 0L, 1, "Jon Snow").process();
+    assertNull(AccountAggregate.getAccountView(1, 2));
+    new MoneyDepositEvent(1, 0L, 1, BigDecimal.TEN).process();
+    assertEquals(2, AccountAggregate.getAccountView(1, 2).getVersion());
+  }
+
+  @Test
+  void snapshotRestoresViewsWithTheirVersions() {
+    new AccountCreateEvent(0, 0L, 1, "Jon Snow").process();
+    new MoneyDepositEvent(1, 0L, 1, BigDecimal.TEN).process();
+    var snapshot = AccountAggregate.snapshot(1);
+    AccountAggregate.resetState();
+
+    AccountAggregate.restore(snapshot);
+    assertEquals(2, AccountAggregate.getAccountView(1).getVersion());
+    new MoneyDepositEvent(2, 0L, 1, BigDecimal.ONE).process();
+    assertEquals(3, AccountAggregate.getAccountView(1).getVersion());
+    assertEquals(new BigDecimal("11"), AccountAggregate.getAccountView(1).getMoney());
+  }
+
+  @Test
+  void readersAlwaysSeeMatchingBalanceAndVersion() throws Exception {
+    new AccountCreateEvent(0, 0L, 1, "Jon Snow").process();
+    var readers = Executors.newFixedThreadPool(3);
+    var started = new CountDownLatch(3);
+    var done = new AtomicBoolean();
+    try {
+      var futures = new ArrayList<Future<Long>>();
+      for (var i = 0; i < 3; i++) {
+        futures.add(readers.submit(() -> {
+          started.countDown();
+          var reads = 0L;
+          while (!done.get()) {
+            var view = AccountAggregate.getAccountView(1);
+            // every deposit adds one, so the balance trails the version by the creation
+            assertEquals(BigDecimal.valueOf(view.getVersion() - 1), view.getMoney());
+            reads++;
+          }
+          return reads;
+        }));
+      }
+      started.await();
+      for (var i = 1; i <= 10_000; i++) {
+        var deposit = new MoneyDepositEvent(i, 0L, 1, BigDecimal.ONE);
+        deposit.setRealTime(false);
+        deposit.process();
+      }
+      done.set(true);
+      for (var future : futures) {
+        assertTrue(future.get() > 0);
+      }
+      assertEquals(10_001, AccountAggregate.getAccountView(1).getVersion());
+    } finally {
+      readers.shutdown();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.state;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Mixed read/write throughput of the account read model: three threads query random accounts
+ * while one thread applies deposits. The queries either take a mutable copy of the account with
+ * {@link AccountAggregate#getAccount(int)}, as every read did before, or read the shared view with
+ * {@link AccountAggregate#getAccountView(int)}. Run {@link #main} from the test classpath; the GC
+ * profiler shows the allocation the copies cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ReadModelBenchmark {
+
+  private static final int ACCOUNTS = 10_000;
+
+  private long sequenceId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    AccountAggregate.resetState();
+    for (var i = 0; i < ACCOUNTS; i++) {
+      var event = new AccountCreateEvent(i, 0L, i, "Owner " + i);
+      event.setRealTime(false);
+      event.process();
+    }
+    sequenceId = ACCOUNTS;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  @Benchmark
+  @Group("copy")
+  @GroupThreads(3)
+  public BigDecimal copyingRead() {
+    return AccountAggregate.getAccount(randomAccount()).getMoney();
+  }
+
+  @Benchmark
+  @Group("copy")
+  @GroupThreads(1)
+  public void copyWrite() {
+    deposit();
+  }
+
+  @Benchmark
+  @Group("view")
+  @GroupThreads(3)
+  public BigDecimal viewRead() {
+    return AccountAggregate.getAccountView(randomAccount()).getMoney();
+  }
+
+  @Benchmark
+  @Group("view")
+  @GroupThreads(1)
+  public void viewWrite() {
+    deposit();
+  }
+
+  private void deposit() {
+    var event = new MoneyDepositEvent(sequenceId++, 0L, randomAccount(), BigDecimal.ONE);
+    event.setRealTime(false);
+    event.process();
+  }
+
+  private static int randomAccount() {
+    return ThreadLocalRandom.current().nextInt(ACCOUNTS);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ReadModelBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -24,6 +24,10 @@
  */
 package com.iluwatar.pipeline;
 
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * The Pipeline pattern uses ordered stages to process a sequence of input values. Each implemented
  * task is represented by a stage of the pipeline. You can think of pipelines as similar to assembly
@@ -35,6 +39,9 @@ package com.iluwatar.pipeline;
  * "stage".
  */
 public class App {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(App.class);
+
   /**
    * Specify the initial input type for the first stage handler and the expected output type of the
    * last stage handler as type parameters for Pipeline. Use the fluent builder by calling
@@ -64,5 +71,21 @@ public class App {
         .addHandler(new RemoveDigitsHandler())
         .addHandler(new ConvertToCharArrayHandler());
     filters.execute("GoYankees123!");
+
+    /*
+      To push a stream of inputs through the stages concurrently, run every handler as a stage of
+      its own. Here the digits are removed by two workers, and the char arrays still come out in
+      the order of the inputs.
+     */
+    try (var staged = filters.staged().workers(1, 2).batchSize(2)
+        .start(chars -> LOGGER.info("Staged output: {}", String.valueOf(chars)))) {
+      for (var input : List.of("GoYankees123!", "Hello42World?", "#1Pipe2Line3#")) {
+        staged.submit(input);
+      }
+      staged.complete();
+      staged.getStages().forEach(stage -> LOGGER.info("{}", stage));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 }
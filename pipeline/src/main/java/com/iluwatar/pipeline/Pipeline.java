@@ -24,26 +24,45 @@
  */
 package com.iluwatar.pipeline;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Main Pipeline class that initially sets the current handler. Processed output of the initial
  * handler is then passed as the input to the next stage handlers.
  *
+ * <p>{@link #execute} runs all handlers on the calling thread. {@link #staged} runs every handler
+ * as a stage of its own, to push a stream of inputs through the stages concurrently.
+ *
  * @param <I> the type of the input for the first stage handler
  * @param <O> the final stage handler's output type
  */
 class Pipeline<I, O> {
 
   private final Handler<I, O> currentHandler;
+  private final List<Handler<?, ?>> handlers;
 
   Pipeline(Handler<I, O> currentHandler) {
+    this(currentHandler, List.of(currentHandler));
+  }
+
+  private Pipeline(Handler<I, O> currentHandler, List<Handler<?, ?>> handlers) {
     this.currentHandler = currentHandler;
+    this.handlers = handlers;
   }
 
   <K> Pipeline<I, K> addHandler(Handler<O, K> newHandler) {
-    return new Pipeline<>(input -> newHandler.process(currentHandler.process(input)));
+    var stages = new ArrayList<>(handlers);
+    stages.add(newHandler);
+    return new Pipeline<>(input -> newHandler.process(currentHandler.process(input)),
+        List.copyOf(stages));
   }
 
   O execute(I input) {
     return currentHandler.process(input);
   }
-}
\ No newline at end of file
+
+  StagedPipeline.Builder<I, O> staged() {
+    return new StagedPipeline.Builder<>(handlers);
+  }
+}
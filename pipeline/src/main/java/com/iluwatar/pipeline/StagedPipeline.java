@@ -0,0 +1,453 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pipeline in which every handler runs as a stage of its own, on its own worker threads, and the
+ * stages are connected by bounded queues. Inputs are submitted as a stream and handed from stage
+ * to stage in batches, so that a queue operation is paid per batch rather than per input. A full
+ * queue blocks the stage before it, down to {@link #submit}. With several workers in a stage the
+ * batches overtake each other; the outputs are put back in the order of the inputs before they
+ * reach the sink, unless the order is not needed.
+ *
+ * <p>The {@link Stage} of every handler counts the inputs it processed and the time it was busy,
+ * and tracks the depth of its input queue. The stage with the lowest throughput per busy second is
+ * the bottleneck, and usually has the deepest queue in front of it.
+ *
+ * <p>An input whose handler throws is dropped and counted by its stage. A sink that throws, or any
+ * other failure of a worker, does not stop the other inputs, but {@link #complete} reports it.
+ *
+ * @param <I> the type of the input for the first stage handler
+ * @param <O> the final stage handler's output type
+ */
+class StagedPipeline<I, O> implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StagedPipeline.class);
+
+  private static final Batch END = new Batch(-1, List.of());
+
+  private final Stage[] stages;
+  private final int batchSize;
+  private final boolean preserveOrder;
+  private final Consumer<Object> sink;
+  private final List<Thread> threads = new ArrayList<>();
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private volatile boolean closed;
+
+  // guarded by this
+  private List<Object> buffer;
+  private long nextSequence;
+  private boolean completed;
+
+  // guarded by pending
+  private final Map<Long, List<Object>> pending = new HashMap<>();
+  private long nextToDeliver;
+
+  @SuppressWarnings("unchecked")
+  private StagedPipeline(Builder<I, O> builder, Consumer<? super O> sink) {
+    this.batchSize = builder.batchSize;
+    this.preserveOrder = builder.preserveOrder;
+    this.sink = (Consumer<Object>) sink;
+    this.buffer = new ArrayList<>(batchSize);
+    this.stages = new Stage[builder.handlers.size()];
+    for (var i = 0; i < stages.length; i++) {
+      stages[i] = new Stage(i, (Handler<Object, Object>) builder.handlers.get(i),
+          builder.workers[i], builder.queueCapacity);
+    }
+    for (var stage : stages) {
+      for (var worker = 0; worker < stage.workers; worker++) {
+        var thread = new Thread(() -> work(stage),
+            "pipeline-stage-" + stage.index + "-" + stage.name + "-" + worker);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+      }
+    }
+  }
+
+  /**
+   * Submit an input, waiting while the first stage is full. The input is handed to the first stage
+   * when its batch is full, or on {@link #flush} or {@link #complete}.
+   *
+   * @param input input for the first stage handler
+   * @throws InterruptedException if interrupted while waiting
+   * @throws IllegalStateException if the pipeline is completed
+   */
+  synchronized void submit(I input) throws InterruptedException {
+    if (completed) {
+      throw new IllegalStateException("Pipeline is completed");
+    }
+    buffer.add(input);
+    if (buffer.size() >= batchSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Hand the inputs submitted so far to the first stage, even if their batch is not full.
+   *
+   * @throws InterruptedException if interrupted while waiting for the first stage
+   */
+  synchronized void flush() throws InterruptedException {
+    if (!buffer.isEmpty()) {
+      stages[0].put(new Batch(nextSequence++, buffer));
+      buffer = new ArrayList<>(batchSize);
+    }
+  }
+
+  /**
+   * End the stream of inputs, and wait until every stage is done with it.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   * @throws IllegalStateException if the sink or a worker failed, or the pipeline was closed
+   */
+  void complete() throws InterruptedException {
+    synchronized (this) {
+      if (!completed) {
+        flush();
+        completed = true;
+        stages[0].end();
+      }
+    }
+    finished.await();
+    var cause = failure.get();
+    if (cause != null) {
+      throw new IllegalStateException("Staged pipeline failed", cause);
+    }
+  }
+
+  /**
+   * Stop the workers at once, dropping the inputs that are not processed yet. A pending {@link
+   * #complete} returns with a failure.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (finished.getCount() > 0) {
+      fail(new CancellationException("Staged pipeline was closed"));
+    }
+    threads.forEach(Thread::interrupt);
+    finished.countDown();
+  }
+
+  List<Stage> getStages() {
+    return List.of(stages);
+  }
+
+  /**
+   * Get the stage with the lowest throughput per busy second, which limits the whole pipeline.
+   *
+   * @return the slowest stage that processed inputs, or the first stage if none did
+   */
+  Stage getBottleneck() {
+    return Arrays.stream(stages)
+        .filter(stage -> stage.getBusyNanos() > 0)
+        .min(Comparator.comparingDouble(Stage::getItemsPerSecond))
+        .orElse(stages[0]);
+  }
+
+  private void work(Stage stage) {
+    var next = stage.index + 1 < stages.length ? stages[stage.index + 1] : null;
+    var ended = false;
+    try {
+      for (var batch = stage.queue.take(); batch != END; batch = stage.queue.take()) {
+        try {
+          var output = stage.process(batch);
+          if (next == null) {
+            deliver(output);
+          } else {
+            next.put(output);
+          }
+        } catch (RuntimeException e) {
+          LOGGER.error("Stage {} {} failed on batch {}", stage.index, stage.name, batch.sequence, e);
+          fail(e);
+        }
+      }
+      ended = true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Error e) {
+      fail(e);
+      throw e;
+    } finally {
+      if (stage.liveWorkers.decrementAndGet() == 0) {
+        endOf(stage, next, ended);
+      }
+    }
+  }
+
+  /**
+   * Pass the end of the stream on when the last worker of a stage is done, or release {@link
+   * #complete} at once when the workers of the stage stopped before the end.
+   */
+  private void endOf(Stage stage, Stage next, boolean ended) {
+    if (!ended && !closed) {
+      fail(new IllegalStateException("Stage " + stage.index + " " + stage.name + " stopped"));
+    }
+    if (!ended || next == null) {
+      finished.countDown();
+      return;
+    }
+    try {
+      next.end();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      finished.countDown();
+    }
+  }
+
+  private void fail(Throwable cause) {
+    failure.compareAndSet(null, cause);
+  }
+
+  private void deliver(Batch batch) {
+    synchronized (pending) {
+      if (!preserveOrder) {
+        emit(batch.items);
+        return;
+      }
+      pending.put(batch.sequence, batch.items);
+      for (var items = pending.remove(nextToDeliver); items != null;
+          items = pending.remove(nextToDeliver)) {
+        nextToDeliver++;
+        emit(items);
+      }
+    }
+  }
+
+  /**
+   * Hand outputs to the sink; an output the sink fails on is skipped, so the ones after it still
+   * arrive and the failure is reported by {@link #complete}.
+   */
+  private void emit(List<Object> items) {
+    for (var item : items) {
+      try {
+        sink.accept(item);
+      } catch (RuntimeException e) {
+        LOGGER.error("Sink failed on output {}", item, e);
+        fail(e);
+      }
+    }
+  }
+
+  private record Batch(long sequence, List<Object> items) {
+  }
+
+  /**
+   * A handler running on its own workers, with the queue of batches in front of it.
+   */
+  static final class Stage {
+
+    private final int index;
+    private final String name;
+    private final Handler<Object, Object> handler;
+    private final int workers;
+    private final BlockingQueue<Batch> queue;
+    private final AtomicInteger liveWorkers;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    private Stage(int index, Handler<Object, Object> handler, int workers, int queueCapacity) {
+      this.index = index;
+      var className = handler.getClass().getSimpleName();
+      this.name = className.contains("$$") ? "lambda" : className;
+      this.handler = handler;
+      this.workers = workers;
+      this.queue = new ArrayBlockingQueue<>(queueCapacity);
+      this.liveWorkers = new AtomicInteger(workers);
+    }
+
+    private void put(Batch batch) throws InterruptedException {
+      queue.put(batch);
+      maxQueueDepth.accumulate(queue.size());
+    }
+
+    /**
+     * Tell every worker that no batch follows.
+     */
+    private void end() throws InterruptedException {
+      for (var worker = 0; worker < workers; worker++) {
+        queue.put(END);
+      }
+    }
+
+    private Batch process(Batch batch) {
+      var start = System.nanoTime();
+      var output = new ArrayList<>(batch.items.size());
+      for (var item : batch.items) {
+        try {
+          output.add(handler.process(item));
+          processed.increment();
+        } catch (RuntimeException e) {
+          failed.increment();
+          LOGGER.error("Stage {} {} dropped input {}", index, name, item, e);
+        }
+      }
+      busyNanos.add(System.nanoTime() - start);
+      return new Batch(batch.sequence, output);
+    }
+
+    String getName() {
+      return name;
+    }
+
+    int getWorkers() {
+      return workers;
+    }
+
+    long getProcessed() {
+      return processed.sum();
+    }
+
+    long getFailed() {
+      return failed.sum();
+    }
+
+    long getBusyNanos() {
+      return busyNanos.sum();
+    }
+
+    int getQueueDepth() {
+      return queue.size();
+    }
+
+    long getMaxQueueDepth() {
+      return maxQueueDepth.get();
+    }
+
+    /**
+     * Get the inputs the stage can process per second with all its workers busy.
+     *
+     * @return processed inputs per busy second of a worker, times the workers
+     */
+    double getItemsPerSecond() {
+      var busy = busyNanos.sum();
+      return busy == 0 ? 0 : processed.sum() * 1e9 * workers / busy;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Stage %d %s: %d workers, %d processed, %d failed, %.0f items/s,"
+              + " queue depth %d (max %d batches)", index, name, workers, getProcessed(),
+          getFailed(), getItemsPerSecond(), getQueueDepth(), getMaxQueueDepth());
+    }
+  }
+
+  /**
+   * Builder of a staged pipeline from the handlers of a {@link Pipeline}.
+   *
+   * @param <I> the type of the input for the first stage handler
+   * @param <O> the final stage handler's output type
+   */
+  static final class Builder<I, O> {
+
+    private final List<Handler<?, ?>> handlers;
+    private final int[] workers;
+    private int queueCapacity = 16;
+    private int batchSize = 1;
+    private boolean preserveOrder = true;
+
+    Builder(List<Handler<?, ?>> handlers) {
+      this.handlers = handlers;
+      this.workers = new int[handlers.size()];
+      Arrays.fill(workers, 1);
+    }
+
+    /**
+     * Set the batches that can wait in front of every stage; 16 by default.
+     */
+    Builder<I, O> queueCapacity(int queueCapacity) {
+      if (queueCapacity < 1) {
+        throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+      }
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * Set the inputs handed from stage to stage at once; 1 by default.
+     */
+    Builder<I, O> batchSize(int batchSize) {
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Set the workers of a stage; 1 by default.
+     *
+     * @param stage index of the handler, starting at 0 for the first one
+     * @param workers threads that run the handler
+     */
+    Builder<I, O> workers(int stage, int workers) {
+      if (workers < 1) {
+        throw new IllegalArgumentException("workers must be positive: " + workers);
+      }
+      this.workers[stage] = workers;
+      return this;
+    }
+
+    /**
+     * Set whether the outputs reach the sink in the order of the inputs; {@code true} by default.
+     */
+    Builder<I, O> preserveOrder(boolean preserveOrder) {
+      this.preserveOrder = preserveOrder;
+      return this;
+    }
+
+    /**
+     * Start the workers of every stage.
+     *
+     * @param sink receives the outputs of the last stage, one at a time
+     * @return the running pipeline
+     */
+    StagedPipeline<I, O> start(Consumer<? super O> sink) {
+      return new StagedPipeline<>(this, sink);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link StagedPipeline}
+ */
+class StagedPipelineTest {
+
+  private static final List<String> INPUTS = IntStream.range(0, 200)
+      .mapToObj(i -> "#H!E(L&L" + i + "O%THE3R#34E!" + i)
+      .collect(Collectors.toList());
+
+  private final Pipeline<String, char[]> filters = new Pipeline<>(new RemoveAlphabetsHandler())
+      .addHandler(new RemoveDigitsHandler())
+      .addHandler(new ConvertToCharArrayHandler());
+
+  @Test
+  void testOutputsKeepOrderWithParallelWorkers() throws InterruptedException {
+    var outputs = Collections.synchronizedList(new ArrayList<char[]>());
+    try (var staged = filters.staged().workers(0, 3).workers(1, 4).batchSize(7).queueCapacity(2)
+        .start(outputs::add)) {
+      for (var input : INPUTS) {
+        staged.submit(input);
+      }
+      staged.complete();
+      assertEquals(INPUTS.size(), outputs.size());
+      for (var i = 0; i < INPUTS.size(); i++) {
+        assertArrayEquals(filters.execute(INPUTS.get(i)), outputs.get(i));
+      }
+      for (var stage : staged.getStages()) {
+        assertEquals(INPUTS.size(), stage.getProcessed());
+        assertEquals(0, stage.getQueueDepth());
+      }
+    }
+  }
+
+  @Test
+  void testOutputsWithoutOrder() throws InterruptedException {
+    var outputs = Collections.synchronizedList(new ArrayList<String>());
+    try (var staged = filters.staged().workers(1, 4).preserveOrder(false)
+        .start(chars -> outputs.add(String.valueOf(chars)))) {
+      for (var input : INPUTS) {
+        staged.submit(input);
+      }
+      staged.complete();
+    }
+    var expected = INPUTS.stream().map(input -> String.valueOf(filters.execute(input))).sorted()
+        .collect(Collectors.toList());
+    Collections.sort(outputs);
+    assertEquals(expected, outputs);
+  }
+
+  @Test
+  void testSlowStageIsBottleneck() throws InterruptedException {
+    var slow = new Pipeline<Integer, Integer>(input -> input + 1)
+        .addHandler(input -> {
+          try {
+            Thread.sleep(2);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return input * 2;
+        })
+        .addHandler(input -> input - 1);
+    var outputs = new ArrayList<Integer>();
+    try (var staged = slow.staged().queueCapacity(4).start(outputs::add)) {
+      for (var input = 0; input < 50; input++) {
+        staged.submit(input);
+      }
+      staged.complete();
+      var stages = staged.getStages();
+      assertSame(stages.get(1), staged.getBottleneck());
+      assertTrue(stages.get(1).getMaxQueueDepth() > stages.get(2).getMaxQueueDepth(),
+          stages.toString());
+      assertTrue(stages.get(1).getItemsPerSecond() < 1000, stages.get(1).toString());
+    }
+    assertEquals(IntStream.range(0, 50).mapToObj(input -> (input + 1) * 2 - 1)
+        .collect(Collectors.toList()), outputs);
+  }
+
+  @Test
+  void testFailedInputIsDropped() throws InterruptedException {
+    var failing = new Pipeline<Integer, Integer>(input -> 10 / input)
+        .addHandler(input -> input + 1);
+    var outputs = new ArrayList<Integer>();
+    try (var staged = failing.staged().batchSize(2).start(outputs::add)) {
+      for (var input : List.of(5, 0, 2, 1)) {
+        staged.submit(input);
+      }
+      staged.complete();
+      assertEquals(List.of(3, 6, 11), outputs);
+      assertEquals(1, staged.getStages().get(0).getFailed());
+      assertEquals(3, staged.getStages().get(1).getProcessed());
+    }
+  }
+
+  @Test
+  void testSubmitAfterComplete() throws InterruptedException {
+    try (var staged = filters.staged().start(chars -> { })) {
+      staged.submit("a1");
+      staged.complete();
+      assertThrows(IllegalStateException.class, () -> staged.submit("b2"));
+    }
+  }
+
+  @Test
+  void testSinkFailureIsReportedByComplete() {
+    var outputs = Collections.synchronizedList(new ArrayList<Integer>());
+    var doubling = new Pipeline<Integer, Integer>(input -> input * 2);
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      try (var staged = doubling.staged().workers(0, 2).batchSize(3).start(output -> {
+        if (output == 8) {
+          throw new IllegalArgumentException("no eights");
+        }
+        outputs.add(output);
+      })) {
+        for (var input = 0; input < 10; input++) {
+          staged.submit(input);
+        }
+        var e = assertThrows(IllegalStateException.class, staged::complete);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+      }
+    });
+    assertEquals(List.of(0, 2, 4, 6, 10, 12, 14, 16, 18), outputs);
+  }
+
+  @Test
+  void testCloseReleasesComplete() throws Exception {
+    var blocked = new CountDownLatch(1);
+    var stuck = new Pipeline<Integer, Integer>(input -> {
+      blocked.countDown();
+      try {
+        Thread.sleep(Long.MAX_VALUE);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return input;
+    });
+    var staged = stuck.staged().start(output -> { });
+    staged.submit(1);
+    var completion = CompletableFuture.runAsync(() -> {
+      try {
+        staged.complete();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    blocked.await();
+    staged.close();
+    var e = assertThrows(ExecutionException.class, () -> completion.get(10, TimeUnit.SECONDS));
+    assertInstanceOf(CancellationException.class, e.getCause().getCause());
+  }
+}
@@ -24,6 +24,7 @@
  */
 package com.iluwatar.queue.load.leveling;
 
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -55,8 +56,8 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>In this example we have a class {@link MessageQueue} to hold the message {@link Message}
  * objects. All the worker threads {@link TaskGenerator} will submit the messages to the
- * MessageQueue. The service executor class {@link ServiceExecutor} will pick up one task at a time
- * from the Queue and execute them.
+ * MessageQueue, waiting for room while the queue is full. The service executor class
+ * {@link ServiceExecutor} will pick up one task at a time from the Queue and execute them.
  */
 @Slf4j
 public class App {
@@ -64,6 +65,9 @@ public class App {
   //Executor shut down time limit.
   private static final int SHUTDOWN_TIME = 15;
 
+  //Number of messages the queue holds.
+  private static final int QUEUE_CAPACITY = 1024;
+
   /**
    * Program entry point.
    *
@@ -76,8 +80,9 @@ public class App {
     ExecutorService executor = null;
 
     try {
-      // Create a MessageQueue object.
-      var msgQueue = new MessageQueue();
+      // Create a MessageQueue object. Producers wait for room rather than lose messages.
+      var msgQueue = new MessageQueue(QUEUE_CAPACITY, MessageQueue.Backpressure.BLOCK,
+          Duration.ZERO);
 
       LOGGER.info("Submitting TaskGenerators and ServiceExecutor threads.");
 
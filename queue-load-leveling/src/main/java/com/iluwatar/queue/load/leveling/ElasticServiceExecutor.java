@@ -0,0 +1,298 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.queue.load.leveling;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A pool of workers serving the messages of a {@link MessageQueue} in batches. A worker blocks
+ * until a message arrives, then takes whatever else is waiting, up to the batch size, and hands
+ * the batch to the handler, so a busy queue is drained in few round trips while an idle one costs
+ * nothing.
+ *
+ * <p>The pool grows and shrinks with the load. After every batch a worker checks the queue; if
+ * more messages are waiting than the scale up depth, or the oldest has waited longer than the
+ * maximum age, it starts another worker, up to the maximum. A worker beyond the minimum that finds
+ * no message for the keep alive time retires. No separate supervisor thread is needed.
+ */
+@Slf4j
+public class ElasticServiceExecutor implements AutoCloseable {
+
+  private final MessageQueue msgQueue;
+  private final Consumer<List<Message>> handler;
+  private final int minWorkers;
+  private final int maxWorkers;
+  private final int batchSize;
+  private final int scaleUpDepth;
+  private final long maxMessageAge;
+  private final Duration keepAlive;
+  private final AtomicInteger workerCount = new AtomicInteger();
+  private final AtomicInteger workerNumber = new AtomicInteger();
+  private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+  private final TimingStats serviceTime = new TimingStats();
+  private final Object lifecycle = new Object();
+  private volatile boolean running = true;
+
+  private ElasticServiceExecutor(Builder builder) {
+    this.msgQueue = builder.msgQueue;
+    this.handler = builder.handler;
+    this.minWorkers = builder.minWorkers;
+    this.maxWorkers = builder.maxWorkers;
+    this.batchSize = builder.batchSize;
+    this.scaleUpDepth = builder.scaleUpDepth;
+    this.maxMessageAge = builder.maxMessageAge.toNanos();
+    this.keepAlive = builder.keepAlive;
+  }
+
+  /**
+   * Starts building a pool.
+   *
+   * @param msgQueue the queue to serve.
+   * @param handler  serves a batch of messages.
+   * @return a builder with default settings.
+   */
+  public static Builder builder(MessageQueue msgQueue, Consumer<List<Message>> handler) {
+    return new Builder(msgQueue, handler);
+  }
+
+  public int getWorkerCount() {
+    return workerCount.get();
+  }
+
+  /**
+   * Returns the time spent serving a message, a batch's time shared among its messages.
+   *
+   * @return the service time statistics.
+   */
+  public TimingStats getServiceTime() {
+    return serviceTime;
+  }
+
+  /**
+   * Stops the workers, interrupting the batches they are serving.
+   */
+  @Override
+  public void close() {
+    List<Thread> stopping;
+    synchronized (lifecycle) {
+      running = false;
+      stopping = List.copyOf(workers);
+    }
+    for (var worker : stopping) {
+      worker.interrupt();
+    }
+    for (var worker : stopping) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void start() {
+    for (var i = 0; i < minWorkers; i++) {
+      tryStartWorker();
+    }
+  }
+
+  private void tryStartWorker() {
+    var current = workerCount.get();
+    while (current < maxWorkers) {
+      var witness = workerCount.compareAndExchange(current, current + 1);
+      if (witness == current) {
+        startWorker(current + 1);
+        return;
+      }
+      current = witness;
+    }
+  }
+
+  /**
+   * Starts a worker unless the pool is closed, so {@link #close} sees every worker it must stop.
+   */
+  private void startWorker(int count) {
+    synchronized (lifecycle) {
+      if (!running) {
+        workerCount.decrementAndGet();
+        return;
+      }
+      var worker = new Thread(this::work, "service-executor-" + workerNumber.incrementAndGet());
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+      LOGGER.info("Started {}, {} workers", worker.getName(), count);
+    }
+  }
+
+  private boolean tryRetire() {
+    var current = workerCount.get();
+    while (current > minWorkers) {
+      var witness = workerCount.compareAndExchange(current, current - 1);
+      if (witness == current) {
+        LOGGER.info("Retired {}, {} workers", Thread.currentThread().getName(), current - 1);
+        return true;
+      }
+      current = witness;
+    }
+    return false;
+  }
+
+  private void work() {
+    var batch = new ArrayList<Message>(batchSize);
+    var readOnlyBatch = Collections.unmodifiableList(batch);
+    try {
+      while (running) {
+        var first = workerCount.get() > minWorkers
+            ? msgQueue.retrieveMsg(keepAlive) : msgQueue.take();
+        if (first == null) {
+          if (tryRetire()) {
+            return;
+          }
+          continue;
+        }
+        batch.add(first);
+        msgQueue.drainTo(batch, batchSize - 1);
+        serve(readOnlyBatch);
+        batch.clear();
+        if (msgQueue.getDepth() > scaleUpDepth
+            || msgQueue.getOldestMessageAgeNanos() > maxMessageAge) {
+          tryStartWorker();
+        }
+      }
+      workerCount.decrementAndGet();
+    } catch (InterruptedException e) {
+      workerCount.decrementAndGet();
+      Thread.currentThread().interrupt();
+    } finally {
+      workers.remove(Thread.currentThread());
+    }
+  }
+
+  private void serve(List<Message> batch) {
+    var start = System.nanoTime();
+    try {
+      handler.accept(batch);
+    } catch (RuntimeException e) {
+      LOGGER.error("Failed to serve a batch of {} messages", batch.size(), e);
+    }
+    var perMessage = (System.nanoTime() - start) / batch.size();
+    for (var i = 0; i < batch.size(); i++) {
+      serviceTime.record(perMessage);
+    }
+  }
+
+  /**
+   * Builder of {@link ElasticServiceExecutor}.
+   */
+  public static final class Builder {
+    private final MessageQueue msgQueue;
+    private final Consumer<List<Message>> handler;
+    private int minWorkers = 1;
+    private int maxWorkers = 4;
+    private int batchSize = 32;
+    private int scaleUpDepth = 64;
+    private Duration maxMessageAge = Duration.ofSeconds(1);
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    private Builder(MessageQueue msgQueue, Consumer<List<Message>> handler) {
+      this.msgQueue = msgQueue;
+      this.handler = handler;
+    }
+
+    /**
+     * Sets the number of workers that never retire, 1 by default.
+     */
+    public Builder minWorkers(int minWorkers) {
+      this.minWorkers = minWorkers;
+      return this;
+    }
+
+    /**
+     * Sets the number of workers the pool grows to at most, 4 by default.
+     */
+    public Builder maxWorkers(int maxWorkers) {
+      this.maxWorkers = maxWorkers;
+      return this;
+    }
+
+    /**
+     * Sets the number of messages served in one batch at most, 32 by default.
+     */
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Sets the queue depth beyond which another worker is started, 64 by default.
+     */
+    public Builder scaleUpDepth(int scaleUpDepth) {
+      this.scaleUpDepth = scaleUpDepth;
+      return this;
+    }
+
+    /**
+     * Sets the age of the oldest message beyond which another worker is started, 1 second by
+     * default.
+     */
+    public Builder maxMessageAge(Duration maxMessageAge) {
+      this.maxMessageAge = maxMessageAge;
+      return this;
+    }
+
+    /**
+     * Sets how long a worker beyond the minimum waits for a message before it retires, 30 seconds
+     * by default.
+     */
+    public Builder keepAlive(Duration keepAlive) {
+      this.keepAlive = keepAlive;
+      return this;
+    }
+
+    /**
+     * Builds the pool and starts its minimum number of workers.
+     *
+     * @return the running pool.
+     */
+    public ElasticServiceExecutor build() {
+      if (minWorkers < 1 || maxWorkers < minWorkers || batchSize < 1) {
+        throw new IllegalArgumentException("Need 1 <= min workers <= max workers, batch size >= 1");
+      }
+      var executor = new ElasticServiceExecutor(this);
+      executor.start();
+      return executor;
+    }
+  }
+}
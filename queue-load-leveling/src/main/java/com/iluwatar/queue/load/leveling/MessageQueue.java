@@ -24,35 +24,98 @@
  */
 package com.iluwatar.queue.load.leveling;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * MessageQueue class. In this class we will create a Blocking Queue and submit/retrieve all the
  * messages from it.
+ *
+ * <p>When the queue is full, the {@link Backpressure} policy decides what happens to a submitted
+ * message. The queue keeps track of how long messages wait in it.
  */
 @Slf4j
 public class MessageQueue {
 
-  private final BlockingQueue<Message> blkQueue;
+  /**
+   * What happens to a message submitted to a full queue.
+   */
+  public enum Backpressure {
+    /**
+     * The producer waits until there is room in the queue.
+     */
+    BLOCK,
+    /**
+     * The producer waits up to the submit timeout, then the message is rejected.
+     */
+    TIMEOUT,
+    /**
+     * The message is rejected at once.
+     */
+    REJECT
+  }
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private final BlockingQueue<Envelope> blkQueue;
+  private final Backpressure backpressure;
+  private final Duration submitTimeout;
+  private final LongAdder rejectedCount = new LongAdder();
+  private final TimingStats waitTime = new TimingStats();
 
   // Default constructor when called creates Blocking Queue object. 
   public MessageQueue() {
-    this.blkQueue = new ArrayBlockingQueue<>(1024);
+    this(DEFAULT_CAPACITY, Backpressure.REJECT, Duration.ZERO);
+  }
+
+  /**
+   * Creates a queue.
+   *
+   * @param capacity      the number of messages the queue holds.
+   * @param backpressure  what happens to a message submitted to a full queue.
+   * @param submitTimeout how long a producer waits for room with {@link Backpressure#TIMEOUT}.
+   */
+  public MessageQueue(int capacity, Backpressure backpressure, Duration submitTimeout) {
+    this.blkQueue = new ArrayBlockingQueue<>(capacity);
+    this.backpressure = backpressure;
+    this.submitTimeout = submitTimeout;
   }
 
   /**
    * All the TaskGenerator threads will call this method to insert the Messages in to the Blocking
    * Queue.
+   *
+   * @return true if the message was queued, false if it was rejected as the queue is full.
    */
-  public void submitMsg(Message msg) {
+  public boolean submitMsg(Message msg) {
+    if (null == msg) {
+      return false;
+    }
+    var envelope = new Envelope(msg, System.nanoTime());
     try {
-      if (null != msg) {
-        blkQueue.add(msg);
+      var queued = switch (backpressure) {
+        case BLOCK -> {
+          blkQueue.put(envelope);
+          yield true;
+        }
+        case TIMEOUT -> blkQueue.offer(envelope, submitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        case REJECT -> blkQueue.offer(envelope);
+      };
+      if (!queued) {
+        rejectedCount.increment();
+        LOGGER.warn("Queue full, rejected {}", msg);
       }
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage());
+      return queued;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      rejectedCount.increment();
+      return false;
     }
   }
 
@@ -61,11 +124,81 @@ public class MessageQueue {
    * them. Retrieves and removes the head of this queue, or returns null if this queue is empty.
    */
   public Message retrieveMsg() {
-    try {
-      return blkQueue.poll();
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage());
+    return unwrap(blkQueue.poll());
+  }
+
+  /**
+   * Retrieves and removes the head of this queue, waiting up to the timeout for a message.
+   *
+   * @return the message, or null if none arrived in time.
+   */
+  public Message retrieveMsg(Duration timeout) throws InterruptedException {
+    return unwrap(blkQueue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Retrieves and removes the head of this queue, waiting for a message if necessary.
+   *
+   * @return the message.
+   */
+  public Message take() throws InterruptedException {
+    return unwrap(blkQueue.take());
+  }
+
+  /**
+   * Removes the messages at the head of this queue without waiting.
+   *
+   * @param batch       the list to add the messages to.
+   * @param maxMessages the number of messages to remove at most.
+   * @return the number of messages removed.
+   */
+  public int drainTo(List<Message> batch, int maxMessages) {
+    var envelopes = new ArrayList<Envelope>(Math.min(maxMessages, blkQueue.size()));
+    var drained = blkQueue.drainTo(envelopes, maxMessages);
+    for (var envelope : envelopes) {
+      batch.add(unwrap(envelope));
     }
-    return null;
+    return drained;
+  }
+
+  /**
+   * Returns how long the message at the head of this queue has been waiting.
+   *
+   * @return the age in nanoseconds, 0 if the queue is empty.
+   */
+  public long getOldestMessageAgeNanos() {
+    var head = blkQueue.peek();
+    return head == null ? 0 : System.nanoTime() - head.enqueuedAt();
+  }
+
+  public int getDepth() {
+    return blkQueue.size();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /**
+   * Returns the time messages have waited in the queue before they were retrieved.
+   *
+   * @return the wait time statistics.
+   */
+  public TimingStats getWaitTime() {
+    return waitTime;
+  }
+
+  private Message unwrap(Envelope envelope) {
+    if (envelope == null) {
+      return null;
+    }
+    waitTime.record(System.nanoTime() - envelope.enqueuedAt());
+    return envelope.msg();
+  }
+
+  /**
+   * A queued message with the time it was queued.
+   */
+  private record Envelope(Message msg, long enqueuedAt) {
   }
 }
@@ -28,7 +28,8 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * ServiceExecuotr class. This class will pick up Messages one by one from the Blocking Queue and
- * process them.
+ * process them. {@link ElasticServiceExecutor} serves them in batches with a varying number of
+ * workers.
  */
 @Slf4j
 public class ServiceExecutor implements Runnable {
@@ -40,23 +41,18 @@ public class ServiceExecutor implements Runnable {
   }
 
   /**
-   * The ServiceExecutor thread will retrieve each message and process it.
+   * The ServiceExecutor thread will retrieve each message and process it, blocking while the queue
+   * is empty.
    */
   public void run() {
     try {
       while (!Thread.currentThread().isInterrupted()) {
-        var msg = msgQueue.retrieveMsg();
-
-        if (null != msg) {
-          LOGGER.info(msg.toString() + " is served.");
-        } else {
-          LOGGER.info("Service Executor: Waiting for Messages to serve .. ");
-        }
-
-        Thread.sleep(1000);
+        var msg = msgQueue.take();
+        LOGGER.info(msg.toString() + " is served.");
       }
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage());
+    } catch (InterruptedException e) {
+      LOGGER.info("Service Executor: stopped");
+      Thread.currentThread().interrupt();
     }
   }
-}
\ No newline at end of file
+}
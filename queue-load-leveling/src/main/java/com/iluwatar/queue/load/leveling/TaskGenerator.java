@@ -46,11 +46,14 @@ public class TaskGenerator implements Task, Runnable {
   }
 
   /**
-   * Submit messages to the Blocking Queue.
+   * Submit messages to the Blocking Queue. A message the full queue turns down is logged, so it is
+   * not lost silently.
    */
   public void submit(Message msg) {
     try {
-      this.msgQueue.submitMsg(msg);
+      if (!this.msgQueue.submitMsg(msg)) {
+        LOGGER.warn("Queue is full, {} was rejected", msg);
+      }
     } catch (Exception e) {
       LOGGER.error(e.getMessage());
     }
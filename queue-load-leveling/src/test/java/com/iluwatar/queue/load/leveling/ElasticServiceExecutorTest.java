@@ -0,0 +1,100 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.queue.load.leveling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.queue.load.leveling.MessageQueue.Backpressure;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for serving messages with {@link ElasticServiceExecutor}.
+ */
+class ElasticServiceExecutorTest {
+
+  @Test
+  void servesQueuedMessagesInBatches() throws Exception {
+    var msgQueue = new MessageQueue();
+    for (var i = 0; i < 100; i++) {
+      msgQueue.submitMsg(new Message("Message-" + i));
+    }
+    var batchSizes = new CopyOnWriteArrayList<Integer>();
+    try (var executor = ElasticServiceExecutor.builder(msgQueue, batch -> batchSizes.add(
+        batch.size())).batchSize(32).maxWorkers(1).build()) {
+      waitFor(() -> executor.getServiceTime().getCount() == 100);
+      assertEquals(List.of(32, 32, 32, 4), batchSizes);
+      assertEquals(100, executor.getServiceTime().getCount());
+      assertEquals(100, msgQueue.getWaitTime().getCount());
+    }
+  }
+
+  @Test
+  void scalesWithTheBacklogAndShrinksWhenIdle() throws Exception {
+    var msgQueue = new MessageQueue(1000, Backpressure.BLOCK, Duration.ZERO);
+    var served = new AtomicInteger();
+    var maxWorkers = new AtomicInteger();
+    try (var executor = ElasticServiceExecutor.builder(msgQueue, batch -> {
+      sleep(5);
+      served.addAndGet(batch.size());
+    })
+        .batchSize(4)
+        .maxWorkers(4)
+        .scaleUpDepth(10)
+        .keepAlive(Duration.ofMillis(50))
+        .build()) {
+      for (var i = 0; i < 400; i++) {
+        msgQueue.submitMsg(new Message("Message-" + i));
+      }
+      waitFor(() -> {
+        maxWorkers.accumulateAndGet(executor.getWorkerCount(), Math::max);
+        return served.get() == 400;
+      });
+      assertEquals(4, maxWorkers.get());
+      waitFor(() -> executor.getWorkerCount() == 1);
+    }
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws Exception {
+    var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "Timed out");
+      Thread.sleep(1);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -25,7 +25,13 @@
 package com.iluwatar.queue.load.leveling;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.iluwatar.queue.load.leveling.MessageQueue.Backpressure;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -45,4 +51,37 @@ class MessageQueueTest {
     assertEquals("MessageQueue Test", msgQueue.retrieveMsg().getMsg());
   }
 
+  @Test
+  void rejectPolicySignalsAFullQueue() {
+    var msgQueue = new MessageQueue(1, Backpressure.REJECT, Duration.ZERO);
+    assertTrue(msgQueue.submitMsg(new Message("first")));
+    assertFalse(msgQueue.submitMsg(new Message("second")));
+    assertEquals(1, msgQueue.getRejectedCount());
+  }
+
+  @Test
+  void timeoutPolicyGivesUpAfterTheTimeout() {
+    var msgQueue = new MessageQueue(1, Backpressure.TIMEOUT, Duration.ofMillis(20));
+    msgQueue.submitMsg(new Message("first"));
+    var start = System.nanoTime();
+    assertFalse(msgQueue.submitMsg(new Message("second")));
+    assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+  }
+
+  @Test
+  void blockPolicyWaitsForRoom() throws Exception {
+    var msgQueue = new MessageQueue(1, Backpressure.BLOCK, Duration.ZERO);
+    msgQueue.submitMsg(new Message("first"));
+    var second = CompletableFuture.supplyAsync(() -> msgQueue.submitMsg(new Message("second")));
+    Thread.sleep(20);
+    assertFalse(second.isDone());
+
+    assertEquals("first", msgQueue.take().getMsg());
+    assertTrue(second.get());
+    var batch = new ArrayList<Message>();
+    assertEquals(1, msgQueue.drainTo(batch, 10));
+    assertEquals("second", batch.get(0).getMsg());
+    assertEquals(2, msgQueue.getWaitTime().getCount());
+    assertTrue(msgQueue.getWaitTime().getMaxNanos() >= Duration.ofMillis(20).toNanos());
+  }
 }
@@ -26,8 +26,10 @@ package com.iluwatar.reactor.app;
 
 import com.iluwatar.reactor.framework.AbstractNioChannel;
 import com.iluwatar.reactor.framework.ChannelHandler;
+import com.iluwatar.reactor.framework.DelimiterFrameCodec;
 import com.iluwatar.reactor.framework.Dispatcher;
 import com.iluwatar.reactor.framework.NioDatagramChannel;
+import com.iluwatar.reactor.framework.NioEventLoopGroup;
 import com.iluwatar.reactor.framework.NioReactor;
 import com.iluwatar.reactor.framework.NioServerSocketChannel;
 import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
@@ -84,14 +86,17 @@ import java.util.List;
  * </ul>
  * The application utilizes single thread to listen for requests on all ports. It does not create a
  * separate thread for each client, which provides better scalability under load (number of clients
- * increase).
+ * increase). Optionally the application spreads its connections over a {@link NioEventLoopGroup},
+ * where one acceptor loop hands accepted connections to one worker loop per core.
  * The example uses Java NIO framework to implement the Reactor.
  */
 public class App {
 
   private NioReactor reactor;
+  private NioEventLoopGroup eventLoopGroup;
   private final List<AbstractNioChannel> channels = new ArrayList<>();
   private final Dispatcher dispatcher;
+  private final int workerLoops;
 
   /**
    * Creates an instance of App which will use provided dispatcher for dispatching events on
@@ -100,7 +105,18 @@ public class App {
    * @param dispatcher the dispatcher that will be used to dispatch events.
    */
   public App(Dispatcher dispatcher) {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates an instance of App which serves its connections with an event loop group.
+   *
+   * @param dispatcher  the dispatcher that will be used to dispatch events.
+   * @param workerLoops number of worker event loops, or 0 to use a single reactor.
+   */
+  public App(Dispatcher dispatcher, int workerLoops) {
     this.dispatcher = dispatcher;
+    this.workerLoops = workerLoops;
   }
 
   /**
@@ -116,17 +132,29 @@ public class App {
    * @throws IOException if any channel fails to bind.
    */
   public void start() throws IOException {
-    /*
-     * The application can customize its event dispatching mechanism.
-     */
-    reactor = new NioReactor(dispatcher);
-
     /*
      * This represents application specific business logic that dispatcher will call on appropriate
      * events. These events are read events in our example.
      */
     var loggingHandler = new LoggingHandler();
 
+    if (workerLoops > 0) {
+      eventLoopGroup = new NioEventLoopGroup(dispatcher, 1, workerLoops,
+          NioEventLoopGroup.LoadBalancing.LEAST_CONNECTIONS);
+      eventLoopGroup
+          .registerChannel(tcpChannel(16666, loggingHandler))
+          .registerChannel(tcpChannel(16667, loggingHandler))
+          .registerChannel(udpChannel(16668, loggingHandler))
+          .registerChannel(udpChannel(16669, loggingHandler))
+          .start();
+      return;
+    }
+
+    /*
+     * The application can customize its event dispatching mechanism.
+     */
+    reactor = new NioReactor(dispatcher);
+
     /*
      * Our application binds to multiple channels and uses same logging handler to handle incoming
      * log requests.
@@ -146,7 +174,11 @@ public class App {
    * @throws IOException          if any I/O error occurs
    */
   public void stop() throws InterruptedException, IOException {
-    reactor.stop();
+    if (eventLoopGroup != null) {
+      eventLoopGroup.stop();
+    } else {
+      reactor.stop();
+    }
     dispatcher.stop();
     for (var channel : channels) {
       channel.getJavaChannel().close();
@@ -155,6 +187,8 @@ public class App {
 
   private AbstractNioChannel tcpChannel(int port, ChannelHandler handler) throws IOException {
     var channel = new NioServerSocketChannel(port, handler);
+    // log requests are lines of text, which may arrive split over or batched in TCP segments
+    channel.setFrameCodec(DelimiterFrameCodec.lines(1024));
     channel.bind();
     channels.add(channel);
     return channel;
@@ -33,19 +33,54 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Represents the clients of Reactor pattern. Multiple clients are run concurrently and send logging
  * requests to Reactor.
+ *
+ * <p>By default there is one TCP and one UDP client per port of the {@link App}. Configured with
+ * many TCP connections the client doubles as a load generator: all connections are opened first
+ * and then send their requests at once, and the number of requests answered along with their
+ * round trip time is recorded.
  */
 @Slf4j
 public class AppClient {
 
-  private final ExecutorService service = Executors.newFixedThreadPool(4);
+  private final ExecutorService service;
+  private final int connectionsPerTcpPort;
+  private final int requestsPerConnection;
+  private final long requestDelayMillis;
+  private final CountDownLatch allConnected;
+  private final LongAdder completedRequests = new LongAdder();
+  private final LongAdder roundTripNanos = new LongAdder();
+
+  /**
+   * Creates the default clients, one per port, each sending 4 requests 100 ms apart.
+   */
+  public AppClient() {
+    this(1, 4, 100);
+  }
+
+  /**
+   * Creates clients.
+   *
+   * @param connectionsPerTcpPort number of TCP connections opened to each TCP port.
+   * @param requestsPerConnection number of requests sent over each connection.
+   * @param requestDelayMillis    pause between two requests of a connection.
+   */
+  public AppClient(int connectionsPerTcpPort, int requestsPerConnection, long requestDelayMillis) {
+    this.connectionsPerTcpPort = connectionsPerTcpPort;
+    this.requestsPerConnection = requestsPerConnection;
+    this.requestDelayMillis = requestDelayMillis;
+    this.allConnected = new CountDownLatch(2 * connectionsPerTcpPort);
+    this.service = Executors.newFixedThreadPool(2 * connectionsPerTcpPort + 2);
+  }
 
   /**
    * App client entry.
@@ -64,12 +99,51 @@ public class AppClient {
    */
   public void start() throws IOException {
     LOGGER.info("Starting logging clients");
-    service.execute(new TcpLoggingClient("Client 1", 16666));
-    service.execute(new TcpLoggingClient("Client 2", 16667));
+    if (connectionsPerTcpPort == 1) {
+      service.execute(new TcpLoggingClient("Client 1", 16666));
+      service.execute(new TcpLoggingClient("Client 2", 16667));
+    } else {
+      for (var i = 0; i < connectionsPerTcpPort; i++) {
+        service.execute(new TcpLoggingClient("Client 1-" + i, 16666));
+        service.execute(new TcpLoggingClient("Client 2-" + i, 16667));
+      }
+    }
     service.execute(new UdpLoggingClient("Client 3", 16668));
     service.execute(new UdpLoggingClient("Client 4", 16669));
   }
 
+  /**
+   * Waits until all the clients have sent all their requests.
+   *
+   * @param timeout the maximum time to wait.
+   * @param unit    the unit of the timeout.
+   * @return true if all the clients finished in time.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+    service.shutdown();
+    return service.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * Get the number of TCP requests that got a reply.
+   *
+   * @return completed request count.
+   */
+  public long getCompletedRequests() {
+    return completedRequests.sum();
+  }
+
+  /**
+   * Get the mean round trip time of the TCP requests that got a reply.
+   *
+   * @return mean round trip time in nanoseconds.
+   */
+  public double getMeanRoundTripNanos() {
+    var completed = completedRequests.sum();
+    return completed == 0 ? 0 : (double) roundTripNanos.sum() / completed;
+  }
+
   /**
    * Stops logging clients. This is a blocking call.
    */
@@ -97,7 +171,7 @@ public class AppClient {
   /**
    * A logging client that sends requests to Reactor on TCP socket.
    */
-  static class TcpLoggingClient implements Runnable {
+  class TcpLoggingClient implements Runnable {
 
     private final int serverPort;
     private final String clientName;
@@ -115,18 +189,32 @@ public class AppClient {
 
     @Override
     public void run() {
-      try (var socket = new Socket(InetAddress.getLocalHost(), serverPort)) {
+      Socket connected = null;
+      try {
+        connected = new Socket(InetAddress.getLocalHost(), serverPort);
+      } catch (IOException e) {
+        LOGGER.error("error connecting", e);
+        throw new RuntimeException(e);
+      } finally {
+        allConnected.countDown();
+      }
+      try (var socket = connected) {
+        // start sending once every connection is open, so they are all served concurrently
+        allConnected.await(1, TimeUnit.MINUTES);
         var outputStream = socket.getOutputStream();
         var writer = new PrintWriter(outputStream);
         sendLogRequests(writer, socket.getInputStream());
       } catch (IOException e) {
         LOGGER.error("error sending requests", e);
         throw new RuntimeException(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
     }
 
     private void sendLogRequests(PrintWriter writer, InputStream inputStream) throws IOException {
-      for (var i = 0; i < 4; i++) {
+      for (var i = 0; i < requestsPerConnection; i++) {
+        var sent = System.nanoTime();
         writer.println(clientName + " - Log request: " + i);
         writer.flush();
 
@@ -134,11 +222,13 @@ public class AppClient {
         var read = inputStream.read(data, 0, data.length);
         if (read == 0) {
           LOGGER.info("Read zero bytes");
-        } else {
+        } else if (read > 0) {
+          roundTripNanos.add(System.nanoTime() - sent);
+          completedRequests.increment();
           LOGGER.info(new String(data, 0, read));
         }
 
-        artificialDelayOf(100);
+        artificialDelayOf(requestDelayMillis);
       }
     }
 
@@ -147,7 +237,7 @@ public class AppClient {
   /**
    * A logging client that sends requests to Reactor on UDP socket.
    */
-  static class UdpLoggingClient implements Runnable {
+  class UdpLoggingClient implements Runnable {
     private final String clientName;
     private final InetSocketAddress remoteAddress;
 
@@ -166,7 +256,7 @@ public class AppClient {
     @Override
     public void run() {
       try (var socket = new DatagramSocket()) {
-        for (var i = 0; i < 4; i++) {
+        for (var i = 0; i < requestsPerConnection; i++) {
 
           var message = clientName + " - Log request: " + i;
           var bytes = message.getBytes();
@@ -183,7 +273,7 @@ public class AppClient {
             LOGGER.info(new String(reply.getData(), 0, reply.getLength()));
           }
 
-          artificialDelayOf(100);
+          artificialDelayOf(requestDelayMillis);
         }
       } catch (IOException e1) {
         LOGGER.error("error sending packets", e1);
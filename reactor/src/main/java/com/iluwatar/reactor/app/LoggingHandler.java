@@ -29,6 +29,7 @@ import com.iluwatar.reactor.framework.ChannelHandler;
 import com.iluwatar.reactor.framework.NioDatagramChannel.DatagramPacket;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -82,7 +83,7 @@ public class LoggingHandler implements ChannelHandler {
   }
 
   private static void doLogging(ByteBuffer data) {
-    // assuming UTF-8 :(
-    LOGGER.info(new String(data.array(), 0, data.limit()));
+    // assuming UTF-8 :( and decoding straight from the (pooled, direct) buffer
+    LOGGER.info(StandardCharsets.UTF_8.decode(data.duplicate()).toString());
   }
 }
@@ -25,13 +25,16 @@
 package com.iluwatar.reactor.framework;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This represents the <i>Handle</i> of Reactor pattern. These are resources managed by OS which can
@@ -41,14 +44,48 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * writing the data back when the channel is writable. It leaves the reading and writing of data on
  * the concrete implementation. It provides a block writing mechanism wherein when any {@link
  * ChannelHandler} wants to write data back, it queues the data in pending write queue and clears it
- * in block manner. This provides better throughput.
+ * in block manner. This provides better throughput. Whatever the socket does not accept in one go
+ * stays queued, and the channel keeps waiting for writability until the queue is drained.
+ *
+ * <p>The bytes queued per connection are tracked against a high and a low watermark. When a write
+ * pushes the queue above the high watermark the connection becomes unwritable and the handler is
+ * told through {@link ChannelHandler#channelWritabilityChanged(AbstractNioChannel, SelectionKey,
+ * boolean)}; once the queue drains below the low watermark it becomes writable again. Producers
+ * should stop writing to an unwritable connection, so a slow peer cannot grow the queue without
+ * bound.
+ *
+ * <p>Reads go into pooled direct buffers taken from the channel's {@link PooledBufferAllocator}.
+ * The data handed to the {@link ChannelHandler} is only valid while the handler runs: the buffers
+ * are given back to the pool as soon as it returns, so a handler that keeps data around must copy
+ * it. Direct buffers written from within the handler may be views of those buffers, so the channel
+ * retains the buffers of the read until such a write has completed. Reference counted buffers
+ * queued with {@link #write(Object, SelectionKey)} are released once they have been written.
  */
 public abstract class AbstractNioChannel {
 
+  /**
+   * The buffers behind the read being handled on the current thread.
+   */
+  private static final ThreadLocal<List<ReferenceCountedBuffer>> HANDLED_READ =
+      new ThreadLocal<>();
+
   private final SelectableChannel channel;
   private final ChannelHandler handler;
-  private final Map<SelectableChannel, Queue<Object>> channelToPendingWrites;
+  private final Map<SelectableChannel, PendingWrites> channelToPendingWrites;
+  /**
+   * The reactor serving each accepted connection. With a {@link NioEventLoopGroup} connections
+   * accepted by this channel are spread over several reactors.
+   */
+  private final Map<SelectableChannel, NioReactor> channelToReactor = new ConcurrentHashMap<>();
+  /**
+   * Bytes of each connection that do not make a whole frame yet.
+   */
+  private final Map<SelectableChannel, PooledBuffer> channelToCumulation = new ConcurrentHashMap<>();
   private NioReactor reactor;
+  private PooledBufferAllocator allocator = PooledBufferAllocator.DEFAULT;
+  private volatile int lowWatermark = 32 * 1024;
+  private volatile int highWatermark = 64 * 1024;
+  private volatile FrameCodec frameCodec;
 
   /**
    * Creates a new channel.
@@ -69,6 +106,108 @@ public abstract class AbstractNioChannel {
     this.reactor = reactor;
   }
 
+  /**
+   * Records the reactor serving an accepted connection.
+   */
+  void bindConnection(SelectableChannel connection, NioReactor connectionReactor) {
+    channelToReactor.put(connection, connectionReactor);
+  }
+
+  /**
+   * Forgets the state kept for a closed connection.
+   *
+   * @return true if the connection was bound to a reactor.
+   */
+  boolean unbindConnection(SelectableChannel connection) {
+    var pendingWrites = channelToPendingWrites.remove(connection);
+    if (pendingWrites != null) {
+      Object pendingWrite;
+      while ((pendingWrite = pendingWrites.queue.poll()) != null) {
+        release(pendingWrite);
+      }
+    }
+    ReferenceCountedBuffer.release(channelToCumulation.remove(connection));
+    return channelToReactor.remove(connection) != null;
+  }
+
+  private NioReactor reactorFor(SelectionKey key) {
+    return channelToReactor.getOrDefault(key.channel(), reactor);
+  }
+
+  /**
+   * Get the allocator used for the buffers of this channel.
+   *
+   * @return the buffer allocator.
+   */
+  public PooledBufferAllocator getAllocator() {
+    return allocator;
+  }
+
+  /**
+   * Sets the allocator used for the buffers of this channel.
+   *
+   * @param allocator the buffer allocator.
+   */
+  public void setAllocator(PooledBufferAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  /**
+   * Get the codec framing the data of this channel.
+   *
+   * @return the frame codec, or null if the handler receives data as it is read.
+   */
+  public FrameCodec getFrameCodec() {
+    return frameCodec;
+  }
+
+  /**
+   * Sets the codec framing the data of this channel. It must be set before the channel is
+   * registered with a reactor.
+   *
+   * @param frameCodec the frame codec, or null to hand data to the handler as it is read.
+   */
+  public void setFrameCodec(FrameCodec frameCodec) {
+    this.frameCodec = frameCodec;
+  }
+
+  /**
+   * Sets the write buffer watermarks of the connections of this channel.
+   *
+   * @param low  the connection becomes writable again when its queued bytes drop below this.
+   * @param high the connection becomes unwritable when its queued bytes exceed this.
+   */
+  public void setWriteBufferWatermarks(int low, int high) {
+    if (low < 0 || low > high) {
+      throw new IllegalArgumentException("Watermarks must satisfy 0 <= low <= high");
+    }
+    this.lowWatermark = low;
+    this.highWatermark = high;
+  }
+
+  /**
+   * Tells whether the connection of {@code key} accepts more writes without exceeding the high
+   * watermark.
+   *
+   * @param key the key of the connection.
+   * @return false while the connection is applying backpressure.
+   */
+  public boolean isWritable(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null || pendingWrites.writable;
+  }
+
+  /**
+   * Get the number of bytes queued for the connection of {@code key}.
+   *
+   * @param key the key of the connection.
+   * @return queued bytes.
+   */
+  public long getPendingWriteBytes(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null ? 0 : pendingWrites.bytes.get();
+  }
+
   /**
    * Get channel.
    *
@@ -113,23 +252,275 @@ public abstract class AbstractNioChannel {
     return handler;
   }
 
+  /**
+   * Passes the object read by {@link #read(SelectionKey)} to the handler and frees the buffers
+   * behind it once the handler returns. Dispatchers call this to deliver read events.
+   *
+   * @param readObject the object read from the channel.
+   * @param key        the key on which read event occurred.
+   */
+  public void handleRead(Object readObject, SelectionKey key) {
+    // a handler may write to another channel, which then handles a read of its own
+    var outer = HANDLED_READ.get();
+    HANDLED_READ.set(buffersOf(readObject));
+    try {
+      if (readObject instanceof DecodedFrames) {
+        for (var frame : ((DecodedFrames) readObject).frames()) {
+          handler.handleChannelRead(this, frame, key);
+        }
+      } else {
+        handler.handleChannelRead(this, unwrap(readObject), key);
+      }
+    } finally {
+      HANDLED_READ.set(outer);
+      release(readObject);
+    }
+  }
+
+  /**
+   * Get the reference counted buffers holding the data of an object read by this channel.
+   *
+   * @param readObject the object read from the channel.
+   * @return the buffers, empty if the data is not pooled.
+   */
+  protected List<ReferenceCountedBuffer> buffersOf(Object readObject) {
+    if (readObject instanceof DecodedFrames) {
+      return ((DecodedFrames) readObject).buffers();
+    }
+    if (readObject instanceof ReferenceCountedBuffer) {
+      return List.of((ReferenceCountedBuffer) readObject);
+    }
+    return List.of();
+  }
+
+  /**
+   * Get the buffers behind the read being handled on the current thread.
+   *
+   * @return the buffers, empty outside of a read handler.
+   */
+  static List<ReferenceCountedBuffer> handledReadBuffers() {
+    var handled = HANDLED_READ.get();
+    return handled == null ? List.of() : handled;
+  }
+
+  /**
+   * Makes data written while a read is being handled keep the buffers of that read alive until it
+   * has been written, as direct buffers may be views of them. Other data is returned as is.
+   *
+   * @param data the data to be written.
+   * @return the data to queue.
+   */
+  Object retainHandledRead(Object data) {
+    var handled = handledReadBuffers();
+    if (handled.isEmpty()) {
+      return data;
+    }
+    if (data instanceof ByteBuffer && ((ByteBuffer) data).isDirect()) {
+      return new RetainedBuffer(new ByteBuffer[] {(ByteBuffer) data}, handled);
+    }
+    if (data instanceof ByteBuffer[]) {
+      for (var buffer : (ByteBuffer[]) data) {
+        if (buffer.isDirect()) {
+          return new RetainedBuffer((ByteBuffer[]) data, handled);
+        }
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Runs the frame codec over the data just read. Called by the reactor thread serving the
+   * connection, so the bytes kept for a connection are never touched concurrently.
+   *
+   * @param readObject the object read from the channel.
+   * @param key        the key on which read event occurred.
+   * @return the object to dispatch, or null if no whole frame has been received yet.
+   * @throws CorruptedFrameException if the data cannot be decoded.
+   */
+  Object decode(Object readObject, SelectionKey key) throws CorruptedFrameException {
+    var codec = frameCodec;
+    if (codec == null || !(readObject instanceof ReferenceCountedBuffer)) {
+      return readObject;
+    }
+    var decoded = new DecodedFrames();
+    try {
+      if (readObject instanceof CompositeBuffer) {
+        var composite = (CompositeBuffer) readObject;
+        try {
+          for (var i = 0; i < composite.numComponents(); i++) {
+            decode(codec, key.channel(), composite.component(i).retain(), decoded);
+          }
+        } finally {
+          composite.release();
+        }
+      } else {
+        decode(codec, key.channel(), (PooledBuffer) readObject, decoded);
+      }
+    } catch (CorruptedFrameException e) {
+      decoded.release();
+      throw e;
+    }
+    if (decoded.isEmpty()) {
+      decoded.release();
+      return null;
+    }
+    return decoded;
+  }
+
+  /**
+   * Decodes all the whole frames of a chunk in one pass. Frames are slices of the chunk, or of the
+   * cumulation when earlier bytes are pending; only the bytes of an incomplete frame are copied.
+   * The buffer the frames are cut from is handed to {@code decoded} and never written again, so
+   * the handler can read the frames while the next read is being decoded.
+   */
+  private void decode(FrameCodec codec, SelectableChannel connection, PooledBuffer chunk,
+                      DecodedFrames decoded) throws CorruptedFrameException {
+    var cumulation = channelToCumulation.remove(connection);
+    var source = cumulation == null ? chunk : append(cumulation, chunk);
+    decoded.addBuffer(source);
+    var in = source.nioBuffer();
+    ByteBuffer frame;
+    while ((frame = codec.decode(in)) != null) {
+      decoded.addFrame(frame);
+    }
+    if (in.hasRemaining()) {
+      var rest = allocator.allocate(in.remaining());
+      rest.nioBuffer().put(in).flip();
+      channelToCumulation.put(connection, rest);
+    }
+  }
+
+  private PooledBuffer append(PooledBuffer cumulation, PooledBuffer chunk) {
+    var pending = cumulation.nioBuffer();
+    var in = chunk.nioBuffer();
+    var needed = pending.remaining() + in.remaining();
+    PooledBuffer merged;
+    if (needed <= pending.capacity()) {
+      merged = cumulation;
+      var end = pending.limit();
+      pending.limit(needed).put(end, in, in.position(), in.remaining());
+    } else {
+      // grow geometrically so a large frame arriving in many reads is not copied over and over
+      merged = allocator.allocate(Math.max(needed, 2 * pending.capacity()));
+      merged.nioBuffer().put(pending).put(in).flip();
+      cumulation.release();
+    }
+    chunk.release();
+    return merged;
+  }
+
+  /**
+   * Converts the object read into what the handler receives. Reference counted buffers are handed
+   * over as plain {@link java.nio.ByteBuffer}s.
+   *
+   * @param readObject the object read from the channel.
+   * @return the object passed to the handler.
+   */
+  protected Object unwrap(Object readObject) {
+    if (readObject instanceof ReferenceCountedBuffer) {
+      return ((ReferenceCountedBuffer) readObject).nioBuffer();
+    }
+    return readObject;
+  }
+
+  /**
+   * Frees the buffers behind an object read or written by this channel.
+   *
+   * @param data an object read from or written to the channel.
+   */
+  protected void release(Object data) {
+    if (data instanceof DecodedFrames) {
+      ((DecodedFrames) data).release();
+    } else {
+      ReferenceCountedBuffer.release(data);
+    }
+  }
+
   /*
-   * Called from the context of reactor thread when the key becomes writable. The channel writes the
-   * whole pending block of data at once.
+   * Called from the context of reactor thread when the key becomes writable. The channel writes as
+   * much of the pending block of data as the socket accepts and stays interested in writing until
+   * nothing is left.
    */
   void flush(SelectionKey key) throws IOException {
     var pendingWrites = channelToPendingWrites.get(key.channel());
+    if (pendingWrites != null) {
+      var written = writePending(pendingWrites.queue, key);
+      if (pendingWrites.bytes.addAndGet(-written) < lowWatermark && !pendingWrites.writable) {
+        synchronized (pendingWrites) {
+          if (!pendingWrites.writable && pendingWrites.bytes.get() < lowWatermark) {
+            pendingWrites.writable = true;
+            handler.channelWritabilityChanged(this, key, true);
+          }
+        }
+      }
+      if (!pendingWrites.queue.isEmpty()) {
+        // the socket is full, wait until it is writable again
+        return;
+      }
+    }
+    // We don't have anything more to write so channel is interested in reading more data. We are on
+    // the reactor thread so the key is changed right away, and a write queued meanwhile switches it
+    // back.
+    key.interestOps(SelectionKey.OP_READ);
+    if (pendingWrites != null && !pendingWrites.queue.isEmpty()) {
+      key.interestOps(SelectionKey.OP_WRITE);
+    }
+  }
+
+  /**
+   * Writes the head of the queue to the channel until the queue is empty or the channel stops
+   * accepting data. Items written completely are removed from the queue and released, a partially
+   * written item stays at the head. Channels that can batch writes override this.
+   *
+   * @param pendingWrites the queued data, only ever drained by the reactor thread.
+   * @param key           the key which is writable.
+   * @return the number of bytes written.
+   * @throws IOException if any I/O error occurs.
+   */
+  protected long writePending(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var written = 0L;
     Object pendingWrite;
-    while ((pendingWrite = pendingWrites.poll()) != null) {
+    while ((pendingWrite = pendingWrites.peek()) != null) {
+      var before = pendingBytesOf(pendingWrite);
       // ask the concrete channel to make sense of data and write it to java channel
       doWrite(pendingWrite, key);
+      var after = pendingBytesOf(pendingWrite);
+      written += before - after;
+      if (after > 0) {
+        return written;
+      }
+      pendingWrites.poll();
+      release(pendingWrite);
     }
-    // We don't have anything more to write so channel is interested in reading more data
-    reactor.changeOps(key, SelectionKey.OP_READ);
+    return written;
   }
 
   /**
-   * Writes the data to the channel.
+   * Get the number of bytes of {@code data} that still have to be written.
+   *
+   * @param data an object queued for writing.
+   * @return unwritten bytes, 0 for objects of unknown size.
+   */
+  protected int pendingBytesOf(Object data) {
+    if (data instanceof ByteBuffer) {
+      return ((ByteBuffer) data).remaining();
+    }
+    if (data instanceof ReferenceCountedBuffer) {
+      return ((ReferenceCountedBuffer) data).readableBytes();
+    }
+    if (data instanceof ByteBuffer[]) {
+      var remaining = 0;
+      for (var buffer : (ByteBuffer[]) data) {
+        remaining += buffer.remaining();
+      }
+      return remaining;
+    }
+    return 0;
+  }
+
+  /**
+   * Writes the data to the channel. Bytes the channel does not accept are left unconsumed in
+   * {@code pendingWrite} and written on the next attempt.
    *
    * @param pendingWrite the data to be written on channel.
    * @param key          the key which is writable.
@@ -155,21 +546,54 @@ public abstract class AbstractNioChannel {
    * </code>
    * </pre>
    *
-   * @param data the data to be written on underlying channel.
+   * <p>The data is queued even when the connection is unwritable; check
+   * {@link #isWritable(SelectionKey)} or react to
+   * {@link ChannelHandler#channelWritabilityChanged(AbstractNioChannel, SelectionKey, boolean)} to
+   * pause producing.
+   *
+   * <p>The data handed to the handler may be written back from within
+   * {@link ChannelHandler#handleChannelRead(AbstractNioChannel, Object, SelectionKey)}: the channel
+   * keeps the buffers behind it until it has been written.
+   *
+   * @param data the data to be written on underlying channel. A {@link ByteBuffer} is framed by
+   *             the frame codec of the channel, if there is one.
    * @param key  the key which is writable.
    */
   public void write(Object data, SelectionKey key) {
+    var codec = frameCodec;
+    if (codec != null && data instanceof ByteBuffer) {
+      data = codec.encode((ByteBuffer) data);
+    }
+    data = retainHandledRead(data);
     var pendingWrites = this.channelToPendingWrites.get(key.channel());
     if (pendingWrites == null) {
       synchronized (this.channelToPendingWrites) {
         pendingWrites = this.channelToPendingWrites.get(key.channel());
         if (pendingWrites == null) {
-          pendingWrites = new ConcurrentLinkedQueue<>();
+          pendingWrites = new PendingWrites();
           this.channelToPendingWrites.put(key.channel(), pendingWrites);
         }
       }
     }
-    pendingWrites.add(data);
-    reactor.changeOps(key, SelectionKey.OP_WRITE);
+    pendingWrites.queue.add(data);
+    if (pendingWrites.bytes.addAndGet(pendingBytesOf(data)) > highWatermark
+        && pendingWrites.writable) {
+      synchronized (pendingWrites) {
+        if (pendingWrites.writable && pendingWrites.bytes.get() > highWatermark) {
+          pendingWrites.writable = false;
+          handler.channelWritabilityChanged(this, key, false);
+        }
+      }
+    }
+    reactorFor(key).changeOps(key, SelectionKey.OP_WRITE);
+  }
+
+  /**
+   * The write queue of one connection along with the number of bytes it holds.
+   */
+  private static final class PendingWrites {
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile boolean writable = true;
   }
 }
@@ -39,9 +39,30 @@ public interface ChannelHandler {
   /**
    * Called when the {@code channel} receives some data from remote peer.
    *
+   * <p>Buffers in {@code readObject} are owned by the channel and returned to its buffer pool once
+   * this method returns, so they must not be used afterwards; a handler that keeps the data must
+   * copy it. Writing them back to a channel from within this method is safe, since the channel
+   * holds a reference to them until the write has completed.
+   *
    * @param channel    the channel from which the data was received.
    * @param readObject the data read.
    * @param key        the key on which read event occurred.
    */
   void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key);
+
+  /**
+   * Called when the write queue of a connection crosses one of the channel's watermarks. A handler
+   * that produces data on its own should stop writing to the connection while it is unwritable.
+   * The call comes from the thread that queued the write when the connection becomes unwritable,
+   * and from the reactor thread when it becomes writable again.
+   *
+   * @param channel  the channel the connection belongs to.
+   * @param key      the key of the connection.
+   * @param writable false when the queue went above the high watermark, true when it drained
+   *                 below the low watermark.
+   */
+  default void channelWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+                                         boolean writable) {
+    // most handlers only reply to requests and can ignore backpressure
+  }
 }
@@ -0,0 +1,138 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A logical buffer made of several {@link PooledBuffer} chunks, used for messages bigger than a
+ * single chunk. The chunks are kept as they are, so appending never copies data, and they can be
+ * written out with one gathering write. Releasing the composite releases all of its chunks.
+ */
+public final class CompositeBuffer implements ReferenceCountedBuffer {
+
+  private final List<PooledBuffer> components = new ArrayList<>();
+  private final AtomicInteger refCnt = new AtomicInteger(1);
+
+  /**
+   * Appends a chunk. The composite takes over the reference held by the caller.
+   *
+   * @param component a chunk ready to be read, i.e. already flipped.
+   * @return this
+   */
+  public CompositeBuffer addComponent(PooledBuffer component) {
+    components.add(component);
+    return this;
+  }
+
+  /**
+   * Get the number of chunks.
+   *
+   * @return number of chunks.
+   */
+  public int numComponents() {
+    return components.size();
+  }
+
+  /**
+   * Get a chunk of this composite.
+   *
+   * @param index index of the chunk.
+   * @return the chunk.
+   */
+  public PooledBuffer component(int index) {
+    return components.get(index);
+  }
+
+  /**
+   * Get the readable bytes as one buffer. A composite of a single chunk returns that chunk,
+   * otherwise the chunks are copied into a new heap buffer, so prefer {@link #nioBuffers()} where
+   * a sequence of buffers will do.
+   */
+  @Override
+  public ByteBuffer nioBuffer() {
+    if (components.size() == 1) {
+      return components.get(0).nioBuffer();
+    }
+    var merged = ByteBuffer.allocate(readableBytes());
+    for (var component : components) {
+      merged.put(component.nioBuffer().duplicate());
+    }
+    return merged.flip();
+  }
+
+  @Override
+  public ByteBuffer[] nioBuffers() {
+    var buffers = new ByteBuffer[components.size()];
+    for (var i = 0; i < buffers.length; i++) {
+      buffers[i] = components.get(i).nioBuffer();
+    }
+    return buffers;
+  }
+
+  @Override
+  public int readableBytes() {
+    var readable = 0;
+    for (var component : components) {
+      readable += component.readableBytes();
+    }
+    return readable;
+  }
+
+  @Override
+  public int refCnt() {
+    return refCnt.get();
+  }
+
+  @Override
+  public CompositeBuffer retain() {
+    int count;
+    do {
+      count = refCnt.get();
+      if (count == 0) {
+        throw new IllegalStateException("Buffer has already been released");
+      }
+    } while (!refCnt.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    var count = refCnt.decrementAndGet();
+    if (count > 0) {
+      return false;
+    }
+    if (count < 0) {
+      refCnt.incrementAndGet();
+      throw new IllegalStateException("Buffer has already been released");
+    }
+    components.forEach(PooledBuffer::release);
+    components.clear();
+    return true;
+  }
+}
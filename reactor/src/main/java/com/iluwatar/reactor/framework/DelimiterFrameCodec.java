@@ -0,0 +1,110 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Frames terminated by a delimiter, such as lines of text. The delimiter is not part of the decoded
+ * payload.
+ */
+public class DelimiterFrameCodec implements FrameCodec {
+
+  private final byte[] delimiter;
+  private final int maxFrameLength;
+  private final boolean stripCarriageReturn;
+
+  /**
+   * Creates the codec.
+   *
+   * @param delimiter      the bytes terminating a frame.
+   * @param maxFrameLength the largest payload accepted.
+   */
+  public DelimiterFrameCodec(byte[] delimiter, int maxFrameLength) {
+    this(delimiter, maxFrameLength, false);
+  }
+
+  private DelimiterFrameCodec(byte[] delimiter, int maxFrameLength, boolean stripCarriageReturn) {
+    if (delimiter.length == 0) {
+      throw new IllegalArgumentException("Delimiter must not be empty");
+    }
+    this.delimiter = delimiter.clone();
+    this.maxFrameLength = maxFrameLength;
+    this.stripCarriageReturn = stripCarriageReturn;
+  }
+
+  /**
+   * Creates a codec for lines ending in {@code \n} or {@code \r\n}. Encoded lines end in
+   * {@code \n}.
+   *
+   * @param maxLineLength the longest line accepted.
+   * @return the codec.
+   */
+  public static DelimiterFrameCodec lines(int maxLineLength) {
+    return new DelimiterFrameCodec(new byte[] {'\n'}, maxLineLength, true);
+  }
+
+  @Override
+  public ByteBuffer decode(ByteBuffer in) throws CorruptedFrameException {
+    var start = in.position();
+    var index = indexOfDelimiter(in);
+    if (index < 0) {
+      if (in.remaining() > maxFrameLength + delimiter.length) {
+        throw new CorruptedFrameException(
+            "No delimiter found within " + maxFrameLength + " bytes");
+      }
+      return null;
+    }
+    var length = index - start;
+    if (length > maxFrameLength) {
+      throw new CorruptedFrameException(
+          "Frame of " + length + " bytes exceeds the maximum of " + maxFrameLength);
+    }
+    in.position(index + delimiter.length);
+    if (stripCarriageReturn && length > 0 && in.get(index - 1) == '\r') {
+      length--;
+    }
+    return in.slice(start, length);
+  }
+
+  private int indexOfDelimiter(ByteBuffer in) {
+    var last = in.limit() - delimiter.length;
+    outer:
+    for (var i = in.position(); i <= last; i++) {
+      for (var j = 0; j < delimiter.length; j++) {
+        if (in.get(i + j) != delimiter[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  @Override
+  public ByteBuffer[] encode(ByteBuffer payload) {
+    return new ByteBuffer[] {payload, ByteBuffer.wrap(delimiter).asReadOnlyBuffer()};
+  }
+}
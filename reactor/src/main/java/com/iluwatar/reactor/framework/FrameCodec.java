@@ -0,0 +1,60 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Splits the byte stream of a connection into frames and turns outgoing messages into frames. A
+ * channel with a codec hands its {@link ChannelHandler} one call per whole frame, no matter how the
+ * frames were cut into TCP segments: several frames received at once are decoded in one pass, and a
+ * frame spread over several reads is handed over once it is complete.
+ *
+ * @see LengthFieldFrameCodec
+ * @see DelimiterFrameCodec
+ * @see FixedLengthFrameCodec
+ */
+public interface FrameCodec {
+
+  /**
+   * Decodes the frame starting at the position of {@code in}. On success the position is moved
+   * past the frame and the payload is returned as a slice of {@code in}, without copying. If
+   * {@code in} does not hold a whole frame yet, nothing is consumed.
+   *
+   * @param in the received bytes.
+   * @return the payload of the frame, or null if more bytes are needed.
+   * @throws CorruptedFrameException if the bytes cannot form a valid frame.
+   */
+  ByteBuffer decode(ByteBuffer in) throws CorruptedFrameException;
+
+  /**
+   * Frames an outgoing message. The payload itself is not copied; the returned buffers are written
+   * out together with a gathering write.
+   *
+   * @param payload the message.
+   * @return the buffers making up the frame, in order.
+   */
+  ByteBuffer[] encode(ByteBuffer payload);
+}
@@ -0,0 +1,89 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Frames prefixed with the length of their payload, as an unsigned big-endian integer of 1, 2 or 4
+ * bytes.
+ */
+public class LengthFieldFrameCodec implements FrameCodec {
+
+  private final int lengthFieldLength;
+  private final int maxFrameLength;
+
+  /**
+   * Creates the codec.
+   *
+   * @param lengthFieldLength size of the length prefix, 1, 2 or 4 bytes.
+   * @param maxFrameLength    the largest payload accepted.
+   */
+  public LengthFieldFrameCodec(int lengthFieldLength, int maxFrameLength) {
+    if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 4) {
+      throw new IllegalArgumentException("Length field must be 1, 2 or 4 bytes long");
+    }
+    this.lengthFieldLength = lengthFieldLength;
+    this.maxFrameLength = maxFrameLength;
+  }
+
+  @Override
+  public ByteBuffer decode(ByteBuffer in) throws CorruptedFrameException {
+    if (in.remaining() < lengthFieldLength) {
+      return null;
+    }
+    var start = in.position();
+    long length = switch (lengthFieldLength) {
+      case 1 -> in.get(start) & 0xFF;
+      case 2 -> in.getShort(start) & 0xFFFF;
+      default -> in.getInt(start) & 0xFFFFFFFFL;
+    };
+    if (length > maxFrameLength) {
+      throw new CorruptedFrameException(
+          "Frame of " + length + " bytes exceeds the maximum of " + maxFrameLength);
+    }
+    if (in.remaining() < lengthFieldLength + length) {
+      return null;
+    }
+    var frame = in.slice(start + lengthFieldLength, (int) length);
+    in.position(start + lengthFieldLength + (int) length);
+    return frame;
+  }
+
+  @Override
+  public ByteBuffer[] encode(ByteBuffer payload) {
+    var length = payload.remaining();
+    if (length > maxFrameLength || lengthFieldLength < 4 && length >= 1 << 8 * lengthFieldLength) {
+      throw new IllegalArgumentException("Payload of " + length + " bytes is too long");
+    }
+    var header = ByteBuffer.allocate(lengthFieldLength);
+    switch (lengthFieldLength) {
+      case 1 -> header.put((byte) length);
+      case 2 -> header.putShort((short) length);
+      default -> header.putInt(length);
+    }
+    return new ByteBuffer[] {header.flip(), payload};
+  }
+}
@@ -31,6 +31,7 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -39,7 +40,17 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NioDatagramChannel extends AbstractNioChannel {
 
+  /**
+   * Large enough for the biggest UDP payload, so received datagrams are never truncated.
+   */
+  private static final int MAX_DATAGRAM_SIZE = PooledBufferAllocator.MAX_CHUNK_SIZE;
+
   private final int port;
+  /**
+   * Datagrams are received here and then copied into a pooled buffer of their size, so a small
+   * datagram does not hold a buffer of the largest size while it is handled.
+   */
+  private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
 
   /**
    * Creates a {@link DatagramChannel} which will bind at provided port and use <code>handler</code>
@@ -66,26 +77,63 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns a {@link DatagramPacket} from the underlying channel.
+   * Reads and returns a {@link DatagramPacket} from the underlying channel. The data of the packet
+   * lives in a pooled buffer which is freed once the handler has run. Only the reactor thread
+   * serving the channel reads from it, so the receive buffer is never shared.
    *
    * @return the datagram packet read having the sender address.
    */
   @Override
   public DatagramPacket read(SelectionKey key) throws IOException {
-    var buffer = ByteBuffer.allocate(1024);
-    var sender = ((DatagramChannel) key.channel()).receive(buffer);
+    receiveBuffer.clear();
+    var sender = ((DatagramChannel) key.channel()).receive(receiveBuffer);
+    receiveBuffer.flip();
+    var buffer = getAllocator().allocate(receiveBuffer.remaining());
+    buffer.nioBuffer().put(receiveBuffer).flip();
 
     /*
      * It is required to create a DatagramPacket because we need to preserve which socket address
      * acts as destination for sending reply packets.
      */
-    buffer.flip();
     var packet = new DatagramPacket(buffer);
     packet.setSender(sender);
 
     return packet;
   }
 
+  /**
+   * A datagram is sent whole or not at all, so the pending bytes of a {@link DatagramPacket} are
+   * those of its data.
+   */
+  @Override
+  protected int pendingBytesOf(Object data) {
+    if (data instanceof DatagramPacket) {
+      return ((DatagramPacket) data).getData().remaining();
+    }
+    return super.pendingBytesOf(data);
+  }
+
+  @Override
+  protected List<ReferenceCountedBuffer> buffersOf(Object readObject) {
+    if (readObject instanceof DatagramPacket) {
+      var pooledData = ((DatagramPacket) readObject).pooledData;
+      return pooledData == null ? List.of() : List.of(pooledData);
+    }
+    return super.buffersOf(readObject);
+  }
+
+  /**
+   * Frees the pooled buffer behind a {@link DatagramPacket}.
+   */
+  @Override
+  protected void release(Object data) {
+    if (data instanceof DatagramPacket) {
+      ReferenceCountedBuffer.release(((DatagramPacket) data).pooledData);
+    } else {
+      super.release(data);
+    }
+  }
+
   /**
    * Get datagram channel.
    *
@@ -122,18 +170,43 @@ public class NioDatagramChannel extends AbstractNioChannel {
    * Writes the outgoing {@link DatagramPacket} to the channel. The intended receiver of the
    * datagram packet must be set in the <code>data</code> using {@link
    * DatagramPacket#setReceiver(SocketAddress)}.
+   *
+   * <p>A packet handed to the handler, or one wrapping its data, can be written back from within
+   * the handler: the channel keeps the pooled data alive until the packet has been sent.
    */
   @Override
   public void write(Object data, SelectionKey key) {
+    if (data instanceof DatagramPacket) {
+      data = retainHandledRead((DatagramPacket) data);
+    }
     super.write(data, key);
   }
 
+  private DatagramPacket retainHandledRead(DatagramPacket packet) {
+    if (packet.pooledData != null) {
+      if (handledReadBuffers().contains(packet.pooledData)) {
+        // the packet being handled, which is also released once the handler returns
+        packet.pooledData.retain();
+      }
+      return packet;
+    }
+    var data = retainHandledRead(packet.getData());
+    if (data == packet.getData()) {
+      return packet;
+    }
+    var retained = new DatagramPacket((ReferenceCountedBuffer) data);
+    retained.setSender(packet.getSender());
+    retained.setReceiver(packet.getReceiver());
+    return retained;
+  }
+
   /**
    * Container of data used for {@link NioDatagramChannel} to communicate with remote peer.
    */
   public static class DatagramPacket {
     private SocketAddress sender;
     private final ByteBuffer data;
+    private final ReferenceCountedBuffer pooledData;
     private SocketAddress receiver;
 
     /**
@@ -143,6 +216,18 @@ public class NioDatagramChannel extends AbstractNioChannel {
      */
     public DatagramPacket(ByteBuffer data) {
       this.data = data;
+      this.pooledData = null;
+    }
+
+    /**
+     * Creates a container with pooled data. The channel releases the data once the packet has
+     * been handled or written.
+     *
+     * @param data the underlying message to be written on channel.
+     */
+    public DatagramPacket(ReferenceCountedBuffer data) {
+      this.data = data.nioBuffer();
+      this.pooledData = data;
     }
 
     /**
@@ -0,0 +1,176 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A group of {@link NioReactor} event loops split into acceptor (boss) loops and worker loops.
+ * Each loop owns its own {@link java.nio.channels.Selector} and thread.
+ *
+ * <p>Server socket channels are registered with an acceptor loop. Whenever an acceptor accepts a
+ * connection it hands the new {@link java.nio.channels.SocketChannel} over to a worker loop, which
+ * then serves all reads and writes of that connection. Other channels, such as datagram channels,
+ * are registered directly with a worker loop. A single acceptor can therefore feed as many workers
+ * as there are cores, instead of one selector thread doing all the I/O.
+ *
+ * <p>Channels do not need to know about the group: writes and interest changes of a connection are
+ * always routed to the loop serving it.
+ */
+@Slf4j
+public class NioEventLoopGroup {
+
+  /**
+   * Strategy used to pick the worker loop for a new connection.
+   */
+  public enum LoadBalancing {
+    /**
+     * Workers take turns.
+     */
+    ROUND_ROBIN,
+    /**
+     * The worker serving the fewest connections is chosen.
+     */
+    LEAST_CONNECTIONS
+  }
+
+  private final List<NioReactor> acceptors;
+  private final List<NioReactor> workers;
+  private final LoadBalancing loadBalancing;
+  private final AtomicInteger nextAcceptor = new AtomicInteger();
+  private final AtomicInteger nextWorker = new AtomicInteger();
+
+  /**
+   * Creates a group with one acceptor loop and one worker loop per available processor.
+   *
+   * @param dispatcher the dispatcher used by all loops to dispatch read events.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioEventLoopGroup(Dispatcher dispatcher) throws IOException {
+    this(dispatcher, 1, Runtime.getRuntime().availableProcessors(), LoadBalancing.ROUND_ROBIN);
+  }
+
+  /**
+   * Creates a group of event loops.
+   *
+   * @param dispatcher    the dispatcher used by all loops to dispatch read events.
+   * @param acceptorCount number of acceptor loops.
+   * @param workerCount   number of worker loops.
+   * @param loadBalancing strategy used to spread connections over the workers.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioEventLoopGroup(Dispatcher dispatcher, int acceptorCount, int workerCount,
+                           LoadBalancing loadBalancing) throws IOException {
+    if (acceptorCount < 1 || workerCount < 1) {
+      throw new IllegalArgumentException("A group needs at least one acceptor and one worker");
+    }
+    this.loadBalancing = loadBalancing;
+    this.acceptors = new ArrayList<>(acceptorCount);
+    this.workers = new ArrayList<>(workerCount);
+    for (var i = 0; i < acceptorCount; i++) {
+      var acceptor = new NioReactor(dispatcher);
+      acceptor.setGroup(this);
+      acceptors.add(acceptor);
+    }
+    for (var i = 0; i < workerCount; i++) {
+      workers.add(new NioReactor(dispatcher));
+    }
+  }
+
+  /**
+   * Registers a channel with the group. Server socket channels go to an acceptor loop, all other
+   * channels to a worker loop.
+   *
+   * @param channel a bound channel.
+   * @return this
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioEventLoopGroup registerChannel(AbstractNioChannel channel) throws IOException {
+    if (channel.getJavaChannel() instanceof ServerSocketChannel) {
+      next(acceptors, nextAcceptor).registerChannel(channel);
+    } else {
+      nextWorker().registerChannel(channel);
+    }
+    return this;
+  }
+
+  /**
+   * Starts all the event loops of the group.
+   */
+  public void start() {
+    workers.forEach(NioReactor::start);
+    acceptors.forEach(NioReactor::start);
+    LOGGER.info("Event loop group started with {} acceptor(s) and {} worker(s)",
+        acceptors.size(), workers.size());
+  }
+
+  /**
+   * Stops all the event loops of the group, acceptors first so no new connections are handed to
+   * workers that are shutting down.
+   *
+   * @throws InterruptedException if interrupted while stopping a loop.
+   * @throws IOException          if any I/O error occurs.
+   */
+  public void stop() throws InterruptedException, IOException {
+    for (var acceptor : acceptors) {
+      acceptor.stop();
+    }
+    for (var worker : workers) {
+      worker.stop();
+    }
+  }
+
+  /**
+   * Get the worker loops of this group.
+   *
+   * @return unmodifiable list of worker loops.
+   */
+  public List<NioReactor> getWorkers() {
+    return Collections.unmodifiableList(workers);
+  }
+
+  /**
+   * Picks the worker loop that will serve a new connection.
+   */
+  NioReactor nextWorker() {
+    if (loadBalancing == LoadBalancing.LEAST_CONNECTIONS) {
+      return workers.stream()
+          .min(Comparator.comparingInt(NioReactor::getConnectionCount))
+          .orElseThrow();
+    }
+    return next(workers, nextWorker);
+  }
+
+  private static NioReactor next(List<NioReactor> loops, AtomicInteger counter) {
+    return loops.get(Math.floorMod(counter.getAndIncrement(), loops.size()));
+  }
+}
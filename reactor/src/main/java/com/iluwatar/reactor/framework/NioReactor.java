@@ -28,11 +28,13 @@ import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -46,6 +48,10 @@ import lombok.extern.slf4j.Slf4j;
  * #start()} method. {@link NioReactor} uses {@link Selector} for realizing Synchronous Event
  * De-multiplexing.
  *
+ * <p>A reactor can also be one of the event loops of a {@link NioEventLoopGroup}. Acceptor loops
+ * of a group hand every accepted connection over to one of the group's worker loops instead of
+ * registering it with their own selector.
+ *
  * <p>NOTE: This is one of the ways to implement NIO reactor and it does not take care of all
  * possible edge cases which are required in a real application. This implementation is meant to
  * demonstrate the fundamental concepts that lie behind Reactor pattern.
@@ -63,6 +69,15 @@ public class NioReactor {
    */
   private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
   private final ExecutorService reactorMain = Executors.newSingleThreadExecutor();
+  /**
+   * Number of accepted connections currently registered with this reactor.
+   */
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  /**
+   * The group this reactor belongs to, if any. Accepted connections are handed to its workers.
+   */
+  private volatile NioEventLoopGroup group;
+  private volatile boolean stopping;
 
   /**
    * Creates a reactor which will use provided {@code dispatcher} to dispatch events. The
@@ -97,6 +112,7 @@ public class NioReactor {
    * @throws IOException          if any I/O error occurs.
    */
   public void stop() throws InterruptedException, IOException {
+    stopping = true;
     reactorMain.shutdown();
     selector.wakeup();
     if (!reactorMain.awaitTermination(4, TimeUnit.SECONDS)) {
@@ -123,9 +139,47 @@ public class NioReactor {
     return this;
   }
 
+  /**
+   * Makes this reactor an event loop of the group.
+   */
+  void setGroup(NioEventLoopGroup group) {
+    this.group = group;
+  }
+
+  /**
+   * Get the number of accepted connections served by this reactor.
+   *
+   * @return connection count.
+   */
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  /**
+   * Registers an accepted connection with this reactor. The registration happens in the event
+   * loop, so it never blocks on a selector that is in the middle of a select.
+   *
+   * @param socketChannel the accepted, non-blocking connection.
+   * @param channel       the server channel that accepted the connection.
+   */
+  void registerAccepted(SocketChannel socketChannel, AbstractNioChannel channel) {
+    connectionCount.incrementAndGet();
+    pendingCommands.add(() -> {
+      try {
+        var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+        readKey.attach(channel);
+        channel.bindConnection(socketChannel, this);
+      } catch (IOException e) {
+        LOGGER.error("error registering accepted connection", e);
+        connectionCount.decrementAndGet();
+      }
+    });
+    selector.wakeup();
+  }
+
   private void eventLoop() throws IOException {
-    // honor interrupt request
-    while (!Thread.interrupted()) {
+    // honor interrupt and stop requests
+    while (!stopping && !Thread.interrupted()) {
       // honor any pending commands first
       processPendingCommands();
 
@@ -176,22 +230,37 @@ public class NioReactor {
     }
   }
 
-  private static void onChannelWritable(SelectionKey key) throws IOException {
-    var channel = (AbstractNioChannel) key.attachment();
-    channel.flush(key);
+  private void onChannelWritable(SelectionKey key) {
+    try {
+      var channel = (AbstractNioChannel) key.attachment();
+      channel.flush(key);
+    } catch (IOException e) {
+      // a peer that went away must not take the whole event loop down with it
+      closeConnection(key);
+    }
   }
 
   private void onChannelReadable(SelectionKey key) {
     try {
       // reads the incoming data in context of reactor main loop. Can this be improved?
-      var readObject = ((AbstractNioChannel) key.attachment()).read(key);
-      dispatchReadEvent(key, readObject);
-    } catch (IOException e) {
-      try {
-        key.channel().close();
-      } catch (IOException e1) {
-        LOGGER.error("error closing channel", e1);
+      var channel = (AbstractNioChannel) key.attachment();
+      var readObject = channel.decode(channel.read(key), key);
+      if (readObject != null) {
+        dispatchReadEvent(key, readObject);
       }
+    } catch (IOException e) {
+      closeConnection(key);
+    }
+  }
+
+  private void closeConnection(SelectionKey key) {
+    try {
+      key.channel().close();
+    } catch (IOException e1) {
+      LOGGER.error("error closing channel", e1);
+    }
+    if (((AbstractNioChannel) key.attachment()).unbindConnection(key.channel())) {
+      connectionCount.decrementAndGet();
     }
   }
 
@@ -205,9 +274,20 @@ public class NioReactor {
   private void onChannelAcceptable(SelectionKey key) throws IOException {
     var serverSocketChannel = (ServerSocketChannel) key.channel();
     var socketChannel = serverSocketChannel.accept();
+    if (socketChannel == null) {
+      return;
+    }
     socketChannel.configureBlocking(false);
+    var channel = (AbstractNioChannel) key.attachment();
+    var owner = group;
+    if (owner != null) {
+      owner.nextWorker().registerAccepted(socketChannel, channel);
+      return;
+    }
     var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-    readKey.attach(key.attachment());
+    readKey.attach(channel);
+    channel.bindConnection(socketChannel, this);
+    connectionCount.incrementAndGet();
   }
 
   /**
@@ -238,7 +318,10 @@ public class NioReactor {
     }
 
     public void run() {
-      key.interestOps(interestedOps);
+      // the connection may have been closed since the command was queued
+      if (key.isValid()) {
+        key.interestOps(interestedOps);
+      }
     }
 
     @Override
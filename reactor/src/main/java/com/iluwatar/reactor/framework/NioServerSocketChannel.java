@@ -31,6 +31,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -40,6 +42,30 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NioServerSocketChannel extends AbstractNioChannel {
 
+  /**
+   * Size of the pooled chunk each read fills.
+   */
+  private static final int READ_CHUNK_SIZE = 4096;
+  /**
+   * Upper bound of the bytes taken off one connection per read event, so a busy connection cannot
+   * starve the others served by the same reactor.
+   */
+  private static final int MAX_BYTES_PER_READ = 16 * READ_CHUNK_SIZE;
+  /**
+   * Maximum number of buffers handed to one gathering write.
+   */
+  private static final int MAX_GATHERED_BUFFERS = 64;
+  /**
+   * Connections waiting to be accepted, enough to absorb a burst of clients connecting at once.
+   */
+  private static final int ACCEPT_BACKLOG = 1024;
+  /**
+   * Scratch array for gathering writes. Connections are flushed by their reactor thread only, so
+   * one array per thread is enough.
+   */
+  private static final ThreadLocal<ByteBuffer[]> GATHERED_BUFFERS =
+      ThreadLocal.withInitial(() -> new ByteBuffer[MAX_GATHERED_BUFFERS]);
+
   private final int port;
 
   /**
@@ -76,20 +102,61 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   }
 
   /**
-   * Reads and returns {@link ByteBuffer} from the underlying {@link SocketChannel} represented by
-   * the <code>key</code>. Due to the fact that there is a dedicated channel for each client
-   * connection we don't need to store the sender.
+   * Reads the data available on the underlying {@link SocketChannel} represented by the
+   * <code>key</code> into pooled chunks. Due to the fact that there is a dedicated channel for each
+   * client connection we don't need to store the sender.
+   *
+   * @return a {@link PooledBuffer}, or a {@link CompositeBuffer} when more than one chunk was
+   *     filled. The handler receives the data as a {@link ByteBuffer}.
    */
   @Override
-  public ByteBuffer read(SelectionKey key) throws IOException {
+  public ReferenceCountedBuffer read(SelectionKey key) throws IOException {
     var socketChannel = (SocketChannel) key.channel();
-    var buffer = ByteBuffer.allocate(1024);
-    var read = socketChannel.read(buffer);
-    buffer.flip();
+    var buffer = getAllocator().allocate(READ_CHUNK_SIZE);
+    int read;
+    try {
+      read = socketChannel.read(buffer.nioBuffer());
+    } catch (IOException e) {
+      buffer.release();
+      throw e;
+    }
     if (read == -1) {
+      buffer.release();
       throw new IOException("Socket closed");
     }
-    return buffer;
+    var chunkFilled = !buffer.nioBuffer().hasRemaining();
+    buffer.nioBuffer().flip();
+    if (!chunkFilled) {
+      return buffer;
+    }
+    // the chunk is full so more data may be waiting, collect it without copying
+    var composite = new CompositeBuffer().addComponent(buffer);
+    try {
+      readRemaining(socketChannel, composite);
+    } catch (IOException e) {
+      composite.release();
+      throw e;
+    }
+    return composite;
+  }
+
+  private void readRemaining(SocketChannel socketChannel, CompositeBuffer composite)
+      throws IOException {
+    for (var total = READ_CHUNK_SIZE; total < MAX_BYTES_PER_READ; total += READ_CHUNK_SIZE) {
+      var chunk = getAllocator().allocate(READ_CHUNK_SIZE);
+      var read = socketChannel.read(chunk.nioBuffer());
+      if (read <= 0) {
+        // nothing more for now; an end of stream will be reported by the next read
+        chunk.release();
+        return;
+      }
+      var chunkFilled = !chunk.nioBuffer().hasRemaining();
+      chunk.nioBuffer().flip();
+      composite.addComponent(chunk);
+      if (!chunkFilled) {
+        return;
+      }
+    }
   }
 
   /**
@@ -100,18 +167,86 @@ public class NioServerSocketChannel extends AbstractNioChannel {
   @Override
   public void bind() throws IOException {
     var javaChannel = getJavaChannel();
-    javaChannel.socket().bind(new InetSocketAddress(InetAddress.getLocalHost(), port));
+    javaChannel.socket().bind(new InetSocketAddress(InetAddress.getLocalHost(), port),
+        ACCEPT_BACKLOG);
     javaChannel.configureBlocking(false);
     LOGGER.info("Bound TCP socket at port: {}", port);
   }
 
   /**
-   * Writes the pending {@link ByteBuffer} to the underlying channel sending data to the intended
-   * receiver of the packet.
+   * Writes the queued buffers with gathering writes, so a whole batch of replies costs a single
+   * system call. Stops when the socket no longer accepts data, leaving the unwritten rest queued.
+   */
+  @Override
+  protected long writePending(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var socketChannel = (SocketChannel) key.channel();
+    var buffers = GATHERED_BUFFERS.get();
+    var written = 0L;
+    try {
+      while (true) {
+        var count = gather(pendingWrites, buffers);
+        if (count == 0) {
+          return written;
+        }
+        written += socketChannel.write(buffers, 0, count);
+        Object head;
+        while ((head = pendingWrites.peek()) != null && pendingBytesOf(head) == 0) {
+          pendingWrites.poll();
+          release(head);
+        }
+        if (buffers[count - 1].hasRemaining()) {
+          // partial write, the socket send buffer is full
+          return written;
+        }
+      }
+    } finally {
+      Arrays.fill(buffers, null);
+    }
+  }
+
+  private static int gather(Queue<Object> pendingWrites, ByteBuffer[] buffers) {
+    var count = 0;
+    for (var pendingWrite : pendingWrites) {
+      if (pendingWrite instanceof ReferenceCountedBuffer) {
+        for (var nioBuffer : ((ReferenceCountedBuffer) pendingWrite).nioBuffers()) {
+          count = append(nioBuffer, buffers, count);
+        }
+      } else if (pendingWrite instanceof ByteBuffer[]) {
+        for (var nioBuffer : (ByteBuffer[]) pendingWrite) {
+          count = append(nioBuffer, buffers, count);
+        }
+      } else {
+        count = append((ByteBuffer) pendingWrite, buffers, count);
+      }
+      if (count == buffers.length) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  private static int append(ByteBuffer buffer, ByteBuffer[] buffers, int count) {
+    if (!buffer.hasRemaining() || count == buffers.length) {
+      return count;
+    }
+    buffers[count] = buffer;
+    return count + 1;
+  }
+
+  /**
+   * Writes the pending {@link ByteBuffer}, {@link ByteBuffer} array or
+   * {@link ReferenceCountedBuffer} to the underlying
+   * channel sending data to the intended receiver of the packet.
    */
   @Override
   protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
-    var pendingBuffer = (ByteBuffer) pendingWrite;
-    ((SocketChannel) key.channel()).write(pendingBuffer);
+    var socketChannel = (SocketChannel) key.channel();
+    if (pendingWrite instanceof ReferenceCountedBuffer) {
+      socketChannel.write(((ReferenceCountedBuffer) pendingWrite).nioBuffers());
+    } else if (pendingWrite instanceof ByteBuffer[]) {
+      socketChannel.write((ByteBuffer[]) pendingWrite);
+    } else {
+      socketChannel.write((ByteBuffer) pendingWrite);
+    }
   }
 }
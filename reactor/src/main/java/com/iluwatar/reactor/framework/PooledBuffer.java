@@ -0,0 +1,111 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A chunk of direct memory handed out by a {@link PooledBufferAllocator}. Once the last reference
+ * is released the chunk, together with this wrapper, goes back to the allocator for reuse.
+ */
+public final class PooledBuffer implements ReferenceCountedBuffer {
+
+  private final PooledBufferAllocator allocator;
+  private final int sizeClass;
+  private final ByteBuffer buffer;
+  private final AtomicInteger refCnt = new AtomicInteger();
+
+  PooledBuffer(PooledBufferAllocator allocator, int sizeClass, ByteBuffer buffer) {
+    this.allocator = allocator;
+    this.sizeClass = sizeClass;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Prepares the buffer for a new owner.
+   */
+  PooledBuffer init(int capacity) {
+    buffer.clear().limit(capacity);
+    refCnt.set(1);
+    return this;
+  }
+
+  int sizeClass() {
+    return sizeClass;
+  }
+
+  /**
+   * Get the underlying buffer. It starts out with position 0 and a limit equal to the requested
+   * capacity, ready to be filled.
+   *
+   * @return the underlying direct buffer.
+   */
+  @Override
+  public ByteBuffer nioBuffer() {
+    return buffer;
+  }
+
+  @Override
+  public ByteBuffer[] nioBuffers() {
+    return new ByteBuffer[] {buffer};
+  }
+
+  @Override
+  public int readableBytes() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public int refCnt() {
+    return refCnt.get();
+  }
+
+  @Override
+  public PooledBuffer retain() {
+    int count;
+    do {
+      count = refCnt.get();
+      if (count == 0) {
+        throw new IllegalStateException("Buffer has already been released");
+      }
+    } while (!refCnt.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    var count = refCnt.decrementAndGet();
+    if (count > 0) {
+      return false;
+    }
+    if (count < 0) {
+      refCnt.incrementAndGet();
+      throw new IllegalStateException("Buffer has already been released");
+    }
+    allocator.recycle(this);
+    return true;
+  }
+}
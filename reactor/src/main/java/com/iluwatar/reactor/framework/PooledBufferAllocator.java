@@ -0,0 +1,209 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out reference counted direct buffers from per size class pools. Size classes are powers
+ * of two from {@value #MIN_CHUNK_SIZE} bytes up to {@value #MAX_CHUNK_SIZE} bytes. A size class
+ * that runs dry reserves a slab of direct memory and slices it into chunks, so the cost of a
+ * direct allocation is paid once per slab instead of once per read. Released chunks are kept on a
+ * free list, up to a bounded number per size class, and handed out again.
+ *
+ * <p>Requests bigger than the largest size class get an unpooled direct buffer. Use
+ * {@link #allocateComposite(int)} to spread such data over pooled chunks instead.
+ */
+public class PooledBufferAllocator {
+
+  /**
+   * Smallest chunk handed out.
+   */
+  public static final int MIN_CHUNK_SIZE = 512;
+  /**
+   * Largest pooled chunk.
+   */
+  public static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+  private static final int SLAB_SIZE = 256 * 1024;
+  private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+  private static final int SIZE_CLASSES =
+      Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE) - MIN_SHIFT + 1;
+
+  /**
+   * Allocator shared by channels that have not been given their own.
+   */
+  public static final PooledBufferAllocator DEFAULT = new PooledBufferAllocator();
+
+  private final SizeClass[] sizeClasses = new SizeClass[SIZE_CLASSES];
+  private final AtomicLong reservedBytes = new AtomicLong();
+  private final AtomicLong unpooledAllocations = new AtomicLong();
+
+  /**
+   * Creates an allocator that keeps up to 4 MiB of released chunks per size class.
+   */
+  public PooledBufferAllocator() {
+    this(4 * 1024 * 1024);
+  }
+
+  /**
+   * Creates an allocator.
+   *
+   * @param maxPooledBytesPerClass how many bytes of released chunks each size class keeps for
+   *                               reuse. Chunks released beyond that are left to the garbage
+   *                               collector.
+   */
+  public PooledBufferAllocator(int maxPooledBytesPerClass) {
+    for (var i = 0; i < SIZE_CLASSES; i++) {
+      var chunkSize = MIN_CHUNK_SIZE << i;
+      sizeClasses[i] = new SizeClass(i, chunkSize, Math.max(1, maxPooledBytesPerClass / chunkSize));
+    }
+  }
+
+  /**
+   * Allocates a buffer with at least {@code capacity} bytes. Its limit is set to
+   * {@code capacity}.
+   *
+   * @param capacity number of bytes needed.
+   * @return a buffer holding one reference.
+   */
+  public PooledBuffer allocate(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Negative capacity: " + capacity);
+    }
+    if (capacity > MAX_CHUNK_SIZE) {
+      unpooledAllocations.incrementAndGet();
+      return new PooledBuffer(this, -1, ByteBuffer.allocateDirect(capacity)).init(capacity);
+    }
+    return sizeClasses[sizeClassOf(capacity)].allocate().init(capacity);
+  }
+
+  /**
+   * Allocates a composite of pooled chunks that together hold {@code capacity} bytes. Every chunk
+   * but the last is a full {@value #MAX_CHUNK_SIZE} byte chunk.
+   *
+   * @param capacity number of bytes needed.
+   * @return a composite holding one reference.
+   */
+  public CompositeBuffer allocateComposite(int capacity) {
+    var composite = new CompositeBuffer();
+    var remaining = capacity;
+    do {
+      var chunk = Math.min(remaining, MAX_CHUNK_SIZE);
+      composite.addComponent(allocate(chunk));
+      remaining -= chunk;
+    } while (remaining > 0);
+    return composite;
+  }
+
+  /**
+   * Get the direct memory reserved by the pools so far.
+   *
+   * @return reserved bytes.
+   */
+  public long getReservedBytes() {
+    return reservedBytes.get();
+  }
+
+  /**
+   * Get the number of requests that were too big to be pooled.
+   *
+   * @return unpooled allocation count.
+   */
+  public long getUnpooledAllocations() {
+    return unpooledAllocations.get();
+  }
+
+  /**
+   * Get the number of released chunks waiting for reuse in the size class serving
+   * {@code capacity}.
+   *
+   * @param capacity a capacity up to {@value #MAX_CHUNK_SIZE}.
+   * @return pooled chunk count.
+   */
+  public int getPooledChunks(int capacity) {
+    return sizeClasses[sizeClassOf(capacity)].pooled();
+  }
+
+  void recycle(PooledBuffer buffer) {
+    if (buffer.sizeClass() >= 0) {
+      sizeClasses[buffer.sizeClass()].recycle(buffer);
+    }
+  }
+
+  private static int sizeClassOf(int capacity) {
+    if (capacity <= MIN_CHUNK_SIZE) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+  }
+
+  /**
+   * Free list of one chunk size. An array backed stack keeps allocation and release free of
+   * garbage; the lock is held for a few instructions only.
+   */
+  private final class SizeClass {
+    private final int index;
+    private final int chunkSize;
+    private final PooledBuffer[] free;
+    private int size;
+
+    SizeClass(int index, int chunkSize, int maxPooled) {
+      this.index = index;
+      this.chunkSize = chunkSize;
+      this.free = new PooledBuffer[maxPooled];
+    }
+
+    synchronized PooledBuffer allocate() {
+      if (size == 0) {
+        reserveSlab();
+      }
+      var buffer = free[--size];
+      free[size] = null;
+      return buffer;
+    }
+
+    synchronized void recycle(PooledBuffer buffer) {
+      if (size < free.length) {
+        free[size++] = buffer;
+      }
+    }
+
+    synchronized int pooled() {
+      return size;
+    }
+
+    private void reserveSlab() {
+      var chunks = Math.min(free.length, Math.max(1, SLAB_SIZE / chunkSize));
+      var slab = ByteBuffer.allocateDirect(chunks * chunkSize);
+      reservedBytes.addAndGet(slab.capacity());
+      for (var i = 0; i < chunks; i++) {
+        free[size++] = new PooledBuffer(PooledBufferAllocator.this, index,
+            slab.slice(i * chunkSize, chunkSize));
+      }
+    }
+  }
+}
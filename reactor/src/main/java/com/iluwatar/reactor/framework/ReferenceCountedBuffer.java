@@ -0,0 +1,92 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer whose memory is returned to its allocator once the last reference to it is released.
+ * A new buffer holds one reference. Every {@link #retain()} must be balanced by a
+ * {@link #release()}.
+ *
+ * @see PooledBuffer
+ * @see CompositeBuffer
+ */
+public interface ReferenceCountedBuffer {
+
+  /**
+   * Get the readable bytes as a single buffer. The returned buffer must not be used after the last
+   * reference is released.
+   *
+   * @return the readable bytes.
+   */
+  ByteBuffer nioBuffer();
+
+  /**
+   * Get the readable bytes as a sequence of buffers, suitable for gathering writes.
+   *
+   * @return the readable bytes.
+   */
+  ByteBuffer[] nioBuffers();
+
+  /**
+   * Get the number of readable bytes.
+   *
+   * @return readable bytes.
+   */
+  int readableBytes();
+
+  /**
+   * Get the reference count.
+   *
+   * @return current reference count.
+   */
+  int refCnt();
+
+  /**
+   * Adds a reference to this buffer.
+   *
+   * @return this
+   */
+  ReferenceCountedBuffer retain();
+
+  /**
+   * Drops a reference to this buffer and frees it when no reference is left.
+   *
+   * @return true if the buffer has been freed.
+   */
+  boolean release();
+
+  /**
+   * Releases {@code object} if it is reference counted, otherwise does nothing.
+   *
+   * @param object any object.
+   */
+  static void release(Object object) {
+    if (object instanceof ReferenceCountedBuffer) {
+      ((ReferenceCountedBuffer) object).release();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data queued for writing that may be a view of buffers read from a channel. It holds a reference
+ * to each of those buffers, so their memory stays valid until the data has been written, and drops
+ * them when the last reference to itself is released.
+ */
+final class RetainedBuffer implements ReferenceCountedBuffer {
+
+  private final ByteBuffer[] views;
+  private final List<ReferenceCountedBuffer> owners;
+  private final AtomicInteger refCnt = new AtomicInteger(1);
+
+  /**
+   * Creates the buffer and retains the owners.
+   *
+   * @param views  the data to write.
+   * @param owners the buffers the data may be a view of.
+   */
+  RetainedBuffer(ByteBuffer[] views, List<ReferenceCountedBuffer> owners) {
+    this.views = views;
+    this.owners = List.copyOf(owners);
+    this.owners.forEach(ReferenceCountedBuffer::retain);
+  }
+
+  @Override
+  public ByteBuffer nioBuffer() {
+    if (views.length == 1) {
+      return views[0];
+    }
+    var merged = ByteBuffer.allocate(readableBytes());
+    for (var view : views) {
+      merged.put(view.duplicate());
+    }
+    return merged.flip();
+  }
+
+  @Override
+  public ByteBuffer[] nioBuffers() {
+    return views;
+  }
+
+  @Override
+  public int readableBytes() {
+    var readable = 0;
+    for (var view : views) {
+      readable += view.remaining();
+    }
+    return readable;
+  }
+
+  @Override
+  public int refCnt() {
+    return refCnt.get();
+  }
+
+  @Override
+  public RetainedBuffer retain() {
+    int count;
+    do {
+      count = refCnt.get();
+      if (count <= 0) {
+        throw new IllegalStateException("Buffer has already been released");
+      }
+    } while (!refCnt.compareAndSet(count, count + 1));
+    return this;
+  }
+
+  @Override
+  public boolean release() {
+    var count = refCnt.decrementAndGet();
+    if (count > 0) {
+      return false;
+    }
+    if (count < 0) {
+      refCnt.incrementAndGet();
+      throw new IllegalStateException("Buffer has already been released");
+    }
+    owners.forEach(owner -> owner.release());
+    return true;
+  }
+}
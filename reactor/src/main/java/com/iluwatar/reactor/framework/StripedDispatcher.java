@@ -0,0 +1,100 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches events on a fixed set of single threaded executors (stripes). All the events of one
+ * connection go to the same stripe, so they are handled one at a time and in the order they were
+ * read, while different connections are handled in parallel on different stripes.
+ *
+ * <p>{@link ThreadPoolDispatcher} may hand two reads of the same connection to two threads that
+ * then run in any order, and {@link SameThreadDispatcher} keeps the order by blocking the reactor.
+ * This dispatcher gives the ordering of the latter with the parallelism of the former.
+ *
+ * @see ThreadPoolDispatcher
+ * @see SameThreadDispatcher
+ */
+public class StripedDispatcher implements Dispatcher {
+
+  private final ExecutorService[] stripes;
+
+  /**
+   * Creates a dispatcher with one stripe per available processor.
+   */
+  public StripedDispatcher() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a dispatcher.
+   *
+   * @param stripeCount number of stripes, i.e. threads.
+   */
+  public StripedDispatcher(int stripeCount) {
+    if (stripeCount < 1) {
+      throw new IllegalArgumentException("At least one stripe is needed");
+    }
+    stripes = new ExecutorService[stripeCount];
+    for (var i = 0; i < stripeCount; i++) {
+      stripes[i] = Executors.newSingleThreadExecutor();
+    }
+  }
+
+  /**
+   * Queues the read event on the stripe of the connection it occurred on. <br> Note that this is a
+   * non-blocking call and returns immediately.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    stripes[stripeOf(key)].execute(() -> channel.handleRead(readObject, key));
+  }
+
+  private int stripeOf(SelectionKey key) {
+    var hash = System.identityHashCode(key.channel());
+    return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+  }
+
+  /**
+   * Stops the stripes, letting them finish the events already queued.
+   *
+   * @throws InterruptedException if interrupted while stopping the stripes.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    for (var stripe : stripes) {
+      stripe.shutdown();
+    }
+    for (var stripe : stripes) {
+      if (!stripe.awaitTermination(4, TimeUnit.SECONDS)) {
+        stripe.shutdownNow();
+      }
+    }
+  }
+}
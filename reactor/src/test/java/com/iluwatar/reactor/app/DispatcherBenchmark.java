@@ -0,0 +1,80 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.iluwatar.reactor.framework.Dispatcher;
+import com.iluwatar.reactor.framework.SameThreadDispatcher;
+import com.iluwatar.reactor.framework.StripedDispatcher;
+import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load test comparing the dispatchers. For each dispatcher the {@link App} is started and an
+ * {@link AppClient} opens the given number of TCP connections, spread over the two TCP ports, that
+ * all send their log requests at the same time. Throughput and mean round trip time are printed.
+ *
+ * <p>Run {@link #main} from the test classpath; the arguments are the number of connections
+ * (default 10000) and the requests per connection (default 10). Every connection takes two file
+ * descriptors and a client thread, so 10k connections need {@code ulimit -n} above 20000.
+ */
+public class DispatcherBenchmark {
+
+  private static final Map<String, Supplier<Dispatcher>> DISPATCHERS = Map.of(
+      "SameThreadDispatcher", SameThreadDispatcher::new,
+      "ThreadPoolDispatcher", () -> new ThreadPoolDispatcher(4),
+      "StripedDispatcher", () -> new StripedDispatcher(4));
+
+  /**
+   * Benchmark entry.
+   */
+  public static void main(String[] args) throws Exception {
+    var connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    var requests = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    // logging every request would measure the console, not the dispatchers
+    ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+    for (var name : new String[] {
+        "SameThreadDispatcher", "ThreadPoolDispatcher", "StripedDispatcher"}) {
+      var app = new App(DISPATCHERS.get(name).get());
+      app.start();
+      var client = new AppClient(connections / 2, requests, 0);
+      var start = System.nanoTime();
+      client.start();
+      var finished = client.awaitCompletion(10, TimeUnit.MINUTES);
+      var seconds = (System.nanoTime() - start) / 1e9;
+      app.stop();
+      System.out.printf("%-22s %6d connections %9d requests in %7.2f s: %10.0f req/s,"
+              + " mean round trip %8.3f ms%s%n",
+          name, connections, client.getCompletedRequests(), seconds,
+          client.getCompletedRequests() / seconds, client.getMeanRoundTripNanos() / 1e6,
+          finished ? "" : " (timed out)");
+    }
+  }
+}
@@ -24,11 +24,15 @@
  */
 package com.iluwatar.reactor.app;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.iluwatar.reactor.framework.SameThreadDispatcher;
+import com.iluwatar.reactor.framework.StripedDispatcher;
 import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -102,4 +106,58 @@ class ReactorTest {
     app.stop();
     LOGGER.info("testAppUsingSameThreadDispatcher stop");
   }
+
+  /**
+   * Test the application using an event loop group with several worker loops.
+   *
+   * @throws IOException          if any I/O error occurs.
+   * @throws InterruptedException if interrupted while stopping the application.
+   */
+  @Test
+  void testAppUsingEventLoopGroup() throws IOException, InterruptedException {
+    LOGGER.info("testAppUsingEventLoopGroup start");
+    var app = new App(new ThreadPoolDispatcher(2), 2);
+    app.start();
+
+    assertNotNull(app);
+
+    var client = new AppClient();
+    client.start();
+
+    assertNotNull(client);
+
+    // allow clients to send requests. Artificial delay.
+    try {
+      Thread.sleep(2000);
+    } catch (InterruptedException e) {
+      LOGGER.error("sleep interrupted", e);
+    }
+
+    client.stop();
+
+    app.stop();
+    LOGGER.info("testAppUsingEventLoopGroup stop");
+  }
+
+  /**
+   * Test the application using the striped dispatcher.
+   *
+   * @throws IOException          if any I/O error occurs.
+   * @throws InterruptedException if interrupted while stopping the application.
+   */
+  @Test
+  void testAppUsingStripedDispatcher() throws IOException, InterruptedException {
+    LOGGER.info("testAppUsingStripedDispatcher start");
+    var app = new App(new StripedDispatcher(2));
+    app.start();
+
+    var client = new AppClient(4, 4, 10);
+    client.start();
+
+    assertTrue(client.awaitCompletion(30, TimeUnit.SECONDS));
+    assertEquals(2 * 4 * 4, client.getCompletedRequests());
+
+    app.stop();
+    LOGGER.info("testAppUsingStripedDispatcher stop");
+  }
 }
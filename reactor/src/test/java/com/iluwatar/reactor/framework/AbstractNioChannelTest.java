@@ -0,0 +1,219 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the write path of {@link AbstractNioChannel}: partial writes, write backpressure and
+ * echoing read buffers.
+ */
+class AbstractNioChannelTest {
+
+  private static final int CHUNK = 64 * 1024;
+  private static final int CHUNKS = 32;
+
+  @Test
+  void slowReaderReceivesEverythingAndTriggersBackpressure() throws Exception {
+    var events = new CopyOnWriteArrayList<Boolean>();
+    var written = new AtomicInteger();
+    var handler = new ChannelHandler() {
+      @Override
+      public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+                                    SelectionKey key) {
+        try {
+          // keep the kernel from absorbing the reply, so it has to queue up in the channel
+          ((SocketChannel) key.channel()).setOption(StandardSocketOptions.SO_SNDBUF, 8 * 1024);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        // the handler runs on the reactor thread, so nothing is flushed while it writes
+        while (channel.isWritable(key) && written.get() < CHUNKS) {
+          channel.write(chunk(written.getAndIncrement()), key);
+        }
+      }
+
+      @Override
+      public void channelWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+                                            boolean writable) {
+        events.add(writable);
+      }
+    };
+    var channel = new NioServerSocketChannel(0, handler);
+    channel.setWriteBufferWatermarks(CHUNK, 4 * CHUNK);
+    channel.bind();
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.registerChannel(channel).start();
+
+    try (var client = new Socket()) {
+      client.setReceiveBufferSize(8 * 1024);
+      client.connect(new InetSocketAddress(InetAddress.getLocalHost(), portOf(channel)));
+      client.getOutputStream().write("go".getBytes());
+
+      // the client does not read yet, so the reply piles up in the write queue
+      awaitEvent(events, List.of(false));
+      assertTrue(written.get() < CHUNKS, "the connection never became unwritable");
+
+      var input = new DataInputStream(client.getInputStream());
+      for (var i = 0; i < written.get(); i++) {
+        var received = new byte[CHUNK];
+        input.readFully(received);
+        assertEquals(chunk(i), ByteBuffer.wrap(received), "chunk " + i);
+      }
+      awaitEvent(events, List.of(false, true));
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void handlerReceivesWholeFramesWhateverTheSegmentation() throws Exception {
+    var frames = new CopyOnWriteArrayList<String>();
+    ChannelHandler handler = (channel, readObject, key) -> {
+      var frame = (ByteBuffer) readObject;
+      frames.add(StandardCharsets.UTF_8.decode(frame.duplicate()).toString());
+      channel.write(ByteBuffer.wrap("ok".getBytes(StandardCharsets.UTF_8)), key);
+    };
+    var channel = new NioServerSocketChannel(0, handler);
+    channel.setFrameCodec(new LengthFieldFrameCodec(2, 1024));
+    channel.bind();
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.registerChannel(channel).start();
+
+    try (var client = new Socket(InetAddress.getLocalHost(), portOf(channel))) {
+      var output = client.getOutputStream();
+      // one frame split over two segments, then two frames pipelined in one segment
+      output.write(new byte[] {0, 5, 'h', 'e'});
+      output.flush();
+      Thread.sleep(100);
+      output.write(new byte[] {'l', 'l', 'o', 0, 1, 'a', 0, 2, 'b', 'c'});
+      output.flush();
+
+      var input = new DataInputStream(client.getInputStream());
+      for (var i = 0; i < 3; i++) {
+        assertEquals(2, input.readUnsignedShort());
+        var reply = new byte[2];
+        input.readFully(reply);
+        assertEquals("ok", new String(reply, StandardCharsets.UTF_8));
+      }
+      assertEquals(List.of("hello", "a", "bc"), frames);
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void echoedReadBufferIsNotReusedBeforeItIsWritten() throws Exception {
+    var reads = new AtomicInteger();
+    var echoKey = new AtomicReference<SelectionKey>();
+    var pendingOnSecondRead = new AtomicLong();
+    ChannelHandler handler = (channel, readObject, key) -> {
+      if (reads.getAndIncrement() == 0) {
+        echoKey.set(key);
+        try {
+          ((SocketChannel) key.channel()).setOption(StandardSocketOptions.SO_SNDBUF, 8 * 1024);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        // the reply is queued behind data the client does not read yet
+        for (var i = 0; i < 8 * CHUNKS; i++) {
+          channel.write(chunk(i), key);
+        }
+        channel.write(readObject, key);
+      } else {
+        pendingOnSecondRead.set(channel.getPendingWriteBytes(echoKey.get()));
+      }
+    };
+    var allocator = new PooledBufferAllocator();
+    var channel = new NioServerSocketChannel(0, handler);
+    channel.setAllocator(allocator);
+    channel.bind();
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    reactor.registerChannel(channel).start();
+
+    try (var client = new Socket(); var other = new Socket()) {
+      client.setReceiveBufferSize(8 * 1024);
+      client.connect(new InetSocketAddress(InetAddress.getLocalHost(), portOf(channel)));
+      client.getOutputStream().write("first".getBytes(StandardCharsets.UTF_8));
+      Thread.sleep(100);
+      // read into the chunk the first message used, had it been released
+      other.connect(new InetSocketAddress(InetAddress.getLocalHost(), portOf(channel)));
+      other.getOutputStream().write("XXXXX".getBytes(StandardCharsets.UTF_8));
+      Thread.sleep(100);
+
+      var input = new DataInputStream(client.getInputStream());
+      input.readFully(new byte[8 * CHUNKS * CHUNK]);
+      assertTrue(pendingOnSecondRead.get() > 0, "echo written before the second read");
+      var echo = new byte[5];
+      input.readFully(echo);
+      assertEquals("first", new String(echo, StandardCharsets.UTF_8));
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  private static int portOf(NioServerSocketChannel channel) {
+    return channel.getJavaChannel().socket().getLocalPort();
+  }
+
+  private static ByteBuffer chunk(int index) {
+    var buffer = ByteBuffer.allocate(CHUNK);
+    while (buffer.hasRemaining()) {
+      buffer.put((byte) (index + buffer.position() % 7));
+    }
+    return buffer.flip();
+  }
+
+  private static void awaitEvent(List<Boolean> events, List<Boolean> expected)
+      throws InterruptedException {
+    var deadline = System.currentTimeMillis() + 5000;
+    while (!events.equals(expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(events.equals(expected), "writability events " + events);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Read path of a channel: a message is written into a {@link Pipe} and read back the way the
+ * reactor channels do it, either into a fresh 1024 byte heap buffer per read (the former
+ * behaviour) or into a chunk of a {@link PooledBufferAllocator}. Run {@link #main} from the test
+ * classpath; the GC profiler reports the allocation rate ({@code gc.alloc.rate.norm}) of both.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BufferAllocationBenchmark {
+
+  @Param({"64", "512", "1024"})
+  public int messageSize;
+
+  private final PooledBufferAllocator allocator = new PooledBufferAllocator();
+  private Pipe pipe;
+  private ByteBuffer message;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+    message = ByteBuffer.allocateDirect(messageSize);
+    while (message.hasRemaining()) {
+      message.put((byte) 'x');
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    pipe.sink().close();
+    pipe.source().close();
+  }
+
+  @Benchmark
+  public void heapBufferPerRead(Blackhole blackhole) throws IOException {
+    send();
+    var buffer = ByteBuffer.allocate(1024);
+    pipe.source().read(buffer);
+    buffer.flip();
+    blackhole.consume(buffer.get(0));
+  }
+
+  @Benchmark
+  public void pooledDirectBuffer(Blackhole blackhole) throws IOException {
+    send();
+    var buffer = allocator.allocate(1024);
+    try {
+      pipe.source().read(buffer.nioBuffer());
+      buffer.nioBuffer().flip();
+      blackhole.consume(buffer.nioBuffer().get(0));
+    } finally {
+      buffer.release();
+    }
+  }
+
+  private void send() throws IOException {
+    message.clear();
+    pipe.sink().write(message);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(BufferAllocationBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the {@link FrameCodec} implementations.
+ */
+class FrameCodecTest {
+
+  @Test
+  void lengthFieldDecodesPipelinedFramesAndWaitsForPartialOnes() throws Exception {
+    var codec = new LengthFieldFrameCodec(2, 100);
+    var in = ByteBuffer.allocate(32);
+    for (var frame : codec.encode(bytes("one"))) {
+      in.put(frame);
+    }
+    for (var frame : codec.encode(bytes("three"))) {
+      in.put(frame);
+    }
+    in.put((byte) 0).put((byte) 9).put(bytes("par")).flip();
+
+    assertEquals("one", string(codec.decode(in)));
+    assertEquals("three", string(codec.decode(in)));
+    var position = in.position();
+    assertNull(codec.decode(in));
+    assertEquals(position, in.position());
+  }
+
+  @Test
+  void lengthFieldRejectsOversizedFrames() {
+    var codec = new LengthFieldFrameCodec(4, 10);
+    var in = ByteBuffer.allocate(4).putInt(11).flip();
+    assertThrows(CorruptedFrameException.class, () -> codec.decode(in));
+    assertThrows(IllegalArgumentException.class, () -> codec.encode(ByteBuffer.allocate(11)));
+  }
+
+  @Test
+  void linesStripDelimiterAndCarriageReturn() throws Exception {
+    var codec = DelimiterFrameCodec.lines(16);
+    var in = bytes("first\r\nsecond\nthi");
+
+    assertEquals("first", string(codec.decode(in)));
+    assertEquals("second", string(codec.decode(in)));
+    assertNull(codec.decode(in));
+    assertEquals("thi", string(in));
+  }
+
+  @Test
+  void delimiterMayBeSeveralBytes() throws Exception {
+    var codec = new DelimiterFrameCodec("||".getBytes(StandardCharsets.UTF_8), 16);
+    var in = bytes("a|b||c||");
+
+    assertEquals("a|b", string(codec.decode(in)));
+    assertEquals("c", string(codec.decode(in)));
+    assertEquals(0, in.remaining());
+  }
+
+  @Test
+  void delimiterMissingForTooLongIsCorrupted() {
+    var codec = DelimiterFrameCodec.lines(4);
+    assertThrows(CorruptedFrameException.class, () -> codec.decode(bytes("abcdefgh")));
+  }
+
+  @Test
+  void fixedLengthSplitsEvenly() {
+    var codec = new FixedLengthFrameCodec(3);
+    var in = bytes("abcdefgh");
+
+    assertEquals("abc", string(codec.decode(in)));
+    assertEquals("def", string(codec.decode(in)));
+    assertNull(codec.decode(in));
+    assertThrows(IllegalArgumentException.class, () -> codec.encode(bytes("ab")));
+  }
+
+  private static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String string(ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+  }
+}
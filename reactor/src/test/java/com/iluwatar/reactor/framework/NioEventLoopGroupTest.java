@@ -0,0 +1,94 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link NioEventLoopGroup}.
+ */
+class NioEventLoopGroupTest {
+
+  private static final int PORT = 16680;
+
+  @Test
+  void acceptedConnectionsAreSpreadOverWorkers() throws Exception {
+    var dispatcher = new SameThreadDispatcher();
+    var group = new NioEventLoopGroup(dispatcher, 1, 2,
+        NioEventLoopGroup.LoadBalancing.ROUND_ROBIN);
+    var channel = new NioServerSocketChannel(PORT, (ch, data, key) -> { });
+    channel.bind();
+    group.registerChannel(channel).start();
+
+    var clients = new ArrayList<Socket>();
+    try {
+      for (var i = 0; i < 4; i++) {
+        clients.add(new Socket(InetAddress.getLocalHost(), PORT));
+      }
+      var deadline = System.currentTimeMillis() + 5000;
+      while (totalConnections(group) < 4 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(2, group.getWorkers().get(0).getConnectionCount());
+      assertEquals(2, group.getWorkers().get(1).getConnectionCount());
+    } finally {
+      for (var client : clients) {
+        client.close();
+      }
+      group.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void leastConnectionsPicksIdleWorker() throws IOException {
+    var group = new NioEventLoopGroup(new SameThreadDispatcher(), 1, 3,
+        NioEventLoopGroup.LoadBalancing.LEAST_CONNECTIONS);
+    try (var connection = SocketChannel.open()) {
+      group.getWorkers().get(0).registerAccepted(connection,
+          new NioServerSocketChannel(0, (ch, data, key) -> { }));
+      assertEquals(0, group.nextWorker().getConnectionCount());
+    }
+  }
+
+  @Test
+  void rejectsEmptyGroup() {
+    assertThrows(IllegalArgumentException.class, () -> new NioEventLoopGroup(
+        new SameThreadDispatcher(), 1, 0, NioEventLoopGroup.LoadBalancing.ROUND_ROBIN));
+  }
+
+  private static int totalConnections(NioEventLoopGroup group) {
+    return group.getWorkers().stream().mapToInt(NioReactor::getConnectionCount).sum();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link PooledBufferAllocator}, {@link PooledBuffer} and {@link CompositeBuffer}.
+ */
+class PooledBufferAllocatorTest {
+
+  private final PooledBufferAllocator allocator = new PooledBufferAllocator();
+
+  @Test
+  void releasedBufferIsReused() {
+    var first = allocator.allocate(1000);
+    assertTrue(first.nioBuffer().isDirect());
+    assertEquals(1000, first.nioBuffer().limit());
+    assertEquals(1024, first.nioBuffer().capacity());
+    first.nioBuffer().put((byte) 1);
+    assertTrue(first.release());
+
+    var second = allocator.allocate(700);
+    assertSame(first, second);
+    assertEquals(0, second.nioBuffer().position());
+    assertEquals(700, second.nioBuffer().limit());
+  }
+
+  @Test
+  void slabIsReservedOncePerSizeClass() {
+    var buffers = new PooledBuffer[8];
+    for (var i = 0; i < buffers.length; i++) {
+      buffers[i] = allocator.allocate(4096);
+    }
+    var reserved = allocator.getReservedBytes();
+    for (var buffer : buffers) {
+      buffer.release();
+    }
+    allocator.allocate(4096).release();
+    assertEquals(reserved, allocator.getReservedBytes());
+  }
+
+  @Test
+  void bufferIsRecycledOnlyWhenLastReferenceIsReleased() {
+    var buffer = allocator.allocate(512);
+    var pooled = allocator.getPooledChunks(512);
+    buffer.retain();
+    assertFalse(buffer.release());
+    assertEquals(pooled, allocator.getPooledChunks(512));
+    assertTrue(buffer.release());
+    assertEquals(pooled + 1, allocator.getPooledChunks(512));
+    assertThrows(IllegalStateException.class, buffer::release);
+    assertThrows(IllegalStateException.class, buffer::retain);
+  }
+
+  @Test
+  void oversizedRequestIsNotPooled() {
+    var buffer = allocator.allocate(PooledBufferAllocator.MAX_CHUNK_SIZE + 1);
+    assertEquals(1, allocator.getUnpooledAllocations());
+    assertEquals(PooledBufferAllocator.MAX_CHUNK_SIZE + 1, buffer.nioBuffer().capacity());
+    assertTrue(buffer.release());
+  }
+
+  @Test
+  void compositeSpansChunksAndReleasesThem() {
+    var size = PooledBufferAllocator.MAX_CHUNK_SIZE * 2 + 100;
+    var composite = allocator.allocateComposite(size);
+    assertEquals(3, composite.numComponents());
+    for (var buffer : composite.nioBuffers()) {
+      while (buffer.hasRemaining()) {
+        buffer.put((byte) 7);
+      }
+      buffer.flip();
+    }
+    assertEquals(size, composite.readableBytes());
+    ByteBuffer merged = composite.nioBuffer();
+    assertEquals(size, merged.remaining());
+    assertEquals(7, merged.get(size - 1));
+
+    var pooled = allocator.getPooledChunks(PooledBufferAllocator.MAX_CHUNK_SIZE);
+    assertTrue(composite.release());
+    assertEquals(pooled + 2, allocator.getPooledChunks(PooledBufferAllocator.MAX_CHUNK_SIZE));
+    assertEquals(0, composite.numComponents());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link StripedDispatcher}.
+ */
+class StripedDispatcherTest {
+
+  private static final int EVENTS = 2000;
+
+  @Test
+  void eventsOfOneConnectionAreHandledInOrder() throws Exception {
+    Map<SelectionKey, List<Integer>> handled = new ConcurrentHashMap<>();
+    var threads = new CopyOnWriteArrayList<Thread>();
+    ChannelHandler handler = (channel, readObject, key) -> {
+      threads.addIfAbsent(Thread.currentThread());
+      handled.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add((Integer) readObject);
+    };
+    var channel = new AbstractNioChannel(handler, Pipe.open().source()) {
+      @Override
+      public int getInterestedOps() {
+        return SelectionKey.OP_READ;
+      }
+
+      @Override
+      public void bind() {
+        // not bound to any address
+      }
+
+      @Override
+      public Object read(SelectionKey key) {
+        return null;
+      }
+
+      @Override
+      protected void doWrite(Object pendingWrite, SelectionKey key) {
+        // nothing is written
+      }
+    };
+
+    var keys = new ArrayList<SelectionKey>();
+    try (var selector = Selector.open()) {
+      for (var i = 0; i < 8; i++) {
+        var source = Pipe.open().source();
+        source.configureBlocking(false);
+        keys.add(source.register(selector, SelectionKey.OP_READ));
+      }
+      var dispatcher = new StripedDispatcher(4);
+      for (var event = 0; event < EVENTS; event++) {
+        for (var key : keys) {
+          dispatcher.onChannelReadEvent(channel, event, key);
+        }
+      }
+      dispatcher.stop();
+    }
+
+    for (var key : keys) {
+      var events = handled.get(key);
+      assertEquals(EVENTS, events.size());
+      for (var event = 0; event < EVENTS; event++) {
+        assertEquals(event, events.get(event));
+      }
+    }
+    assertTrue(threads.size() <= 4);
+  }
+}
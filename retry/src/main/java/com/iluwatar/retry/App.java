@@ -54,6 +54,11 @@ import org.slf4j.LoggerFactory;
  * <p>To keep the calling code as decoupled as possible from this workaround, we have implemented
  * the retry mechanism as a {@link BusinessOperation} named {@link Retry}.
  *
+ * <p>{@link Retry} keeps the calling thread asleep between the attempts. {@link AsyncRetry}
+ * schedules the attempts on a shared timer instead and returns a future, so many operations can be
+ * retried at the same time without tying up a thread each, and a shared {@link RetryBudget} keeps
+ * their retries from overwhelming the database.
+ *
  * @author George Aristy (george.aristy@gmail.com)
  * @see <a href="https://docs.microsoft.com/en-us/azure/architecture/patterns/retry">Retry pattern
  *     (Microsoft Azure Docs)</a>
@@ -74,6 +79,7 @@ public final class App {
     errorNoRetry();
     errorWithRetry();
     errorWithRetryExponentialBackoff();
+    errorWithAsyncRetry();
   }
 
   private static void noErrors() throws Exception {
@@ -120,4 +126,21 @@ public final class App {
             + "the result %s after a number of attempts %s", customerId, retry.attempts()
     ));
   }
+
+  private static void errorWithAsyncRetry() throws Exception {
+    final var budget = new RetryBudget(0.2, 10);
+    final var retry = AsyncRetry.builder(
+            new FindCustomer("123", new CustomerNotFoundException(NOT_FOUND),
+                new CustomerNotFoundException(NOT_FOUND)))
+        .maxAttempts(5)
+        .backoff(Backoff.decorrelatedJitter(50, 1000))
+        .ignore(e -> CustomerNotFoundException.class.isAssignableFrom(e.getClass()))
+        .budget(budget)
+        .build();
+    final var customerId = retry.perform().get();
+    LOG.info(String.format(
+        "Retrying asynchronously yields the result %s without blocking a thread between %s "
+            + "retries", customerId, budget.retries()
+    ));
+  }
 }
@@ -0,0 +1,238 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Retries a {@link BusinessOperation business operation} without holding a thread between the
+ * attempts. Every retry is scheduled on a shared {@link ScheduledExecutorService} and handed to an
+ * executor once its delay has passed, so thousands of operations waiting for their next attempt
+ * cost no more than their pending timers.
+ *
+ * <p>Unlike {@link Retry} the errors and attempts are not kept in the instance: one instance can
+ * perform any number of concurrent operations, each with its own attempts. The future of an
+ * operation that runs out of attempts fails with the last error.
+ *
+ * @param <T> the remote op's return type
+ */
+public final class AsyncRetry<T> {
+  private static final ScheduledExecutorService SHARED_SCHEDULER = sharedScheduler();
+
+  private final BusinessOperation<T> op;
+  private final int maxAttempts;
+  private final Backoff backoff;
+  private final Predicate<Exception> test;
+  private final RetryBudget budget;
+  private final ScheduledExecutorService scheduler;
+  private final Executor executor;
+
+  private AsyncRetry(Builder<T> builder) {
+    this.op = builder.op;
+    this.maxAttempts = builder.maxAttempts;
+    this.backoff = builder.backoff;
+    this.test = builder.test;
+    this.budget = builder.budget;
+    this.scheduler = builder.scheduler;
+    this.executor = builder.executor;
+  }
+
+  /**
+   * Starts building a retrying operation.
+   *
+   * @param op  the {@link BusinessOperation} to retry
+   * @param <T> the remote op's return type
+   * @return the builder
+   */
+  public static <T> Builder<T> builder(BusinessOperation<T> op) {
+    return new Builder<>(op);
+  }
+
+  /**
+   * Performs the operation, retrying it until it succeeds, fails with an error that cannot be
+   * ignored, runs out of attempts or the retry budget is exhausted. Cancelling the returned future
+   * stops further attempts.
+   *
+   * @return future of the return value
+   */
+  public CompletableFuture<T> perform() {
+    var result = new CompletableFuture<T>();
+    if (this.budget != null) {
+      this.budget.onRequest();
+    }
+    submit(result, 1, 0);
+    return result;
+  }
+
+  private void submit(CompletableFuture<T> result, int attempt, long delay) {
+    try {
+      this.executor.execute(() -> attempt(result, attempt, delay));
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  private void attempt(CompletableFuture<T> result, int attempt, long delay) {
+    if (result.isDone()) {
+      return;
+    }
+    try {
+      result.complete(this.op.perform());
+    } catch (BusinessException e) {
+      if (attempt >= this.maxAttempts || !this.test.test(e)
+          || (this.budget != null && !this.budget.tryAcquireRetry())) {
+        result.completeExceptionally(e);
+        return;
+      }
+      var nextDelay = this.backoff.delay(attempt, delay);
+      try {
+        this.scheduler.schedule(() -> submit(result, attempt + 1, nextDelay), nextDelay,
+            TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException f) {
+        result.completeExceptionally(e);
+      }
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  private static ScheduledExecutorService sharedScheduler() {
+    var scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      var thread = new Thread(runnable, "retry-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  /**
+   * Builder of {@link AsyncRetry}.
+   *
+   * @param <T> the remote op's return type
+   */
+  public static final class Builder<T> {
+    private final BusinessOperation<T> op;
+    private int maxAttempts = 3;
+    private Backoff backoff = Backoff.fixed(100);
+    private Predicate<Exception> test = e -> false;
+    private RetryBudget budget;
+    private ScheduledExecutorService scheduler = SHARED_SCHEDULER;
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private Builder(BusinessOperation<T> op) {
+      this.op = op;
+    }
+
+    /**
+     * Sets the number of attempts, 3 by default.
+     *
+     * @param maxAttempts number of attempts, including the first one
+     * @return this builder
+     */
+    public Builder<T> maxAttempts(int maxAttempts) {
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Sets the delays between attempts, 100 ms by default.
+     *
+     * @param backoff the backoff
+     * @return this builder
+     */
+    public Builder<T> backoff(Backoff backoff) {
+      this.backoff = backoff;
+      return this;
+    }
+
+    /**
+     * Sets the tests to check whether an exception can be ignored and the operation retried. No
+     * exceptions are ignored by default.
+     *
+     * @param ignoreTests tests to check whether the remote exception can be ignored
+     * @return this builder
+     */
+    @SafeVarargs
+    public final Builder<T> ignore(Predicate<Exception>... ignoreTests) {
+      this.test = Arrays.stream(ignoreTests).reduce(Predicate::or).orElse(e -> false);
+      return this;
+    }
+
+    /**
+     * Sets the retry budget, which may be shared with other operations. Retries are not limited
+     * by a budget by default.
+     *
+     * @param budget the retry budget
+     * @return this builder
+     */
+    public Builder<T> budget(RetryBudget budget) {
+      this.budget = budget;
+      return this;
+    }
+
+    /**
+     * Sets the scheduler of the retries. By default all operations share one scheduler thread.
+     *
+     * @param scheduler the scheduler
+     * @return this builder
+     */
+    public Builder<T> scheduler(ScheduledExecutorService scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    /**
+     * Sets the executor of the attempts, the common fork join pool by default.
+     *
+     * @param executor the executor
+     * @return this builder
+     */
+    public Builder<T> executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Builds the retrying operation.
+     *
+     * @return the retrying operation
+     */
+    public AsyncRetry<T> build() {
+      if (this.maxAttempts < 1) {
+        throw new IllegalArgumentException("At least one attempt is needed: " + this.maxAttempts);
+      }
+      return new AsyncRetry<>(this);
+    }
+  }
+}
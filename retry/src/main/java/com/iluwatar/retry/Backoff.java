@@ -0,0 +1,83 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Computes the delay before the next attempt of a retried {@link BusinessOperation}.
+ */
+@FunctionalInterface
+public interface Backoff {
+  /**
+   * Computes the delay before the next attempt.
+   *
+   * @param retry         the number of the retry, 1 for the first retry
+   * @param previousDelay the delay (in milliseconds) before the previous retry, 0 for the first
+   * @return the delay (in milliseconds) before the next attempt
+   */
+  long delay(int retry, long previousDelay);
+
+  /**
+   * The same delay before every attempt.
+   *
+   * @param delay delay (in milliseconds) between attempts
+   * @return the backoff
+   */
+  static Backoff fixed(long delay) {
+    return (retry, previousDelay) -> delay;
+  }
+
+  /**
+   * Exponentially growing delays with up to a second of random jitter, as in
+   * {@link RetryExponentialBackoff}.
+   *
+   * @param maxDelay maximum delay (in milliseconds) between attempts
+   * @return the backoff
+   */
+  static Backoff exponential(long maxDelay) {
+    return (retry, previousDelay) -> Math.min(
+        (long) Math.pow(2, retry) * 1000 + ThreadLocalRandom.current().nextInt(1000), maxDelay);
+  }
+
+  /**
+   * Decorrelated jitter: every delay is drawn at random between the base delay and three times the
+   * previous delay, capped at the maximum delay. The delays grow about as fast as exponential ones,
+   * but the attempts of operations that failed at the same moment spread out instead of hitting
+   * the remote system again in lock step.
+   *
+   * @param baseDelay minimum delay (in milliseconds) between attempts
+   * @param maxDelay  maximum delay (in milliseconds) between attempts
+   * @return the backoff
+   */
+  static Backoff decorrelatedJitter(long baseDelay, long maxDelay) {
+    return (retry, previousDelay) -> {
+      var upperBound = Math.max(baseDelay, previousDelay * 3);
+      var delay = upperBound > baseDelay
+          ? ThreadLocalRandom.current().nextLong(baseDelay, upperBound + 1) : baseDelay;
+      return Math.min(delay, maxDelay);
+    };
+  }
+}
@@ -102,7 +102,9 @@ public final class Retry<T> implements BusinessOperation<T> {
         try {
           Thread.sleep(this.delay);
         } catch (InterruptedException f) {
-          //ignore
+          // give up, keeping the interrupt for the caller
+          Thread.currentThread().interrupt();
+          throw e;
         }
       }
     } while (true);
@@ -0,0 +1,120 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the retries of all operations sharing the budget at a ratio of the requests made, which
+ * keeps a failing remote system from being hit by a retry storm.
+ *
+ * <p>Every request deposits the retry ratio into the budget and every retry withdraws one whole
+ * retry from it. A retry is only allowed while at least one retry is left, so over time no more
+ * than ratio × requests retries are made. The balance is capped, so a long healthy period cannot
+ * save up for an unbounded burst of retries later. Depositing and withdrawing is lock-free.
+ */
+public final class RetryBudget {
+  private static final long UNIT = 1000;
+
+  private final long deposit;
+  private final long capacity;
+  private final AtomicLong balance;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder rejectedRetries = new LongAdder();
+
+  /**
+   * Ctor.
+   *
+   * @param retryRatio  retries allowed per request, for example 0.1 for one retry in ten requests
+   * @param burstRetries retries the budget holds at most, and holds when it is created
+   */
+  public RetryBudget(double retryRatio, int burstRetries) {
+    if (retryRatio < 0 || burstRetries < 0) {
+      throw new IllegalArgumentException("Retry ratio and burst must not be negative");
+    }
+    this.deposit = Math.round(retryRatio * UNIT);
+    this.capacity = Math.max(burstRetries, 1) * UNIT;
+    this.balance = new AtomicLong(burstRetries * UNIT);
+  }
+
+  /**
+   * Records a request, depositing the retry ratio.
+   */
+  public void onRequest() {
+    this.requests.increment();
+    var current = this.balance.get();
+    while (current < this.capacity
+        && !this.balance.compareAndSet(current, Math.min(current + this.deposit, this.capacity))) {
+      current = this.balance.get();
+    }
+  }
+
+  /**
+   * Withdraws a retry from the budget.
+   *
+   * @return whether the retry may be made
+   */
+  public boolean tryAcquireRetry() {
+    var current = this.balance.get();
+    while (current >= UNIT) {
+      if (this.balance.compareAndSet(current, current - UNIT)) {
+        this.retries.increment();
+        return true;
+      }
+      current = this.balance.get();
+    }
+    this.rejectedRetries.increment();
+    return false;
+  }
+
+  /**
+   * The number of requests recorded.
+   *
+   * @return the number of requests recorded
+   */
+  public long requests() {
+    return this.requests.sum();
+  }
+
+  /**
+   * The number of retries allowed.
+   *
+   * @return the number of retries allowed
+   */
+  public long retries() {
+    return this.retries.sum();
+  }
+
+  /**
+   * The number of retries refused because the budget was exhausted.
+   *
+   * @return the number of retries refused
+   */
+  public long rejectedRetries() {
+    return this.rejectedRetries.sum();
+  }
+}
@@ -105,7 +105,9 @@ public final class RetryExponentialBackoff<T> implements BusinessOperation<T> {
           var delay = Math.min(testDelay, this.maxDelay);
           Thread.sleep(delay);
         } catch (InterruptedException f) {
-          //ignore
+          // give up, keeping the interrupt for the caller
+          Thread.currentThread().interrupt();
+          throw e;
         }
       }
     } while (true);
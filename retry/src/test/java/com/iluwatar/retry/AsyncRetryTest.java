@@ -0,0 +1,161 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.retry;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link AsyncRetry}.
+ */
+class AsyncRetryTest {
+
+  /**
+   * Should retry ignored errors until the operation succeeds.
+   */
+  @Test
+  void retriesUntilSuccess() throws Exception {
+    var retry = AsyncRetry.builder(new FindCustomer("123",
+            new CustomerNotFoundException("not found"), new CustomerNotFoundException("not found")))
+        .maxAttempts(3)
+        .backoff(Backoff.fixed(1))
+        .ignore(e -> e instanceof CustomerNotFoundException)
+        .build();
+
+    assertThat(retry.perform().get(), is("123"));
+  }
+
+  /**
+   * Should fail with an error that is not ignored without retrying.
+   */
+  @Test
+  void failsOnErrorsThatAreNotIgnored() {
+    var attempts = new AtomicInteger();
+    var retry = AsyncRetry.<String>builder(() -> {
+      attempts.incrementAndGet();
+      throw new DatabaseNotAvailableException("not available");
+    })
+        .ignore(e -> e instanceof CustomerNotFoundException)
+        .build();
+
+    var exception = assertThrows(ExecutionException.class, () -> retry.perform().get());
+    assertThat(exception.getCause(), instanceOf(DatabaseNotAvailableException.class));
+    assertThat(attempts.get(), is(1));
+  }
+
+  /**
+   * Should fail with the last error once the attempts are used up.
+   */
+  @Test
+  void failsAfterMaxAttempts() {
+    var attempts = new AtomicInteger();
+    var retry = AsyncRetry.<String>builder(() -> {
+      throw new CustomerNotFoundException("attempt " + attempts.incrementAndGet());
+    })
+        .maxAttempts(4)
+        .backoff(Backoff.decorrelatedJitter(1, 5))
+        .ignore(e -> e instanceof CustomerNotFoundException)
+        .build();
+
+    var exception = assertThrows(ExecutionException.class, () -> retry.perform().get());
+    assertThat(exception.getCause().getMessage(), is("attempt 4"));
+  }
+
+  /**
+   * Waiting operations should not hold a thread: a single attempt thread serves them all.
+   */
+  @Test
+  void waitingOperationsDoNotHoldThreads() throws Exception {
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var futures = new ArrayList<CompletableFuture<String>>();
+      for (var i = 0; i < 1000; i++) {
+        futures.add(AsyncRetry.builder(new FindCustomer("id" + i,
+                new CustomerNotFoundException("not found")))
+            .backoff(Backoff.fixed(50))
+            .ignore(e -> e instanceof CustomerNotFoundException)
+            .executor(executor)
+            .build()
+            .perform());
+      }
+      for (var i = 0; i < 1000; i++) {
+        assertThat(futures.get(i).get(), is("id" + i));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Should refuse retries beyond the ratio of the budget.
+   */
+  @Test
+  void budgetCapsRetries() throws Exception {
+    var budget = new RetryBudget(0.1, 5);
+    var futures = new ArrayList<CompletableFuture<String>>();
+    for (var i = 0; i < 100; i++) {
+      futures.add(AsyncRetry.<String>builder(() -> {
+        throw new CustomerNotFoundException("not found");
+      })
+          .maxAttempts(10)
+          .backoff(Backoff.fixed(1))
+          .ignore(e -> e instanceof CustomerNotFoundException)
+          .budget(budget)
+          .build()
+          .perform());
+    }
+    for (var future : futures) {
+      assertThrows(ExecutionException.class, future::get);
+    }
+
+    assertThat(budget.requests(), is(100L));
+    assertTrue(budget.retries() <= 5 + 10, "retries: " + budget.retries());
+    assertTrue(budget.rejectedRetries() > 0);
+  }
+
+  /**
+   * Decorrelated jitter should stay between the base and the maximum delay.
+   */
+  @Test
+  void decorrelatedJitterStaysInBounds() {
+    var backoff = Backoff.decorrelatedJitter(10, 1000);
+    var delay = 0L;
+    for (var retry = 1; retry < 100; retry++) {
+      var next = backoff.delay(retry, delay);
+      assertTrue(next >= 10 && next <= 1000 && next <= Math.max(10, delay * 3));
+      delay = next;
+    }
+  }
+}
@@ -0,0 +1,345 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ShardManager with consistent hashing. Every shard owns a number of virtual nodes on a hash ring,
+ * in proportion to its weight, and a key belongs to the shard of the first virtual node at or after
+ * the hash of the key. Adding or removing a shard only moves the keys between the neighbours of
+ * its virtual nodes, about {@code 1 / shards} of the data, where {@link HashShardManager} moves
+ * nearly all of it.
+ *
+ * <p>The keys are moved in the background, one topology change at a time, while data is stored
+ * and read. A change takes effect at once, or when its migration starts if another one is still
+ * running: from then on data is stored in the new owner, and a read that misses there falls back
+ * to the owner before the change. The progress of a migration is reported by the
+ * {@link Rebalance} returned for the change.
+ */
+@Slf4j
+public class ConsistentHashShardManager extends RebalancingShardManager implements AutoCloseable {
+
+  /**
+   * Virtual nodes of a shard with weight 1; enough for a spread of a few percent between shards.
+   */
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final int virtualNodes;
+  private final Executor executor;
+  private final ExecutorService ownExecutor;
+
+  /**
+   * Weights of the shards after all changes so far, guarded by {@code this}.
+   */
+  private final Map<Integer, Integer> weights = new HashMap<>();
+
+  /**
+   * Completes when the last topology change is migrated, guarded by {@code this}.
+   */
+  private CompletableFuture<Void> migrations = CompletableFuture.completedFuture(null);
+
+  /**
+   * Ctor with {@link #DEFAULT_VIRTUAL_NODES} and a background thread of its own for migrations.
+   */
+  public ConsistentHashShardManager() {
+    this(DEFAULT_VIRTUAL_NODES, null);
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param virtualNodes virtual nodes of a shard with weight 1
+   * @param executor runs the migrations, or {@code null} for a background thread of its own
+   */
+  public ConsistentHashShardManager(int virtualNodes, Executor executor) {
+    super(Ring.EMPTY);
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+    }
+    this.virtualNodes = virtualNodes;
+    if (executor == null) {
+      this.ownExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "shard-rebalancer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.executor = ownExecutor;
+    } else {
+      this.ownExecutor = null;
+      this.executor = executor;
+    }
+  }
+
+  /**
+   * Add a shard with weight 1. The keys it takes over are moved to it in the background.
+   *
+   * @param shard new shard instance.
+   * @return {@code true} if succeed to add the new instance.
+   *         {@code false} if the shardId is already existed.
+   */
+  @Override
+  public boolean addNewShard(final Shard shard) {
+    return addNewShard(shard, 1) != null;
+  }
+
+  /**
+   * Add a shard that owns keys in proportion to its weight. The keys it takes over are moved to it
+   * in the background.
+   *
+   * @param shard new shard instance
+   * @param weight relative share of the keys
+   * @return the migration of the keys, or {@code null} if the shardId is already existed
+   */
+  public synchronized Rebalance addNewShard(final Shard shard, final int weight) {
+    if (weight < 1) {
+      throw new IllegalArgumentException("weight must be positive: " + weight);
+    }
+    if (shardMap.putIfAbsent(shard.getId(), shard) != null) {
+      return null;
+    }
+    weights.put(shard.getId(), weight);
+    var sources = new ArrayList<>(weights.keySet());
+    sources.remove((Integer) shard.getId());
+    return schedule(shard.getId(), sources, false);
+  }
+
+  /**
+   * Remove a shard once its data is moved to the other shards in the background. Until then the
+   * shard can still be looked up.
+   *
+   * @param shardId Id of shard instance to remove.
+   * @return {@code true} if removal is started. {@code false} if the shardId is not existed.
+   */
+  @Override
+  public boolean removeShardById(final int shardId) {
+    return removeShard(shardId) != null;
+  }
+
+  /**
+   * Remove a shard once its data is moved to the other shards in the background.
+   *
+   * @param shardId Id of shard instance to remove
+   * @return the migration of the data, or {@code null} if the shardId is not existed
+   * @throws IllegalStateException if it is the last shard, whose data could not be moved
+   */
+  public synchronized Rebalance removeShard(final int shardId) {
+    if (!weights.containsKey(shardId)) {
+      return null;
+    }
+    if (weights.size() == 1) {
+      throw new IllegalStateException("Cannot remove the last shard " + shardId);
+    }
+    weights.remove(shardId);
+    return schedule(shardId, List.of(shardId), true);
+  }
+
+  private Rebalance schedule(int shardId, List<Integer> sources, boolean removal) {
+    var target = Ring.of(weights, virtualNodes);
+    var rebalance = new Rebalance(shardId, removal);
+    if (migrations.isDone()) {
+      publish(target);
+    }
+    // a failed migration does not hold up the next one
+    migrations = migrations.exceptionally(error -> null)
+        .thenRunAsync(() -> migrate(target, sources, rebalance), executor);
+    migrations.whenComplete((ignored, error) -> rebalance.complete(error));
+    return rebalance;
+  }
+
+  private void migrate(Ring target, List<Integer> sourceIds, Rebalance rebalance) {
+    var sources = new ArrayList<Shard>();
+    for (var sourceId : sourceIds) {
+      var source = shardMap.get(sourceId);
+      sources.add(source);
+      rebalance.totalKeys.addAndGet(source.size());
+    }
+    if (router() != target) {
+      publish(target);
+    }
+    for (var source : sources) {
+      moveData(source, rebalance.scannedKeys, rebalance.movedKeys);
+    }
+    finishMove();
+    if (rebalance.removal) {
+      shardMap.remove(rebalance.shardId);
+    }
+    LOGGER.info("{}", rebalance);
+  }
+
+  /**
+   * Stop the background thread of its own, if any, once the scheduled migrations are done.
+   */
+  @Override
+  public void close() {
+    if (ownExecutor != null) {
+      ownExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Progress of moving keys after a shard is added or removed.
+   */
+  public static final class Rebalance {
+
+    private final int shardId;
+    private final boolean removal;
+    private final AtomicLong totalKeys = new AtomicLong();
+    private final AtomicLong scannedKeys = new AtomicLong();
+    private final AtomicLong movedKeys = new AtomicLong();
+    private final CompletableFuture<Rebalance> completion = new CompletableFuture<>();
+
+    private Rebalance(int shardId, boolean removal) {
+      this.shardId = shardId;
+      this.removal = removal;
+    }
+
+    private void complete(Throwable error) {
+      if (error == null) {
+        completion.complete(this);
+      } else {
+        completion.completeExceptionally(error);
+      }
+    }
+
+    public int getShardId() {
+      return shardId;
+    }
+
+    public boolean isRemoval() {
+      return removal;
+    }
+
+    /**
+     * Get the keys to scan, known once the migration starts.
+     *
+     * @return keys in the shards that may give keys away
+     */
+    public long getTotalKeys() {
+      return totalKeys.get();
+    }
+
+    public long getScannedKeys() {
+      return scannedKeys.get();
+    }
+
+    public long getMovedKeys() {
+      return movedKeys.get();
+    }
+
+    /**
+     * Get the share of the keys scanned so far.
+     *
+     * @return between 0 and 1, and 1 once done
+     */
+    public double getProgress() {
+      if (completion.isDone()) {
+        return 1;
+      }
+      var total = totalKeys.get();
+      return total == 0 ? 0 : Math.min(1, (double) scannedKeys.get() / total);
+    }
+
+    /**
+     * Get the completion of the migration.
+     *
+     * @return completes with this rebalance when all keys are moved
+     */
+    public CompletableFuture<Rebalance> getCompletion() {
+      return completion;
+    }
+
+    @Override
+    public String toString() {
+      return (removal ? "Removal" : "Addition") + " of Shard " + shardId + " moved "
+          + movedKeys.get() + " of " + scannedKeys.get() + " scanned keys";
+    }
+  }
+
+  /**
+   * Immutable ring of virtual nodes, sorted by their hash.
+   */
+  private static final class Ring implements Router {
+
+    private static final Ring EMPTY = new Ring(new long[0], new int[0]);
+
+    private final long[] points;
+    private final int[] shardIds;
+
+    private Ring(long[] points, int[] shardIds) {
+      this.points = points;
+      this.shardIds = shardIds;
+    }
+
+    static Ring of(Map<Integer, Integer> weights, int virtualNodes) {
+      var nodes = new ArrayList<long[]>();
+      weights.forEach((shardId, weight) -> {
+        for (var replica = 0; replica < weight * virtualNodes; replica++) {
+          nodes.add(new long[] {hash(((long) shardId << 32) | replica), shardId});
+        }
+      });
+      nodes.sort((a, b) -> Long.compare(a[0], b[0]));
+      var points = new long[nodes.size()];
+      var shardIds = new int[nodes.size()];
+      for (var i = 0; i < points.length; i++) {
+        points[i] = nodes.get(i)[0];
+        shardIds[i] = (int) nodes.get(i)[1];
+      }
+      return new Ring(points, shardIds);
+    }
+
+    @Override
+    public int shardOf(int key) {
+      if (points.length == 0) {
+        return -1;
+      }
+      var index = Arrays.binarySearch(points, hash(key));
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return shardIds[index == points.length ? 0 : index];
+    }
+
+    /**
+     * The SplitMix64 finalizer, which spreads neighbouring keys over the whole ring.
+     */
+    private static long hash(long value) {
+      var z = value + 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    }
+  }
+}
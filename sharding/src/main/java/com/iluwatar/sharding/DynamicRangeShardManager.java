@@ -0,0 +1,392 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ShardManager with ranges of keys that follow the load. Where {@link RangeShardManager} fixes a
+ * shard per {@link Data.DataType}, this manager starts with the whole key space in the first shard
+ * and splits a range when the shard that owns it is overloaded, by operations per second or by
+ * bytes. The upper part of a range moves to the least loaded shard, cut so that it carries half
+ * the difference between the two shards, going by the keys recently used in the shard, or the keys
+ * stored in it when the shard is too large. A key that carries the load alone is not split. The new
+ * routing table replaces the old one in a single write, and the keys of the upper half are moved
+ * while data is stored and read, as described in {@link RebalancingShardManager}.
+ *
+ * <p>Load is checked by {@link #checkLoad()}, on demand or every interval once {@link #start} is
+ * called. Shards added after the first one hold no keys until a split moves keys to them.
+ */
+@Slf4j
+public class DynamicRangeShardManager extends RebalancingShardManager implements AutoCloseable {
+
+  private final long maxOperationsPerSecond;
+  private final long maxBytes;
+  private final LongSupplier nanoClock;
+  private final Map<Integer, ShardLoad> loads = new ConcurrentHashMap<>();
+  private ScheduledExecutorService monitor;
+
+  /**
+   * Ctor.
+   *
+   * @param maxOperationsPerSecond stores and reads per second above which a shard is split
+   * @param maxBytes estimated bytes above which a shard is split
+   */
+  public DynamicRangeShardManager(long maxOperationsPerSecond, long maxBytes) {
+    this(maxOperationsPerSecond, maxBytes, System::nanoTime);
+  }
+
+  DynamicRangeShardManager(long maxOperationsPerSecond, long maxBytes, LongSupplier nanoClock) {
+    super(Ranges.EMPTY);
+    this.maxOperationsPerSecond = maxOperationsPerSecond;
+    this.maxBytes = maxBytes;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Add a shard. The first shard owns all keys, the others are used by later splits.
+   *
+   * @param shard new shard instance.
+   * @return {@code true} if succeed to add the new instance.
+   *         {@code false} if the shardId is already existed.
+   */
+  @Override
+  public synchronized boolean addNewShard(final Shard shard) {
+    if (shardMap.putIfAbsent(shard.getId(), shard) != null) {
+      return false;
+    }
+    loads.put(shard.getId(), new ShardLoad(shard, nanoClock.getAsLong()));
+    if (ranges().isEmpty()) {
+      publish(Ranges.all(shard.getId()));
+      finishMove();
+    }
+    return true;
+  }
+
+  /**
+   * Remove a shard after its ranges and data are moved to the least loaded other shard.
+   *
+   * @param shardId Id of shard instance to remove.
+   * @return {@code true} if removed. {@code false} if the shardId is not existed.
+   * @throws IllegalStateException if it is the last shard, whose data could not be moved
+   */
+  @Override
+  public synchronized boolean removeShardById(final int shardId) {
+    var shard = shardMap.get(shardId);
+    if (shard == null) {
+      return false;
+    }
+    var target = coolest(shardId);
+    if (target == null) {
+      throw new IllegalStateException("Cannot remove the last shard " + shardId);
+    }
+    publish(ranges().reassign(shardId, target.getShardId()));
+    moveData(shard, new AtomicLong(), new AtomicLong());
+    finishMove();
+    shardMap.remove(shardId);
+    loads.remove(shardId);
+    return true;
+  }
+
+  @Override
+  public int storeData(Data data) {
+    var shardId = super.storeData(data);
+    record(shardId, data.getKey());
+    return shardId;
+  }
+
+  @Override
+  public Data getDataById(int key) {
+    record(ranges().shardOf(key), key);
+    return super.getDataById(key);
+  }
+
+  private void record(int shardId, int key) {
+    var load = loads.get(shardId);
+    if (load != null) {
+      load.record(key);
+    }
+  }
+
+  /**
+   * Sample the load of every shard, and split a range of the most loaded shard if it is over a
+   * limit.
+   *
+   * @return the split, or {@code null} if no shard is overloaded or none can take keys
+   */
+  public synchronized Split checkLoad() {
+    var now = nanoClock.getAsLong();
+    loads.values().forEach(load -> load.sample(now));
+    var hot = loads.values().stream()
+        .filter(this::isOverloaded)
+        .max(Comparator.comparingDouble(ShardLoad::getOperationsPerSecond))
+        .orElse(null);
+    if (hot == null) {
+      return null;
+    }
+    var cool = coolest(hot.getShardId());
+    if (cool == null || isOverloaded(cool)) {
+      LOGGER.warn("{} is overloaded and no shard can take keys", hot);
+      return null;
+    }
+    return split(hot, cool);
+  }
+
+  private Split split(ShardLoad hot, ShardLoad cool) {
+    var ranges = ranges();
+    var shard = shardMap.get(hot.getShardId());
+    var byOperations = hot.getOperationsPerSecond() > maxOperationsPerSecond;
+    var keys = byOperations
+        ? hot.sampledKeys()
+        : shard.getAllData().stream().mapToInt(Data::getKey).sorted().toArray();
+    // samples taken before the last split may belong to another shard by now
+    keys = Arrays.stream(keys).filter(key -> ranges.shardOf(key) == hot.getShardId()).toArray();
+    if (keys.length == 0) {
+      return null;
+    }
+    // move half the difference to the coolest shard, so that the two end up even
+    var share = byOperations
+        ? (hot.getOperationsPerSecond() - cool.getOperationsPerSecond())
+            / hot.getOperationsPerSecond()
+        : (hot.getBytes() - cool.getBytes()) / (double) hot.getBytes();
+    var wanted = Math.max(1, Math.round(keys.length * share / 2));
+    var pivot = keys[(int) (keys.length - wanted)];
+    var index = ranges.indexOf(pivot);
+    var lowerBound = ranges.lowerBounds[index];
+    var upperBound = ranges.upperBound(index);
+    var end = firstAtLeast(keys, upperBound);
+    // the pivot goes with the keys above it, or stays with the keys below, whichever is closer
+    var fromKey = -1L;
+    var bestDistance = Long.MAX_VALUE;
+    for (var candidate : new long[] {pivot, pivot + 1L}) {
+      var moving = end - firstAtLeast(keys, candidate);
+      var distance = Math.abs(moving - wanted);
+      if (candidate > lowerBound && candidate < upperBound && moving > 0 && moving < keys.length
+          && distance < bestDistance) {
+        fromKey = candidate;
+        bestDistance = distance;
+      }
+    }
+    if (fromKey < 0) {
+      LOGGER.warn("{} is overloaded by the single key {}", hot, pivot);
+      return null;
+    }
+    publish(ranges.split(index, (int) fromKey, cool.getShardId()));
+    var moved = new AtomicLong();
+    moveData(shard, new AtomicLong(), moved);
+    finishMove();
+    hot.clearSampledKeys();
+    var split = new Split(hot.getShardId(), cool.getShardId(), (int) fromKey, upperBound,
+        moved.get());
+    LOGGER.info("{} after {}", split, hot);
+    return split;
+  }
+
+  private static int firstAtLeast(int[] sorted, long key) {
+    var low = 0;
+    var high = sorted.length;
+    while (low < high) {
+      var middle = (low + high) >>> 1;
+      if (sorted[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private boolean isOverloaded(ShardLoad load) {
+    return load.getOperationsPerSecond() > maxOperationsPerSecond || load.getBytes() > maxBytes;
+  }
+
+  private ShardLoad coolest(int exceptShardId) {
+    return loads.values().stream()
+        .filter(load -> load.getShardId() != exceptShardId)
+        .min(Comparator.comparingDouble(ShardLoad::getOperationsPerSecond)
+            .thenComparingLong(ShardLoad::getBytes))
+        .orElse(null);
+  }
+
+  private Ranges ranges() {
+    return (Ranges) router();
+  }
+
+  /**
+   * Check the load every interval in the background, until closed.
+   *
+   * @param interval time between two checks, which is also the time the load is measured over
+   */
+  public synchronized void start(Duration interval) {
+    if (monitor != null) {
+      return;
+    }
+    monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "shard-load-monitor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    monitor.scheduleAtFixedRate(() -> {
+      try {
+        checkLoad();
+      } catch (RuntimeException e) {
+        LOGGER.error("Checking the load of the shards failed", e);
+      }
+    }, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Stop checking the load in the background.
+   */
+  @Override
+  public synchronized void close() {
+    if (monitor != null) {
+      monitor.shutdownNow();
+      monitor = null;
+    }
+  }
+
+  public ShardLoad getLoad(int shardId) {
+    return loads.get(shardId);
+  }
+
+  public Collection<ShardLoad> getLoads() {
+    return List.copyOf(loads.values());
+  }
+
+  /**
+   * Get the routing table.
+   *
+   * @return id of the owning shard by the first key of every range
+   */
+  public SortedMap<Integer, Integer> getRanges() {
+    var ranges = ranges();
+    var table = new TreeMap<Integer, Integer>();
+    for (var i = 0; i < ranges.lowerBounds.length; i++) {
+      table.put(ranges.lowerBounds[i], ranges.shardIds[i]);
+    }
+    return Collections.unmodifiableSortedMap(table);
+  }
+
+  /**
+   * A range of keys that moved from an overloaded shard.
+   *
+   * @param fromShardId id of the overloaded shard
+   * @param toShardId id of the shard that took the keys
+   * @param fromKey first key of the range that moved
+   * @param toKey key after the last key of the range that moved
+   * @param movedKeys number of data moved
+   */
+  public record Split(int fromShardId, int toShardId, int fromKey, long toKey, long movedKeys) {
+
+    @Override
+    public String toString() {
+      return "Keys [" + fromKey + ", " + toKey + ") moved " + movedKeys + " data from Shard "
+          + fromShardId + " to Shard " + toShardId;
+    }
+  }
+
+  /**
+   * Immutable routing table of contiguous key ranges, sorted by their first key.
+   */
+  private static final class Ranges implements Router {
+
+    private static final Ranges EMPTY = new Ranges(new int[0], new int[0]);
+
+    private final int[] lowerBounds;
+    private final int[] shardIds;
+
+    private Ranges(int[] lowerBounds, int[] shardIds) {
+      this.lowerBounds = lowerBounds;
+      this.shardIds = shardIds;
+    }
+
+    static Ranges all(int shardId) {
+      return new Ranges(new int[] {Integer.MIN_VALUE}, new int[] {shardId});
+    }
+
+    boolean isEmpty() {
+      return lowerBounds.length == 0;
+    }
+
+    @Override
+    public int shardOf(int key) {
+      return isEmpty() ? -1 : shardIds[indexOf(key)];
+    }
+
+    int indexOf(int key) {
+      var index = Arrays.binarySearch(lowerBounds, key);
+      return index >= 0 ? index : -index - 2;
+    }
+
+    long upperBound(int index) {
+      return index + 1 < lowerBounds.length ? lowerBounds[index + 1] : Integer.MAX_VALUE + 1L;
+    }
+
+    Ranges split(int index, int fromKey, int shardId) {
+      var bounds = new int[lowerBounds.length + 1];
+      var ids = new int[shardIds.length + 1];
+      System.arraycopy(lowerBounds, 0, bounds, 0, index + 1);
+      System.arraycopy(shardIds, 0, ids, 0, index + 1);
+      bounds[index + 1] = fromKey;
+      ids[index + 1] = shardId;
+      System.arraycopy(lowerBounds, index + 1, bounds, index + 2, lowerBounds.length - index - 1);
+      System.arraycopy(shardIds, index + 1, ids, index + 2, shardIds.length - index - 1);
+      return new Ranges(bounds, ids);
+    }
+
+    /**
+     * Give the ranges of a shard to another one, merging ranges that end up next to each other.
+     */
+    Ranges reassign(int fromShardId, int toShardId) {
+      var bounds = new int[lowerBounds.length];
+      var ids = new int[shardIds.length];
+      var size = 0;
+      for (var i = 0; i < lowerBounds.length; i++) {
+        var id = shardIds[i] == fromShardId ? toShardId : shardIds[i];
+        if (size == 0 || ids[size - 1] != id) {
+          bounds[size] = lowerBounds[i];
+          ids[size++] = id;
+        }
+      }
+      return new Ranges(Arrays.copyOf(bounds, size), Arrays.copyOf(ids, size));
+    }
+  }
+}
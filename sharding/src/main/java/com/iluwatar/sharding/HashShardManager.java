@@ -40,7 +40,7 @@ public class HashShardManager extends ShardManager {
     var shardId = allocateShard(data);
     var shard = shardMap.get(shardId);
     shard.storeData(data);
-    LOGGER.info(data.toString() + " is stored in Shard " + shardId);
+    LOGGER.info("{} is stored in Shard {}", data, shardId);
     return shardId;
   }
 
@@ -24,10 +24,10 @@
  */
 package com.iluwatar.sharding;
 
-import java.security.SecureRandom;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -38,27 +38,29 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LookupShardManager extends ShardManager {
 
-  private final Map<Integer, Integer> lookupMap = new HashMap<>();
+  private final Map<Integer, Integer> lookupMap = new ConcurrentHashMap<>();
+
+  private final Function<Integer, Integer> randomShard = key ->
+      ThreadLocalRandom.current().nextInt(shardMap.size()) + 1;
 
   @Override
   public int storeData(Data data) {
     var shardId = allocateShard(data);
-    lookupMap.put(data.getKey(), shardId);
     var shard = shardMap.get(shardId);
     shard.storeData(data);
-    LOGGER.info(data.toString() + " is stored in Shard " + shardId);
+    LOGGER.info("{} is stored in Shard {}", data, shardId);
     return shardId;
   }
 
+  /**
+   * Looks up the shard of a known key, or assigns a new key to a random shard. A key is assigned
+   * only once, even when it is stored from many threads at the same time.
+   */
   @Override
   protected int allocateShard(Data data) {
-    var key = data.getKey();
-    if (lookupMap.containsKey(key)) {
-      return lookupMap.get(key);
-    } else {
-      var shardCount = shardMap.size();
-      return new SecureRandom().nextInt(shardCount - 1) + 1;
-    }
+    Integer key = data.getKey();
+    var shardId = lookupMap.get(key);
+    return shardId != null ? shardId : lookupMap.computeIfAbsent(key, randomShard);
   }
 
 }
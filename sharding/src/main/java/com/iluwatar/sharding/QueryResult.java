@@ -0,0 +1,47 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.Set;
+
+/**
+ * Result of a query across shards, with the shards that did not answer.
+ *
+ * @param value merged result of the shards that answered
+ * @param timedOutShards ids of the shards that did not answer in time
+ * @param failedShards ids of the shards that failed or were not queried for lack of capacity
+ * @param <T> type of the merged result
+ */
+public record QueryResult<T>(T value, Set<Integer> timedOutShards, Set<Integer> failedShards) {
+
+  /**
+   * Check whether some shards are missing from the result.
+   *
+   * @return {@code true} if a shard timed out or failed
+   */
+  public boolean isPartial() {
+    return !timedOutShards.isEmpty() || !failedShards.isEmpty();
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ShardManager that moves data between shards while data is stored and read. Keys are routed by an
+ * immutable {@link Router}. A subclass publishes a new router and then moves the data that the new
+ * router places elsewhere: from then on data is stored in the new owner, a store that raced with
+ * the change follows it, and a read that misses in the new owner falls back to the old one until
+ * the move is finished.
+ */
+@Slf4j
+public abstract class RebalancingShardManager extends ShardManager {
+
+  /**
+   * Immutable routing of keys to shards.
+   */
+  interface Router {
+
+    /**
+     * Get the shard that owns a key.
+     *
+     * @param key data key
+     * @return id of the shard, or a negative number if there is no shard
+     */
+    int shardOf(int key);
+  }
+
+  private volatile Router router;
+  private volatile Router previousRouter;
+
+  RebalancingShardManager(Router router) {
+    this.router = router;
+  }
+
+  Router router() {
+    return router;
+  }
+
+  /**
+   * Route keys with a new router, keeping the current one for reads until {@link #finishMove()}.
+   */
+  void publish(Router target) {
+    previousRouter = router;
+    router = target;
+  }
+
+  /**
+   * Move the data of a shard that the current router places in other shards.
+   *
+   * @param source shard to move data from
+   * @param scanned counts the data looked at
+   * @param moved counts the data moved
+   */
+  void moveData(Shard source, AtomicLong scanned, AtomicLong moved) {
+    var target = router;
+    for (var data : source.getAllData()) {
+      var owner = shardMap.get(target.shardOf(data.getKey()));
+      if (owner != source) {
+        // a newer store to the owner wins over the data moved from the source
+        owner.storeDataIfAbsent(data);
+        if (source.removeData(data)) {
+          moved.incrementAndGet();
+        }
+      }
+      scanned.incrementAndGet();
+    }
+  }
+
+  /**
+   * Stop reading from the owners before the last {@link #publish(Router)}.
+   */
+  void finishMove() {
+    previousRouter = null;
+  }
+
+  @Override
+  public int storeData(Data data) {
+    Shard stored = null;
+    var current = router;
+    while (true) {
+      var shardId = ownerOf(current, data);
+      var shard = shardMap.get(shardId);
+      if (shard != null && shard != stored) {
+        shard.storeData(data);
+        if (stored != null) {
+          stored.removeData(data);
+        }
+        stored = shard;
+      }
+      // a move that started during the store may have passed the key by in the old owner
+      var latest = router;
+      if (latest == current && shard != null) {
+        LOGGER.info("{} is stored in Shard {}", data, shardId);
+        return shardId;
+      }
+      current = latest;
+    }
+  }
+
+  /**
+   * Get data by key from the shard that owns it, also while the key is moved to that shard.
+   *
+   * @param key data key
+   * @return the data, or {@code null} if there is no data with the key
+   */
+  public Data getDataById(final int key) {
+    while (true) {
+      var current = router;
+      var previous = previousRouter;
+      var data = find(current, key);
+      if (data == null && previous != null) {
+        data = find(previous, key);
+        if (data == null) {
+          // moved to the new owner after the first read
+          data = find(current, key);
+        }
+      }
+      // a move that started or finished meanwhile may have passed the key by, look again
+      if (data != null || router == current && previousRouter == previous) {
+        return data;
+      }
+    }
+  }
+
+  private Data find(Router router, int key) {
+    var shard = shardMap.get(router.shardOf(key));
+    return shard == null ? null : shard.getDataById(key);
+  }
+
+  @Override
+  protected int allocateShard(Data data) {
+    return ownerOf(router, data);
+  }
+
+  private static int ownerOf(Router router, Data data) {
+    var shardId = router.shardOf(data.getKey());
+    if (shardId < 0) {
+      throw new IllegalStateException("No shard to store " + data);
+    }
+    return shardId;
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queries across all shards of a {@link ShardManager}. A query is scattered to every shard at once
+ * on a bounded pool of threads, and the answers are merged as they arrive, so that a top-N query
+ * keeps no more than N data per shard. A shard that does not answer within the timeout, or that
+ * cannot be queried because the pool is full, is left out and reported in the {@link QueryResult}.
+ * A shard that timed out keeps its thread until it answers.
+ *
+ * <p>Every query goes to every shard, as the managers do not all route by key alone. Data that is
+ * found in two shards while a {@link ConsistentHashShardManager} moves it is reported once.
+ */
+@Slf4j
+public class ScatterGatherQuery implements AutoCloseable {
+
+  private static final int DEFAULT_THREADS = 4;
+  private static final int DEFAULT_QUEUE_CAPACITY = 64;
+  private static final Duration DEFAULT_SHARD_TIMEOUT = Duration.ofSeconds(1);
+
+  private final ShardManager shardManager;
+  private final ThreadPoolExecutor executor;
+  private final long shardTimeoutNanos;
+
+  /**
+   * Ctor with 4 threads, room for 64 waiting shard queries and a timeout of 1 second per shard.
+   *
+   * @param shardManager manager of the shards to query
+   */
+  public ScatterGatherQuery(ShardManager shardManager) {
+    this(shardManager, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_SHARD_TIMEOUT);
+  }
+
+  /**
+   * Ctor.
+   *
+   * @param shardManager manager of the shards to query
+   * @param threads threads that query shards
+   * @param queueCapacity shard queries that can wait for a thread
+   * @param shardTimeout time a shard has to answer before it is left out of the result
+   */
+  public ScatterGatherQuery(ShardManager shardManager, int threads, int queueCapacity,
+                            Duration shardTimeout) {
+    this.shardManager = shardManager;
+    this.shardTimeoutNanos = shardTimeout.toNanos();
+    var count = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          var thread = new Thread(runnable, "shard-query-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Get the data of many keys at once.
+   *
+   * @param keys data keys
+   * @return data by key, for the keys that are found
+   */
+  public CompletableFuture<QueryResult<Map<Integer, Data>>> getAll(Collection<Integer> keys) {
+    var wanted = Set.copyOf(keys);
+    return scatter(shard -> {
+      var found = new ArrayList<Data>();
+      for (var key : wanted) {
+        var data = shard.getDataById(key);
+        if (data != null) {
+          found.add(data);
+        }
+      }
+      return found;
+    }, merged -> { }, Map::copyOf);
+  }
+
+  /**
+   * Find all data of a type.
+   *
+   * @param type data type
+   * @return data of the type, ordered by key
+   */
+  public CompletableFuture<QueryResult<List<Data>>> findByType(Data.DataType type) {
+    return scatter(shard -> {
+      var found = new ArrayList<Data>();
+      shard.forEachData(data -> {
+        if (data.getType() == type) {
+          found.add(data);
+        }
+      });
+      return found;
+    }, merged -> { }, merged -> sorted(merged, Comparator.comparingInt(Data::getKey)));
+  }
+
+  /**
+   * Find the first data in an order.
+   *
+   * @param n maximum number of data to find
+   * @param order order of the data
+   * @return the first {@code n} data in the order
+   */
+  public CompletableFuture<QueryResult<List<Data>>> topN(int n, Comparator<Data> order) {
+    if (n < 1) {
+      throw new IllegalArgumentException("n must be positive: " + n);
+    }
+    return scatter(shard -> {
+      // the last in the order is at the head, to be replaced by anything earlier
+      var top = new PriorityQueue<>(n, order.reversed());
+      shard.forEachData(data -> {
+        if (top.size() < n) {
+          top.add(data);
+        } else if (order.compare(data, top.peek()) < 0) {
+          top.poll();
+          top.add(data);
+        }
+      });
+      return top;
+    }, merged -> {
+      if (merged.size() > n) {
+        var top = sorted(merged, order).subList(0, n);
+        merged.clear();
+        top.forEach(data -> merged.put(data.getKey(), data));
+      }
+    }, merged -> sorted(merged, order));
+  }
+
+  /**
+   * Scatter a query to every shard and merge the answers in the order they arrive.
+   *
+   * @param query finds data in one shard
+   * @param afterMerge called with the merged data after the data of a shard is merged
+   * @param finish turns the merged data into the result
+   */
+  private <T> CompletableFuture<QueryResult<T>> scatter(
+      Function<Shard, Collection<Data>> query,
+      Consumer<Map<Integer, Data>> afterMerge,
+      Function<Map<Integer, Data>, T> finish) {
+    var merged = new HashMap<Integer, Data>();
+    var timedOut = new HashSet<Integer>();
+    var failed = new HashSet<Integer>();
+    var answers = new ArrayList<CompletableFuture<Void>>();
+    for (var shard : shardManager.getShards()) {
+      CompletableFuture<Collection<Data>> answer;
+      try {
+        answer = CompletableFuture.supplyAsync(() -> query.apply(shard), executor)
+            .orTimeout(shardTimeoutNanos, TimeUnit.NANOSECONDS);
+      } catch (RuntimeException e) {
+        answer = CompletableFuture.failedFuture(e);
+      }
+      answers.add(answer.handle((found, error) -> {
+        synchronized (merged) {
+          if (error == null) {
+            found.forEach(data -> merged.put(data.getKey(), data));
+            afterMerge.accept(merged);
+          } else if (error instanceof TimeoutException) {
+            timedOut.add(shard.getId());
+          } else {
+            LOGGER.warn("Query of Shard {} failed", shard.getId(), error);
+            failed.add(shard.getId());
+          }
+        }
+        return null;
+      }));
+    }
+    return CompletableFuture.allOf(answers.toArray(CompletableFuture[]::new))
+        .thenApply(ignored -> {
+          synchronized (merged) {
+            return new QueryResult<>(finish.apply(merged), Set.copyOf(timedOut),
+                Set.copyOf(failed));
+          }
+        });
+  }
+
+  private static List<Data> sorted(Map<Integer, Data> merged, Comparator<Data> order) {
+    var list = new ArrayList<>(merged.values());
+    list.sort(order);
+    return list;
+  }
+
+  /**
+   * Stop the threads once the running queries are done.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -24,37 +24,118 @@
  */
 package com.iluwatar.sharding;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
- * The Shard class stored data in a HashMap.
+ * The Shard class stored data in a ConcurrentHashMap, so that it can be loaded from many threads.
  */
 public class Shard {
 
   private final int id;
 
+  /**
+   * Estimated heap used by an entry besides the characters of its value: the map node, the boxed
+   * key, the data and the string.
+   */
+  private static final int ENTRY_OVERHEAD = 96;
+
   private final Map<Integer, Data> dataStore;
 
+  private final LongAdder bytes = new LongAdder();
+
   public Shard(final int id) {
     this.id = id;
-    this.dataStore = new HashMap<>();
+    this.dataStore = new ConcurrentHashMap<>();
   }
 
   public void storeData(Data data) {
-    dataStore.put(data.getKey(), data);
+    var previous = dataStore.put(data.getKey(), data);
+    bytes.add(sizeOf(data) - sizeOf(previous));
+  }
+
+  /**
+   * Store data unless the shard already holds data with the same key.
+   *
+   * @param data new data
+   * @return {@code true} if the data is stored
+   */
+  public boolean storeDataIfAbsent(Data data) {
+    if (dataStore.putIfAbsent(data.getKey(), data) == null) {
+      bytes.add(sizeOf(data));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Remove data, unless its key has been stored again with other data in the meantime.
+   *
+   * @param data data to remove
+   * @return {@code true} if the data is removed
+   */
+  public boolean removeData(Data data) {
+    if (dataStore.remove(data.getKey(), data)) {
+      bytes.add(-sizeOf(data));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Get a snapshot of the data stored in this shard.
+   *
+   * @return data in no particular order
+   */
+  public List<Data> getAllData() {
+    return new ArrayList<>(dataStore.values());
+  }
+
+  /**
+   * Visit the data stored in this shard, also while it is stored and removed from other threads.
+   *
+   * @param action called for every data, in no particular order
+   */
+  public void forEachData(Consumer<Data> action) {
+    dataStore.values().forEach(action);
   }
 
   public void clearData() {
     dataStore.clear();
+    bytes.reset();
   }
 
   public Data getDataById(final int id) {
     return dataStore.get(id);
   }
 
+  public int size() {
+    return dataStore.size();
+  }
+
+  /**
+   * Get the estimated heap used by the data in this shard.
+   *
+   * @return bytes
+   */
+  public long getSizeInBytes() {
+    return bytes.sum();
+  }
+
   public int getId() {
     return id;
   }
 
+  private static long sizeOf(Data data) {
+    if (data == null) {
+      return 0;
+    }
+    var value = data.getValue();
+    return ENTRY_OVERHEAD + (value == null ? 0 : value.length());
+  }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load of a shard: the operations per second over the last sampling interval, the bytes it holds,
+ * and a sample of the keys of recent operations. Recording an operation adds to a striped counter
+ * and overwrites a random slot of the key sample, so shards under heavy load from many threads do
+ * not contend on a single field, and keys that are hit more often fill more of the sample.
+ */
+public class ShardLoad {
+
+  private static final int KEY_SAMPLES = 1024;
+  private static final int NO_KEY = Integer.MIN_VALUE;
+
+  private final Shard shard;
+  private final LongAdder operations = new LongAdder();
+  private final int[] keySamples = new int[KEY_SAMPLES];
+
+  private long sampledOperations;
+  private long sampledAtNanos;
+  private volatile double operationsPerSecond;
+
+  ShardLoad(Shard shard, long nowNanos) {
+    this.shard = shard;
+    this.sampledAtNanos = nowNanos;
+    Arrays.fill(keySamples, NO_KEY);
+  }
+
+  void record(int key) {
+    operations.increment();
+    keySamples[ThreadLocalRandom.current().nextInt(KEY_SAMPLES)] = key;
+  }
+
+  /**
+   * Compute the operations per second since the last sample; called by one thread at a time.
+   */
+  synchronized void sample(long nowNanos) {
+    var total = operations.sum();
+    var elapsed = nowNanos - sampledAtNanos;
+    if (elapsed > 0) {
+      operationsPerSecond = (total - sampledOperations) * 1e9 / elapsed;
+      sampledOperations = total;
+      sampledAtNanos = nowNanos;
+    }
+  }
+
+  /**
+   * Get the sampled keys of recent operations, sorted.
+   */
+  int[] sampledKeys() {
+    return Arrays.stream(keySamples.clone()).filter(key -> key != NO_KEY).sorted().toArray();
+  }
+
+  /**
+   * Forget the sampled keys, after the shard gave some of them away.
+   */
+  void clearSampledKeys() {
+    Arrays.fill(keySamples, NO_KEY);
+  }
+
+  public int getShardId() {
+    return shard.getId();
+  }
+
+  public long getOperations() {
+    return operations.sum();
+  }
+
+  public double getOperationsPerSecond() {
+    return operationsPerSecond;
+  }
+
+  public long getBytes() {
+    return shard.getSizeInBytes();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Shard %d: %.0f ops/s, %d bytes", getShardId(), operationsPerSecond,
+        getBytes());
+  }
+}
@@ -24,12 +24,14 @@
  */
 package com.iluwatar.sharding;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Abstract class for ShardManager.
+ * Abstract class for ShardManager. The shard map is safe to use from many threads.
  */
 @Slf4j
 public abstract class ShardManager {
@@ -37,7 +39,7 @@ public abstract class ShardManager {
   protected Map<Integer, Shard> shardMap;
 
   public ShardManager() {
-    shardMap = new HashMap<>();
+    shardMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -48,13 +50,7 @@ public abstract class ShardManager {
    *         {@code false} if the shardId is already existed.
    */
   public boolean addNewShard(final Shard shard) {
-    var shardId = shard.getId();
-    if (!shardMap.containsKey(shardId)) {
-      shardMap.put(shardId, shard);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.putIfAbsent(shard.getId(), shard) == null;
   }
 
   /**
@@ -64,12 +60,7 @@ public abstract class ShardManager {
    * @return {@code true} if removed. {@code false} if the shardId is not existed.
    */
   public boolean removeShardById(final int shardId) {
-    if (shardMap.containsKey(shardId)) {
-      shardMap.remove(shardId);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.remove(shardId) != null;
   }
 
   /**
@@ -82,6 +73,15 @@ public abstract class ShardManager {
     return shardMap.get(shardId);
   }
 
+  /**
+   * Get all shard instances.
+   *
+   * @return snapshot of the shards, in no particular order
+   */
+  public Collection<Shard> getShards() {
+    return List.copyOf(shardMap.values());
+  }
+
   /**
    * Store data in proper shard instance.
    *
@@ -0,0 +1,166 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ConsistentHashShardManager class.
+ */
+class ConsistentHashShardManagerTest {
+
+  private static final int KEYS = 3000;
+
+  private ConsistentHashShardManager manager;
+
+  /**
+   * Initialize manager instance with three shards and data.
+   */
+  @BeforeEach
+  void setup() {
+    manager = new ConsistentHashShardManager();
+    for (var shardId = 1; shardId <= 3; shardId++) {
+      manager.addNewShard(new Shard(shardId));
+    }
+    for (var key = 1; key <= KEYS; key++) {
+      manager.storeData(new Data(key, "data" + key, Data.DataType.TYPE_1));
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    manager.close();
+  }
+
+  @Test
+  void testStoreData() {
+    var data = new Data(KEYS + 1, "test", Data.DataType.TYPE_1);
+    var shardId = manager.storeData(data);
+    assertSame(data, manager.getShardById(shardId).getDataById(KEYS + 1));
+    assertSame(data, manager.getDataById(KEYS + 1));
+    for (var id = 1; id <= 3; id++) {
+      assertTrue(manager.getShardById(id).size() > KEYS / 5, "every shard holds its share");
+    }
+  }
+
+  @Test
+  void testAddNewShardMovesOnlyItsShare() {
+    var before = owners();
+    var rebalance = manager.addNewShard(new Shard(4), 1);
+    assertSame(rebalance, rebalance.getCompletion().join());
+    var after = owners();
+    var moved = 0;
+    for (var key = 1; key <= KEYS; key++) {
+      if (!before.get(key).equals(after.get(key))) {
+        assertEquals(4, after.get(key), "keys only move to the new shard");
+        moved++;
+      }
+    }
+    assertEquals(moved, rebalance.getMovedKeys());
+    assertEquals(KEYS, rebalance.getScannedKeys());
+    assertEquals(1, rebalance.getProgress());
+    assertTrue(moved > KEYS / 8 && moved < KEYS / 2, "moved " + moved);
+  }
+
+  @Test
+  void testRemoveShardMovesItsData() {
+    var removed = manager.getShardById(2);
+    var size = removed.size();
+    var rebalance = manager.removeShard(2);
+    rebalance.getCompletion().join();
+    assertNull(manager.getShardById(2));
+    assertEquals(0, removed.size());
+    assertEquals(size, rebalance.getMovedKeys());
+    assertEquals(KEYS, manager.getShardById(1).size() + manager.getShardById(3).size());
+    assertFalse(manager.removeShardById(2));
+  }
+
+  @Test
+  void testCannotRemoveLastShard() {
+    manager.removeShard(1);
+    manager.removeShard(2);
+    assertThrows(IllegalStateException.class, () -> manager.removeShard(3));
+  }
+
+  @Test
+  void testWeight() {
+    manager.addNewShard(new Shard(4), 3).getCompletion().join();
+    var heavy = manager.getShardById(4).size();
+    var light = manager.getShardById(1).size();
+    assertTrue(heavy > 2 * light, heavy + " keys against " + light);
+  }
+
+  @Test
+  void testStoreAndReadDuringRebalance() {
+    var done = new AtomicBoolean();
+    var load = CompletableFuture.runAsync(() -> {
+      for (var round = 0; !done.get(); round++) {
+        for (var key = 1; key <= KEYS; key++) {
+          var data = manager.getDataById(key);
+          assertTrue(data != null, "key " + key + " is readable");
+          if (key % 10 == round % 10) {
+            manager.storeData(new Data(key, "round" + round, Data.DataType.TYPE_1));
+          }
+        }
+      }
+    });
+    manager.addNewShard(new Shard(4), 1).getCompletion().join();
+    manager.removeShard(1).getCompletion().join();
+    done.set(true);
+    load.join();
+    var owners = owners();
+    var total = 0;
+    for (var shardId = 2; shardId <= 4; shardId++) {
+      total += manager.getShardById(shardId).size();
+    }
+    assertEquals(KEYS, total, "no key is stranded or lost");
+    assertEquals(KEYS, owners.size());
+  }
+
+  private HashMap<Integer, Integer> owners() {
+    var owners = new HashMap<Integer, Integer>();
+    for (var shardId = 1; shardId <= 4; shardId++) {
+      var shard = manager.getShardById(shardId);
+      if (shard != null) {
+        for (var data : shard.getAllData()) {
+          owners.put(data.getKey(), shardId);
+        }
+      }
+    }
+    return owners;
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for DynamicRangeShardManager class.
+ */
+class DynamicRangeShardManagerTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private final long[] now = new long[1];
+
+  private DynamicRangeShardManager manager;
+
+  /**
+   * Initialize manager instance with three shards and a limit of 100 operations per second.
+   */
+  @BeforeEach
+  void setup() {
+    manager = new DynamicRangeShardManager(100, 100_000, () -> now[0]);
+    for (var shardId = 1; shardId <= 3; shardId++) {
+      manager.addNewShard(new Shard(shardId));
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    manager.close();
+  }
+
+  @Test
+  void testFirstShardOwnsAllKeys() {
+    var data = new Data(42, "test", Data.DataType.TYPE_1);
+    assertEquals(1, manager.storeData(data));
+    assertSame(data, manager.getDataById(42));
+    assertEquals(Map.of(Integer.MIN_VALUE, 1), manager.getRanges());
+  }
+
+  @Test
+  void testSplitOverloadedShard() {
+    for (var key = 0; key < 200; key++) {
+      manager.storeData(new Data(key, "data" + key, Data.DataType.TYPE_1));
+    }
+    now[0] += SECOND;
+    var split = manager.checkLoad();
+    assertNotNull(split);
+    assertEquals(1, split.fromShardId());
+    assertTrue(split.fromKey() > 50 && split.fromKey() < 150, "split at " + split.fromKey());
+    assertEquals(200 - split.fromKey(), split.movedKeys());
+    assertEquals(split.toShardId(), manager.getRanges().get(split.fromKey()));
+    for (var key = 0; key < 200; key++) {
+      var owner = manager.getShardById(key < split.fromKey() ? 1 : split.toShardId());
+      assertNotNull(owner.getDataById(key), "key " + key + " is in its owner");
+      assertNotNull(manager.getDataById(key));
+    }
+    now[0] += 10 * SECOND;
+    assertNull(manager.checkLoad(), "the load is spread");
+  }
+
+  @Test
+  void testSplitLargeShard() {
+    var large = new DynamicRangeShardManager(Long.MAX_VALUE, 10_000, () -> now[0]);
+    large.addNewShard(new Shard(1));
+    large.addNewShard(new Shard(2));
+    for (var key = 0; key < 200; key++) {
+      large.storeData(new Data(key, "data" + key, Data.DataType.TYPE_1));
+    }
+    var bytes = large.getLoad(1).getBytes();
+    assertTrue(bytes > 10_000, bytes + " bytes");
+    var split = large.checkLoad();
+    assertEquals(100, split.fromKey());
+    assertEquals(bytes, large.getLoad(1).getBytes() + large.getLoad(2).getBytes());
+  }
+
+  @Test
+  void testHotKeyIsKeptAlone() {
+    manager.storeData(new Data(7, "hot", Data.DataType.TYPE_1));
+    for (var key = 100; key < 150; key++) {
+      manager.storeData(new Data(key, "cold", Data.DataType.TYPE_1));
+    }
+    for (var i = 0; i < 500; i++) {
+      manager.getDataById(7);
+    }
+    now[0] += SECOND;
+    var split = manager.checkLoad();
+    assertEquals(8, split.fromKey());
+    assertEquals(50, split.movedKeys());
+    for (var i = 0; i < 500; i++) {
+      manager.getDataById(7);
+    }
+    now[0] += SECOND;
+    assertNull(manager.checkLoad(), "a single key cannot be split");
+  }
+
+  @Test
+  void testRemoveShardMovesItsRanges() {
+    for (var key = 0; key < 200; key++) {
+      manager.storeData(new Data(key, "data" + key, Data.DataType.TYPE_1));
+    }
+    now[0] += SECOND;
+    var split = manager.checkLoad();
+    assertTrue(manager.removeShardById(split.toShardId()));
+    assertNull(manager.getShardById(split.toShardId()));
+    assertFalse(manager.getRanges().containsValue(split.toShardId()));
+    assertEquals(200, manager.getShards().stream().mapToInt(Shard::size).sum());
+    for (var key = 0; key < 200; key++) {
+      assertNotNull(manager.getDataById(key));
+    }
+    var other = manager.getShards().stream().mapToInt(Shard::getId).filter(id -> id != 1)
+        .findFirst().orElseThrow();
+    assertTrue(manager.removeShardById(other));
+    assertEquals(Map.of(Integer.MIN_VALUE, 1), manager.getRanges());
+    assertThrows(IllegalStateException.class, () -> manager.removeShardById(1));
+  }
+
+  @Test
+  void testMonitorSplitsInBackground() {
+    try (var monitored = new DynamicRangeShardManager(1000, Long.MAX_VALUE)) {
+      monitored.addNewShard(new Shard(1));
+      monitored.addNewShard(new Shard(2));
+      monitored.start(Duration.ofMillis(20));
+      var deadline = System.nanoTime() + 5 * SECOND;
+      for (var key = 0; monitored.getRanges().size() == 1 && System.nanoTime() < deadline; key++) {
+        monitored.storeData(new Data(key % 1000, "data", Data.DataType.TYPE_1));
+      }
+      assertEquals(2, monitored.getRanges().size());
+      assertTrue(monitored.getShardById(2).size() > 0);
+    }
+  }
+
+  @Test
+  void testSimulationSpreadsSkewedLoad() {
+    var simulation = new RangeSplitSimulation(7);
+    var staticSkew = simulation.staticRangeSkew();
+    var skews = simulation.dynamicRangeSkew(10);
+    assertTrue(staticSkew > 2, "static skew " + staticSkew);
+    assertTrue(skews.get(0) > 2, "first skew " + skews.get(0));
+    assertTrue(skews.get(skews.size() - 1) < 1.3, "final skews " + skews);
+  }
+}
@@ -25,9 +25,12 @@
 package com.iluwatar.sharding;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -67,4 +70,23 @@ class LookupShardManagerTest {
       fail("Fail to modify field access.");
     }
   }
+
+  @Test
+  void testStoreDataFromManyThreads() {
+    var stores = IntStream.range(0, 4)
+        .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+          for (var key = 1; key <= 1000; key++) {
+            lookupShardManager.storeData(new Data(key, "thread" + thread, Data.DataType.TYPE_1));
+          }
+        }))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(stores).join();
+    var total = 0;
+    for (var shardId = 1; shardId <= 3; shardId++) {
+      var shard = lookupShardManager.getShardById(shardId);
+      assertTrue(shard.size() > 0, "every shard is used");
+      total += shard.size();
+    }
+    assertEquals(1000, total, "every key is in exactly one shard");
+  }
 }
@@ -0,0 +1,148 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simulation of a skewed load on three shards. Keys are drawn from a Zipfian distribution, so the
+ * lowest keys take most of the operations. {@link RangeShardManager}, with a third of the key space
+ * per type, keeps the skew of the first round forever; {@link DynamicRangeShardManager} splits
+ * the hot ranges every simulated second until the load is spread. The skew is the operations of
+ * the busiest shard divided by the mean.
+ */
+public final class RangeSplitSimulation {
+
+  static final int SHARDS = 3;
+  static final int KEYS = 100_000;
+  static final int OPERATIONS_PER_SECOND = 30_000;
+  private static final double ZIPF_EXPONENT = 0.99;
+  private static final long SECOND = 1_000_000_000L;
+
+  private final int[] keys;
+  private int next;
+
+  RangeSplitSimulation(long seed) {
+    var random = new Random(seed);
+    var cumulative = new double[KEYS];
+    var sum = 0d;
+    for (var rank = 0; rank < KEYS; rank++) {
+      sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+      cumulative[rank] = sum;
+    }
+    keys = new int[OPERATIONS_PER_SECOND * 4];
+    for (var i = 0; i < keys.length; i++) {
+      var rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+      keys[i] = rank < 0 ? -rank - 1 : rank;
+    }
+  }
+
+  /**
+   * Skew of the static type ranges of {@link RangeShardManager}.
+   */
+  double staticRangeSkew() {
+    var manager = new RangeShardManager();
+    for (var shardId = 1; shardId <= SHARDS; shardId++) {
+      manager.addNewShard(new Shard(shardId));
+    }
+    var operations = new long[SHARDS + 1];
+    for (var i = 0; i < OPERATIONS_PER_SECOND; i++) {
+      var key = nextKey();
+      operations[manager.storeData(new Data(key, "value", typeOf(key)))]++;
+    }
+    return skew(Arrays.copyOfRange(operations, 1, SHARDS + 1));
+  }
+
+  /**
+   * Skew of {@link DynamicRangeShardManager} after every simulated second, where one in five
+   * operations is a store and the others are reads.
+   */
+  List<Double> dynamicRangeSkew(int seconds) {
+    var now = new long[1];
+    var maxOperationsPerSecond = OPERATIONS_PER_SECOND / SHARDS * 5 / 4;
+    var skews = new ArrayList<Double>();
+    try (var manager = new DynamicRangeShardManager(maxOperationsPerSecond, Long.MAX_VALUE,
+        () -> now[0])) {
+      for (var shardId = 1; shardId <= SHARDS; shardId++) {
+        manager.addNewShard(new Shard(shardId));
+      }
+      for (var second = 0; second < seconds; second++) {
+        for (var i = 0; i < OPERATIONS_PER_SECOND; i++) {
+          var key = nextKey();
+          if (i % 5 == 0) {
+            manager.storeData(new Data(key, "value", typeOf(key)));
+          } else {
+            manager.getDataById(key);
+          }
+        }
+        now[0] += SECOND;
+        manager.checkLoad();
+        skews.add(skew(manager.getLoads().stream()
+            .mapToLong(load -> Math.round(load.getOperationsPerSecond())).toArray()));
+      }
+    }
+    return skews;
+  }
+
+  private int nextKey() {
+    var key = keys[next];
+    next = (next + 1) % keys.length;
+    return key;
+  }
+
+  private static Data.DataType typeOf(int key) {
+    var types = Data.DataType.values();
+    return types[key * types.length / KEYS];
+  }
+
+  private static double skew(long[] operations) {
+    var total = Arrays.stream(operations).sum();
+    return total == 0 ? 0 : Arrays.stream(operations).max().orElse(0) * operations.length
+        / (double) total;
+  }
+
+  /**
+   * Print the skew of both managers.
+   *
+   * @param args program runtime arguments
+   */
+  public static void main(String[] args) {
+    ((Logger) LoggerFactory.getLogger(RangeSplitSimulation.class.getPackageName()))
+        .setLevel(Level.WARN);
+    var simulation = new RangeSplitSimulation(42);
+    System.out.printf("RangeShardManager skew: %.2f%n", simulation.staticRangeSkew());
+    var skews = simulation.dynamicRangeSkew(12);
+    for (var second = 0; second < skews.size(); second++) {
+      System.out.printf("DynamicRangeShardManager skew after %2d s: %.2f%n", second + 1,
+          skews.get(second));
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ScatterGatherQuery class.
+ */
+class ScatterGatherQueryTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private HashShardManager shardManager;
+
+  /**
+   * Initialize shardManager instance with three shards and data of all types.
+   */
+  @BeforeEach
+  void setup() {
+    shardManager = new HashShardManager();
+    for (var shardId = 1; shardId <= 3; shardId++) {
+      shardManager.addNewShard(new Shard(shardId));
+    }
+    var types = Data.DataType.values();
+    for (var key = 1; key <= 30; key++) {
+      shardManager.storeData(new Data(key, "data" + key, types[key / 3 % types.length]));
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+  }
+
+  @Test
+  void testGetAll() {
+    try (var query = new ScatterGatherQuery(shardManager)) {
+      var result = query.getAll(List.of(1, 2, 3, 30, 31)).join();
+      assertFalse(result.isPartial());
+      assertEquals(Set.of(1, 2, 3, 30), result.value().keySet());
+      assertEquals("data30", result.value().get(30).getValue());
+    }
+  }
+
+  @Test
+  void testFindByType() {
+    try (var query = new ScatterGatherQuery(shardManager)) {
+      var result = query.findByType(Data.DataType.TYPE_2).join();
+      var keys = result.value().stream().map(Data::getKey).toList();
+      assertEquals(List.of(3, 4, 5, 12, 13, 14, 21, 22, 23, 30), keys);
+    }
+  }
+
+  @Test
+  void testTopN() {
+    try (var query = new ScatterGatherQuery(shardManager)) {
+      var result = query.topN(4, Comparator.comparingInt(Data::getKey).reversed()).join();
+      var keys = result.value().stream().map(Data::getKey).toList();
+      assertEquals(List.of(30, 29, 28, 27), keys);
+    }
+  }
+
+  @Test
+  void testSlowShardGivesPartialResult() {
+    shardManager.removeShardById(2);
+    shardManager.addNewShard(new BlockingShard(2));
+    shardManager.storeData(new Data(2, "slow", Data.DataType.TYPE_3));
+    try (var query = new ScatterGatherQuery(shardManager, 3, 3, Duration.ofMillis(100))) {
+      var result = query.findByType(Data.DataType.TYPE_3).join();
+      assertTrue(result.isPartial());
+      assertEquals(Set.of(2), result.timedOutShards());
+      assertTrue(result.value().stream().allMatch(data -> data.getKey() % 3 != 2));
+      assertFalse(result.value().isEmpty());
+    }
+  }
+
+  @Test
+  void testFullPoolFailsShard() {
+    var blocking = new HashShardManager();
+    for (var shardId = 1; shardId <= 3; shardId++) {
+      blocking.addNewShard(new BlockingShard(shardId));
+    }
+    try (var query = new ScatterGatherQuery(blocking, 1, 1, Duration.ofMillis(100))) {
+      var result = query.topN(1, Comparator.comparingInt(Data::getKey)).join();
+      assertEquals(1, result.failedShards().size());
+      assertEquals(2, result.timedOutShards().size());
+    }
+  }
+
+  private class BlockingShard extends Shard {
+
+    BlockingShard(int id) {
+      super(id);
+    }
+
+    @Override
+    public void forEachData(Consumer<Data> action) {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.forEachData(action);
+    }
+  }
+}
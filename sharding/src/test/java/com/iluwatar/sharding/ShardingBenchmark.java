@@ -0,0 +1,188 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Throughput of {@link ShardManager#storeData(Data)} for the hash, range and lookup strategies
+ * under uniform, Zipfian and sequential keys. Four threads store precomputed {@link Data} from the
+ * same key stream, each starting at its own offset, so the benchmark loop allocates nothing of its
+ * own and the {@code gc.alloc.rate.norm} column is the cost of the manager and the shard. At the
+ * end of a trial the per-shard skew, the largest shard divided by the mean, is printed for both
+ * the stores each shard served and the keys it holds. Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ShardingBenchmark {
+
+  private static final int SHARDS = 3;
+  private static final int KEYS = 100_000;
+  private static final int STREAM_LENGTH = 1 << 18;
+  private static final double ZIPF_EXPONENT = 0.99;
+
+  @Param({"hash", "range", "lookup"})
+  public String manager;
+
+  @Param({"uniform", "zipfian", "sequential"})
+  public String distribution;
+
+  private ShardManager shardManager;
+  private Shard[] shards;
+  private Data[] stream;
+  private final Queue<Cursor> cursors = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The position of one thread in the key stream, and the stores it routed to every shard.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next;
+    private final long[] stores = new long[SHARDS + 1];
+
+    @Setup
+    public void setUp(ShardingBenchmark benchmark) {
+      next = ThreadLocalRandom.current().nextInt(STREAM_LENGTH);
+      benchmark.cursors.add(this);
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    // the managers log every store; measure building the message, not writing it to the console
+    ((Logger) LoggerFactory.getLogger(ShardingBenchmark.class.getPackageName())).setLevel(Level.WARN);
+    shardManager = switch (manager) {
+      case "hash" -> new HashShardManager();
+      case "range" -> new RangeShardManager();
+      case "lookup" -> new LookupShardManager();
+      default -> throw new IllegalArgumentException(manager);
+    };
+    shards = new Shard[SHARDS];
+    for (var i = 0; i < SHARDS; i++) {
+      shards[i] = new Shard(i + 1);
+      shardManager.addNewShard(shards[i]);
+    }
+    var keys = keys(distribution, new Random(42));
+    stream = new Data[STREAM_LENGTH];
+    for (var i = 0; i < STREAM_LENGTH; i++) {
+      stream[i] = new Data(keys[i], "value", typeOf(keys[i]));
+    }
+  }
+
+  @TearDown
+  public void printSkew() {
+    var stores = new long[SHARDS];
+    for (var cursor : cursors) {
+      for (var i = 0; i < SHARDS; i++) {
+        stores[i] += cursor.stores[i + 1];
+      }
+    }
+    var sizes = Arrays.stream(shards).mapToLong(Shard::size).toArray();
+    System.out.printf("%n%s/%s store skew %.2f %s, key skew %.2f %s%n", manager, distribution,
+        skew(stores), Arrays.toString(stores), skew(sizes), Arrays.toString(sizes));
+  }
+
+  @Benchmark
+  public int storeData(Cursor cursor) {
+    var data = stream[cursor.next];
+    cursor.next = (cursor.next + 1) & (STREAM_LENGTH - 1);
+    var shardId = shardManager.storeData(data);
+    cursor.stores[shardId]++;
+    return shardId;
+  }
+
+  private static int[] keys(String distribution, Random random) {
+    var keys = new int[STREAM_LENGTH];
+    switch (distribution) {
+      case "uniform" -> Arrays.setAll(keys, i -> 1 + random.nextInt(KEYS));
+      case "sequential" -> Arrays.setAll(keys, i -> 1 + i % KEYS);
+      case "zipfian" -> {
+        var cumulative = new double[KEYS];
+        var sum = 0d;
+        for (var rank = 0; rank < KEYS; rank++) {
+          sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+          cumulative[rank] = sum;
+        }
+        for (var i = 0; i < STREAM_LENGTH; i++) {
+          var rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+          keys[i] = 1 + (rank < 0 ? -rank - 1 : rank);
+        }
+      }
+      default -> throw new IllegalArgumentException(distribution);
+    }
+    return keys;
+  }
+
+  /**
+   * Range partitioning on the key: the lowest third of the key space is {@code TYPE_1}, and so on.
+   */
+  private static Data.DataType typeOf(int key) {
+    var types = Data.DataType.values();
+    return types[(key - 1) * types.length / KEYS];
+  }
+
+  private static double skew(long[] counts) {
+    var total = Arrays.stream(counts).sum();
+    var max = Arrays.stream(counts).max().orElse(0);
+    return total == 0 ? 0 : max * (double) counts.length / total;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ShardingBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -40,6 +40,11 @@ import lombok.extern.slf4j.Slf4j;
  * </p>
  * ({@link BarCustomer}) is the service tenant class having a name and the number of calls allowed.
  * ({@link Bartender}) is the service which is consumed by the tenants and is throttled.
+ * <p>
+ * The counters of {@link ThrottleTimerImpl} are reset together every second, so a tenant can get
+ * up to twice its limit through around a reset. The timerless throttlers in the
+ * {@code limiter} package, a token bucket and a sliding window, limit every tenant over any second.
+ * </p>
  */
 @Slf4j
 public class App {
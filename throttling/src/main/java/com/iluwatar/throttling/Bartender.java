@@ -24,42 +24,106 @@
  */
 package com.iluwatar.throttling;
 
+import com.iluwatar.throttling.limiter.AdaptiveConcurrencyLimiter;
 import com.iluwatar.throttling.timer.Throttler;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Bartender is a service which accepts a BarCustomer (tenant) and throttles
  * the resource based on the time given to the tenant.
+ *
+ * <p>In the adaptive mode the bartender does not limit the tenants but the number of drinks being
+ * poured at the same time, adapting that limit to how long pouring takes. An order beyond the
+ * limit is turned down at once instead of waiting for the tap.
  */
 class Bartender {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Bartender.class);
+  private final Throttler throttler;
   private final CallsCount callsCount;
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final IntSupplier pour;
 
   public Bartender(Throttler timer, CallsCount callsCount) {
+    this.throttler = timer;
     this.callsCount = callsCount;
+    this.limiter = null;
+    this.pour = Bartender::getRandomCustomerId;
     timer.start();
   }
 
+  /**
+   * Creates a bartender in the adaptive mode.
+   *
+   * @param limiter limits the drinks poured at the same time.
+   * @param pour pours a drink, returning the customer id.
+   */
+  public Bartender(AdaptiveConcurrencyLimiter limiter, IntSupplier pour) {
+    this.throttler = null;
+    this.callsCount = null;
+    this.limiter = limiter;
+    this.pour = pour;
+  }
+
   /**
    * Orders a drink from the bartender.
    * @return customer id which is randomly generated
    */
   public int orderDrink(BarCustomer barCustomer) {
     var tenantName = barCustomer.getName();
-    var count = callsCount.getCount(tenantName);
-    if (count >= barCustomer.getAllowedCallsPerSecond()) {
+    if (limiter != null) {
+      return pourWithinLimit(tenantName);
+    }
+    if (!throttler.tryAcquire(barCustomer, callsCount)) {
       LOGGER.error("I'm sorry {}, you've had enough for today!", tenantName);
       return -1;
     }
-    callsCount.incrementCount(tenantName);
-    LOGGER.debug("Serving beer to {} : [{} consumed] ", barCustomer.getName(), count + 1);
-    return getRandomCustomerId();
+    LOGGER.debug("Serving beer to {}", tenantName);
+    return pour.getAsInt();
+  }
+
+  private int pourWithinLimit(String tenantName) {
+    var permit = limiter.tryAcquire();
+    if (permit == null) {
+      LOGGER.warn("I'm sorry {}, the tap is busy, come back later!", tenantName);
+      return -1;
+    }
+    try {
+      LOGGER.debug("Serving beer to {}", tenantName);
+      var customerId = pour.getAsInt();
+      permit.release();
+      return customerId;
+    } catch (RuntimeException e) {
+      if (isOverload(e)) {
+        permit.releaseDropped();
+      } else {
+        permit.release();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Tells whether a failed pour says the tap is overloaded. Only a timeout or a rejection does;
+   * any other failure, such as a bad order, says nothing about the load and must not cut the limit.
+   */
+  private static boolean isOverload(Throwable e) {
+    for (var cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException
+          || cause instanceof RejectedExecutionException) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private int getRandomCustomerId() {
+  private static int getRandomCustomerId() {
     return ThreadLocalRandom.current().nextInt(1, 10000);
   }
 }
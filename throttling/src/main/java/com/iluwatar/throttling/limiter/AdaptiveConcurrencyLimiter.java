@@ -0,0 +1,192 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of calls in flight to a downstream service, adapting the limit to the latency
+ * it observes instead of relying on hand-tuned limits. A call beyond the limit is rejected at
+ * once, so an overloaded service sees less load rather than a growing queue, and the latency of
+ * the calls that are let through stays close to the latency of an unloaded service.
+ *
+ * <p>The limit follows a gradient algorithm. A long-term average of the latency serves as the
+ * latency without queueing; the ratio of that average to the latency of a completed call is the
+ * gradient, between 0.5 and 1. Every completed call moves the limit towards the current limit
+ * times the gradient plus a small allowance for queueing, the square root of the limit. While the
+ * latency stays flat the limit grows by the allowance, and once calls start to queue downstream
+ * it shrinks in proportion. A dropped call, one that timed out or was turned down by an overloaded
+ * service, halves the limit.
+ *
+ * <p>Acquiring a permit is a compare-and-set on the number of calls in flight, and so is every
+ * update of the limit and of the latency average on completion; no call ever takes a lock.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final double SMOOTHING = 0.2;
+  private static final double LONG_RTT_ALPHA = 0.01;
+  private static final double BACKOFF_RATIO = 0.5;
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final LongSupplier nanoClock;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  /**
+   * The raw bits of the limit as a double, so it can be moved by fractions of a call.
+   */
+  private final AtomicLong estimatedLimit;
+  /**
+   * The raw bits of the long-term average latency as a double, 0 before the first call.
+   */
+  private final AtomicLong longRtt = new AtomicLong();
+
+  /**
+   * Creates a limiter.
+   *
+   * @param initialLimit calls in flight allowed before any latency has been observed.
+   * @param minLimit     the limit never drops below this.
+   * @param maxLimit     the limit never grows beyond this.
+   */
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    this(initialLimit, minLimit, maxLimit, System::nanoTime);
+  }
+
+  AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+      LongSupplier nanoClock) {
+    if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+      throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.nanoClock = nanoClock;
+    this.estimatedLimit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+  }
+
+  /**
+   * Acquires a permit for a call.
+   *
+   * @return the permit, to be released once the call completes, or null if the limit has been
+   *     reached.
+   */
+  public Permit tryAcquire() {
+    var current = inFlight.get();
+    while (current < getLimit()) {
+      var witness = inFlight.compareAndExchange(current, current + 1);
+      if (witness == current) {
+        return new Permit(current + 1, nanoClock.getAsLong());
+      }
+      current = witness;
+    }
+    return null;
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(estimatedLimit.get());
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private void update(long rtt, int inFlightAtStart, boolean dropped) {
+    if (dropped) {
+      backOff();
+      return;
+    }
+    var sample = (double) Math.max(1, rtt);
+    var average = updateLongRtt(sample);
+    long bits;
+    double next;
+    do {
+      bits = estimatedLimit.get();
+      var estimate = Double.longBitsToDouble(bits);
+      if (inFlightAtStart * 2 < estimate) {
+        // the limit was not what held the calls back, the latency tells nothing about it
+        return;
+      }
+      var gradient = Math.max(MIN_GRADIENT, Math.min(1.0, average / sample));
+      var target = estimate * gradient + Math.sqrt(estimate);
+      next = estimate * (1 - SMOOTHING) + target * SMOOTHING;
+      next = Math.max(minLimit, Math.min(maxLimit, next));
+    } while (!estimatedLimit.compareAndSet(bits, Double.doubleToRawLongBits(next)));
+  }
+
+  private void backOff() {
+    long bits;
+    double next;
+    do {
+      bits = estimatedLimit.get();
+      next = Math.max(minLimit, Double.longBitsToDouble(bits) * BACKOFF_RATIO);
+    } while (!estimatedLimit.compareAndSet(bits, Double.doubleToRawLongBits(next)));
+  }
+
+  private double updateLongRtt(double sample) {
+    long bits;
+    double next;
+    do {
+      bits = longRtt.get();
+      var average = Double.longBitsToDouble(bits);
+      next = average == 0 ? sample : average * (1 - LONG_RTT_ALPHA) + sample * LONG_RTT_ALPHA;
+      if (next > 2 * sample) {
+        // the service has recovered, forget the slow past faster
+        next = next * 0.95;
+      }
+    } while (!longRtt.compareAndSet(bits, Double.doubleToRawLongBits(next)));
+    return next;
+  }
+
+  /**
+   * The permission to make one call. It must be released exactly once.
+   */
+  public final class Permit {
+    private final int inFlightAtStart;
+    private final long start;
+
+    private Permit(int inFlightAtStart, long start) {
+      this.inFlightAtStart = inFlightAtStart;
+      this.start = start;
+    }
+
+    /**
+     * Releases the permit of a call that completed, feeding its latency to the limit.
+     */
+    public void release() {
+      inFlight.decrementAndGet();
+      update(nanoClock.getAsLong() - start, inFlightAtStart, false);
+    }
+
+    /**
+     * Releases the permit of a call that timed out or was rejected by an overloaded service, which
+     * halves the limit. A call that failed for any other reason is released normally.
+     */
+    public void releaseDropped() {
+      inFlight.decrementAndGet();
+      update(nanoClock.getAsLong() - start, inFlightAtStart, true);
+    }
+  }
+}
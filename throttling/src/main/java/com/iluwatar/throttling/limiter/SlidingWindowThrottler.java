@@ -0,0 +1,133 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import com.iluwatar.throttling.BarCustomer;
+import com.iluwatar.throttling.CallsCount;
+import com.iluwatar.throttling.timer.Throttler;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttles every tenant with a sliding window counter over the last second. The calls are counted
+ * per one second window; the calls of the sliding second are estimated as the calls of the current
+ * window plus the calls of the previous window weighted by how much of it the sliding second still
+ * covers. Unlike counters reset together at fixed times, a tenant can never get twice its limit
+ * through around a window edge.
+ *
+ * <p>The window number and both counts of a tenant are packed into one long, so counting a call is
+ * a single compare-and-set without any allocation, and windows roll over lazily when a call
+ * arrives rather than on a timer. The packing limits the allowed rate to
+ * {@value #MAX_CALLS_PER_SECOND} calls per second.
+ */
+public class SlidingWindowThrottler implements Throttler {
+
+  static final int MAX_CALLS_PER_SECOND = 0xFFFF;
+  private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final LongSupplier nanoClock;
+  private final long origin;
+
+  public SlidingWindowThrottler() {
+    this(System::nanoTime);
+  }
+
+  SlidingWindowThrottler(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    this.origin = nanoClock.getAsLong();
+  }
+
+  /**
+   * Nothing to start, the windows roll over on demand.
+   */
+  @Override
+  public void start() {
+    // no timer needed
+  }
+
+  @Override
+  public boolean tryAcquire(BarCustomer barCustomer, CallsCount callsCount) {
+    var counter = counters.get(barCustomer.getName());
+    if (counter == null) {
+      var limit = barCustomer.getAllowedCallsPerSecond();
+      if (limit > MAX_CALLS_PER_SECOND) {
+        throw new IllegalArgumentException("At most " + MAX_CALLS_PER_SECOND
+            + " calls per second supported: " + limit);
+      }
+      counter = counters.computeIfAbsent(barCustomer.getName(), name -> new Counter(limit));
+    }
+    return counter.tryAcquire(nanoClock.getAsLong() - origin);
+  }
+
+  /**
+   * The window counts of one tenant, packed as window number, previous count and current count.
+   */
+  @SuppressWarnings("serial")
+  private static final class Counter extends AtomicLong {
+    private final long limit;
+
+    Counter(int limit) {
+      // the packed state is the value itself, saving an indirection per call
+      this.limit = limit;
+    }
+
+    boolean tryAcquire(long elapsed) {
+      var current = get();
+      while (true) {
+        var window = elapsed / WINDOW;
+        var offset = elapsed % WINDOW;
+        var stateWindow = current >>> 32;
+        if (stateWindow > window) {
+          // another caller has read the clock later, count the call at the start of its window
+          window = stateWindow;
+          offset = 0;
+        }
+        long previousCount;
+        long currentCount;
+        if (stateWindow == window) {
+          previousCount = (current >>> 16) & 0xFFFF;
+          currentCount = current & 0xFFFF;
+        } else {
+          previousCount = stateWindow + 1 == window ? current & 0xFFFF : 0;
+          currentCount = 0;
+        }
+        // previous * (1 - offset / WINDOW) + current + 1 > limit, in integers
+        if (previousCount * (WINDOW - offset) + (currentCount + 1) * WINDOW > limit * WINDOW) {
+          return false;
+        }
+        var next = (window << 32) | (previousCount << 16) | (currentCount + 1);
+        var witness = compareAndExchange(current, next);
+        if (witness == current) {
+          return true;
+        }
+        current = witness;
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import com.iluwatar.throttling.BarCustomer;
+import com.iluwatar.throttling.CallsCount;
+import com.iluwatar.throttling.timer.Throttler;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttles every tenant with a token bucket that holds up to a second's worth of calls and is
+ * refilled at the allowed rate. The bucket is refilled lazily when a call arrives, so no timer
+ * thread is needed and idle tenants cost nothing.
+ *
+ * <p>The bucket of a tenant is kept in its equivalent single-number form, the time at which it
+ * would be full again: every call pushes that time one emission interval further, and a call is
+ * allowed as long as the time stays within a second from now. Taking a token is therefore a
+ * single compare-and-set without any allocation.
+ */
+public class TokenBucketThrottler implements Throttler {
+
+  private static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final LongSupplier nanoClock;
+
+  public TokenBucketThrottler() {
+    this(System::nanoTime);
+  }
+
+  TokenBucketThrottler(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Nothing to start, the buckets are refilled on demand.
+   */
+  @Override
+  public void start() {
+    // no timer needed
+  }
+
+  @Override
+  public boolean tryAcquire(BarCustomer barCustomer, CallsCount callsCount) {
+    var bucket = buckets.get(barCustomer.getName());
+    if (bucket == null) {
+      bucket = buckets.computeIfAbsent(barCustomer.getName(),
+          name -> new Bucket(barCustomer.getAllowedCallsPerSecond(), nanoClock.getAsLong()));
+    }
+    return bucket.tryAcquire(nanoClock.getAsLong());
+  }
+
+  /**
+   * The token bucket of one tenant.
+   */
+  @SuppressWarnings("serial")
+  private static final class Bucket extends AtomicLong {
+    private final long emissionInterval;
+
+    Bucket(int callsPerSecond, long now) {
+      // the time the bucket is full again is the value itself, saving an indirection per call
+      super(now);
+      this.emissionInterval = callsPerSecond == 0 ? Long.MAX_VALUE : PERIOD / callsPerSecond;
+    }
+
+    boolean tryAcquire(long now) {
+      if (emissionInterval == Long.MAX_VALUE) {
+        return false;
+      }
+      var current = get();
+      while (true) {
+        var next = Math.max(current, now) + emissionInterval;
+        if (next - now > PERIOD) {
+          return false;
+        }
+        var witness = compareAndExchange(current, next);
+        if (witness == current) {
+          return true;
+        }
+        current = witness;
+      }
+    }
+  }
+}
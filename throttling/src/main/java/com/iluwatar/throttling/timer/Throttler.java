@@ -24,6 +24,9 @@
  */
 package com.iluwatar.throttling.timer;
 
+import com.iluwatar.throttling.BarCustomer;
+import com.iluwatar.throttling.CallsCount;
+
 /**
  * An interface for defining the structure of different types of throttling ways.
  * @author drastogi
@@ -32,4 +35,22 @@ package com.iluwatar.throttling.timer;
 public interface Throttler {
 
   void start();
+
+  /**
+   * Decides whether the customer may make another call and counts the call if so. By default the
+   * calls are counted in the {@link CallsCount}, which {@link #start()} is expected to reset
+   * periodically.
+   *
+   * @param barCustomer the customer making the call.
+   * @param callsCount the counts of the calls of all customers.
+   * @return true if the call is allowed.
+   */
+  default boolean tryAcquire(BarCustomer barCustomer, CallsCount callsCount) {
+    var tenantName = barCustomer.getName();
+    if (callsCount.getCount(tenantName) >= barCustomer.getAllowedCallsPerSecond()) {
+      return false;
+    }
+    callsCount.incrementCount(tenantName);
+    return true;
+  }
 }
@@ -25,8 +25,11 @@
 package com.iluwatar.throttling;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.iluwatar.throttling.limiter.AdaptiveConcurrencyLimiter;
 import com.iluwatar.throttling.timer.Throttler;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
@@ -48,4 +51,36 @@ class BartenderTest {
     var counter = callsCount.getCount(tenant.getName());
     assertEquals(2, counter, "Counter limit must be reached");
   }
+
+  @Test
+  void adaptiveModeTurnsDownOrdersBeyondTheLimit() {
+    var tenant = new BarCustomer("pirate", 2, callsCount);
+    var limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+    var service = new Bartender(limiter, () -> 42);
+
+    assertEquals(42, service.orderDrink(tenant));
+    var permit = limiter.tryAcquire();
+    assertEquals(-1, service.orderDrink(tenant), "Tap must be busy");
+    permit.release();
+    assertEquals(42, service.orderDrink(tenant));
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void adaptiveModeOnlyBacksOffWhenTheTapIsOverloaded() {
+    var tenant = new BarCustomer("pirate", 2, callsCount);
+    var limiter = new AdaptiveConcurrencyLimiter(8, 1, 8);
+    var service = new Bartender(limiter, () -> {
+      throw new IllegalArgumentException("no such drink");
+    });
+    assertThrows(IllegalArgumentException.class, () -> service.orderDrink(tenant));
+    assertEquals(8, limiter.getLimit(), "A bad order must not cut the limit");
+
+    var overloaded = new Bartender(limiter, () -> {
+      throw new RejectedExecutionException("tap overloaded");
+    });
+    assertThrows(RejectedExecutionException.class, () -> overloaded.orderDrink(tenant));
+    assertEquals(4, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AdaptiveConcurrencyLimiter}.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final AdaptiveConcurrencyLimiter limiter =
+      new AdaptiveConcurrencyLimiter(10, 2, 100, clock::get);
+
+  @Test
+  void rejectsCallsBeyondTheLimitAtOnce() {
+    var permits = new ArrayList<AdaptiveConcurrencyLimiter.Permit>();
+    for (var i = 0; i < 10; i++) {
+      permits.add(limiter.tryAcquire());
+    }
+    assertNull(limiter.tryAcquire());
+    permits.get(0).release();
+    assertNotNull(limiter.tryAcquire());
+  }
+
+  @Test
+  void limitGrowsWhileTheLatencyStaysFlat() {
+    runBatches(50, 10);
+    assertEquals(100, limiter.getLimit());
+  }
+
+  @Test
+  void limitShrinksWhenTheLatencyGrows() {
+    runBatches(20, 10);
+    var unloadedLimit = limiter.getLimit();
+    runBatches(5, 40);
+    assertTrue(limiter.getLimit() < unloadedLimit,
+        "limit " + limiter.getLimit() + " should drop below " + unloadedLimit);
+  }
+
+  @Test
+  void droppedCallHalvesTheLimit() {
+    limiter.tryAcquire().releaseDropped();
+    assertEquals(5, limiter.getLimit());
+    for (var i = 0; i < 10; i++) {
+      limiter.tryAcquire().releaseDropped();
+    }
+    assertEquals(2, limiter.getLimit());
+  }
+
+  /**
+   * Runs batches of calls using the whole limit, each call taking the given latency.
+   */
+  private void runBatches(int batches, long latencyMillis) {
+    for (var batch = 0; batch < batches; batch++) {
+      var permits = new ArrayList<AdaptiveConcurrencyLimiter.Permit>();
+      AdaptiveConcurrencyLimiter.Permit permit;
+      while ((permit = limiter.tryAcquire()) != null) {
+        permits.add(permit);
+      }
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+      permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.iluwatar.throttling.BarCustomer;
+import com.iluwatar.throttling.CallsCount;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SlidingWindowThrottler}.
+ */
+class SlidingWindowThrottlerTest {
+
+  private final CallsCount callsCount = new CallsCount();
+  private final AtomicLong clock = new AtomicLong();
+  private final SlidingWindowThrottler throttler = new SlidingWindowThrottler(clock::get);
+
+  @Test
+  void windowEdgeDoesNotDoubleTheLimit() {
+    var dwarf = new BarCustomer("dwarf soldier", 10, callsCount);
+    clock.set(TimeUnit.MILLISECONDS.toNanos(900));
+    assertEquals(10, allowed(dwarf, 20));
+
+    // a fixed window would allow another 10 calls right after the edge
+    clock.set(TimeUnit.MILLISECONDS.toNanos(1100));
+    assertEquals(1, allowed(dwarf, 20));
+
+    clock.set(TimeUnit.MILLISECONDS.toNanos(1600));
+    assertEquals(5, allowed(dwarf, 20));
+
+    clock.set(TimeUnit.MILLISECONDS.toNanos(3000));
+    assertEquals(10, allowed(dwarf, 20));
+  }
+
+  @Test
+  void concurrentCallersNeverExceedTheLimit() throws Exception {
+    var dwarf = new BarCustomer("dwarf soldier", 1000, callsCount);
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      var futures = new ArrayList<Future<Long>>();
+      for (var i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> allowed(dwarf, 1000)));
+      }
+      var total = 0L;
+      for (var future : futures) {
+        total += future.get();
+      }
+      assertEquals(1000, total);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void rejectsRatesBeyondThePackedCounters() {
+    var giant = new BarCustomer("giant", SlidingWindowThrottler.MAX_CALLS_PER_SECOND + 1,
+        callsCount);
+    assertThrows(IllegalArgumentException.class, () -> throttler.tryAcquire(giant, callsCount));
+  }
+
+  private long allowed(BarCustomer barCustomer, int calls) {
+    return IntStream.range(0, calls)
+        .filter(i -> throttler.tryAcquire(barCustomer, callsCount))
+        .count();
+  }
+}
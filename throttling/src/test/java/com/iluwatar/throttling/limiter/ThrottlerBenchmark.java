@@ -0,0 +1,112 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import com.iluwatar.throttling.BarCustomer;
+import com.iluwatar.throttling.CallsCount;
+import com.iluwatar.throttling.timer.ThrottleTimerImpl;
+import com.iluwatar.throttling.timer.Throttler;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of a throttling decision with many tenants, comparing the fixed window counters reset by
+ * {@link ThrottleTimerImpl} with the timerless {@link TokenBucketThrottler} and
+ * {@link SlidingWindowThrottler}. Four threads call for random tenants; the timer of
+ * {@link ThrottleTimerImpl} resets all counters every second, which shows up in the allocation
+ * rate. Run {@link #main} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ThrottlerBenchmark {
+
+  /**
+   * High enough for nearly every call to be allowed, so the benchmark measures the path that
+   * counts a call rather than the cheaper rejection.
+   */
+  private static final int ALLOWED_CALLS_PER_SECOND = SlidingWindowThrottler.MAX_CALLS_PER_SECOND;
+
+  @Param({"100", "10000", "100000"})
+  public int tenants;
+
+  @Param({"timer", "tokenBucket", "slidingWindow"})
+  public String throttlerType;
+
+  private CallsCount callsCount;
+  private BarCustomer[] customers;
+  private Throttler throttler;
+
+  @Setup
+  public void setUp() {
+    callsCount = new CallsCount();
+    throttler = switch (throttlerType) {
+      case "timer" -> new ThrottleTimerImpl(1000, callsCount);
+      case "tokenBucket" -> new TokenBucketThrottler();
+      case "slidingWindow" -> new SlidingWindowThrottler();
+      default -> throw new IllegalArgumentException(throttlerType);
+    };
+    customers = new BarCustomer[tenants];
+    for (var i = 0; i < tenants; i++) {
+      customers[i] = new BarCustomer("tenant-" + i, ALLOWED_CALLS_PER_SECOND, callsCount);
+      // every throttler sets up the state of a tenant next to the tenant, as the calls count does
+      throttler.tryAcquire(customers[i], callsCount);
+    }
+    throttler.start();
+  }
+
+  @Benchmark
+  public boolean tryAcquire() {
+    var customer = customers[ThreadLocalRandom.current().nextInt(customers.length)];
+    return throttler.tryAcquire(customer, callsCount);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ThrottlerBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.throttling.BarCustomer;
+import com.iluwatar.throttling.CallsCount;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TokenBucketThrottler}.
+ */
+class TokenBucketThrottlerTest {
+
+  private final CallsCount callsCount = new CallsCount();
+  private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+  private final TokenBucketThrottler throttler = new TokenBucketThrottler(clock::get);
+
+  @Test
+  void allowsABurstOfOneSecondThenRefillsAtTheRate() {
+    var dwarf = new BarCustomer("dwarf soldier", 4, callsCount);
+    assertEquals(4, allowed(dwarf, 10));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+    assertEquals(1, allowed(dwarf, 10));
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    // an idle tenant saves up one second's worth of calls at most
+    assertEquals(4, allowed(dwarf, 10));
+  }
+
+  @Test
+  void tenantsAreThrottledIndependently() {
+    var human = new BarCustomer("young human", 1, callsCount);
+    var dwarf = new BarCustomer("dwarf soldier", 2, callsCount);
+    assertTrue(throttler.tryAcquire(human, callsCount));
+    assertFalse(throttler.tryAcquire(human, callsCount));
+    assertEquals(2, allowed(dwarf, 5));
+  }
+
+  @Test
+  void tenantWithoutAllowanceIsNeverServed() {
+    var child = new BarCustomer("child", 0, callsCount);
+    assertEquals(0, allowed(child, 3));
+  }
+
+  private long allowed(BarCustomer barCustomer, int calls) {
+    return IntStream.range(0, calls)
+        .filter(i -> throttler.tryAcquire(barCustomer, callsCount))
+        .count();
+  }
+}